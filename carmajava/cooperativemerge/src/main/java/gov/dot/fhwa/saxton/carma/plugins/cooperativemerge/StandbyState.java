@@ -103,10 +103,11 @@ public class StandbyState implements ICooperativeMergeState {
       // TODO Probably would be good to add a function to route for doing this complicated process which happens alot
       Point3D      meterPoint = new Point3D(meterLoc.getEcefX() / CM_PER_M, meterLoc.getEcefY() / CM_PER_M, meterLoc.getEcefZ() / CM_PER_M);
       Route        route      = pluginServiceLocator.getRouteService().getCurrentRoute();
-      RouteSegment meterSeg   = route.routeSegmentOfPoint(meterPoint, route.getSegments());                   // TODO optimize this
+      int          meterSegIdx = route.routeSegmentIndexOfPoint(meterPoint, 0, route.getSegments().size() - 1);
+      RouteSegment meterSeg   = route.getSegments().get(meterSegIdx);
       // Get the point in location of the meter in segment frame
       Vector3 meterPointInSeg = meterSeg.getECEFToSegmentTransform().invert().apply(new Vector3(meterPoint.getX(), meterPoint.getY(), meterPoint.getZ()));
-      double  segmentDTD      = route.lengthOfSegments(0, meterSeg.getUptrackWaypoint().getWaypointId() - 1);
+      double  segmentDTD      = route.lengthOfSegments(0, meterSegIdx - 1);
       double  meterDTD        = segmentDTD + meterPointInSeg.getX();
       double  mergeDTD        = meterDTD + mergeDTDFromMeter;
 
@@ -48,7 +48,7 @@ import gov.dot.fhwa.saxton.carma.guidance.plugins.PluginManagementService;
 import gov.dot.fhwa.saxton.carma.guidance.plugins.PluginServiceLocator;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPublisher;
-import gov.dot.fhwa.saxton.carma.guidance.signals.Pipeline;
+import gov.dot.fhwa.saxton.carma.guidance.signals.DoublePipeline;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
 import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
@@ -131,7 +131,7 @@ public class ExecutionStateTest {
         when(mockLoggerFactory.createLoggerForClass(any(Class.class))).thenReturn(mockLog);
         LoggerManager.setLoggerFactory(mockLoggerFactory);
         
-        AccStrategyManager.setAccStrategyFactory(new BasicAccStrategyFactory(1.8, 2.5, 0, 0, 1.5, new Pipeline<>()));
+        AccStrategyManager.setAccStrategyFactory(new BasicAccStrategyFactory(1.8, 2.5, 0, 0, 1.5, new DoublePipeline()));
     }
     
     @Test
@@ -107,4 +107,39 @@ public class QuaternionUtils {
     return m;
   }
 
+  /**
+   * Function fills a 3x3 matrix which has the same effect on a vector as {@link Quaternion#rotateAndScaleVector}
+   * The quaternion does not need to be normalized. Any scale it contains is included in the matrix
+   * 
+   * @param x The x component of the quaternion
+   * @param y The y component of the quaternion
+   * @param z The z component of the quaternion
+   * @param w The w component of the quaternion
+   * @param out Array of at least length 9 which will be set to the matrix in row major order
+   */
+  public static void rotateAndScaleMatrix(double x, double y, double z, double w, double[] out) {
+    double xx = x*x;
+    double yy = y*y;
+    double zz = z*z;
+    double ww = w*w;
+    double xy = x*y;
+    double xz = x*z;
+    double xw = x*w;
+    double yz = y*z;
+    double yw = y*w;
+    double zw = z*w;
+
+    out[0] = ww + xx - yy - zz;
+    out[1] = 2.0 * (xy - zw);
+    out[2] = 2.0 * (xz + yw);
+
+    out[3] = 2.0 * (xy + zw);
+    out[4] = ww - xx + yy - zz;
+    out[5] = 2.0 * (yz - xw);
+
+    out[6] = 2.0 * (xz - yw);
+    out[7] = 2.0 * (yz + xw);
+    out[8] = ww - xx - yy + zz;
+  }
+
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
+
+/**
+ * Callback used to receive the results of a collision query without building a result collection
+ * <p>
+ * A single visitor instance can be reused across queries
+ */
+public interface ISpatialCollisionVisitor {
+  /**
+   * Called once for each stored object which collides with the queried region
+   *
+   * @param obj The colliding object
+   *
+   * @return True if the query should continue. False to stop visiting further collisions
+   */
+  boolean visit(CartesianObject obj);
+}
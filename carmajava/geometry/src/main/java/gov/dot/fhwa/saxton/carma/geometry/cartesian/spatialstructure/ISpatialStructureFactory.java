@@ -28,4 +28,12 @@ public interface ISpatialStructureFactory {
      * The returned ISpatialStructure is not guaranteed to be thread safe
      */
     public NSpatialHashMap buildSpatialStructure();
+
+    /**
+     * Build a primitive specialized PackedSpatialHashMap
+     * <p>
+     * 
+     * The returned PackedSpatialHashMap is not thread safe
+     */
+    public PackedSpatialHashMap buildPackedSpatialStructure();
 }
\ No newline at end of file
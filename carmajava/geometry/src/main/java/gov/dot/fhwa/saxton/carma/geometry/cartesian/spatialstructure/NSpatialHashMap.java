@@ -66,7 +66,12 @@ public class NSpatialHashMap implements ISpatialStructure {
     if (obj == null || obj.getNumDimensions() != numDimensions)
       return false; // Cannot insert mismatched dimensions
     if (bounds == null) { // Create bounds if this is the first object
-      bounds = Arrays.copyOf(obj.getBounds(), obj.getBounds().length);
+      // Copy each row so that updating the map bounds does not modify the object's bounds
+      double[][] objBounds = obj.getBounds();
+      bounds = new double[objBounds.length][];
+      for (int i = 0; i < objBounds.length; i++) {
+        bounds[i] = Arrays.copyOf(objBounds[i], objBounds[i].length);
+      }
     }
     
     double[][] minMaxCoordinates = obj.getMinMaxCoordinates();
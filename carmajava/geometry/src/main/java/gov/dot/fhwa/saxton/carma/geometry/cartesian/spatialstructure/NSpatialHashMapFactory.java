@@ -39,4 +39,17 @@ public class NSpatialHashMapFactory implements ISpatialStructureFactory{
     public NSpatialHashMap buildSpatialStructure() {
         return new NSpatialHashMap(new AxisAlignedBoundingBox(), new SimpleHashStrategy(cellDims), new HashMap<>());
     }
+
+    /**
+     * Build a primitive specialized spatial hash map using this factory's cell dimensions
+     * <p>
+     * The returned structure only supports 2D or 3D objects but does not allocate per cell visited
+     * and can report collisions through an {@link ISpatialCollisionVisitor}
+     * 
+     * @return A new PackedSpatialHashMap
+     */
+    @Override
+    public PackedSpatialHashMap buildPackedSpatialStructure() {
+        return new PackedSpatialHashMap(cellDims);
+    }
 }
\ No newline at end of file
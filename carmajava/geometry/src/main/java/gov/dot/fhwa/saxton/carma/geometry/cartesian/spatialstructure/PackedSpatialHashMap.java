@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive specialized 2D/3D Spatial Hash Map
+ * <p>
+ * Functionally equivalent to an {@link NSpatialHashMap} built with a {@link SimpleHashStrategy} and an
+ * AxisAlignedBoundingBox intersection checker, but the cell coordinates of an object are packed into a single long key
+ * and stored in an open-addressed long to int[] table. Objects are referenced by integer id and their bounds are cached in
+ * flat double arrays, so that once the table has grown to its working size insertion, removal and collision queries
+ * do not allocate.
+ * <p>
+ * Collisions can be received through an {@link ISpatialCollisionVisitor} which avoids building a result list.
+ * The {@link ISpatialStructure#getCollisions(CartesianObject)} methods are still supported but allocate their result.
+ * <p>
+ * Each cell coordinate is truncated to 21 bits when packed. Cells further than 2^20 cells from the origin will alias
+ * with other cells, which only adds extra candidates to the exact bounds check and so never causes a missed collision.
+ * This class is not thread safe on its own. Queries also mutate internal state so they must not run concurrently,
+ * except {@link #visitCollisions(Point, ISpatialCollisionVisitor)} which only reads the map and may run concurrently
+ * with other point queries while the map is not modified.
+ */
+public class PackedSpatialHashMap implements ISpatialStructure {
+  public static final int MIN_BOUND_IDX = CartesianObject.MIN_BOUND_IDX;
+  public static final int MAX_BOUND_IDX = CartesianObject.MAX_BOUND_IDX;
+
+  private static final int BITS_PER_DIM = 21;
+  private static final long DIM_MASK = (1L << BITS_PER_DIM) - 1;
+  // Packed keys never set the sign bit so it can mark an empty slot
+  private static final long EMPTY_KEY = Long.MIN_VALUE;
+  private static final int INITIAL_TABLE_CAPACITY = 64;
+  private static final int INITIAL_BUCKET_CAPACITY = 4;
+  private static final int INITIAL_OBJECT_CAPACITY = 32;
+
+  private final double[] cellDims;
+  private final int numDimensions;
+  private final long[] minCell;
+  private final long[] maxCell;
+
+  // Open addressed table of cell key -> object ids
+  private long[] keys;
+  private int[][] buckets;
+  private int[] bucketSizes;
+  private int usedCells = 0;
+
+  // Object storage indexed by id
+  private CartesianObject[] objects = new CartesianObject[INITIAL_OBJECT_CAPACITY];
+  private double[] objectMins;
+  private double[] objectMaxs;
+  private int[] visitStamps = new int[INITIAL_OBJECT_CAPACITY];
+  private int[] freeIds = new int[INITIAL_OBJECT_CAPACITY];
+  private int freeCount = 0;
+  private int nextId = 0;
+  private int objectCount = 0;
+  private int currentStamp = 0;
+
+  private double[][] bounds;
+
+  // Reusable visitor for hasCollision queries
+  private boolean collisionFound = false;
+  private final ISpatialCollisionVisitor firstCollisionVisitor = (obj) -> {
+    collisionFound = true;
+    return false;
+  };
+
+  /**
+   * Constructor
+   *
+   * @param cellDims The dimensions of a cell which this will map points to. Must be of length 2 or 3
+   *
+   * @throws IllegalArgumentException Thrown if cellDims is not 2D or 3D
+   */
+  public PackedSpatialHashMap(double[] cellDims) throws IllegalArgumentException {
+    if (cellDims == null || cellDims.length < 2 || cellDims.length > 3) {
+      throw new IllegalArgumentException("PackedSpatialHashMap only supports 2 or 3 dimensions");
+    }
+    this.cellDims = Arrays.copyOf(cellDims, cellDims.length);
+    this.numDimensions = cellDims.length;
+    this.minCell = new long[3];
+    this.maxCell = new long[3];
+    this.objectMins = new double[INITIAL_OBJECT_CAPACITY * numDimensions];
+    this.objectMaxs = new double[INITIAL_OBJECT_CAPACITY * numDimensions];
+    allocateTable(INITIAL_TABLE_CAPACITY);
+  }
+
+  @Override
+  public boolean insert(CartesianObject obj) {
+    if (obj == null || obj.getNumDimensions() != numDimensions)
+      return false; // Cannot insert mismatched dimensions
+
+    double[][] objBounds = obj.getBounds();
+    if (bounds == null) { // Create bounds if this is the first object
+      bounds = new double[numDimensions][];
+      for (int i = 0; i < numDimensions; i++) {
+        bounds[i] = Arrays.copyOf(objBounds[i], objBounds[i].length);
+      }
+    }
+
+    int id = allocateId();
+    objects[id] = obj;
+    int offset = id * numDimensions;
+    for (int i = 0; i < numDimensions; i++) {
+      double min = objBounds[i][MIN_BOUND_IDX];
+      double max = objBounds[i][MAX_BOUND_IDX];
+      objectMins[offset + i] = min;
+      objectMaxs[offset + i] = max;
+      if (min < bounds[i][MIN_BOUND_IDX]) {
+        bounds[i][MIN_BOUND_IDX] = min;
+      }
+      if (max > bounds[i][MAX_BOUND_IDX]) {
+        bounds[i][MAX_BOUND_IDX] = max;
+      }
+    }
+    objectCount++;
+
+    computeCellRange(objectMins, objectMaxs, offset);
+    for (long x = minCell[0]; x <= maxCell[0]; x++) {
+      for (long y = minCell[1]; y <= maxCell[1]; y++) {
+        for (long z = minCell[2]; z <= maxCell[2]; z++) {
+          addToCell(packKey(x, y, z), id);
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(CartesianObject obj) {
+    if (bounds == null || obj == null || obj.getNumDimensions() != numDimensions)
+      return false; // Return false if nothing added yet or attempting to remove object of mismatched dimensions.
+
+    computeCellRange(obj.getBounds());
+    // Identify the stored id of this object from the first occupied cell which holds it
+    int id = -1;
+    for (long x = minCell[0]; x <= maxCell[0] && id < 0; x++) {
+      for (long y = minCell[1]; y <= maxCell[1] && id < 0; y++) {
+        for (long z = minCell[2]; z <= maxCell[2] && id < 0; z++) {
+          id = findInCell(packKey(x, y, z), obj);
+        }
+      }
+    }
+    if (id < 0) {
+      return true; // Consistent with NSpatialHashMap which reports success when the region was searched
+    }
+
+    for (long x = minCell[0]; x <= maxCell[0]; x++) {
+      for (long y = minCell[1]; y <= maxCell[1]; y++) {
+        for (long z = minCell[2]; z <= maxCell[2]; z++) {
+          removeFromCell(packKey(x, y, z), id);
+        }
+      }
+    }
+    releaseId(id);
+    return true;
+  }
+
+  /**
+   * Visits all stored objects which collide with the provided object
+   * Each colliding object is visited exactly once per query
+   *
+   * @param obj The object to check collisions against
+   * @param visitor The visitor which will receive each colliding object
+   *
+   * @return False if an invalid object was provided. True otherwise
+   */
+  public boolean visitCollisions(CartesianObject obj, ISpatialCollisionVisitor visitor) {
+    if (obj == null || obj.getNumDimensions() != numDimensions)
+      return false;
+    double[][] objBounds = obj.getBounds();
+    if (numDimensions == 2) {
+      return visitCollisions(objBounds[0][MIN_BOUND_IDX], objBounds[0][MAX_BOUND_IDX],
+        objBounds[1][MIN_BOUND_IDX], objBounds[1][MAX_BOUND_IDX], 0, 0, visitor);
+    }
+    return visitCollisions(objBounds[0][MIN_BOUND_IDX], objBounds[0][MAX_BOUND_IDX],
+      objBounds[1][MIN_BOUND_IDX], objBounds[1][MAX_BOUND_IDX],
+      objBounds[2][MIN_BOUND_IDX], objBounds[2][MAX_BOUND_IDX], visitor);
+  }
+
+  /**
+   * Visits all stored objects which collide with the axis aligned box described by the provided bounds
+   * This allows a query without constructing a CartesianObject for the queried region
+   * For 2D structures the third dimension bounds are ignored
+   *
+   * @param min0 Minimum value of the first dimension
+   * @param max0 Maximum value of the first dimension
+   * @param min1 Minimum value of the second dimension
+   * @param max1 Maximum value of the second dimension
+   * @param min2 Minimum value of the third dimension
+   * @param max2 Maximum value of the third dimension
+   * @param visitor The visitor which will receive each colliding object
+   *
+   * @return Always true. Provided for consistency with {@link #visitCollisions(CartesianObject, ISpatialCollisionVisitor)}
+   */
+  public boolean visitCollisions(double min0, double max0, double min1, double max1, double min2, double max2,
+    ISpatialCollisionVisitor visitor) {
+    if (bounds == null) {
+      return true; // No objects are present
+    }
+    minCell[0] = cellOf(min0, 0);
+    maxCell[0] = cellOf(max0, 0);
+    minCell[1] = cellOf(min1, 1);
+    maxCell[1] = cellOf(max1, 1);
+    if (numDimensions == 3) {
+      minCell[2] = cellOf(min2, 2);
+      maxCell[2] = cellOf(max2, 2);
+    } else {
+      minCell[2] = 0;
+      maxCell[2] = 0;
+    }
+    final int stamp = nextStamp();
+    final boolean threeD = numDimensions == 3;
+    for (long x = minCell[0]; x <= maxCell[0]; x++) {
+      for (long y = minCell[1]; y <= maxCell[1]; y++) {
+        for (long z = minCell[2]; z <= maxCell[2]; z++) {
+          int slot = findSlot(packKey(x, y, z));
+          if (keys[slot] == EMPTY_KEY) {
+            continue;
+          }
+          int[] bucket = buckets[slot];
+          int size = bucketSizes[slot];
+          for (int i = 0; i < size; i++) {
+            int id = bucket[i];
+            if (visitStamps[id] == stamp) {
+              continue; // Already evaluated in this query
+            }
+            visitStamps[id] = stamp;
+            int offset = id * numDimensions;
+            if (Math.max(min0, objectMins[offset]) > Math.min(max0, objectMaxs[offset])
+              || Math.max(min1, objectMins[offset + 1]) > Math.min(max1, objectMaxs[offset + 1])
+              || (threeD && Math.max(min2, objectMins[offset + 2]) > Math.min(max2, objectMaxs[offset + 2]))) {
+              continue;
+            }
+            if (!visitor.visit(objects[id])) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Visits all stored objects which contain the provided point
+   * This query does not mutate the map
+   *
+   * @param p The point to check collisions against
+   * @param visitor The visitor which will receive each colliding object
+   *
+   * @return False if an invalid point was provided. True otherwise
+   */
+  public boolean visitCollisions(Point p, ISpatialCollisionVisitor visitor) {
+    if (p == null || p.getNumDimensions() != numDimensions)
+      return false;
+    if (bounds == null) {
+      return true;
+    }
+    long z = numDimensions == 3 ? cellOf(p.getDim(2), 2) : 0;
+    int slot = findSlot(packKey(cellOf(p.getDim(0), 0), cellOf(p.getDim(1), 1), z));
+    if (keys[slot] == EMPTY_KEY) {
+      return true;
+    }
+    int[] bucket = buckets[slot];
+    int size = bucketSizes[slot];
+    for (int i = 0; i < size; i++) {
+      int id = bucket[i];
+      int offset = id * numDimensions;
+      boolean inside = true;
+      for (int d = 0; d < numDimensions; d++) {
+        double v = p.getDim(d);
+        if (!(objectMins[offset + d] < v && v < objectMaxs[offset + d])) {
+          inside = false;
+          break;
+        }
+      }
+      if (inside && !visitor.visit(objects[id])) {
+        return true;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if any stored object collides with the provided object
+   * Stops at the first collision found
+   *
+   * @param obj The object to check collisions against
+   *
+   * @return True if there is at least one collision
+   */
+  public boolean hasCollision(CartesianObject obj) {
+    collisionFound = false;
+    visitCollisions(obj, firstCollisionVisitor);
+    return collisionFound;
+  }
+
+  @Override
+  public List<CartesianObject> getCollisions(CartesianObject obj) {
+    if (obj == null || obj.getNumDimensions() != numDimensions)
+      return null;
+    final List<CartesianObject> collisions = new ArrayList<>();
+    visitCollisions(obj, collisions::add);
+    return collisions;
+  }
+
+  @Override
+  public List<CartesianObject> getCollisions(Point p) {
+    if (p == null || p.getNumDimensions() != numDimensions)
+      return null;
+    final List<CartesianObject> collisions = new ArrayList<>();
+    visitCollisions(p, collisions::add);
+    return collisions;
+  }
+
+  @Override
+  public boolean surrounds(Point p) {
+    if (p == null || bounds == null || p.getNumDimensions() != numDimensions)
+      return false; // It is impossible for a point with mismatched dimensions to definitely be enclosed
+    for (int i = 0; i < numDimensions; i++) {
+      if (!(bounds[i][MIN_BOUND_IDX] < p.getDim(i) && p.getDim(i) < bounds[i][MAX_BOUND_IDX])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public double[][] getBounds() {
+    return bounds;
+  }
+
+  @Override
+  public int getNumDimensions() {
+    return numDimensions;
+  }
+
+  /**
+   * Gets the number of objects currently stored in this structure
+   *
+   * @return The number of objects
+   */
+  public int size() {
+    return objectCount;
+  }
+
+  /**
+   * Removes all objects from this structure while keeping the allocated storage
+   * This allows a single instance to be reused for repeated queries without generating garbage
+   */
+  public void clear() {
+    Arrays.fill(keys, EMPTY_KEY);
+    Arrays.fill(bucketSizes, 0);
+    Arrays.fill(objects, 0, nextId, null);
+    usedCells = 0;
+    nextId = 0;
+    freeCount = 0;
+    objectCount = 0;
+    bounds = null;
+  }
+
+  /**
+   * Helper function for unit testing
+   * Extreme care should be taken if used outside a testing framework
+   *
+   * @return The number of occupied cells
+   */
+  protected int getNumCells() {
+    return usedCells;
+  }
+
+  /**
+   * Helper function for unit testing
+   * Extreme care should be taken if used outside a testing framework
+   *
+   * @param cell The coordinates of the cell to check
+   *
+   * @return The number of objects stored in the specified cell
+   */
+  protected int getNumObjectsInCell(long... cell) {
+    int slot = findSlot(packKey(cell[0], cell[1], numDimensions == 3 ? cell[2] : 0));
+    return keys[slot] == EMPTY_KEY ? 0 : bucketSizes[slot];
+  }
+
+  /**
+   * Packs the provided cell coordinates into a single key
+   */
+  private static long packKey(long x, long y, long z) {
+    return ((x & DIM_MASK) << (2 * BITS_PER_DIM)) | ((y & DIM_MASK) << BITS_PER_DIM) | (z & DIM_MASK);
+  }
+
+  /**
+   * Computes the cell coordinate of a value along a dimension
+   * The conversion matches SimpleHashStrategy
+   */
+  private long cellOf(double value, int dim) {
+    return (long) (value / cellDims[dim]);
+  }
+
+  /**
+   * Helper function to fill minCell and maxCell from an object's bounds
+   */
+  private void computeCellRange(double[][] objBounds) {
+    for (int i = 0; i < numDimensions; i++) {
+      minCell[i] = cellOf(objBounds[i][MIN_BOUND_IDX], i);
+      maxCell[i] = cellOf(objBounds[i][MAX_BOUND_IDX], i);
+    }
+    if (numDimensions == 2) {
+      minCell[2] = 0;
+      maxCell[2] = 0;
+    }
+  }
+
+  /**
+   * Helper function to fill minCell and maxCell from cached object bounds
+   */
+  private void computeCellRange(double[] mins, double[] maxs, int offset) {
+    for (int i = 0; i < numDimensions; i++) {
+      minCell[i] = cellOf(mins[offset + i], i);
+      maxCell[i] = cellOf(maxs[offset + i], i);
+    }
+    if (numDimensions == 2) {
+      minCell[2] = 0;
+      maxCell[2] = 0;
+    }
+  }
+
+  /**
+   * Finds the slot which holds the provided key or the empty slot where it would be placed
+   */
+  private int findSlot(long key) {
+    final int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Finalization step of the 64 bit murmur hash used to spread packed keys across the table
+   */
+  private static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  private void addToCell(long key, int id) {
+    int slot = findSlot(key);
+    if (keys[slot] == EMPTY_KEY) {
+      if ((usedCells + 1) * 2 > keys.length) {
+        rehash(keys.length * 2);
+        slot = findSlot(key);
+      }
+      keys[slot] = key;
+      bucketSizes[slot] = 0;
+      usedCells++;
+    }
+    int[] bucket = buckets[slot];
+    if (bucket == null) {
+      bucket = new int[INITIAL_BUCKET_CAPACITY];
+      buckets[slot] = bucket;
+    } else if (bucketSizes[slot] == bucket.length) {
+      bucket = Arrays.copyOf(bucket, bucket.length * 2);
+      buckets[slot] = bucket;
+    }
+    bucket[bucketSizes[slot]++] = id;
+  }
+
+  private int findInCell(long key, CartesianObject obj) {
+    int slot = findSlot(key);
+    if (keys[slot] == EMPTY_KEY) {
+      return -1;
+    }
+    int[] bucket = buckets[slot];
+    for (int i = 0; i < bucketSizes[slot]; i++) {
+      if (obj.equals(objects[bucket[i]])) {
+        return bucket[i];
+      }
+    }
+    return -1;
+  }
+
+  private void removeFromCell(long key, int id) {
+    int slot = findSlot(key);
+    if (keys[slot] == EMPTY_KEY) {
+      return;
+    }
+    // Cells are left in the table once emptied as they are likely to be reused
+    int[] bucket = buckets[slot];
+    int size = bucketSizes[slot];
+    for (int i = 0; i < size; i++) {
+      if (bucket[i] == id) {
+        bucket[i] = bucket[size - 1];
+        bucketSizes[slot] = size - 1;
+        return;
+      }
+    }
+  }
+
+  private void allocateTable(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY_KEY);
+    buckets = new int[capacity][];
+    bucketSizes = new int[capacity];
+  }
+
+  private void rehash(int newCapacity) {
+    long[] oldKeys = keys;
+    int[][] oldBuckets = buckets;
+    int[] oldSizes = bucketSizes;
+    allocateTable(newCapacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == EMPTY_KEY) {
+        continue;
+      }
+      int slot = findSlot(oldKeys[i]);
+      keys[slot] = oldKeys[i];
+      buckets[slot] = oldBuckets[i];
+      bucketSizes[slot] = oldSizes[i];
+    }
+  }
+
+  private int allocateId() {
+    if (freeCount > 0) {
+      return freeIds[--freeCount];
+    }
+    if (nextId == objects.length) {
+      int newCapacity = objects.length * 2;
+      objects = Arrays.copyOf(objects, newCapacity);
+      objectMins = Arrays.copyOf(objectMins, newCapacity * numDimensions);
+      objectMaxs = Arrays.copyOf(objectMaxs, newCapacity * numDimensions);
+      visitStamps = Arrays.copyOf(visitStamps, newCapacity);
+      freeIds = Arrays.copyOf(freeIds, newCapacity);
+    }
+    return nextId++;
+  }
+
+  private void releaseId(int id) {
+    objects[id] = null;
+    freeIds[freeCount++] = id;
+    objectCount--;
+  }
+
+  private int nextStamp() {
+    currentStamp++;
+    if (currentStamp == 0) { // Stamp wrapped around so previous marks must be cleared
+      Arrays.fill(visitStamps, 0);
+      currentStamp = 1;
+    }
+    return currentStamp;
+  }
+}
@@ -157,6 +157,29 @@ public class QuaternionUtilsTest {
     assertTrue(quatEquals(solution, result, 0.00001));
   }
 
+  /**
+   * Tests the rotateAndScaleMatrix function
+   * @throws Exception
+   */
+  @Test
+  public void testRotateAndScaleMatrix() throws Exception {
+    Quaternion[] quats = {
+      Quaternion.identity(),
+      Quaternion.fromAxisAngle(Vector3.zAxis(), Math.PI / 2.0),
+      Quaternion.fromAxisAngle(new Vector3(1, 2, 3), 0.7),
+      new Quaternion(0.2, -0.4, 0.9, 1.3) // Not normalized so includes scale
+    };
+    Vector3 vec = new Vector3(1.5, -2.0, 0.25);
+    double[] m = new double[9];
+    for (Quaternion q : quats) {
+      QuaternionUtils.rotateAndScaleMatrix(q.getX(), q.getY(), q.getZ(), q.getW(), m);
+      Vector3 expected = q.rotateAndScaleVector(vec);
+      assertEquals(expected.getX(), m[0] * vec.getX() + m[1] * vec.getY() + m[2] * vec.getZ(), 0.00001);
+      assertEquals(expected.getY(), m[3] * vec.getX() + m[4] * vec.getY() + m[5] * vec.getZ(), 0.00001);
+      assertEquals(expected.getZ(), m[6] * vec.getX() + m[7] * vec.getY() + m[8] * vec.getZ(), 0.00001);
+    }
+  }
+
   /**
    * Helper function to test if two 3x3 matrices are elementwise equivalent within some epsilon
    */
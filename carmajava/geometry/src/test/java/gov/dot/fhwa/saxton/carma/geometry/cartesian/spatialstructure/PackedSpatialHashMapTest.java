@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.*;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PackedSpatialHashMap class
+ */
+public class PackedSpatialHashMapTest {
+  Log log;
+
+  @Before
+  public void setUp() throws Exception {
+    log = LogFactory.getLog(PackedSpatialHashMapTest.class);
+    log.info("Setting up tests for PackedSpatialHashMap");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+  }
+
+  /**
+   * Tests the insertion of objects into cells
+   * @throws Exception
+   */
+  @Test
+  public void testInsert() throws Exception {
+    // Test 2D
+    double[] cellSizes = {2,2};
+    PackedSpatialHashMap map = new NSpatialHashMapFactory(cellSizes).buildPackedSpatialStructure();
+
+    List<? extends Point> points = new LinkedList<>(Arrays.asList(
+      new Point2D(4,4),
+      new Point2D(7,4),
+      new Point2D(4,2),
+      new Point2D(7,2)
+    ));
+    CartesianObject obj = new CartesianObject(points);
+    CartesianObject obj2 = new CartesianObject(points);
+
+    assertTrue(map.insert(obj));
+    assertEquals(4, map.getNumCells());
+    assertEquals(1, map.getNumObjectsInCell(2,2));
+    assertEquals(1, map.getNumObjectsInCell(3,2));
+    assertEquals(1, map.getNumObjectsInCell(2,1));
+    assertEquals(1, map.getNumObjectsInCell(3,1));
+
+    map.insert(obj2);
+    assertEquals(4, map.getNumCells());
+    assertEquals(2, map.getNumObjectsInCell(2,2));
+    assertEquals(2, map.size());
+
+    // Test 3D object spanning cells
+    cellSizes = new double[]{2,2,2};
+    map = new PackedSpatialHashMap(cellSizes);
+    points = new LinkedList<>(Arrays.asList(
+      new Point3D(1,1,1),
+      new Point3D(3,3,3)
+    ));
+    obj = new CartesianObject(points);
+    map.insert(obj);
+    assertEquals(8, map.getNumCells());
+    assertEquals(1, map.getNumObjectsInCell(1,1,1));
+    assertEquals(1, map.getNumObjectsInCell(0,0,0));
+
+    // Test mismatched dimensions
+    points = new LinkedList<>(Arrays.asList(
+      new Point2D(1,1)
+    ));
+    assertFalse(map.insert(new CartesianObject(points)));
+    assertFalse(map.insert(null));
+  }
+
+  /**
+   * Tests the removal of objects
+   * @throws Exception
+   */
+  @Test
+  public void testRemove() throws Exception {
+    double[] cellSizes = {2,2};
+    PackedSpatialHashMap map = new PackedSpatialHashMap(cellSizes);
+
+    List<? extends Point> points = new LinkedList<>(Arrays.asList(
+      new Point2D(4,4),
+      new Point2D(7,2)
+    ));
+    CartesianObject obj = new CartesianObject(points);
+    CartesianObject obj2 = new CartesianObject(points);
+
+    assertFalse(map.remove(obj)); // Nothing added yet
+
+    map.insert(obj);
+    map.insert(obj2);
+    assertTrue(map.remove(obj));
+    assertEquals(1, map.size());
+    assertEquals(1, map.getNumObjectsInCell(2,2));
+    assertEquals(1, map.getNumObjectsInCell(3,1));
+
+    List<CartesianObject> collisions = map.getCollisions(obj);
+    assertEquals(1, collisions.size());
+    assertTrue(collisions.get(0) == obj2);
+
+    assertTrue(map.remove(obj2));
+    assertEquals(0, map.size());
+    assertTrue(map.getCollisions(obj).isEmpty());
+
+    // Removed ids are reused
+    map.insert(obj);
+    assertEquals(1, map.getCollisions(obj2).size());
+  }
+
+  /**
+   * Tests collision checking against objects and points
+   * @throws Exception
+   */
+  @Test
+  public void testGetCollisions() throws Exception {
+    double[] cellSizes = {2,2,2};
+    PackedSpatialHashMap map = new PackedSpatialHashMap(cellSizes);
+
+    CartesianObject obj = new CartesianObject(Arrays.asList(new Point3D(0,0,0), new Point3D(5,5,5)));
+    CartesianObject obj2 = new CartesianObject(Arrays.asList(new Point3D(4,4,4), new Point3D(9,9,9)));
+    CartesianObject obj3 = new CartesianObject(Arrays.asList(new Point3D(20,20,20), new Point3D(21,21,21)));
+    map.insert(obj);
+    map.insert(obj2);
+    map.insert(obj3);
+
+    CartesianObject query = new CartesianObject(Arrays.asList(new Point3D(3,3,3), new Point3D(4.5,4.5,4.5)));
+    List<CartesianObject> collisions = map.getCollisions(query);
+    assertEquals(2, collisions.size());
+    assertTrue(collisions.contains(obj));
+    assertTrue(collisions.contains(obj2));
+    assertTrue(map.hasCollision(query));
+
+    // Primitive bounds query matches object query
+    final List<CartesianObject> visited = new ArrayList<>();
+    map.visitCollisions(3, 4.5, 3, 4.5, 3, 4.5, visited::add);
+    assertEquals(2, visited.size());
+
+    // Early exit
+    visited.clear();
+    map.visitCollisions(query, (other) -> {
+      visited.add(other);
+      return false;
+    });
+    assertEquals(1, visited.size());
+
+    // Point collisions use strict bounds
+    collisions = map.getCollisions(new Point3D(4.5,4.5,4.5));
+    assertEquals(2, collisions.size());
+    collisions = map.getCollisions(new Point3D(0,0,0));
+    assertEquals(0, collisions.size());
+    collisions = map.getCollisions(new Point3D(20.5,20.5,20.5));
+    assertEquals(1, collisions.size());
+
+    // No collision
+    query = new CartesianObject(Arrays.asList(new Point3D(12,12,12), new Point3D(13,13,13)));
+    assertTrue(map.getCollisions(query).isEmpty());
+    assertFalse(map.hasCollision(query));
+
+    // Invalid input
+    assertNull(map.getCollisions(new CartesianObject(Arrays.asList(new Point2D(1,1)))));
+    assertNull(map.getCollisions(new Point2D(1,1)));
+  }
+
+  /**
+   * Tests that results match the NSpatialHashMap for a random set of boxes including negative coordinates
+   * @throws Exception
+   */
+  @Test
+  public void testMatchesNSpatialHashMap() throws Exception {
+    double[] cellSizes = {5, 3, 1};
+    NSpatialHashMapFactory factory = new NSpatialHashMapFactory(cellSizes);
+    NSpatialHashMap reference = factory.buildSpatialStructure();
+    PackedSpatialHashMap map = factory.buildPackedSpatialStructure();
+    Random rand = new Random(7);
+
+    for (int i = 0; i < 300; i++) {
+      CartesianObject obj = randomBox(rand);
+      reference.insert(obj);
+      map.insert(obj);
+    }
+
+    for (int i = 0; i < 200; i++) {
+      CartesianObject query = randomBox(rand);
+      List<CartesianObject> expected = reference.getCollisions(query);
+      List<CartesianObject> actual = map.getCollisions(query);
+      assertEquals(expected.size(), actual.size());
+      assertTrue(actual.containsAll(expected));
+    }
+
+    assertTrue(Arrays.deepEquals(reference.getBounds(), map.getBounds()));
+    assertTrue(map.surrounds(new Point3D(0,0,0)));
+    assertFalse(map.surrounds(new Point3D(1000,0,0)));
+
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.getBounds());
+    assertTrue(map.getCollisions(randomBox(rand)).isEmpty());
+  }
+
+  private CartesianObject randomBox(Random rand) {
+    double x = rand.nextDouble() * 200 - 100;
+    double y = rand.nextDouble() * 20 - 10;
+    double t = rand.nextDouble() * 30 - 5;
+    return new CartesianObject(Arrays.asList(new Point3D(x, y, t),
+      new Point3D(x + rand.nextDouble() * 10, y + rand.nextDouble() * 4, t + rand.nextDouble() * 2)));
+  }
+}
@@ -131,6 +131,8 @@ public class GuidanceMain extends SaxtonBaseNode {
         tracking, trajectoryConverter);
     LightBarManager lightBarManager = new LightBarManager(stateMachine, pubSubService, node);
     VehicleAwareness vehicleAwareness = new VehicleAwareness(stateMachine, pubSubService, node, trajectoryConverter, conflictManager, tracking);
+    // Registered after the trajectory converter callback so invalidated predictions are rebuilt from the new route state
+    routeService.registerNewRouteStateCallback((state) -> vehicleAwareness.onRouteStateUpdated(state.getDownTrack()));
     MobilityRouter router = new MobilityRouter(stateMachine, pubSubService, node, conflictManager, trajectoryConverter, vehicleAwareness, trajectoryExecutor, tracking);
     ITimeProvider timeProvider = new ROSTimeProvider(node);
     PluginManager pluginManager = new PluginManager(stateMachine, pubSubService, guidanceCommands, maneuverInputs,
@@ -199,6 +201,7 @@ public class GuidanceMain extends SaxtonBaseNode {
     double lateralBias = params.getDouble("~conflict_detection_lateral_bias", 0.0);
     double longitudinalBias = params.getDouble("~conflict_detection_longitudinal_bias", 0.0);
     double temporalBias = params.getDouble("~conflict_detection_temporal_bias", 0.0);
+    double evictionPeriod = params.getDouble("~conflict_map_eviction_period", ConflictManager.DEFAULT_EVICTION_PERIOD);
     // Echo params
     log.info("Param conflict_map_cell_downtrack_size: " + cellDowntrack);
     log.info("Param conflict_map_cell_crosstrack_size: " + cellCrosstrack);
@@ -210,11 +213,12 @@ public class GuidanceMain extends SaxtonBaseNode {
     log.info("Param conflict_detection_lateral_bias: " + lateralBias);
     log.info("Param conflict_detection_longitudinal_bias: " + longitudinalBias);
     log.info("Param conflict_detection_temporal_bias: " + temporalBias);
+    log.info("Param conflict_map_eviction_period: " + evictionPeriod);
     // Set time strategy
     IMobilityTimeProvider timeProvider = new SystemUTCTimeProvider();
     // Build conflict manager
     conflictManager = new ConflictManager(new NSpatialHashMapFactory(cellSize), downtrackMargin, crosstrackMargin, timeMargin, lateralBias,
-    longitudinalBias, temporalBias, timeProvider);
+    longitudinalBias, temporalBias, timeProvider, evictionPeriod);
   }
 
   /**
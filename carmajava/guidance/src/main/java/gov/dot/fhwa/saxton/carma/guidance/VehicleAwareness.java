@@ -17,8 +17,10 @@
 package gov.dot.fhwa.saxton.carma.guidance;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.ros.exception.RosRuntimeException;
 import org.ros.message.MessageFactory;
@@ -35,6 +37,7 @@ import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPublisher;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.Trajectory;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.TrajectoryExecutor;
 import gov.dot.fhwa.saxton.carma.guidance.util.ExecutionTimer;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.TrajectoryConverter;
 
@@ -42,6 +45,10 @@ import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.TrajectoryCon
  * Class responsible for being aware of nearby vehicles and forcing a replan of our current trajectory
  * if we detect and planned conflict. Also responsible for periodic broadcasts of our path prediction for
  * other vehicles to be aware of our plan via the MobilityPath message.
+ * <p>
+ * The host path prediction is cached as an immutable snapshot tagged with a version number. The version is advanced
+ * when a trajectory is planned, rolled or discarded and when the host vehicle moves further along the route than the
+ * configured tolerance. Readers of a still valid snapshot do not take the VehicleAwareness monitor.
  */
 public class VehicleAwareness extends GuidanceComponent implements IStateChangeListener {
     protected long pathPublishInterval = 3000;
@@ -55,8 +62,32 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
     protected MobilityPathHandler conflictHandler;
     protected String mobilitySenderId = "UNKNOWN";
     protected static final String BROADCAST_RECIPIENT_ID = "";
+    public static final String HOST_PATH_DIAGNOSTICS_ID = "host";
     protected IPublisher<MobilityPath> pathPub;
     protected PluginManager pluginManager;
+    protected double pathPredictionDowntrackTolerance = 1.0;
+    protected long pathPredictionMaxAge = 1000;
+    // Path prediction cache
+    protected final AtomicLong pathPredictionVersion = new AtomicLong(0);
+    protected volatile PathPredictionSnapshot pathPredictionSnapshot = null;
+    protected volatile double lastKnownDowntrack = 0.0;
+
+    /**
+     * Immutable host path prediction along with the state it was generated for
+     */
+    protected static final class PathPredictionSnapshot {
+        final long version;
+        final double downtrack;
+        final long createdAtMs;
+        final List<RoutePointStamped> path;
+
+        PathPredictionSnapshot(long version, double downtrack, long createdAtMs, List<RoutePointStamped> path) {
+            this.version = version;
+            this.downtrack = downtrack;
+            this.createdAtMs = createdAtMs;
+            this.path = Collections.unmodifiableList(path);
+        }
+    }
 
     public VehicleAwareness(GuidanceStateMachine stateMachine, IPubSubService pubSubService, ConnectedNode node,
             TrajectoryConverter converter, IConflictDetector conflictDetector, TrackingService tracking) {
@@ -92,9 +123,13 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         pathPublishInterval = node.getParameterTree().getInteger("~mobility_path_publish_interval", 3000);
         mobilitySenderId = node.getParameterTree().getString("~vehicle_id", "UNKNOWN");
         conflictHandlerName = node.getParameterTree().getString("~default_mobility_conflict_handler", "Yield Plugin");
+        pathPredictionDowntrackTolerance = node.getParameterTree().getDouble("~path_prediction_downtrack_tolerance", 1.0);
+        pathPredictionMaxAge = node.getParameterTree().getInteger("~path_prediction_max_age", 1000);
         log.info(String.format(
-                "VehicleAwareness init'd with pathPublishInterval=%d, mobilitySenderId=%s, conflictHandlerName=%s",
-                pathPublishInterval, mobilitySenderId, conflictHandlerName));
+                "VehicleAwareness init'd with pathPublishInterval=%d, mobilitySenderId=%s, conflictHandlerName=%s, "
+                + "pathPredictionDowntrackTolerance=%.02f, pathPredictionMaxAge=%d",
+                pathPublishInterval, mobilitySenderId, conflictHandlerName, pathPredictionDowntrackTolerance,
+                pathPredictionMaxAge));
         pathPub = pubSubService.getPublisherForTopic("outgoing_mobility_path", MobilityPath._TYPE);
     }
 
@@ -119,6 +154,7 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         if (nextTrajectory != null) { // Don't roll if this is the first trajectory
             currentTrajectory = nextTrajectory;
             nextTrajectory = null;
+            invalidatePathPrediction();
             publishMobilityPath();
         }
     }
@@ -138,6 +174,7 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         log.info("Restarting, cleaning up trajectories");
         currentTrajectory = null;
         nextTrajectory = null;
+        invalidatePathPrediction();
     }
 
     @Override
@@ -149,9 +186,66 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
      * Convert the back and front buffer trajectories into a single set of Route-frame points for
      * conversion and publication in the MobilityPath message.
      * Generates a path predication with the maximum number of points allowed for collision detection
+     * <p>
+     * The returned list is an immutable snapshot which is shared between callers until the prediction is invalidated.
+     * If the cached prediction is still valid it is returned without taking the VehicleAwareness monitor.
+     */
+    public List<RoutePointStamped> getPathPrediction() {
+        PathPredictionSnapshot snapshot = pathPredictionSnapshot;
+        if (isValid(snapshot)) {
+            return snapshot.path;
+        }
+        return updatePathPrediction();
+    }
+
+    /**
+     * Invalidates the cached path prediction if the host vehicle has moved further than the configured tolerance
+     * since the prediction was generated
+     * 
+     * @param downtrack The current downtrack distance of the host vehicle along the route in m
      */
-    public synchronized List<RoutePointStamped> getPathPrediction() {
-        return getPathPrediction(trajectoryConverter.getMaxPointsInPath());
+    public void onRouteStateUpdated(double downtrack) {
+        lastKnownDowntrack = downtrack;
+        PathPredictionSnapshot snapshot = pathPredictionSnapshot;
+        if (snapshot != null && snapshot.version == pathPredictionVersion.get()
+            && Math.abs(downtrack - snapshot.downtrack) > pathPredictionDowntrackTolerance) {
+            invalidatePathPrediction();
+        }
+    }
+
+    /**
+     * Advances the path prediction version so the next request will generate a new prediction
+     */
+    protected void invalidatePathPrediction() {
+        pathPredictionVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns true if the provided snapshot matches the current version and has not aged out
+     */
+    private boolean isValid(PathPredictionSnapshot snapshot) {
+        return snapshot != null && snapshot.version == pathPredictionVersion.get()
+            && System.currentTimeMillis() - snapshot.createdAtMs <= pathPredictionMaxAge;
+    }
+
+    /**
+     * Generates and caches a new path prediction unless another thread has already done so
+     * 
+     * @return The current path prediction
+     */
+    private synchronized List<RoutePointStamped> updatePathPrediction() {
+        PathPredictionSnapshot snapshot = pathPredictionSnapshot;
+        if (isValid(snapshot)) {
+            return snapshot.path; // Another caller updated the prediction while we waited
+        }
+        // Read the version before generating so a concurrent invalidation is not lost
+        final long version = pathPredictionVersion.get();
+        final double downtrack = lastKnownDowntrack;
+        final long createdAtMs = System.currentTimeMillis();
+        snapshot = new PathPredictionSnapshot(version, downtrack, createdAtMs,
+            getPathPrediction(trajectoryConverter.getMaxPointsInPath()));
+        pathPredictionSnapshot = snapshot;
+        return snapshot.path;
     }
 
     /**
@@ -173,12 +267,7 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         }
         log.debug("PATH", "    getPathPrediction returning pathPrediction of size " + pathPrediction.size());
 
-        String hostLog = "The host path during request which was current was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : pathPrediction) {
-            hostLog = hostLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(hostLog);
+        LoggerManager.getPathDiagnostics().record("HostPath", HOST_PATH_DIAGNOSTICS_ID, pathPrediction);
 
         return pathPrediction;
     }
@@ -197,6 +286,7 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
             log.info("Inserted into back buffer!");
             nextTrajectory = traj;
         }
+        invalidatePathPrediction();
 
         List<RoutePointStamped> pathPrediction = getPathPrediction();
         List<ConflictSpace> conflicts = conflictDetector.getConflicts(pathPrediction);
@@ -225,13 +315,15 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         log.info("Notified of a forced replan, cleaning invalid trajectories!");
         currentTrajectory = null;
         nextTrajectory = null;
+        invalidatePathPrediction();
     }
 
     /**
      * Collects the current path prediction of the vehicle and publishes that as a MobilityPath message
+     * The cached prediction is reused and truncated to the message size when converted
      */
     private synchronized void publishMobilityPath() {
-        publishMobilityPath(getPathPrediction(cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE));
+        publishMobilityPath(getPathPrediction());
     }
 
     /**
@@ -54,6 +54,7 @@ import org.ros.node.ConnectedNode;
 import org.ros.node.parameter.ParameterTree;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -92,6 +93,8 @@ public class Arbitrator extends GuidanceComponent
   protected ISubscriber<Route> routeSub;
   protected AtomicDouble routeLength = new AtomicDouble(-1.0);
   protected AtomicReference<Route> currentRoute = new AtomicReference<>();
+  // Downtrack distance of the end of each route segment
+  protected AtomicReference<double[]> segmentEndDowntracks = new AtomicReference<>(new double[0]);
   protected AtomicBoolean routeRecvd = new AtomicBoolean(false);
   protected static final long SLEEP_DURATION_MILLIS = 100;
   protected static final double TRAJ_SIZE_WARNING = 50.0;
@@ -168,10 +171,14 @@ public class Arbitrator extends GuidanceComponent
           routeRecvd.set(true);
           currentRoute.set(msg);
 
+          double[] segmentEnds = new double[msg.getSegments().size()];
           double length = 0.0;
+          int i = 0;
           for (RouteSegment segment : msg.getSegments()) {
             length += segment.getLength();
+            segmentEnds[i++] = length;
           }
+          segmentEndDowntracks.set(segmentEnds);
           routeLength.set(length);
           log.info("Computed total route length to be " + routeLength.get());
         }
@@ -317,16 +324,20 @@ public class Arbitrator extends GuidanceComponent
 
     // Examine our current route to determine if there is an acceptable segment to snap to
     if (routeLength.get() > 0.0) {
-      double dtdAccum = 0.0;
-      for (RouteSegment segment : currentRoute.get().getSegments()) {
-        dtdAccum += segment.getLength();
-
-        if (dtdAccum > trajectoryEnd) {
-          if (Math.abs(dtdAccum - trajectoryEnd) < planningWindowSnapThreshold) {
-            trajectoryEnd = dtdAccum;
-          } else {
-            break;
-          }
+      double[] segmentEnds = segmentEndDowntracks.get();
+      // Binary search for the first segment ending after the planning window
+      int idx = Arrays.binarySearch(segmentEnds, trajectoryEnd);
+      idx = idx < 0 ? -idx - 1 : idx + 1;
+      while (idx < segmentEnds.length && segmentEnds[idx] <= trajectoryEnd) {
+        idx++; // Skip segments of zero length ending exactly at the window
+      }
+
+      // Snap to segment ends within the threshold
+      for (; idx < segmentEnds.length; idx++) {
+        if (Math.abs(segmentEnds[idx] - trajectoryEnd) < planningWindowSnapThreshold) {
+          trajectoryEnd = segmentEnds[idx];
+        } else {
+          break;
         }
       }
 
@@ -415,6 +426,8 @@ public class Arbitrator extends GuidanceComponent
       }
 
       if (trajectoryValidator.validate(traj)) {
+        // Planning is complete, index the maneuvers for execution
+        traj.freeze();
         out = traj;
         break;
       }
@@ -20,6 +20,8 @@ import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.ISpatialStructure;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.ISpatialStructureFactory;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.PackedSpatialHashMap;
+import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.PathConflictIndex.PathSnapshot;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
 import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
@@ -27,13 +29,8 @@ import gov.dot.fhwa.saxton.carma.route.Route;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * Class Maintains a tracked set of external vehicle paths from MobilityPath and
@@ -42,6 +39,11 @@ import java.util.Map.Entry;
  * Collision detection is done with an injected {@link ISpatialStructure} The path sets are
  * synchronized making this class Thread-Safe
  * 
+ * Tracked paths are kept in persistent {@link PathConflictIndex} instances shared by all vehicles
+ * so adding a path for a vehicle only replaces that vehicle's entries. Expired paths are evicted
+ * on a time bucketed schedule controlled by the eviction period.
+ * Conflict queries against the tracked paths read immutable snapshots and do not block incoming paths.
+ * 
  * The times stamps used on paths should all be referenced to the same origin
  * The current time information is provided by a passed in
  * {@link IMobilityTimeProvider}
@@ -56,17 +58,20 @@ public class ConflictManager implements IConflictManager {
   private final double longitudinalBias;
   private final double temporalBias;
   // The tracked paths
-  private final Map<String, ISpatialStructure> mobilityPathSpatialMaps = Collections.synchronizedMap(new HashMap<>());
-  private final Map<String, ISpatialStructure> requestedPathSpatialMaps = Collections.synchronizedMap(new HashMap<>());
-  private final Map<String, String> planIdMap = Collections.synchronizedMap(new HashMap<>());
+  private final PathConflictIndex mobilityPaths;
+  private final PathConflictIndex requestedPaths;
+  // Reusable structures for conflict checks between two provided paths
+  private final ThreadLocal<PackedSpatialHashMap> pathPairMaps;
   // Time provider
   private final IMobilityTimeProvider timeProvider;
   // Route
   private Route route;
   ILogger log;
 
+  public static final double DEFAULT_EVICTION_PERIOD = 1.0;
+
   /**
-   * Constructor
+   * Constructor which uses the default eviction period for expired paths
    * 
    * @param structureFactory Factory used to produce spatial structures used for collision checking
    * @param downtrackMargin  The downtrack distance margin within which a point
@@ -86,6 +91,32 @@ public class ConflictManager implements IConflictManager {
    */
   public ConflictManager(ISpatialStructureFactory structureFactory, double downtrackMargin, double crosstrackMargin, double timeMargin,
       double lateralBias, double longitudinalBias, double temporalBias, IMobilityTimeProvider timeProvider) {
+    this(structureFactory, downtrackMargin, crosstrackMargin, timeMargin, lateralBias, longitudinalBias, temporalBias,
+      timeProvider, DEFAULT_EVICTION_PERIOD);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param structureFactory Factory used to produce spatial structures used for collision checking
+   * @param downtrackMargin  The downtrack distance margin within which a point
+   *                         will be considered in collision
+   * @param crosstrackMargin The crosstrack distance margin within which a point
+   *                         will be considered in collision
+   * @param timeMargin       The time margin in seconds within which a point will
+   *                         be considered in collision
+   * @param lateralBias      The percentage of the crosstrack margin to bias the
+   *                         host vehicle's bounding box to the right
+   * @param longitudinalBias The percentage of the downtrack margin to bias the
+   *                         host vehicle's bounding box to the front
+   * @param temporalBias     The percentage of the time margin to bias the host
+   *                         vehicle's bounding box to the future
+   * @param timeProvider     The object responsible to determining the time used
+   *                         in mobility messages
+   * @param evictionPeriod   The period in seconds at which expired paths are evicted
+   */
+  public ConflictManager(ISpatialStructureFactory structureFactory, double downtrackMargin, double crosstrackMargin, double timeMargin,
+      double lateralBias, double longitudinalBias, double temporalBias, IMobilityTimeProvider timeProvider, double evictionPeriod) {
 
     this.structureFactory = structureFactory;
     this.downtrackMargin = downtrackMargin;
@@ -95,6 +126,9 @@ public class ConflictManager implements IConflictManager {
     this.lateralBias = lateralBias;
     this.longitudinalBias = longitudinalBias;
     this.temporalBias = temporalBias;
+    this.mobilityPaths = new PathConflictIndex(downtrackMargin, crosstrackMargin, timeMargin, evictionPeriod);
+    this.requestedPaths = new PathConflictIndex(downtrackMargin, crosstrackMargin, timeMargin, evictionPeriod);
+    this.pathPairMaps = ThreadLocal.withInitial(structureFactory::buildPackedSpatialStructure);
     this.log = LoggerManager.getLogger();
   }
 
@@ -122,8 +156,8 @@ public class ConflictManager implements IConflictManager {
     if (path == null || path.isEmpty() || vehicleStaticId == null) {
       return false;
     }
-    synchronized (mobilityPathSpatialMaps) {
-      addPath(path, vehicleStaticId, mobilityPathSpatialMaps);
+    synchronized (mobilityPaths) {
+      addPath(path, vehicleStaticId, vehicleStaticId, mobilityPaths);
     }
     return true;
   }
@@ -134,37 +168,42 @@ public class ConflictManager implements IConflictManager {
     if (path == null || path.isEmpty() || planId == null || vehicleId == null) {
       return false;
     }
-    synchronized (requestedPathSpatialMaps) {
-      addPath(path, planId, requestedPathSpatialMaps);
-      planIdMap.put(planId, vehicleId);
+    synchronized (requestedPaths) {
+      addPath(path, planId, vehicleId, requestedPaths);
     }
     return true;
   }
 
   /**
-   * Helper function for adding paths to a map of spatial hash maps
+   * Helper function for adding paths to a path index
+   * Any path previously stored under the same key is replaced
+   * Must be called while holding the lock on the provided index
    * 
-   * @param path The path to add for future conflict detection
-   * @param key  The key to use for identifying this path
+   * @param path      The path to add for future conflict detection
+   * @param key       The key to use for identifying this path
+   * @param vehicleId The static id of the vehicle which will follow this path
+   * @param index     The index to add the path to
+   */
+  private void addPath(List<RoutePointStamped> path, String key, String vehicleId, PathConflictIndex index) {
+    index.evictExpired(timeProvider.getCurrentTimeSeconds());
+    // Replace the entries for this key
+    index.put(key, vehicleId, path);
+  }
+
+  /**
+   * Helper function which evicts expired paths from the provided index
+   * The lock on the index is only taken when the eviction schedule requires it
    * 
-   * @return True if the path could be added. False if not.
+   * @param index       The index to evict paths from
+   * @param currentTime The current time in seconds
    */
-  private void addPath(List<RoutePointStamped> path, String key, Map<String, ISpatialStructure> map) {
-    log.info("addPath");
-    // Get current path for this vehicle
-    ISpatialStructure vehiclesPath = map.get(key);
-    // If not current path for this vehicle add it
-    if (vehiclesPath == null) {
-      log.info("Creating new spatial hash map");
-      vehiclesPath = structureFactory.buildSpatialStructure();
-      map.put(key, vehiclesPath);
+  private void evictExpiredPaths(PathConflictIndex index, double currentTime) {
+    if (!index.isEvictionDue(currentTime)) {
+      return;
+    }
+    synchronized (index) {
+      index.evictExpired(currentTime);
     }
-    log.info("Preparing to insert points");
-    // Insert points
-    long time0 = System.currentTimeMillis();
-    insertPoints(path, vehiclesPath, downtrackMargin, crosstrackMargin, timeMargin);
-    long time1 = System.currentTimeMillis();
-    log.debug("addPath: call to insertPoints took " + (time1 - time0) + " ms.");
   }
 
   /**
@@ -197,34 +236,76 @@ public class ConflictManager implements IConflictManager {
 
   @Override
   public boolean removeMobilityPath(String vehicleStaticId) {
-    synchronized (mobilityPathSpatialMaps) {
-      return mobilityPathSpatialMaps.remove(vehicleStaticId) != null;
+    synchronized (mobilityPaths) {
+      return mobilityPaths.remove(vehicleStaticId);
     }
   }
 
   @Override
   public boolean removeRequestedPath(String planId) {
-    synchronized (requestedPathSpatialMaps) {
-      planIdMap.remove(planId);
-      return requestedPathSpatialMaps.remove(planId) != null;
+    synchronized (requestedPaths) {
+      return requestedPaths.remove(planId);
     }
   }
 
   @Override
   public List<ConflictSpace> getConflicts(List<RoutePointStamped> hostPath) {
     log.info("Getting any conflicts with host path");
+    return getTrackedConflicts(hostPath, null);
+  }
+
+  @Override
+  public List<ConflictSpace> getMobilityPathConflicts(List<RoutePointStamped> hostPath, String vehicleStaticId) {
+    log.debug("Getting conflicts with the tracked path of " + vehicleStaticId);
+    if (vehicleStaticId == null) {
+      return new LinkedList<>();
+    }
+    return getTrackedConflicts(hostPath, vehicleStaticId);
+  }
+
+  /**
+   * Helper function which finds the conflicts between the host path and the tracked paths
+   * <p>
+   * All tracked vehicles are evaluated in a single pass over the host path.
+   * The scan runs against immutable snapshots of the tracked paths so no locks are held while checking
+   * and paths added during the scan will be considered by the next query.
+   * 
+   * @param hostPath        The host path
+   * @param vehicleStaticId If not null only the mobility path of this vehicle will be considered
+   * 
+   * @return A sorted list of conflict spaces
+   */
+  private List<ConflictSpace> getTrackedConflicts(List<RoutePointStamped> hostPath, String vehicleStaticId) {
     if (hostPath == null || hostPath.isEmpty() || route == null) {
       return new LinkedList<>();
     }
     // Prepare to store conflicts
     List<ConflictSpace> conflicts = new LinkedList<>();
 
+    // Get the minimum time stamp which is still viable
+    double minTime = timeProvider.getCurrentTimeSeconds();
+    // Evict paths which have expired before the scan
+    evictExpiredPaths(mobilityPaths, minTime);
+    evictExpiredPaths(requestedPaths, minTime);
+
+    // Only paths which overlap the host path's swept bounds can conflict
+    double[] hostMin = new double[3];
+    double[] hostMax = new double[3];
+    if (!computeHostBounds(hostPath, minTime, hostMin, hostMax)) {
+      return conflicts; // No viable host points
+    }
+    PathSnapshot[] mobilityCandidates = selectCandidates(mobilityPaths.getSnapshot(), hostMin, hostMax, minTime, vehicleStaticId);
+    PathSnapshot[] requestedCandidates = vehicleStaticId == null ?
+      selectCandidates(requestedPaths.getSnapshot(), hostMin, hostMax, minTime, null) : new PathSnapshot[0];
+    if (mobilityCandidates.length == 0 && requestedCandidates.length == 0) {
+      return conflicts;
+    }
+
     // Iterate over all points in the host path
     ConflictSpace currentConflict = null;
     int lane = 0;
     RoutePointStamped prevPoint = null;
-    // Get the minimum time stamp which is still viable
-    double minTime = timeProvider.getCurrentTimeSeconds();
+    List<String> conflictingVehicles = new ArrayList<>();
 
     for (RoutePointStamped routePoint : hostPath) {
       // If the provided point occurs before the current time. There is no point in
@@ -236,10 +317,14 @@ public class ConflictManager implements IConflictManager {
       lane = route.getSegments().get(routePoint.getSegmentIdx()).determinePrimaryLane(routePoint.getCrosstrack());
 
       // Check for collisions with mobility paths
-      List<String> conflictingVehicles = hasCollision(mobilityPathSpatialMaps, routePoint, minTime);
+      double downtrack = routePoint.getDowntrack() + (downtrackMargin * longitudinalBias);
+      double crosstrack = routePoint.getCrosstrack() + (crosstrackMargin * lateralBias);
+      double time = routePoint.getStamp() + (timeMargin * temporalBias);
+      conflictingVehicles.clear();
+      collectCollisions(mobilityCandidates, downtrack, crosstrack, time, minTime, conflictingVehicles);
       if (conflictingVehicles.isEmpty()) {
         // Check for collisions with requested paths
-        conflictingVehicles = hasCollision(requestedPathSpatialMaps, routePoint, minTime);
+        collectCollisions(requestedCandidates, downtrack, crosstrack, time, minTime, conflictingVehicles);
       }
       // Update conflicts
       if (!conflictingVehicles.isEmpty()) {
@@ -247,7 +332,6 @@ public class ConflictManager implements IConflictManager {
         if (currentConflict == null) {
           currentConflict = new ConflictSpace(routePoint.getDowntrack(), routePoint.getStamp(), lane,
               routePoint.getSegmentIdx());
-          currentConflict.addConflictingVehicles(conflictingVehicles);
         } else if (lane != currentConflict.getLane()) {
           // If we are tracking a conflict but the lane has changed then end that conflict
           // and create a new one
@@ -257,13 +341,13 @@ public class ConflictManager implements IConflictManager {
           // define the start of the new conflict
           currentConflict = new ConflictSpace(prevPoint.getDowntrack(), prevPoint.getStamp(), lane,
               routePoint.getSegmentIdx());
-          currentConflict.addConflictingVehicles(conflictingVehicles);
         }
+        // Vehicles which begin colliding part way through a conflict are also part of it
+        currentConflict.addConflictingVehicles(conflictingVehicles);
       } else {
         // If there were no conflicts but we are tracking a conflict then that conflict
         // is done
         if (currentConflict != null) {
-          currentConflict.addConflictingVehicles(conflictingVehicles);
           closeConflict(currentConflict, prevPoint.getDowntrack(), prevPoint.getStamp());
           conflicts.add(currentConflict);
           currentConflict = null; // Stop tracking the conflict
@@ -281,79 +365,103 @@ public class ConflictManager implements IConflictManager {
   }
 
   /**
-   * Helper function returns true if any of the spatial maps in the provided map
-   * contain elements which collide with the provided point
+   * Helper function which computes the bounds swept by the biased bounding boxes of the viable host path points
    * 
-   * @param mapContainer The set of spatial hash maps which will be evaluated
-   * @param routePoint   The point to check for collisions
-   * @param minTime      The minimum time in seconds which is still valid for
-   *                     consideration
+   * @param hostPath The host path
+   * @param minTime  The minimum time in seconds which is still valid for consideration
+   * @param min      Array of size 3 which will be populated with the minimum (downtrack, crosstrack, time) bounds
+   * @param max      Array of size 3 which will be populated with the maximum (downtrack, crosstrack, time) bounds
    * 
-   * @return A list static ids for vehicles which the provided point conflict
-   *         with. The list is empty if no conflict exist
+   * @return False if no host point occurs at or after minTime
    */
-  private List<String> hasCollision(Map<String, ISpatialStructure> mapContainer, RoutePointStamped routePoint,
-      double minTime) {
-    final int TIME_IDX = 2, MAX_IDX = 1;
-    List<String> conflictingVehicles = new LinkedList<>();
-    // Directly access iterator for safe removal while iterating
-    synchronized (mapContainer) {
-      for (Iterator<Entry<String, ISpatialStructure>> i = mapContainer.entrySet().iterator(); i.hasNext();) {
-        Entry<String, ISpatialStructure> entry = i.next();
-        String id = entry.getKey();
-        ISpatialStructure map = entry.getValue();
-
-        // If the maximum time of the current map is before the minimum time being
-        // evaluated
-        // it should be skipped and removed from future consideration
-        if (minTime > map.getBounds()[TIME_IDX][MAX_IDX]) {
-          i.remove();
-          // If this is the a requested path disassociate the plan and vehicle ids
-          if (mapContainer == requestedPathSpatialMaps) {
-            planIdMap.remove(id);
-          }
-          continue;
-        }
-        // If this map contains the point being evaluated collisions must be checked for
-        RoutePointStamped transformed = new RoutePointStamped(
-            routePoint.getDowntrack() + (downtrackMargin * longitudinalBias),
-            routePoint.getCrosstrack() + (crosstrackMargin * lateralBias),
-            routePoint.getStamp() + (timeMargin * temporalBias));
-
-        Point3D minBoundingPoint = new Point3D(transformed.getDowntrack() - downtrackMargin,
-            transformed.getCrosstrack() - crosstrackMargin, transformed.getStamp() - timeMargin);
-        Point3D maxBoundingPoint = new Point3D(transformed.getDowntrack() + downtrackMargin,
-            transformed.getCrosstrack() + crosstrackMargin, transformed.getStamp() + timeMargin);
-
-        List<Point3D> pointCloud = new ArrayList<>();
-        pointCloud.add(minBoundingPoint);
-        pointCloud.add(maxBoundingPoint);
-        CartesianObject boundingBox = new CartesianObject(pointCloud);
-        if (map.surrounds(transformed.getPoint())) {
-          if (!map.getCollisions(boundingBox).isEmpty()) {
-            // Get the vehicle id and add it to list of conflicting ids
-            if (mapContainer == requestedPathSpatialMaps) {
-              conflictingVehicles.add(planIdMap.get(id));
-            } else {
-              conflictingVehicles.add(id);
-            }
-            continue;
-          }
-        }
+  private boolean computeHostBounds(List<RoutePointStamped> hostPath, double minTime, double[] min, double[] max) {
+    boolean found = false;
+    for (RoutePointStamped routePoint : hostPath) {
+      if (routePoint.getStamp() < minTime) {
+        continue;
+      }
+      double downtrack = routePoint.getDowntrack() + (downtrackMargin * longitudinalBias);
+      double crosstrack = routePoint.getCrosstrack() + (crosstrackMargin * lateralBias);
+      double time = routePoint.getStamp() + (timeMargin * temporalBias);
+      if (!found) {
+        min[0] = max[0] = downtrack;
+        min[1] = max[1] = crosstrack;
+        min[2] = max[2] = time;
+        found = true;
+      } else {
+        min[0] = Math.min(min[0], downtrack);
+        max[0] = Math.max(max[0], downtrack);
+        min[1] = Math.min(min[1], crosstrack);
+        max[1] = Math.max(max[1], crosstrack);
+        min[2] = Math.min(min[2], time);
+        max[2] = Math.max(max[2], time);
+      }
+    }
+    if (found) {
+      min[0] -= downtrackMargin;
+      max[0] += downtrackMargin;
+      min[1] -= crosstrackMargin;
+      max[1] += crosstrackMargin;
+      min[2] -= timeMargin;
+      max[2] += timeMargin;
+    }
+    return found;
+  }
+
+  /**
+   * Helper function which selects the tracked paths which could conflict with the host path
+   * 
+   * @param snapshot        The tracked paths
+   * @param hostMin         The minimum bounds of the host path
+   * @param hostMax         The maximum bounds of the host path
+   * @param minTime         The minimum time in seconds which is still valid for consideration
+   * @param vehicleStaticId If not null only the path with this key is selected
+   * 
+   * @return The candidate paths
+   */
+  private PathSnapshot[] selectCandidates(PathSnapshot[] snapshot, double[] hostMin, double[] hostMax, double minTime,
+    String vehicleStaticId) {
+    PathSnapshot[] candidates = new PathSnapshot[snapshot.length];
+    int count = 0;
+    for (PathSnapshot path : snapshot) {
+      if ((vehicleStaticId == null || vehicleStaticId.equals(path.getKey()))
+        && path.overlaps(hostMin, hostMax) && !path.isExpired(minTime)) {
+        candidates[count++] = path;
+      }
+    }
+    return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+  }
+
+  /**
+   * Helper function which adds the ids of vehicles whose paths collide with the biased bounding box of a host point
+   * 
+   * @param candidates          The paths to check
+   * @param downtrack           The biased downtrack of the host point
+   * @param crosstrack          The biased crosstrack of the host point
+   * @param time                The biased time of the host point
+   * @param minTime             The minimum time in seconds which is still valid for consideration
+   * @param conflictingVehicles The list which the static ids of conflicting vehicles will be added to
+   */
+  private void collectCollisions(PathSnapshot[] candidates, double downtrack, double crosstrack, double time,
+    double minTime, List<String> conflictingVehicles) {
+    for (PathSnapshot path : candidates) {
+      if (path.collides(downtrack, crosstrack, time, downtrackMargin, crosstrackMargin, timeMargin, minTime)
+        && !conflictingVehicles.contains(path.getVehicleId())) {
+        conflictingVehicles.add(path.getVehicleId());
       }
     }
-    return conflictingVehicles;
   }
 
   @Override
   public List<ConflictSpace> getConflicts(List<RoutePointStamped> hostPath, List<RoutePointStamped> otherPath) {
-    return getConflicts(hostPath, otherPath, structureFactory.buildSpatialStructure(), downtrackMargin, crosstrackMargin, timeMargin, longitudinalBias, lateralBias, temporalBias);
+    // Reuse this thread's structure rather than building a new one for every call
+    PackedSpatialHashMap spatialStructure = pathPairMaps.get();
+    spatialStructure.clear();
+    List<ConflictSpace> conflicts = getConflicts(hostPath, otherPath, spatialStructure, downtrackMargin, crosstrackMargin, timeMargin, longitudinalBias, lateralBias, temporalBias);
+    spatialStructure.clear(); // Release references to the other path
+    return conflicts;
   }
 
-  // TODO remove these variables
-  public static long nanoSecBuilding = 0;
-  public static long nanoSecChecking = 0;
-
   // Note the parameters in this function are overriding the class members by the same name
   @Override
   public List<ConflictSpace> getConflicts(List<RoutePointStamped> hostPath, List<RoutePointStamped> otherPath, ISpatialStructure spatialStructure,
@@ -363,17 +471,10 @@ public class ConflictManager implements IConflictManager {
       return new LinkedList<>();
     }
 
-    //System.out.println("Host: " + hostPath.size());
-    //System.out.println("Other: " + otherPath.size());
-
-    long startTime = System.nanoTime();
     // Prepare to store conflicts
     List<ConflictSpace> conflicts = new LinkedList<>();
     // Build Map for other path
     insertPoints(otherPath, spatialStructure, downtrackMargin, crosstrackMargin, timeMargin);
-    
-    nanoSecBuilding += (System.nanoTime()- startTime);
-    startTime = System.nanoTime();
 
     // Iterate over all points in the host path
     ConflictSpace currentConflict = null;
@@ -432,8 +533,6 @@ public class ConflictManager implements IConflictManager {
       conflicts.add(currentConflict);
     }
 
-    nanoSecChecking += (System.nanoTime() - startTime);
-
     return conflicts;
   }
 
@@ -66,4 +66,15 @@ public interface IConflictManager extends IConflictDetector{
    * @return True if the path could be removed. False if not.
    */
   boolean removeRequestedPath(String planId); 
+
+  /**
+   * Returns the list of conflicts between the provided path and the tracked MobilityPath of a single vehicle
+   * This allows a newly added MobilityPath to be checked without building a separate structure for it
+   * 
+   * @param hostPath The path representing the host trajectory
+   * @param vehicleStaticId The static vehicle mobility id of the tracked path to check against
+   * 
+   * @return A sorted list of conflict spaces where the provided path intersects with the vehicle's tracked path
+   */
+  List<ConflictSpace> getMobilityPathConflicts(List<RoutePointStamped> hostPath, String vehicleStaticId);
 }
\ No newline at end of file
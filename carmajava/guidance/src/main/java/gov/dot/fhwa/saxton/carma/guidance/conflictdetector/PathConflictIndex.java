@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.conflictdetector;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persistent (downtrack, crosstrack, time) index of the paths of all tracked vehicles
+ * <p>
+ * Each path is keyed by an id such as a vehicle static id or plan id. Replacing the path for an id only rebuilds
+ * the entries belonging to that id. Each path is stored as an immutable {@link PathSnapshot} whose points are sorted by time
+ * so the points overlapping a queried time window can be found with a binary search.
+ * <p>
+ * Every modification publishes a new immutable array of the current paths which can be retrieved with {@link #getSnapshot()}.
+ * Queries run against a snapshot without any locking so they never block, or are blocked by, incoming paths.
+ * <p>
+ * Paths are indexed per id rather than merged into one index of every tracked point, so replacing a path only
+ * rebuilds that path and a query can go straight to the paths of the vehicles it checks.
+ * <p>
+ * Paths are evicted once their latest time stamp has passed. Eviction is scheduled by grouping paths into
+ * time buckets of a fixed duration so that the expired set can be found without scanning every tracked path.
+ * Expired paths which have not yet been evicted are ignored by queries.
+ * <p>
+ * Modifications are not thread safe on their own and must be externally synchronized.
+ * Snapshots may be read from any thread.
+ */
+public class PathConflictIndex {
+  private static final int DOWNTRACK_IDX = 0, CROSSTRACK_IDX = 1, TIME_IDX = 2;
+  private static final PathSnapshot[] EMPTY_SNAPSHOT = new PathSnapshot[0];
+
+  private final double downtrackMargin;
+  private final double crosstrackMargin;
+  private final double timeMargin;
+  private final double evictionPeriod;
+  private final Map<String, PathSnapshot> paths = new HashMap<>();
+  private final TreeMap<Long, Set<PathSnapshot>> expiryBuckets = new TreeMap<>();
+  private volatile long lastEvictionBucket = Long.MIN_VALUE;
+  private volatile PathSnapshot[] snapshot = EMPTY_SNAPSHOT;
+
+  /**
+   * Immutable view of a single tracked path
+   * The path points are stored in primitive arrays sorted by time
+   */
+  public static final class PathSnapshot {
+    private final String key;
+    private final String vehicleId;
+    private final double[] downtracks;
+    private final double[] crosstracks;
+    private final double[] times;
+    private final double[] min = new double[3];
+    private final double[] max = new double[3];
+    private final double downtrackMargin;
+    private final double crosstrackMargin;
+    private final double timeMargin;
+    private final long expiryBucket;
+
+    private PathSnapshot(String key, String vehicleId, List<RoutePointStamped> path, double downtrackMargin,
+      double crosstrackMargin, double timeMargin, double evictionPeriod) {
+      this.key = key;
+      this.vehicleId = vehicleId;
+      this.downtrackMargin = downtrackMargin;
+      this.crosstrackMargin = crosstrackMargin;
+      this.timeMargin = timeMargin;
+
+      // Sort the point order by time
+      int size = path.size();
+      RoutePointStamped[] points = path.toArray(new RoutePointStamped[size]);
+      Arrays.sort(points, (p1, p2) -> Double.compare(p1.getStamp(), p2.getStamp()));
+      this.downtracks = new double[size];
+      this.crosstracks = new double[size];
+      this.times = new double[size];
+      for (int i = 0; i < size; i++) {
+        downtracks[i] = points[i].getDowntrack();
+        crosstracks[i] = points[i].getCrosstrack();
+        times[i] = points[i].getStamp();
+        updateBounds(DOWNTRACK_IDX, downtracks[i], downtrackMargin, i == 0);
+        updateBounds(CROSSTRACK_IDX, crosstracks[i], crosstrackMargin, i == 0);
+        updateBounds(TIME_IDX, times[i], timeMargin, i == 0);
+      }
+      this.expiryBucket = (long) Math.floor(max[TIME_IDX] / evictionPeriod);
+    }
+
+    private void updateBounds(int dim, double value, double margin, boolean first) {
+      if (first || value - margin < min[dim]) {
+        min[dim] = value - margin;
+      }
+      if (first || value + margin > max[dim]) {
+        max[dim] = value + margin;
+      }
+    }
+
+    /**
+     * Gets the key of this path
+     *
+     * @return The key
+     */
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * Gets the static id of the vehicle which will follow this path
+     *
+     * @return The vehicle id
+     */
+    public String getVehicleId() {
+      return vehicleId;
+    }
+
+    /**
+     * Returns true if every point of this path occurs before the provided time
+     *
+     * @param minTime The minimum time in seconds which is still valid for consideration
+     *
+     * @return True if expired
+     */
+    public boolean isExpired(double minTime) {
+      return max[TIME_IDX] < minTime;
+    }
+
+    /**
+     * Returns true if the overall bounds of this path overlap the provided box
+     *
+     * @param minBounds The minimum (downtrack, crosstrack, time) of the box
+     * @param maxBounds The maximum (downtrack, crosstrack, time) of the box
+     *
+     * @return True if overlapping
+     */
+    public boolean overlaps(double[] minBounds, double[] maxBounds) {
+      for (int i = 0; i < 3; i++) {
+        if (Math.max(min[i], minBounds[i]) > Math.min(max[i], maxBounds[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns true if the box centered on the provided point collides with this path
+     * A collision is only reported if this path has not expired before minTime
+     * and the overall bounds of this path surround the provided center point
+     *
+     * @param downtrack        The downtrack center of the box
+     * @param crosstrack       The crosstrack center of the box
+     * @param time             The time center of the box
+     * @param downtrackMargin  The downtrack half size of the box
+     * @param crosstrackMargin The crosstrack half size of the box
+     * @param timeMargin       The time half size of the box
+     * @param minTime          The minimum time in seconds which is still valid for consideration
+     *
+     * @return True if there is a collision
+     */
+    public boolean collides(double downtrack, double crosstrack, double time, double downtrackMargin,
+      double crosstrackMargin, double timeMargin, double minTime) {
+      if (isExpired(minTime)
+        || !(min[DOWNTRACK_IDX] < downtrack && downtrack < max[DOWNTRACK_IDX])
+        || !(min[CROSSTRACK_IDX] < crosstrack && crosstrack < max[CROSSTRACK_IDX])
+        || !(min[TIME_IDX] < time && time < max[TIME_IDX])) {
+        return false;
+      }
+      final double downtrackReach = downtrackMargin + this.downtrackMargin;
+      final double crosstrackReach = crosstrackMargin + this.crosstrackMargin;
+      final double timeReach = timeMargin + this.timeMargin;
+      // Only points within the combined time margin can collide
+      for (int i = firstIndexAtOrAfter(time - timeReach); i < times.length && times[i] <= time + timeReach; i++) {
+        if (Math.abs(downtracks[i] - downtrack) <= downtrackReach
+          && Math.abs(crosstracks[i] - crosstrack) <= crosstrackReach) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Binary search for the first point whose time is greater than or equal to the provided time
+     */
+    private int firstIndexAtOrAfter(double time) {
+      int low = 0;
+      int high = times.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (times[mid] < time) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param downtrackMargin  The downtrack distance margin around each path point
+   * @param crosstrackMargin The crosstrack distance margin around each path point
+   * @param timeMargin       The time margin in seconds around each path point
+   * @param evictionPeriod   The duration in seconds of the time buckets used to schedule eviction of expired paths
+   */
+  public PathConflictIndex(double downtrackMargin, double crosstrackMargin, double timeMargin, double evictionPeriod) {
+    if (evictionPeriod <= 0) {
+      throw new IllegalArgumentException("PathConflictIndex requires a positive eviction period");
+    }
+    this.downtrackMargin = downtrackMargin;
+    this.crosstrackMargin = crosstrackMargin;
+    this.timeMargin = timeMargin;
+    this.evictionPeriod = evictionPeriod;
+  }
+
+  /**
+   * Adds a path to the index replacing any path previously stored for the same key
+   *
+   * @param key       The key identifying this path
+   * @param vehicleId The static id of the vehicle which will follow this path
+   * @param path      The path to store. Must not be empty
+   */
+  public void put(String key, String vehicleId, List<RoutePointStamped> path) {
+    PathSnapshot trackedPath = new PathSnapshot(key, vehicleId, path, downtrackMargin, crosstrackMargin, timeMargin,
+      evictionPeriod);
+    removeFromBucket(paths.put(key, trackedPath));
+    Set<PathSnapshot> bucket = expiryBuckets.get(trackedPath.expiryBucket);
+    if (bucket == null) {
+      bucket = new HashSet<>();
+      expiryBuckets.put(trackedPath.expiryBucket, bucket);
+    }
+    bucket.add(trackedPath);
+    publishSnapshot();
+  }
+
+  /**
+   * Removes the path stored for the provided key
+   *
+   * @param key The key of the path to remove
+   *
+   * @return True if a path was removed
+   */
+  public boolean remove(String key) {
+    PathSnapshot trackedPath = paths.remove(key);
+    if (trackedPath == null) {
+      return false;
+    }
+    removeFromBucket(trackedPath);
+    publishSnapshot();
+    return true;
+  }
+
+  private void removeFromBucket(PathSnapshot trackedPath) {
+    if (trackedPath == null) {
+      return;
+    }
+    Set<PathSnapshot> bucket = expiryBuckets.get(trackedPath.expiryBucket);
+    if (bucket != null) {
+      bucket.remove(trackedPath);
+      if (bucket.isEmpty()) {
+        expiryBuckets.remove(trackedPath.expiryBucket);
+      }
+    }
+  }
+
+  /**
+   * Returns true if the time bucket has advanced since the last eviction
+   * This may be called without synchronization to avoid taking a lock when no eviction is needed
+   *
+   * @param currentTime The current time in seconds
+   *
+   * @return True if {@link #evictExpired(double)} may evict paths
+   */
+  public boolean isEvictionDue(double currentTime) {
+    return bucketOf(currentTime) > lastEvictionBucket;
+  }
+
+  /**
+   * Evicts all paths whose expiry bucket ends before the provided time
+   * The expiry buckets are only examined once per eviction period so repeated calls are cheap
+   *
+   * @param currentTime The current time in seconds
+   *
+   * @return The evicted paths. Empty if nothing was evicted
+   */
+  public List<PathSnapshot> evictExpired(double currentTime) {
+    long currentBucket = bucketOf(currentTime);
+    if (currentBucket <= lastEvictionBucket) {
+      return Collections.emptyList();
+    }
+    lastEvictionBucket = currentBucket;
+    List<PathSnapshot> evicted = null;
+    Iterator<Entry<Long, Set<PathSnapshot>>> it = expiryBuckets.headMap(currentBucket, false).entrySet().iterator();
+    while (it.hasNext()) {
+      Set<PathSnapshot> bucket = it.next().getValue();
+      it.remove();
+      for (PathSnapshot trackedPath : bucket) {
+        paths.remove(trackedPath.key);
+        if (evicted == null) {
+          evicted = new ArrayList<>();
+        }
+        evicted.add(trackedPath);
+      }
+    }
+    if (evicted == null) {
+      return Collections.emptyList();
+    }
+    publishSnapshot();
+    return evicted;
+  }
+
+  /**
+   * Gets the most recently published immutable set of paths
+   * The returned array must not be modified
+   *
+   * @return The current paths
+   */
+  public PathSnapshot[] getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Returns true if a path is stored for the provided key
+   *
+   * @param key The key to check
+   *
+   * @return True if present
+   */
+  public boolean contains(String key) {
+    return paths.containsKey(key);
+  }
+
+  /**
+   * Gets the number of tracked paths
+   *
+   * @return The number of paths
+   */
+  public int size() {
+    return paths.size();
+  }
+
+  /**
+   * Returns true if no paths are tracked
+   *
+   * @return True if empty
+   */
+  public boolean isEmpty() {
+    return paths.isEmpty();
+  }
+
+  private void publishSnapshot() {
+    snapshot = paths.isEmpty() ? EMPTY_SNAPSHOT : paths.values().toArray(new PathSnapshot[paths.size()]);
+  }
+
+  private long bucketOf(double time) {
+    return (long) Math.floor(time / evictionPeriod);
+  }
+}
@@ -44,9 +44,9 @@ import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnMessageCallback;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnServiceResponseCallback;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.TopicNotFoundException;
 import gov.dot.fhwa.saxton.carma.guidance.signals.Deadband;
+import gov.dot.fhwa.saxton.carma.guidance.signals.DoublePipeline;
 import gov.dot.fhwa.saxton.carma.guidance.signals.MovingAverageFilter;
 import gov.dot.fhwa.saxton.carma.guidance.signals.PidController;
-import gov.dot.fhwa.saxton.carma.guidance.signals.Pipeline;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
 import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
 import org.ros.exception.RosRuntimeException;
@@ -112,7 +112,7 @@ public class ManeuverInputs extends GuidanceComponent implements IManeuverInputs
         MovingAverageFilter movingAverageFilter = new MovingAverageFilter(numSamples);
         Deadband deadbandFilter = new Deadband(desiredTimeGap, deadband);
 
-        Pipeline<Double> accFilterPipeline = new Pipeline<>(deadbandFilter, timeGapController, movingAverageFilter);
+        DoublePipeline accFilterPipeline = new DoublePipeline(deadbandFilter, timeGapController, movingAverageFilter);
         BasicAccStrategyFactory accFactory = new BasicAccStrategyFactory(desiredTimeGap, maxAccel_, vehicleResponseLag,
                 minStandoffDistance, exitDistanceFactor, accFilterPipeline);
         AccStrategyManager.setAccStrategyFactory(accFactory);
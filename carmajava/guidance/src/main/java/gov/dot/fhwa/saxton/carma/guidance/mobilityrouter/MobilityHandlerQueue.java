@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.mobilityrouter;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+
+/**
+ * Bounded queue of the callbacks waiting for one mobility message handler
+ * <p>
+ * Callbacks for a handler run one at a time, in order, on a shared executor. A queue never has more than one
+ * task waiting in the executor, so a slow handler holds at most one executor thread and cannot delay the
+ * callbacks of other handlers. Once the queue is full the oldest waiting callback is shed and its shed hook, if
+ * any, is run on the submitting thread in its place. A callback submitted with a key replaces a waiting callback
+ * with the same key, keeping its place in the queue.
+ * <p>
+ * A warning is logged when a handler starts falling behind and shedding callbacks, and an info message once it
+ * has caught up again.
+ * <p>
+ * This class is thread safe
+ */
+class MobilityHandlerQueue {
+
+    private static class Callback {
+        final Object key;
+        Runnable task;
+        Runnable onShed;
+
+        Callback(Object key, Runnable task, Runnable onShed) {
+            this.key = key;
+            this.task = task;
+            this.onShed = onShed;
+        }
+    }
+
+    private final String name;
+    private final int capacity;
+    private final Executor executor;
+    private final ILogger log;
+    private final ArrayDeque<Callback> queue;
+    private final Map<Object, Callback> waiting = new HashMap<>();
+    private boolean scheduled = false;
+    private boolean overloaded = false;
+    private long shed = 0;
+    private long coalesced = 0;
+    private long shedWhileOverloaded = 0;
+
+    /**
+     * Constructor
+     *
+     * @param name     The handler name used in log messages
+     * @param capacity The maximum number of waiting callbacks
+     * @param executor The executor shared by all handler queues
+     * @param log      The logger for overload messages
+     */
+    MobilityHandlerQueue(String name, int capacity, Executor executor, ILogger log) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("MobilityHandlerQueue requires a positive capacity");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.log = log;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Queues a callback for the handler
+     *
+     * @param key  If not null, a waiting callback with an equal key is replaced by this one
+     * @param task The callback
+     */
+    void submit(Object key, Runnable task) {
+        submit(key, task, null);
+    }
+
+    /**
+     * Queues a callback for the handler
+     *
+     * @param key    If not null, a waiting callback with an equal key is replaced by this one
+     * @param task   The callback
+     * @param onShed If not null, run instead of the callback if the callback is shed
+     */
+    void submit(Object key, Runnable task, Runnable onShed) {
+        boolean schedule;
+        Runnable shedTask = null;
+        synchronized (this) {
+            Callback existing = key != null ? waiting.get(key) : null;
+            if (existing != null) {
+                existing.task = task;
+                existing.onShed = onShed;
+                coalesced++;
+                return;
+            }
+            if (queue.size() == capacity) {
+                Callback oldest = queue.poll();
+                if (oldest.key != null) {
+                    waiting.remove(oldest.key);
+                }
+                shedTask = oldest.onShed;
+                shed++;
+                shedWhileOverloaded++;
+                if (!overloaded) {
+                    overloaded = true;
+                    log.warn("Mobility handler " + name + " is falling behind, shedding its oldest callbacks");
+                }
+            }
+            Callback callback = new Callback(key, task, onShed);
+            queue.add(callback);
+            if (key != null) {
+                waiting.put(key, callback);
+            }
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (shedTask != null) {
+            try {
+                shedTask.run();
+            } catch (Exception e) {
+                log.error("Mobility handler " + name + " shed hook threw an exception", e);
+            }
+        }
+        if (schedule) {
+            schedule();
+        }
+    }
+
+    /**
+     * Runs the oldest waiting callback then reschedules itself behind the other handlers if more are waiting
+     */
+    private void runNext() {
+        Runnable task;
+        synchronized (this) {
+            Callback callback = queue.poll();
+            if (callback == null) {
+                scheduled = false;
+                return;
+            }
+            if (callback.key != null) {
+                waiting.remove(callback.key);
+            }
+            task = callback.task;
+        }
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Mobility handler " + name + " threw an exception", e);
+        }
+        boolean more;
+        synchronized (this) {
+            more = !queue.isEmpty();
+            scheduled = more;
+            if (!more && overloaded) {
+                overloaded = false;
+                log.info("Mobility handler " + name + " caught up after shedding " + shedWhileOverloaded + " callbacks");
+                shedWhileOverloaded = 0;
+            }
+        }
+        if (more) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            // The router is restarting and the executor no longer accepts work
+            synchronized (this) {
+                queue.clear();
+                waiting.clear();
+                scheduled = false;
+            }
+        }
+    }
+
+    /**
+     * @return True if callbacks have been shed since the handler last caught up
+     */
+    synchronized boolean isOverloaded() {
+        return overloaded;
+    }
+
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    synchronized long getShedCount() {
+        return shed;
+    }
+
+    synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+}
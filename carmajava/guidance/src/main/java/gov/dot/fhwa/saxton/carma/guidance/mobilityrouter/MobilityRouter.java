@@ -16,12 +16,10 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.mobilityrouter;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -49,6 +47,8 @@ import gov.dot.fhwa.saxton.carma.guidance.plugins.IPlugin;
 import gov.dot.fhwa.saxton.carma.guidance.plugins.PluginManager;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.*;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.TrajectoryExecutor;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import gov.dot.fhwa.saxton.carma.guidance.util.PathDiagnosticsBuffer;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.ITrajectoryConverter;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
 
@@ -62,6 +62,13 @@ import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointSta
  * <p>
  * Also handles publication of ACK/NACK responses to inbound MobilityRequest
  * messages based on plugin handler return codes.
+ * <p>
+ * Each handler has its own bounded {@link MobilityHandlerQueue} so a handler
+ * which falls behind sheds its oldest callbacks instead of delaying the
+ * handlers of other plugins. Waiting MobilityPath callbacks are coalesced by
+ * sender since only the newest path of a vehicle is relevant. A shed
+ * MobilityRequest callback is answered with a NACK so the requesting vehicle
+ * is never left waiting on a response which will not come.
  */
 public class MobilityRouter extends GuidanceComponent implements IMobilityRouter, IStateChangeListener {
 
@@ -73,12 +80,16 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
     private ISubscriber<MobilityOperation> operationSub;
     private ISubscriber<MobilityPath> pathSub;
     private IPublisher<MobilityResponse> ackPub;
-    private Map<String, LinkedList<MobilityRequestHandler>> requestMap = Collections.synchronizedMap(new HashMap<>());
-    private List<MobilityResponseHandler> ackList = Collections.synchronizedList(new LinkedList<>());
-    private Map<String, LinkedList<MobilityOperationHandler>> operationMap = Collections
-            .synchronizedMap(new HashMap<>());
-    private Map<String, LinkedList<MobilityPathHandler>> pathMap = Collections.synchronizedMap(new HashMap<>());
+    private StrategyIndex<MobilityRequestHandler> requestMap = new StrategyIndex<>();
+    private CopyOnWriteArrayList<MobilityResponseHandler> ackList = new CopyOnWriteArrayList<>();
+    private StrategyIndex<MobilityOperationHandler> operationMap = new StrategyIndex<>();
+    private StrategyIndex<MobilityPathHandler> pathMap = new StrategyIndex<>();
     private ExecutorService executor = Executors.newFixedThreadPool(NUMTHREADS);
+    private int handlerQueueSize = 20;
+    private Map<MobilityRequestHandler, MobilityHandlerQueue> requestQueues = new ConcurrentHashMap<>();
+    private Map<MobilityResponseHandler, MobilityHandlerQueue> ackQueues = new ConcurrentHashMap<>();
+    private Map<MobilityOperationHandler, MobilityHandlerQueue> operationQueues = new ConcurrentHashMap<>();
+    private Map<MobilityPathHandler, MobilityHandlerQueue> pathQueues = new ConcurrentHashMap<>();
 
     private PluginManager pluginManager;
     private TrajectoryExecutor trajectoryExecutor;
@@ -93,6 +104,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
     private AtomicBoolean handleMobilityPath = new AtomicBoolean(true);
     private boolean isDisableMobilityPathCapabilityAcquired = false;
     private Object mutex = new Object();
+    private final PathDiagnosticsBuffer pathDiagnostics = LoggerManager.getPathDiagnostics();
 
     public MobilityRouter(GuidanceStateMachine stateMachine, IPubSubService pubSubService, ConnectedNode node,
             IConflictManager conflictManager, ITrajectoryConverter trajectoryConverter,
@@ -141,6 +153,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
         defaultConflictHandlerName = node.getParameterTree().getString("~default_mobility_conflict_handler",
                 "Yield Plugin");
         hostMobilityStaticId = node.getParameterTree().getString("~vehicle_id", "");
+        handlerQueueSize = node.getParameterTree().getInteger("~mobility_handler_queue_size", 20);
 
         log.info("Setup complete");
     }
@@ -176,10 +189,14 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
     @Override
     public void onCleanRestart() {
         this.handleMobilityPath.set(true);
-        requestMap = Collections.synchronizedMap(new HashMap<>());
-        ackList = Collections.synchronizedList(new LinkedList<>());
-        operationMap = Collections.synchronizedMap(new HashMap<>());
-        pathMap = Collections.synchronizedMap(new HashMap<>());
+        requestMap = new StrategyIndex<>();
+        ackList = new CopyOnWriteArrayList<>();
+        operationMap = new StrategyIndex<>();
+        pathMap = new StrategyIndex<>();
+        requestQueues = new ConcurrentHashMap<>();
+        ackQueues = new ConcurrentHashMap<>();
+        operationQueues = new ConcurrentHashMap<>();
+        pathQueues = new ConcurrentHashMap<>();
         executor.shutdown();
         try {
             if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
@@ -204,12 +221,43 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
         return header.getRecipientId().equals("");
     }
 
+    /**
+     * Gets the callback queue of a handler, creating it on first use
+     */
+    private <T> MobilityHandlerQueue getQueue(Map<T, MobilityHandlerQueue> queues, T handler, String messageType) {
+        MobilityHandlerQueue queue = queues.get(handler);
+        if (queue == null) {
+            queue = queues.computeIfAbsent(handler, h -> new MobilityHandlerQueue(
+                    h.getClass().getSimpleName() + " (" + messageType + ")", handlerQueueSize, executor, log));
+        }
+        return queue;
+    }
+
+    /**
+     * Initializes a response to a MobilityRequest message from the host vehicle
+     * 
+     * @param msg The MobilityRequest message being responded to
+     * @return The response message, without its acceptance set
+     */
+    private MobilityResponse newResponse(MobilityRequest msg) {
+        MobilityResponse respMsg = ackPub.newMessage();
+        respMsg.getHeader().setPlanId(msg.getHeader().getPlanId());
+        respMsg.getHeader().setRecipientId(msg.getHeader().getSenderId());
+        respMsg.getHeader().setSenderId(hostMobilityStaticId);
+        respMsg.getHeader().setSenderBsmId(trackingService.getCurrentBSMId());
+        respMsg.getHeader().setTimestamp(System.currentTimeMillis());
+        return respMsg;
+    }
+
     /**
      * Handles the mobility request callback execution in a separate thread.
      * <p>
      * Also uses the plugin's returned {@link MobilityRequestResponse} value to
      * determine how to proceed, if nacked or ignored in special cases the path will
      * not be added to the set of known paths in potential conflict analysis.
+     * <p>
+     * If the handler falls behind and the callback is shed the request is NACKed,
+     * since the handler never got the chance to accept it.
      * 
      * @param handler       the callback to be invoked in the background thread
      * @param msg           The MobilityRequest message being handled
@@ -219,16 +267,11 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
      */
     private void fireMobilityRequestCallback(MobilityRequestHandler handler, MobilityRequest msg, boolean hasConflict,
             ConflictSpace conflictSpace) {
-        executor.execute(() -> {
+        getQueue(requestQueues, handler, "MobilityRequest").submit(null, () -> {
             MobilityRequestResponse resp = handler.handleMobilityRequestMessage(msg, hasConflict, conflictSpace);
 
             // Initialize the response message
-            MobilityResponse respMsg = ackPub.newMessage();
-            respMsg.getHeader().setPlanId(msg.getHeader().getPlanId());
-            respMsg.getHeader().setRecipientId(msg.getHeader().getSenderId());
-            respMsg.getHeader().setSenderId(hostMobilityStaticId);
-            respMsg.getHeader().setSenderBsmId(trackingService.getCurrentBSMId());
-            respMsg.getHeader().setTimestamp(System.currentTimeMillis());
+            MobilityResponse respMsg = newResponse(msg);
 
             if (resp == MobilityRequestResponse.ACK) {
                 List<RoutePointStamped> path = trajectoryConverter.messageToPath(msg.getTrajectory());
@@ -242,6 +285,12 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
                 respMsg.setIsAccepted(false);
                 ackPub.publish(respMsg);
             } // else don't send a response
+        }, () -> {
+            log.warn("Mobility request " + msg.getHeader().getPlanId() + " was shed by "
+                    + handler.getClass().getSimpleName() + ", sending NACK");
+            MobilityResponse respMsg = newResponse(msg);
+            respMsg.setIsAccepted(false);
+            ackPub.publish(respMsg);
         });
     }
 
@@ -252,7 +301,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
      * @param msg     The MobilityResponse message being handled
      */
     private void fireMobilityResponseCallback(MobilityResponseHandler handler, MobilityResponse msg) {
-        executor.execute(() -> handler.handleMobilityResponseMessage(msg));
+        getQueue(ackQueues, handler, "MobilityResponse").submit(null, () -> handler.handleMobilityResponseMessage(msg));
     }
 
     /**
@@ -262,7 +311,8 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
      * @param msg     The MobilityOperation message being handled
      */
     private void fireMobilityOperationCallback(MobilityOperationHandler handler, MobilityOperation msg) {
-        executor.execute(() -> handler.handleMobilityOperationMessage(msg));
+        getQueue(operationQueues, handler, "MobilityOperation").submit(null,
+                () -> handler.handleMobilityOperationMessage(msg));
     }
 
     /**
@@ -277,7 +327,9 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
      */
     private void fireMobilityPathCallback(MobilityPathHandler handler, MobilityPath msg, boolean hasConflict,
             ConflictSpace conflictSpace) {
-        executor.execute(() -> handler.handleMobilityPathMessageWithConflict(msg, hasConflict, conflictSpace));
+        // A newer path from the same vehicle supersedes a waiting one
+        getQueue(pathQueues, handler, "MobilityPath").submit(msg.getHeader().getSenderId(),
+                () -> handler.handleMobilityPathMessageWithConflict(msg, hasConflict, conflictSpace));
     }
 
     /**
@@ -309,21 +361,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
         boolean conflictHandled = true;
         ConflictSpace conflictSpace = null;
 
-        ///// LOG PATH TODO remove when done testing
-        String pathLog = "The request which was processed was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : otherPath) {
-            pathLog = pathLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(pathLog);
-
-        String hostLog = "The host path during request which was current was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : hostPath) {
-            hostLog = hostLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(hostLog);
-        //// END LOG PATH
+        pathDiagnostics.record("MobilityRequest", msg.getHeader().getPlanId(), otherPath);
 
         if (!conflictSpaces.isEmpty()) {
             conflictSpace = conflictSpaces.get(0); // Only use the first because the new trajectory will modify and
@@ -332,18 +370,18 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
                     "Conflict detected in path %s, startDist = %.02f, endDist = %.02f, lane = %d, startTime = %.02f, endTime = %.02f",
                     msg.getHeader().getPlanId(), conflictSpace.getStartDowntrack(), conflictSpace.getEndDowntrack(),
                     conflictSpace.getLane(), conflictSpace.getStartTime(), conflictSpace.getEndTime()));
+            logConflictingPaths(msg.getHeader().getPlanId());
             conflictHandled = false;
         }
 
-        for (Entry<String, LinkedList<MobilityRequestHandler>> entry : requestMap.entrySet()) {
-            if (entry.getKey().endsWith(msg.getStrategy())) {
-                log.info("Firing message handlers registered for " + entry.getKey());
-                for (MobilityRequestHandler handler : entry.getValue()) {
-                    log.info("Firing mobility request handler: " + handler.getClass().getSimpleName());
-                    fireMobilityRequestCallback(handler, msg, conflictSpace != null, conflictSpace);
-                    conflictHandled = true;
-                }
-            }
+        List<MobilityRequestHandler> requestHandlers = requestMap.getHandlers(msg.getStrategy());
+        if (!requestHandlers.isEmpty()) {
+            log.info("Firing message handlers registered for " + msg.getStrategy());
+        }
+        for (MobilityRequestHandler handler : requestHandlers) {
+            log.info("Firing mobility request handler: " + handler.getClass().getSimpleName());
+            fireMobilityRequestCallback(handler, msg, conflictSpace != null, conflictSpace);
+            conflictHandled = true;
         }
 
         if (!conflictHandled) {
@@ -369,12 +407,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
                 log.warn("Using experimental replan method to extend plan to " + requestEnd);
 
                 // Initialize the response message
-                MobilityResponse respMsg = ackPub.newMessage();
-                respMsg.getHeader().setPlanId(msg.getHeader().getPlanId());
-                respMsg.getHeader().setRecipientId(msg.getHeader().getSenderId());
-                respMsg.getHeader().setSenderId(hostMobilityStaticId);
-                respMsg.getHeader().setSenderBsmId(trackingService.getCurrentBSMId());
-                respMsg.getHeader().setTimestamp(System.currentTimeMillis());
+                MobilityResponse respMsg = newResponse(msg);
 
                 List<RoutePointStamped> path = trajectoryConverter.messageToPath(msg.getTrajectory());
                 conflictManager.addRequestedPath(path, msg.getHeader().getPlanId(), msg.getHeader().getSenderId());
@@ -426,13 +459,9 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
             return;
         }
 
-        for (Entry<String, LinkedList<MobilityOperationHandler>> entry : operationMap.entrySet()) {
-            if (entry.getKey().endsWith(msg.getStrategy())) {
-                for (MobilityOperationHandler handler : entry.getValue()) {
-                    log.info("Firing message handlers registered for " + entry.getKey());
-                    fireMobilityOperationCallback(handler, msg);
-                }
-            }
+        for (MobilityOperationHandler handler : operationMap.getHandlers(msg.getStrategy())) {
+            log.info("Firing message handlers registered for " + msg.getStrategy());
+            fireMobilityOperationCallback(handler, msg);
         }
     }
 
@@ -468,27 +497,15 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
         conflictManager.addMobilityPath(otherTrajectory, msg.getHeader().getSenderId());
         long tempTime2 = System.currentTimeMillis();
         log.debug("handleMobilityPath: back from call to addMobilityPath().");
-        List<ConflictSpace> conflictSpaces = conflictManager.getConflicts(hostTrajectory, otherTrajectory);
+        // The path is already indexed by the conflict manager so only check against that vehicle's entries
+        List<ConflictSpace> conflictSpaces = conflictManager.getMobilityPathConflicts(hostTrajectory,
+                msg.getHeader().getSenderId());
         long tempEndTime = System.currentTimeMillis();
         log.info("Analyzing the path message with " + otherTrajectory.size() + " points took: "
                 + (tempEndTime - tempStartTime));
         log.debug("    Time to beginning of addMobilityPath was " + (tempTime1 - tempStartTime) + " ms");
         log.debug("    Time to run addMoblityPath = " + (tempTime2 - tempTime1) + " ms");
-        ///// LOG PATH TODO remove when done testing
-        String pathLog = "The path which was processed was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : otherTrajectory) {
-            pathLog = pathLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(pathLog);
-
-        String hostLog = "The host path which was current was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : hostTrajectory) {
-            hostLog = hostLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(hostLog);
-        //// END LOG PATH
+        pathDiagnostics.record("MobilityPath", msg.getHeader().getPlanId(), otherTrajectory);
         if (!conflictSpaces.isEmpty()) {
             ConflictSpace conflictSpace = conflictSpaces.get(0); // Only use the first because the new trajectory will
                                                                  // modify and change the others
@@ -496,6 +513,7 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
                     "Conflict detected in path %s, startDist = %.02f, endDist = %.02f, lane = %d, startTime = %.02f, endTime = %.02f",
                     msg.getHeader().getPlanId(), conflictSpace.getStartDowntrack(), conflictSpace.getEndDowntrack(),
                     conflictSpace.getLane(), conflictSpace.getStartTime(), conflictSpace.getEndTime()));
+            logConflictingPaths(msg.getHeader().getPlanId());
             // Handle in default conflict handler
             if (defaultConflictHandler != null) {
                 log.info("Handling path conflict with " + defaultConflictHandler.getVersionInfo());
@@ -506,53 +524,36 @@ public class MobilityRouter extends GuidanceComponent implements IMobilityRouter
         }
     }
 
+    /**
+     * Writes the recorded paths for the conflicting plan and the latest host path prediction at debug level
+     */
+    private void logConflictingPaths(String planId) {
+        log.debug("PATH", () -> pathDiagnostics.dump(planId)
+                + pathDiagnostics.dumpLatest(VehicleAwareness.HOST_PATH_DIAGNOSTICS_ID));
+    }
+
     @Override
     public void registerMobilityRequestHandler(String strategyId, MobilityRequestHandler handler) {
         log.info("Mobility Request handler: " + handler.getClass().getSimpleName() + " registered for " + strategyId);
-        synchronized (requestMap) {
-            if (!requestMap.containsKey(strategyId)) {
-                requestMap.put(strategyId, new LinkedList<MobilityRequestHandler>());
-            }
-            if (!requestMap.get(strategyId).contains(handler)) {
-                requestMap.get(strategyId).add(handler);
-            }
-        }
+        requestMap.register(strategyId, handler);
     }
 
     @Override
     public void registerMobilityResponseHandler(MobilityResponseHandler handler) {
         log.info("Mobility Response handler: " + handler.getClass().getSimpleName() + " registered");
-        synchronized (ackList) {
-            if (!ackList.contains(handler)) {
-                ackList.add(handler);
-            }
-        }
+        ackList.addIfAbsent(handler);
     }
 
     @Override
     public void registerMobilityOperationHandler(String strategyId, MobilityOperationHandler handler) {
         log.info("Mobility Operation handler: " + handler.getClass().getSimpleName() + " registered for " + strategyId);
-        synchronized (operationMap) {
-            if (!operationMap.containsKey(strategyId)) {
-                operationMap.put(strategyId, new LinkedList<MobilityOperationHandler>());
-            }
-            if (!operationMap.get(strategyId).contains(handler)) {
-                operationMap.get(strategyId).add(handler);
-            }
-        }
+        operationMap.register(strategyId, handler);
     }
 
     @Override
     public void registerMobilityPathHandler(String strategyId, MobilityPathHandler handler) {
         log.info("Mobility Path handler: " + handler.getClass().getSimpleName() + " registered for " + strategyId);
-        synchronized (pathMap) {
-            if (!pathMap.containsKey(strategyId)) {
-                pathMap.put(strategyId, new LinkedList<MobilityPathHandler>());
-            }
-            if (!pathMap.get(strategyId).contains(handler)) {
-                pathMap.get(strategyId).add(handler);
-            }
-        }
+        pathMap.register(strategyId, handler);
     }
 
     @Override
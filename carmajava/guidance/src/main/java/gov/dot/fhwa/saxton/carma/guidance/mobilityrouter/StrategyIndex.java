@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.mobilityrouter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Resolves the strategy string of an inbound mobility message to the handlers registered for it
+ * <p>
+ * A handler registered for a strategy is relevant to every message whose strategy matches the end of the
+ * registered strategy, so the index holds an entry for each suffix of each registered strategy. Registration
+ * happens a few times at startup and rebuilds the index, after which a lookup is a single hash map get
+ * which does not lock.
+ * <p>
+ * This class is thread safe
+ *
+ * @param <T> The handler type
+ */
+class StrategyIndex<T> {
+
+    private final Map<String, List<T>> registrations = new LinkedHashMap<>();
+    private volatile Map<String, List<T>> index = Collections.emptyMap();
+
+    /**
+     * Registers a handler for a strategy
+     *
+     * @param strategy The registered strategy, such as "Carma/Platooning"
+     * @param handler  The handler to return for matching strategies
+     * @return False if the handler was already registered for the strategy, true o.w.
+     */
+    synchronized boolean register(String strategy, T handler) {
+        List<T> handlers = registrations.computeIfAbsent(strategy, k -> new ArrayList<>());
+        if (handlers.contains(handler)) {
+            return false;
+        }
+        handlers.add(handler);
+
+        Map<String, List<T>> newIndex = new HashMap<>();
+        for (Entry<String, List<T>> entry : registrations.entrySet()) {
+            String registered = entry.getKey();
+            for (int i = 0; i <= registered.length(); i++) {
+                newIndex.computeIfAbsent(registered.substring(i), k -> new ArrayList<>()).addAll(entry.getValue());
+            }
+        }
+        for (Entry<String, List<T>> entry : newIndex.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        index = newIndex;
+        return true;
+    }
+
+    /**
+     * Gets the handlers whose registered strategy ends with the provided strategy
+     *
+     * @param strategy The strategy of an inbound message
+     * @return The matching handlers in registration order. Empty if there are none
+     */
+    List<T> getHandlers(String strategy) {
+        List<T> handlers = index.get(strategy);
+        return handlers != null ? handlers : Collections.emptyList();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.trajectory;
+
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.IManeuver;
+
+import java.util.List;
+
+/**
+ * Tracks the active maneuver of a single type within a trajectory as the vehicle moves downtrack
+ * <p>
+ * The maneuvers are copied into arrays once when the cursor is built so that finding the active
+ * maneuver on each control tick does not allocate. The cursor moves forward through the maneuvers as
+ * the downtrack distance increases, so each lookup takes amortized constant time. Small decreases in
+ * downtrack distance, such as from GPS drift, move the cursor back.
+ * <p>
+ * Maneuvers must be sorted by start distance and must not overlap, as they are in a {@link Trajectory}.
+ * Like the trajectory, a maneuver is active on the interval [start, end).
+ */
+class ManeuverCursor {
+  private final IManeuver[] maneuvers;
+  private final double[] starts;
+  private final double[] ends;
+  private int index = 0; // Index of the first maneuver which ends after the last location
+
+  /**
+   * Constructor
+   * 
+   * @param sortedManeuvers Non-overlapping maneuvers sorted by start distance
+   */
+  ManeuverCursor(List<? extends IManeuver> sortedManeuvers) {
+    int size = sortedManeuvers.size();
+    maneuvers = new IManeuver[size];
+    starts = new double[size];
+    ends = new double[size];
+    for (int i = 0; i < size; i++) {
+      IManeuver m = sortedManeuvers.get(i);
+      maneuvers[i] = m;
+      starts[i] = m.getStartDistance();
+      ends[i] = m.getEndDistance();
+    }
+  }
+
+  /**
+   * Move the cursor to the specified location
+   * 
+   * @param loc The downtrack distance of the vehicle
+   * @return The maneuver active at loc, null if there is none
+   */
+  IManeuver advanceTo(double loc) {
+    while (index < ends.length && ends[index] <= loc) {
+      index++;
+    }
+    while (index > 0 && ends[index - 1] > loc) {
+      index--;
+    }
+
+    if (index < ends.length && starts[index] <= loc) {
+      return maneuvers[index];
+    }
+    return null;
+  }
+}
@@ -59,6 +59,20 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
   protected static final int MAX_ACCEPTABLE_TIMESTEPS_WITHOUT_TRAJECTORY = 3;
   protected TrajectoryConverter trajectoryConverter;
 
+  // Cursors over the maneuvers of the current trajectory, rebuilt when the current trajectory changes
+  protected Trajectory cursorTrajectory = null;
+  private ManeuverCursor longitudinalCursor = null;
+  private ManeuverCursor lateralCursor = null;
+
+  // Active maneuvers are only published when they change or when the keep alive period elapses
+  protected static final long DEFAULT_ACTIVE_MANEUVERS_KEEP_ALIVE_MS = 1000;
+  protected long activeManeuversKeepAliveMs = DEFAULT_ACTIVE_MANEUVERS_KEEP_ALIVE_MS;
+  protected boolean activeManeuversPublished = false;
+  protected long lastActiveManeuversPublishTime = 0;
+  private IManeuver publishedLongitudinalManeuver = null;
+  private IManeuver publishedLateralManeuver = null;
+  private IManeuver publishedComplexManeuver = null;
+
   // Storage struct for internal representation of callbacks based on trajectory completion percent
   private class PctCallback {
     boolean called = false;
@@ -135,6 +149,7 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
     currentLateralManeuver = null;
     currentLongitudinalManeuver =  null;
     currentComplexManeuver = null;
+    cursorTrajectory = null;
   }
 
   /**
@@ -245,6 +260,11 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
    * trajectory finishes execution.
    */
   public void runTrajectory(Trajectory traj) {
+    // Trajectories are not modified once submitted, index their maneuvers if this was not already done
+    if (traj != null) {
+      traj.freeze();
+    }
+
     if (currentTrajectory.get() == null) {
       currentTrajectory.set(traj);
 
@@ -259,6 +279,10 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
 
   /**
    * Periodic loop method for iterating, this is where maneuvers get executed
+   * <p>
+   * The active maneuvers are found by advancing cursors over the current trajectory's maneuvers and the
+   * active maneuvers message is only built when it needs to be published, so a tick does not allocate
+   * unless the active maneuvers change or the keep alive period has elapsed.
    * 
    * Synchronized to prevent race conditions with onCleanRestart and abortTrajectory functions
    * 
@@ -266,54 +290,87 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
    * TODO: Discuss epsilon value with team
    */
   public synchronized void loop() {
-    activeManeuversMsg = activeManeuversPub.newMessage();
+    Trajectory traj = currentTrajectory.get();
+    IManeuver activeLongitudinal = null;
+    IManeuver activeLateral = null;
+    IManeuver activeComplex = null;
+
+    if (traj != null) {
+      if (traj != cursorTrajectory) {
+        longitudinalCursor = new ManeuverCursor(traj.getLongitudinalManeuvers());
+        lateralCursor = new ManeuverCursor(traj.getLateralManeuvers());
+        cursorTrajectory = traj;
+      }
 
-    if (currentTrajectory.get() != null) {
-      currentLongitudinalManeuver = currentTrajectory.get().getManeuverAt(downtrackDistance, ManeuverType.LONGITUDINAL);
-      currentLateralManeuver = currentTrajectory.get().getManeuverAt(downtrackDistance, ManeuverType.LATERAL);
-      currentComplexManeuver = currentTrajectory.get().getManeuverAt(downtrackDistance, ManeuverType.COMPLEX);
+      currentLongitudinalManeuver = longitudinalCursor.advanceTo(downtrackDistance);
+      currentLateralManeuver = lateralCursor.advanceTo(downtrackDistance);
+      currentComplexManeuver = traj.getManeuverAt(downtrackDistance, ManeuverType.COMPLEX);
 
       if (currentComplexManeuver != null) {
-        try {
-          currentComplexManeuver.executeTimeStep();
-        } catch (IllegalStateException ise) {
-          log.warn("Maneuver " + currentComplexManeuver.getClass().getSimpleName() + " planned by "
-              + currentComplexManeuver.getPlanner() + " attempted to run after its end distance.");
-        }
-        activeManeuversMsg.setLongitudinalStartDist(currentComplexManeuver.getStartDistance());
-        activeManeuversMsg.setLongitudinalEndDist(currentComplexManeuver.getEndDistance());
-        activeManeuversMsg.setLongitudinalManeuver(currentComplexManeuver.getClass().getSimpleName());
-        activeManeuversMsg
-            .setLongitudinalPlugin(currentComplexManeuver.getPlanner().getVersionInfo().componentName());
+        executeTimeStep(currentComplexManeuver);
+        activeComplex = currentComplexManeuver;
       } else {
         if (currentLongitudinalManeuver != null) {
-          try {
-            currentLongitudinalManeuver.executeTimeStep();
-          } catch (IllegalStateException ise) {
-            log.warn("Maneuver " + currentLongitudinalManeuver.getClass().getSimpleName() + " planned by "
-                + currentLongitudinalManeuver.getPlanner() + " attempted to run after its end distance.");
-          }
-          activeManeuversMsg.setLongitudinalStartDist(currentLongitudinalManeuver.getStartDistance());
-          activeManeuversMsg.setLongitudinalEndDist(currentLongitudinalManeuver.getEndDistance());
-          activeManeuversMsg.setLongitudinalManeuver(currentLongitudinalManeuver.getClass().getSimpleName());
-          activeManeuversMsg
-              .setLongitudinalPlugin(currentLongitudinalManeuver.getPlanner().getVersionInfo().componentName());
+          executeTimeStep(currentLongitudinalManeuver);
+          activeLongitudinal = currentLongitudinalManeuver;
         }
         if (currentLateralManeuver != null) {
-          try {
-            currentLateralManeuver.executeTimeStep();
-          } catch (IllegalStateException ise) {
-            log.warn("Maneuver " + currentLateralManeuver.getClass().getSimpleName() + " planned by "
-                + currentLateralManeuver.getPlanner() + " attempted to run after its end distance.");
-          }
-          activeManeuversMsg.setLateralStartDist(currentLateralManeuver.getStartDistance());
-          activeManeuversMsg.setLateralEndDist(currentLateralManeuver.getEndDistance());
-          activeManeuversMsg.setLateralManeuver(currentLateralManeuver.getClass().getSimpleName());
-          activeManeuversMsg.setLateralPlugin(currentLateralManeuver.getPlanner().getVersionInfo().componentName());
+          executeTimeStep(currentLateralManeuver);
+          activeLateral = currentLateralManeuver;
         }
       }
     }
 
+    long now = System.currentTimeMillis();
+    if (!activeManeuversPublished
+        || activeLongitudinal != publishedLongitudinalManeuver
+        || activeLateral != publishedLateralManeuver
+        || activeComplex != publishedComplexManeuver
+        || now - lastActiveManeuversPublishTime >= activeManeuversKeepAliveMs) {
+      publishActiveManeuvers(activeLongitudinal, activeLateral, activeComplex);
+      activeManeuversPublished = true;
+      lastActiveManeuversPublishTime = now;
+      publishedLongitudinalManeuver = activeLongitudinal;
+      publishedLateralManeuver = activeLateral;
+      publishedComplexManeuver = activeComplex;
+    }
+  }
+
+  /**
+   * Execute a single time step of a maneuver, logging a warning if it has already ended
+   */
+  private void executeTimeStep(IManeuver maneuver) {
+    try {
+      maneuver.executeTimeStep();
+    } catch (IllegalStateException ise) {
+      log.warn("Maneuver " + maneuver.getClass().getSimpleName() + " planned by "
+          + maneuver.getPlanner() + " attempted to run after its end distance.");
+    }
+  }
+
+  /**
+   * Publish the active maneuvers message
+   * A complex maneuver is reported in the longitudinal fields
+   */
+  private void publishActiveManeuvers(IManeuver longitudinal, IManeuver lateral, IManeuver complex) {
+    activeManeuversMsg = activeManeuversPub.newMessage();
+    if (complex != null) {
+      longitudinal = complex;
+    }
+
+    if (longitudinal != null) {
+      activeManeuversMsg.setLongitudinalStartDist(longitudinal.getStartDistance());
+      activeManeuversMsg.setLongitudinalEndDist(longitudinal.getEndDistance());
+      activeManeuversMsg.setLongitudinalManeuver(longitudinal.getClass().getSimpleName());
+      activeManeuversMsg.setLongitudinalPlugin(longitudinal.getPlanner().getVersionInfo().componentName());
+    }
+    if (lateral != null) {
+      activeManeuversMsg.setLateralStartDist(lateral.getStartDistance());
+      activeManeuversMsg.setLateralEndDist(lateral.getEndDistance());
+      activeManeuversMsg.setLateralManeuver(lateral.getClass().getSimpleName());
+      activeManeuversMsg.setLateralPlugin(lateral.getPlanner().getVersionInfo().componentName());
+    }
+
     activeManeuversPub.publish(activeManeuversMsg);
   }
 
@@ -386,6 +443,7 @@ public class TrajectoryExecutorWorker implements ManeuverFinishedListener {
     currentLateralManeuver = null;
     currentLongitudinalManeuver = null;
     currentComplexManeuver = null;
+    cursorTrajectory = null;
   }
 
   /**
@@ -32,6 +32,16 @@ public class SaxtonLoggerProxy implements ILogger {
     log = new SaxtonLogger(className, baseLog);
   }
 
+	@Override
+	public boolean isDebugEnabled() {
+		return log.getBaseLoggerObject().isDebugEnabled();
+	}
+
+	@Override
+	public boolean isTraceEnabled() {
+		return log.getBaseLoggerObject().isTraceEnabled();
+	}
+
 	@Override
 	public void debug(String message) {
     log.debug(message);
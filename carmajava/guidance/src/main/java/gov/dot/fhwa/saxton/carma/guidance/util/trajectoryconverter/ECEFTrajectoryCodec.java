@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter;
+
+import gov.dot.fhwa.saxton.carma.route.Route;
+import gov.dot.fhwa.saxton.carma.route.RouteGeometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ros.message.MessageFactory;
+
+import cav_msgs.LocationECEF;
+import cav_msgs.LocationOffsetECEF;
+
+/**
+ * Streaming codec between cav_msgs.Trajectory ECEF offsets and route frame paths
+ * <p>
+ * Points are converted using the segment frame matrices, lengths and starting downtracks precomputed in the
+ * {@link RouteGeometry} of the route. Encoding and decoding then work directly on primitive values and a
+ * {@link RoutePathBuffer} without creating intermediate vectors, transforms or point objects.
+ * <p>
+ * This class is safe to use from multiple threads as long as each thread provides its own path buffer
+ */
+public class ECEFTrajectoryCodec {
+
+  private static final double CM_PER_M = 100.0;
+  private static final double MS_PER_SEC = 1000;
+
+  private final double timeStep;
+  private final MessageFactory messageFactory;
+  private volatile Route route;
+
+  /**
+   * Constructor
+   *
+   * @param timeStep The size in seconds of the time step separating each point in a path
+   * @param messageFactory A factory for creating ros messages
+   */
+  public ECEFTrajectoryCodec(double timeStep, MessageFactory messageFactory) {
+    this.timeStep = timeStep;
+    this.messageFactory = messageFactory;
+  }
+
+  /**
+   * Sets the route which paths are described on
+   *
+   * @param route The route
+   */
+  public void setRoute(Route route) {
+    this.route = route;
+  }
+
+  /**
+   * Gets the route which paths are described on
+   *
+   * @return The route or null if none has been set
+   */
+  public Route getRoute() {
+    return route;
+  }
+
+  /**
+   * Decodes a trajectory message into route frame points
+   * <p>
+   * The first point of the message is assumed to lie on the starting segment.
+   * Later points advance to the next segment once they pass the end of the current segment.
+   *
+   * @param trajMsg The message to decode
+   * @param startSegmentIdx The index of the segment containing the first point of the message
+   * @param startSegDowntrack The segment downtrack to record for the first point
+   * @param path The buffer which will be cleared and then filled with the decoded points
+   */
+  public void decode(cav_msgs.Trajectory trajMsg, int startSegmentIdx, double startSegDowntrack, RoutePathBuffer path) {
+    final RouteGeometry geometry = route.getGeometry();
+    final int lastSegmentIdx = geometry.getNumSegments() - 1;
+    final double[] segPoint = new double[3];
+    path.clear();
+
+    LocationECEF startMsg = trajMsg.getLocation();
+    double x = (double) startMsg.getEcefX() / CM_PER_M;
+    double y = (double) startMsg.getEcefY() / CM_PER_M;
+    double z = (double) startMsg.getEcefZ() / CM_PER_M;
+    double time = startMsg.getTimestamp() / MS_PER_SEC;
+
+    int segmentIdx = startSegmentIdx;
+    double downtrackOfSegment = geometry.getSegmentStartDowntrack(segmentIdx);
+    double segmentLength = geometry.getSegmentLength(segmentIdx);
+    geometry.ecefPointInSegmentFrame(segmentIdx, x, y, z, segPoint);
+    path.add(segPoint[0] + downtrackOfSegment, segPoint[1], time, segmentIdx, startSegDowntrack);
+
+    for (LocationOffsetECEF offset : trajMsg.getOffsets()) {
+      time += timeStep;
+      x += (double) offset.getOffsetX() / CM_PER_M;
+      y += (double) offset.getOffsetY() / CM_PER_M;
+      z += (double) offset.getOffsetZ() / CM_PER_M;
+
+      geometry.ecefPointInSegmentFrame(segmentIdx, x, y, z, segPoint);
+      if (segPoint[0] > segmentLength && segmentIdx < lastSegmentIdx) {
+        downtrackOfSegment += segmentLength;
+        segmentIdx++;
+        segmentLength = geometry.getSegmentLength(segmentIdx);
+        geometry.ecefPointInSegmentFrame(segmentIdx, x, y, z, segPoint);
+      }
+      path.add(segPoint[0] + downtrackOfSegment, segPoint[1], time, segmentIdx, segPoint[0]);
+    }
+  }
+
+  /**
+   * Encodes route frame points as a trajectory message
+   * <p>
+   * Points beyond cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE are not included.
+   * Elevation is ignored when converting points to the ECEF frame.
+   *
+   * @param path The points to encode
+   *
+   * @return A cav_msgs.Trajectory message. This message will be empty if the path was empty
+   */
+  public cav_msgs.Trajectory encode(RoutePathBuffer path) {
+    cav_msgs.Trajectory pathMsg = messageFactory.newFromType(cav_msgs.Trajectory._TYPE);
+    final int numPoints = Math.min(path.size(), cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE);
+    if (numPoints == 0) {
+      return pathMsg;
+    }
+    final RouteGeometry geometry = route.getGeometry();
+    final double[] prev = new double[3];
+    final double[] ecef = new double[3];
+
+    // Handle starting point
+    geometry.segmentPointInECEF(path.getSegmentIdx(0), path.getSegDowntrack(0), path.getCrosstrack(0), 0.0, prev);
+    LocationECEF locationECEF = pathMsg.getLocation();
+    locationECEF.setEcefX((int) (prev[0] * CM_PER_M));
+    locationECEF.setEcefY((int) (prev[1] * CM_PER_M));
+    locationECEF.setEcefZ((int) (prev[2] * CM_PER_M));
+    locationECEF.setTimestamp((long) (path.getStamp(0) * MS_PER_SEC));
+
+    // Calculate offsets
+    List<LocationOffsetECEF> offsets = new ArrayList<>(numPoints - 1);
+    for (int i = 1; i < numPoints; i++) {
+      geometry.segmentPointInECEF(path.getSegmentIdx(i), path.getSegDowntrack(i), path.getCrosstrack(i), 0.0, ecef);
+      LocationOffsetECEF offsetMsg = messageFactory.newFromType(LocationOffsetECEF._TYPE);
+      offsetMsg.setOffsetX((short) ((ecef[0] - prev[0]) * CM_PER_M));
+      offsetMsg.setOffsetY((short) ((ecef[1] - prev[1]) * CM_PER_M));
+      offsetMsg.setOffsetZ((short) ((ecef[2] - prev[2]) * CM_PER_M));
+      offsets.add(offsetMsg);
+      System.arraycopy(ecef, 0, prev, 0, 3);
+    }
+    pathMsg.setOffsets(offsets);
+    return pathMsg;
+  }
+
+  /**
+   * Converts a point in the frame of the specified segment into the ECEF frame
+   * Elevation is ignored
+   *
+   * @param segmentIdx The index of the segment
+   * @param segDowntrack The downtrack distance along the segment in m
+   * @param crosstrack The crosstrack distance in m
+   * @param out Array of length 3 which will be set to the ECEF location in m
+   */
+  public void segmentToECEF(int segmentIdx, double segDowntrack, double crosstrack, double[] out) {
+    route.getGeometry().segmentPointInECEF(segmentIdx, segDowntrack, crosstrack, 0.0, out);
+  }
+}
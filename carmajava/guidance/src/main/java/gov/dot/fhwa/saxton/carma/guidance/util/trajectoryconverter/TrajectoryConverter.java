@@ -28,15 +28,10 @@ import gov.dot.fhwa.saxton.carma.route.Route;
 import gov.dot.fhwa.saxton.carma.route.RouteSegment;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.ros.message.MessageFactory;
-import org.ros.rosjava_geometry.Transform;
-import org.ros.rosjava_geometry.Vector3;
 
-import cav_msgs.LocationECEF;
-import cav_msgs.LocationOffsetECEF;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 
 /**
@@ -44,7 +39,8 @@ import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
  * Users of this class should call the convertToPath function
  * then call the pathToMessage function to convert the path into a MobilityPath message as needed.
  * 
- * Paths are described internally as a list of ECEFPointStamped objects
+ * Paths are generated internally in a reusable {@link RoutePathBuffer} so conversion is linear in the number of points
+ * and does not allocate per point until the result is copied into a list of RoutePointStamped objects
  * Simple Longitudinal Maneuver motion is estimated using the basic kinematic equations of motion
  * Lateral motion is approximated using a cubic function calculated based on the start and end distance of a maneuver
  * Complex maneuvers are treated as stead speed maneuvers operating at the average of the min and max speeds of that maneuver
@@ -68,6 +64,11 @@ public class TrajectoryConverter implements ITrajectoryConverter {
   private double currentSegDowntrack;
   private int lane;
   private final MessageFactory messageFactory;
+  // Reusable per thread storage for generated paths
+  private final ThreadLocal<RoutePathBuffer> pathBuffers;
+  // Reusable per thread storage for paths being encoded or decoded
+  private final ThreadLocal<RoutePathBuffer> codecBuffers;
+  private final ECEFTrajectoryCodec codec;
   private ILogger log;
 
   /**
@@ -81,6 +82,10 @@ public class TrajectoryConverter implements ITrajectoryConverter {
     this.maxPointsInPath = maxPointsInPath;
     this.timeStep = timeStep;
     this.messageFactory = messageFactory;
+    // Kinematic motion may add one point past the limit so allow room for it
+    this.pathBuffers = ThreadLocal.withInitial(() -> new RoutePathBuffer(maxPointsInPath + 1));
+    this.codecBuffers = ThreadLocal.withInitial(() -> new RoutePathBuffer(cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE));
+    this.codec = new ECEFTrajectoryCodec(timeStep, messageFactory);
     this.log = LoggerManager.getLogger();
   }
 
@@ -91,6 +96,7 @@ public class TrajectoryConverter implements ITrajectoryConverter {
    */
   public void setRoute(Route route) {
     this.route = route;
+    this.codec.setRoute(route);
   }
 
   /**
@@ -168,27 +174,46 @@ public class TrajectoryConverter implements ITrajectoryConverter {
   public List<RoutePointStamped> convertToPath(Trajectory traj, long startTimeMS,
    double downtrack, double crosstrack,
    int currentSegmentIdx, double segDowntrack, int lane, int maxPointsInPath) {
+    // If can't add points return an empty list
+    if (maxPointsInPath <= 0) {
+      return new ArrayList<>(); 
+    }
+    RoutePathBuffer path = pathBuffers.get();
+    convertToPath(traj, startTimeMS, downtrack, crosstrack, currentSegmentIdx, segDowntrack, lane, maxPointsInPath, path);
+    List<RoutePointStamped> points = path.toList();
+    path.clear();
+    return points;
+  }
+
+  @Override
+  public void convertToPath(Trajectory traj, long startTimeMS,
+   double downtrack, double crosstrack,
+   int currentSegmentIdx, double segDowntrack, int lane, int maxPointsInPath, RoutePathBuffer path) {
     // TODO !!! remove lane parameter and calculate when conversion occurs
     log.info("Converting trajectory to path");
-    // If can't add points return an empty list
+    path.clear();
+    // If can't add points leave the path empty
     if (maxPointsInPath <= 0) {
-      return new LinkedList<>(); 
+      return; 
     }
+    // Ensure maxPointsInPath never exceeds the configured parameter
+    maxPointsInPath = Math.min(maxPointsInPath, this.maxPointsInPath);
     // Convert time to seconds
     final double currentTime = startTimeMS * SEC_PER_MS;
     // Get maneuvers
     List<LongitudinalManeuver> longitudinalManeuvers = traj.getLongitudinalManeuvers();
     List<LateralManeuver> lateralManeuvers = traj.getLateralManeuvers();
     IComplexManeuver complexManeuver = traj.getComplexManeuver();
-    log.debug("PATH", "convertToPath entered: " + longitudinalManeuvers.size() + " long mvrs, " +
-                lateralManeuvers.size() + " lat mvrs, " + (complexManeuver == null ? "null" : "non-null") +
-                "complex mvr.");
-    log.debug("PATH", "    downtrack = " + downtrack + ", crosstrack = " + crosstrack + ", currentSegmentIdx = " + currentSegmentIdx +
-                ", segDowntrack = " + segDowntrack + ", lane = " + lane + ", maxPoints = " + maxPointsInPath +
-                ", currentTime = " + currentTime);
+    if (log.isDebugEnabled()) {
+      log.debug("PATH", "convertToPath entered: " + longitudinalManeuvers.size() + " long mvrs, " +
+                  lateralManeuvers.size() + " lat mvrs, " + (complexManeuver == null ? "null" : "non-null") +
+                  "complex mvr.");
+      log.debug("PATH", "    downtrack = " + downtrack + ", crosstrack = " + crosstrack + ", currentSegmentIdx = " + currentSegmentIdx +
+                  ", segDowntrack = " + segDowntrack + ", lane = " + lane + ", maxPoints = " + maxPointsInPath +
+                  ", currentTime = " + currentTime);
+    }
 
     // Starting simulation configuration
-    List<RoutePointStamped> path =  new LinkedList<RoutePointStamped>();
     //final double startTime = currentTime; 
     final double startingDowntrack = downtrack;
     final double startingSegDowntrack = segDowntrack;
@@ -197,91 +222,125 @@ public class TrajectoryConverter implements ITrajectoryConverter {
     // Process longitudinal maneuvers
     ////
     LongitudinalSimulationData longitudinalSimData = new LongitudinalSimulationData(currentTime, startingDowntrack, startingSegDowntrack, startingSegIdx);
-    RoutePointStamped oldPathEndPoint = null;
-    int oldPathSize = 0;
-    for (int i = 0; i < longitudinalManeuvers.size(); i++) {
-      LongitudinalManeuver maneuver = longitudinalManeuvers.get(i);
-      // If this is a future maneuver which has been filled with maneuvers we will replace it with those maneuvers
+    longitudinalSimData = addLongitudinalManeuversToPath(longitudinalManeuvers, path, longitudinalSimData, maxPointsInPath);
+    ////
+    // Process Lateral Maneuvers
+    ////
+    RouteSegment curSegment = route.getSegments().get(currentSegmentIdx);
+    double laneCount = curSegment.getDowntrackWaypoint().getLaneCount();
+    double laneWidth1 = curSegment.getDowntrackWaypoint().getLaneWidth();
+    double routeLineRelToLeftRoadEdge = (laneCount * laneWidth1 * 0.5);
+    double crosstrackRelToLeftRoadEdge = laneWidth1 * (laneCount - lane - 0.5);
+    LateralSimulationState lateralState = new LateralSimulationState(crosstrackRelToLeftRoadEdge - routeLineRelToLeftRoadEdge);
+    addLateralManeuversToPath(lateralManeuvers, path, lateralState);
+
+    ////
+    // Process Complex Maneuvers
+    ////
+    // This is a very simplistic handling of the complex maneuver.
+    // If complex maneuvers become more common this should be changed
+    if (complexManeuver != null && longitudinalSimData.segmentIdx < route.getSegments().size()) {
+      double averageSpeed = 0.5 * (complexManeuver.getMinExpectedSpeed() + complexManeuver.getMaxExpectedSpeed());
+      double startDist = complexManeuver.getStartDistance();
+      double endDist = complexManeuver.getEndDistance();
+      // Treat complex maneuver as stead speed maneuver
+      addKinematicMotionToPath(startDist, endDist, averageSpeed, averageSpeed, path, longitudinalSimData, maxPointsInPath);
+    }
+  }
+
+  /**
+   * Helper function which adds a list of longitudinal maneuvers to a path
+   * Future maneuvers which have been filled with maneuvers are replaced by those maneuvers
+   * without modifying the provided list
+   * 
+   * @param maneuvers The maneuvers to add in order
+   * @param path The path to add points to
+   * @param simData The starting configuration
+   * @param maxPointsInPath The maximum number of points in the path
+   * 
+   * @return The configuration after the last maneuver which was added
+   */
+  private LongitudinalSimulationData addLongitudinalManeuversToPath(List<LongitudinalManeuver> maneuvers,
+    RoutePathBuffer path, LongitudinalSimulationData simData, int maxPointsInPath) {
+    for (int i = 0; i < maneuvers.size(); i++) {
+      LongitudinalManeuver maneuver = maneuvers.get(i);
+      // If this is a future maneuver which has been filled with maneuvers we will use those maneuvers
       if (maneuver instanceof FutureLongitudinalManeuver && !((FutureLongitudinalManeuver)maneuver).getLongitudinalManeuvers().isEmpty()) {
-        longitudinalManeuvers.remove(i);
-        longitudinalManeuvers.addAll(i, ((FutureLongitudinalManeuver) maneuver).getLongitudinalManeuvers());
-        maneuver = longitudinalManeuvers.get(i);
+        simData = addLongitudinalManeuversToPath(((FutureLongitudinalManeuver) maneuver).getLongitudinalManeuvers(), path, simData, maxPointsInPath);
+        continue;
       }
 
       // If this maneuver is happening or will happen add it to the path
-      if (maneuver.getEndDistance() > longitudinalSimData.downtrack && longitudinalSimData.segmentIdx < route.getSegments().size()) {
+      if (maneuver.getEndDistance() > simData.downtrack && simData.segmentIdx < route.getSegments().size()) {
         log.debug("PATH", "convertToPath adding long mvr #" + i);
-        longitudinalSimData = addLongitudinalManeuverToPath(maneuver, path, longitudinalSimData, maxPointsInPath);
+        final int oldPathSize = path.size();
+        simData = addKinematicMotionToPath(maneuver.getStartDistance(), maneuver.getEndDistance(),
+          maneuver.getStartSpeed(), maneuver.getTargetSpeed(), path, simData, maxPointsInPath);
         // Ensure there are no overlapping points in time
-        if (oldPathEndPoint != null && path.size() > oldPathSize && oldPathEndPoint.getStamp() == path.get(oldPathSize).getStamp()){
+        if (oldPathSize > 0 && path.size() > oldPathSize && path.getStamp(oldPathSize - 1) == path.getStamp(oldPathSize)) {
           path.remove(oldPathSize);
         }
-        oldPathSize = path.size();
-        oldPathEndPoint = path.get(path.size() - 1);
       }
     }
-    ////
-    // Process Lateral Maneuvers
-    ////
+    return simData;
+  }
+
+  /**
+   * Mutable state carried between lateral maneuvers while shifting the crosstrack of path points
+   */
+  private static final class LateralSimulationState {
     int currentPoint = 0;
-    RouteSegment curSegment = route.getSegments().get(currentSegmentIdx);
-    double laneCount = curSegment.getDowntrackWaypoint().getLaneCount();
-    double laneWidth1 = curSegment.getDowntrackWaypoint().getLaneWidth();
-    double routeLineRelToLeftRoadEdge = (laneCount * laneWidth1 * 0.5);
-    double crosstrackRelToLeftRoadEdge = laneWidth1 * (laneCount - lane - 0.5);
-    double currentCrosstrack = crosstrackRelToLeftRoadEdge - routeLineRelToLeftRoadEdge;
-    //int currentLane = lane; // This variable is not used meaningfully
-    for (int i = 0; i < lateralManeuvers.size(); i++) {
-      if (currentPoint >= path.size()) {
+    double currentCrosstrack;
+
+    LateralSimulationState(double currentCrosstrack) {
+      this.currentCrosstrack = currentCrosstrack;
+    }
+  }
+
+  /**
+   * Helper function which applies a list of lateral maneuvers to the crosstrack of the points in a path
+   * Future maneuvers which have been filled with maneuvers are replaced by those maneuvers
+   * without modifying the provided list
+   * 
+   * @param maneuvers The maneuvers to apply in order
+   * @param path The path whose points will be updated
+   * @param state The current point and crosstrack. Updated in place
+   */
+  private void addLateralManeuversToPath(List<LateralManeuver> maneuvers, RoutePathBuffer path, LateralSimulationState state) {
+    for (int i = 0; i < maneuvers.size(); i++) {
+      if (state.currentPoint >= path.size()) {
         break;
       }
-      LateralManeuver maneuver = lateralManeuvers.get(i);
-      // If this is a future maneuver which has been filled with maneuvers we will replace it with those maneuvers
+      LateralManeuver maneuver = maneuvers.get(i);
+      // If this is a future maneuver which has been filled with maneuvers we will use those maneuvers
       if (maneuver instanceof FutureLateralManeuver && !((FutureLateralManeuver)maneuver).getLateralManeuvers().isEmpty()) {
-        lateralManeuvers.remove(i);
-        lateralManeuvers.addAll(i, ((FutureLateralManeuver) maneuver).getLateralManeuvers());
-        maneuver = lateralManeuvers.get(i);
+        addLateralManeuversToPath(((FutureLateralManeuver) maneuver).getLateralManeuvers(), path, state);
+        continue;
       }
       // If this maneuver is happening or will happen add it to the path
-      if (maneuver.getEndDistance() > path.get(currentPoint).getDowntrack()) {
+      if (maneuver.getEndDistance() > path.getDowntrack(state.currentPoint)) {
         log.debug("PATH", "convertToPath adding lat mvr #" + i);
         // If no lane change occurs we will maintain the current crosstrack
         if (maneuver.getEndingRelativeLane() == 0) {
-          while (currentPoint < path.size() && maneuver.getEndDistance() > path.get(currentPoint).getDowntrack()) {
-            path.get(currentPoint).setCrosstrack(currentCrosstrack);
-            currentPoint++;
+          while (state.currentPoint < path.size() && maneuver.getEndDistance() > path.getDowntrack(state.currentPoint)) {
+            path.setCrosstrack(state.currentPoint, state.currentCrosstrack);
+            state.currentPoint++;
           }
         } else { // A lane change will occur in this maneuver
           // Find the equation to generate the fake lane change
-          double laneWidth = route.getSegments().get(path.get(currentPoint).getSegmentIdx()).getDowntrackWaypoint().getLaneWidth();
-          double y_0 = currentCrosstrack;
-          double y_1 = currentCrosstrack + laneWidth * -1 * maneuver.getEndingRelativeLane();
+          double laneWidth = route.getSegments().get(path.getSegmentIdx(state.currentPoint)).getDowntrackWaypoint().getLaneWidth();
+          double y_0 = state.currentCrosstrack;
+          double y_1 = state.currentCrosstrack + laneWidth * -1 * maneuver.getEndingRelativeLane();
           double[] coefficients = getCubicFunction(maneuver.getStartDistance(), y_0, maneuver.getEndDistance(), y_1);
           // Apply equation to relevant points
-          while (currentPoint < path.size() && maneuver.getEndDistance() > path.get(currentPoint).getDowntrack()) {
-            path.get(currentPoint).setCrosstrack(solveCubic(path.get(currentPoint).getDowntrack(), coefficients));
-            currentPoint++;
+          while (state.currentPoint < path.size() && maneuver.getEndDistance() > path.getDowntrack(state.currentPoint)) {
+            path.setCrosstrack(state.currentPoint, solveCubic(path.getDowntrack(state.currentPoint), coefficients));
+            state.currentPoint++;
           }
-          currentCrosstrack = y_1;
-          //currentLane += maneuver.getEndingRelativeLane();
+          state.currentCrosstrack = y_1;
         }
       }
     }
-
-    ////
-    // Process Complex Maneuvers
-    ////
-    // This is a very simplistic handling of the complex maneuver.
-    // If complex maneuvers become more common this should be changed
-    if (complexManeuver != null && longitudinalSimData.segmentIdx < route.getSegments().size()) {
-      double averageSpeed = 0.5 * (complexManeuver.getMinExpectedSpeed() + complexManeuver.getMaxExpectedSpeed());
-      double startDist = complexManeuver.getStartDistance();
-      double endDist = complexManeuver.getEndDistance();
-      // Treat complex maneuver as stead speed maneuver
-      addKinematicMotionToPath(startDist, endDist, averageSpeed, averageSpeed, path, longitudinalSimData, maxPointsInPath);
-    }
-
-    return path;
   }
 
   @Override
@@ -290,15 +349,14 @@ public class TrajectoryConverter implements ITrajectoryConverter {
     // Convert all points to ecef frame
     ////
     List<ECEFPointStamped> ecefPoints = new ArrayList<>(path.size());
+    double[] vecInECEF = new double[3];
     for (RoutePointStamped point: path) {
       // Convert point to ecef
       // Currently ignores elevation
-      Vector3 pointInSegmentFrame = new Vector3(point.getSegDowntrack(), point.getCrosstrack(), 0.0);
-      Transform ecefToSeg =  route.getSegments().get(point.getSegmentIdx()).getECEFToSegmentTransform(); 
-      Vector3 vecInECEF = ecefToSeg.apply(pointInSegmentFrame);
+      codec.segmentToECEF(point.getSegmentIdx(), point.getSegDowntrack(), point.getCrosstrack(), vecInECEF);
       // Update point
       ECEFPointStamped ecefPoint = new ECEFPointStamped();
-      ecefPoint.setPoint(new Point3D(vecInECEF.getX(), vecInECEF.getY(), vecInECEF.getZ()));
+      ecefPoint.setPoint(new Point3D(vecInECEF[0], vecInECEF[1], vecInECEF[2]));
       ecefPoint.setStamp(point.getStamp());
       ecefPoints.add(ecefPoint);
     }
@@ -313,102 +371,54 @@ public class TrajectoryConverter implements ITrajectoryConverter {
   
   @Override
   public List<RoutePointStamped> messageToPath(cav_msgs.Trajectory trajMsg, int currentSegmentIdx, double segDowntrack) {
+    RoutePathBuffer path = codecBuffers.get();
+    messageToPath(trajMsg, currentSegmentIdx, segDowntrack, path);
+    List<RoutePointStamped> routePoints = path.toList();
+    path.clear();
+    return routePoints;
+  }
+
+  @Override
+  public void messageToPath(cav_msgs.Trajectory trajMsg, int currentSegmentIdx, double segDowntrack, RoutePathBuffer path) {
     log.info("Converting message with " + (trajMsg.getOffsets().size() + 1) +" points to path");
     log.debug("messageToPath: entering with currentSegmentIdx = " + currentSegmentIdx + ", segDowntrack = " + segDowntrack);
 
     // Get segments within DSRC range
-    List<RouteSegment> segments = route.findRouteSubsection(currentSegmentIdx, segDowntrack, DISTANCE_BACKWARD_TO_SEARCH, DISTANCE_FORWARD_TO_SEARCH);
-    log.debug("messageToPath: segments is " + segments.size() + " elements long.");
+    int firstSegmentIdx = route.subsectionStartIndex(currentSegmentIdx, segDowntrack, DISTANCE_BACKWARD_TO_SEARCH);
+    int lastSegmentIdx = route.subsectionEndIndex(currentSegmentIdx, segDowntrack, DISTANCE_FORWARD_TO_SEARCH);
 
-    // Get starting location in m
+    // Get starting segment from the starting location in m
     cav_msgs.LocationECEF startMsg = trajMsg.getLocation();
-    Vector3 ecefPoint = new Vector3((double)startMsg.getEcefX() / CM_PER_M, (double)startMsg.getEcefY()  / CM_PER_M, (double)startMsg.getEcefZ()  / CM_PER_M);
-    
-    //Point3D ecef3d = new Point3D(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ());
-    // Get starting segment and remaining segments to search
-    RouteSegment startingSegment = route.routeSegmentOfPoint(new Point3D(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()), segments);
-    int startIdx = startingSegment.getUptrackWaypoint().getWaypointId();
-    log.debug("messageToPath: initial ecefPoint = " + ecefPoint.toString() + ", corresponding to startIdx = " + startIdx);
-    
-    // Build list of route points
-    List<RoutePointStamped> routePoints = new ArrayList<>(trajMsg.getOffsets().size() + 1);
-    // Get starting time in seconds
-    double time = startMsg.getTimestamp() / MS_PER_SEC;
-    // Get starting route point
-    Transform ecefInSegment = startingSegment.getECEFToSegmentTransform().invert();
-    Vector3 segmentPoint = ecefInSegment.apply(ecefPoint);
-    log.debug("messageToPath: segmentPoint = " + segmentPoint.toString());
-    double downtrackOfSegment = route.lengthOfSegments(0, startIdx - 1);
-    RoutePointStamped routePoint = new RoutePointStamped(segmentPoint.getX() + downtrackOfSegment, segmentPoint.getY(), time, startIdx, segDowntrack);
-    log.debug("messageToPath: routePoint = " + routePoint.toString());
-    routePoints.add(routePoint);
-
-    RouteSegment currentSegment = startingSegment;
-    int segmentIdx = startIdx;
-    // Iterate over offsets
-    for (LocationOffsetECEF offset: trajMsg.getOffsets()) {
-      time += this.timeStep;
-      ecefPoint = new Vector3(
-        ecefPoint.getX() + ((double)offset.getOffsetX() / CM_PER_M),
-        ecefPoint.getY() + ((double)offset.getOffsetY() / CM_PER_M),
-        ecefPoint.getZ() + ((double)offset.getOffsetZ() / CM_PER_M)
-      );
-      
-      segmentPoint = ecefInSegment.apply(ecefPoint);
-      if (segmentPoint.getX() > currentSegment.length() && segmentIdx < route.getSegments().size() - 1) {
-        downtrackOfSegment += currentSegment.length();
-        segmentIdx++;
-        currentSegment = route.getSegments().get(segmentIdx);
-        ecefInSegment = currentSegment.getECEFToSegmentTransform().invert();
-        segmentPoint =  ecefInSegment.apply(ecefPoint);
-      }
-      routePoints.add(new RoutePointStamped(segmentPoint.getX() + downtrackOfSegment, segmentPoint.getY(), time, segmentIdx, segmentPoint.getX()));
-    }
-    
-    return routePoints;
+    Point3D startPoint = new Point3D((double)startMsg.getEcefX() / CM_PER_M, (double)startMsg.getEcefY()  / CM_PER_M, (double)startMsg.getEcefZ()  / CM_PER_M);
+    int startIdx = route.routeSegmentIndexOfPoint(startPoint, firstSegmentIdx, lastSegmentIdx);
+    log.debug("PATH", () -> "messageToPath: initial ecefPoint = " + startPoint + ", corresponding to startIdx = " + startIdx);
+
+    codec.decode(trajMsg, startIdx, segDowntrack, path);
   }
 
   @Override
   public cav_msgs.Trajectory pathToMessage(List<RoutePointStamped> routePath) {
-    log.info("Converting path with " + routePath.size() + " points to message");
-    if (routePath.isEmpty()) {
-      return messageFactory.newFromType(cav_msgs.Trajectory._TYPE);
-    }
-
-    // Ensure path fits within message spec
-    List<RoutePointStamped> path = routePath.subList(0, Math.min(routePath.size(), cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE));
-
-    // Convert points to ecef
-    List<ECEFPointStamped> ecefPoints = toECEFPoints(path);
-    // Get message
-    cav_msgs.Trajectory pathMsg = messageFactory.newFromType(cav_msgs.Trajectory._TYPE);
-    // Handle starting point
-    ECEFPointStamped prevPoint = ecefPoints.get(0);
-
-    LocationECEF locationECEF = pathMsg.getLocation();
-    locationECEF.setEcefX((int)(prevPoint.getPoint().getX() * CM_PER_M));
-    locationECEF.setEcefY((int)(prevPoint.getPoint().getY() * CM_PER_M));
-    locationECEF.setEcefZ((int)(prevPoint.getPoint().getZ() * CM_PER_M));
-    locationECEF.setTimestamp((long) (prevPoint.getStamp() * MS_PER_SEC));
-
-    // Calculate offsets
-    List<LocationOffsetECEF> offsets = new ArrayList<>(ecefPoints.size()-1);
-    for (int i = 1; i < ecefPoints.size(); i++) {
-      ECEFPointStamped point = ecefPoints.get(i);
-      LocationOffsetECEF offsetMsg = messageFactory.newFromType(LocationOffsetECEF._TYPE);
-      double deltaX = point.getPoint().getX() - prevPoint.getPoint().getX();
-      double deltaY = point.getPoint().getY() - prevPoint.getPoint().getY();
-      double deltaZ = point.getPoint().getZ() - prevPoint.getPoint().getZ();
-      offsetMsg.setOffsetX((short)(deltaX * CM_PER_M));
-      offsetMsg.setOffsetY((short)(deltaY * CM_PER_M));
-      offsetMsg.setOffsetZ((short)(deltaZ * CM_PER_M));
-      offsets.add(offsetMsg);
-      prevPoint = point;
+    // Only the points which fit within the message spec are copied
+    RoutePathBuffer path = codecBuffers.get();
+    path.clear();
+    final int numPoints = Math.min(routePath.size(), cav_msgs.Trajectory.MAX_POINTS_IN_MESSAGE);
+    for (RoutePointStamped point : routePath) {
+      if (path.size() == numPoints) {
+        break;
+      }
+      path.add(point.getDowntrack(), point.getCrosstrack(), point.getStamp(), point.getSegmentIdx(), point.getSegDowntrack());
     }
-    pathMsg.setOffsets(offsets);
+    cav_msgs.Trajectory pathMsg = pathBufferToMessage(path);
+    path.clear();
     return pathMsg;
   }
 
+  @Override
+  public cav_msgs.Trajectory pathBufferToMessage(RoutePathBuffer path) {
+    log.info("Converting path with " + path.size() + " points to message");
+    return codec.encode(path);
+  }
+
   @Override
   public LongitudinalSimulationData addLongitudinalManeuverToPath(
     final LongitudinalManeuver maneuver, List<RoutePointStamped> path,
@@ -459,6 +469,8 @@ public class TrajectoryConverter implements ITrajectoryConverter {
    * Helper function which generates a set of points along a route
    * which describe vehicle position based on starting and ending configurations.
    * 
+   * The points are generated in this thread's path buffer and then appended to the provided list
+   * 
    * @param startX The starting downtrack location on the route
    * @param endX The ending downtrack location on the route
    * @param startV The starting velocity along the route
@@ -473,6 +485,33 @@ public class TrajectoryConverter implements ITrajectoryConverter {
   private LongitudinalSimulationData addKinematicMotionToPath(
     final double startX, final double endX, final double startV, final double endV,
     List<RoutePointStamped> path,final LongitudinalSimulationData startingData, int maxPointsInPath) {
+      // Points already in the list count towards the limit
+      final int remainingPoints = Math.min(maxPointsInPath, this.maxPointsInPath) - path.size();
+      RoutePathBuffer buffer = pathBuffers.get();
+      buffer.clear();
+      LongitudinalSimulationData result = addKinematicMotionToPath(startX, endX, startV, endV, buffer, startingData, remainingPoints);
+      buffer.addTo(path);
+      buffer.clear();
+      return result;
+  }
+
+  /**
+   * Helper function which generates a set of points along a route
+   * which describe vehicle position based on starting and ending configurations.
+   * 
+   * @param startX The starting downtrack location on the route
+   * @param endX The ending downtrack location on the route
+   * @param startV The starting velocity along the route
+   * @param endV The ending velocity along the route
+   * @param path The buffer of points which will be added to
+   * @param startingData The starting configuration
+   * @param maxPointsInPath The maximum number of points to convert
+   * 
+   * @return The new configuration resulting from the motion
+   */
+  private LongitudinalSimulationData addKinematicMotionToPath(
+    final double startX, final double endX, final double startV, final double endV,
+    RoutePathBuffer path,final LongitudinalSimulationData startingData, int maxPointsInPath) {
 
       final double deltaX = endX - startX;
       final double deltaV = endV - startV;
@@ -530,11 +569,8 @@ public class TrajectoryConverter implements ITrajectoryConverter {
           currentSeg = routeSegments.get(segmentIdx);
         }
 
-        // Add point to list with timestamp
-        RoutePointStamped point = new RoutePointStamped(currentDowntrack, 0.0, currentSimTime);
-        point.setSegDowntrack(currentSegDowntrack);
-        point.setSegmentIdx(currentSeg.getUptrackWaypoint().getWaypointId());
-        path.add(point);
+        // Add point to path with timestamp
+        path.add(currentDowntrack, 0.0, currentSimTime, currentSeg.getUptrackWaypoint().getWaypointId(), currentSegDowntrack);
         // Update starting distance, speed, and current time
         distanceChange = accelTerm + actualStartV * timeStep;
         currentDowntrack += distanceChange;
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.node.ConnectedNode;
+
+import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.IConflictDetector;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
+import gov.dot.fhwa.saxton.carma.guidance.trajectory.Trajectory;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.TrajectoryConverter;
+
+/**
+ * Runs unit tests for the path prediction cache of the VehicleAwareness class
+ */
+public class VehicleAwarenessTest {
+
+    private GuidanceStateMachine mockGuidanceStateMachine = mock(GuidanceStateMachine.class);
+    private IPubSubService mockPubSubService = mock(IPubSubService.class);
+    private ConnectedNode mockNode = mock(ConnectedNode.class);
+    private IConflictDetector mockConflictDetector = mock(IConflictDetector.class);
+    private TrackingService mockTracking = mock(TrackingService.class);
+    private TrajectoryConverter mockConverter;
+    private VehicleAwareness vehicleAwareness;
+
+    @Before
+    public void setup() {
+        ILoggerFactory mockFact = mock(ILoggerFactory.class);
+        ILogger mockLogger = mock(ILogger.class);
+        when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+        LoggerManager.setLoggerFactory(mockFact);
+        mockConverter = mock(TrajectoryConverter.class);
+        // Every conversion returns a new path so a regenerated prediction is a different list
+        when(mockConverter.convertToPath(any(Trajectory.class), anyInt())).thenAnswer(inv -> newPath());
+        vehicleAwareness = new VehicleAwareness(mockGuidanceStateMachine, mockPubSubService, mockNode,
+            mockConverter, mockConflictDetector, mockTracking);
+        vehicleAwareness.currentTrajectory = mock(Trajectory.class);
+    }
+
+    private static List<RoutePointStamped> newPath() {
+        List<RoutePointStamped> path = new ArrayList<>();
+        path.add(new RoutePointStamped(0.0, 0.0, 0.0));
+        return path;
+    }
+
+    @Test
+    public void testPredictionRegeneratedWhenVersionAdvances() {
+        List<RoutePointStamped> first = vehicleAwareness.getPathPrediction();
+        assertSame(first, vehicleAwareness.getPathPrediction());
+        verify(mockConverter, times(1)).convertToPath(any(Trajectory.class), anyInt());
+
+        // Planning a trajectory generates the prediction once for conflict detection and publication
+        vehicleAwareness.notifyNewTrajectoryPlanned(mock(Trajectory.class));
+        List<RoutePointStamped> planned = vehicleAwareness.getPathPrediction();
+        assertNotSame(first, planned);
+        assertSame(planned, vehicleAwareness.getPathPrediction());
+        verify(mockConverter, times(2)).convertToPath(any(Trajectory.class), anyInt());
+
+        // Rolling to the next trajectory
+        vehicleAwareness.rollTrajectoryBuffer();
+        List<RoutePointStamped> rolled = vehicleAwareness.getPathPrediction();
+        assertNotSame(planned, rolled);
+        verify(mockConverter, times(3)).convertToPath(any(Trajectory.class), anyInt());
+
+        // Discarding the trajectories leaves an empty prediction
+        vehicleAwareness.notifyForcedReplan();
+        List<RoutePointStamped> replanned = vehicleAwareness.getPathPrediction();
+        assertTrue(replanned.isEmpty());
+        assertSame(replanned, vehicleAwareness.getPathPrediction());
+        vehicleAwareness.onCleanRestart();
+        List<RoutePointStamped> restarted = vehicleAwareness.getPathPrediction();
+        assertTrue(restarted.isEmpty());
+        assertNotSame(replanned, restarted);
+        verify(mockConverter, times(3)).convertToPath(any(Trajectory.class), anyInt());
+    }
+
+    @Test
+    public void testPredictionRegeneratedAfterDowntrackTolerance() {
+        vehicleAwareness.pathPredictionDowntrackTolerance = 1.0;
+        vehicleAwareness.onRouteStateUpdated(10.0);
+        List<RoutePointStamped> first = vehicleAwareness.getPathPrediction();
+
+        // Movement within the tolerance of where the prediction was generated keeps it
+        vehicleAwareness.onRouteStateUpdated(10.5);
+        vehicleAwareness.onRouteStateUpdated(11.0);
+        assertSame(first, vehicleAwareness.getPathPrediction());
+        verify(mockConverter, times(1)).convertToPath(any(Trajectory.class), anyInt());
+
+        vehicleAwareness.onRouteStateUpdated(11.5);
+        List<RoutePointStamped> moved = vehicleAwareness.getPathPrediction();
+        assertNotSame(first, moved);
+        verify(mockConverter, times(2)).convertToPath(any(Trajectory.class), anyInt());
+
+        // The tolerance is measured from the downtrack of the new prediction
+        vehicleAwareness.onRouteStateUpdated(12.0);
+        assertSame(moved, vehicleAwareness.getPathPrediction());
+        vehicleAwareness.onRouteStateUpdated(10.0);
+        assertNotSame(moved, vehicleAwareness.getPathPrediction());
+        verify(mockConverter, times(3)).convertToPath(any(Trajectory.class), anyInt());
+    }
+
+    @Test
+    public void testPredictionExpiresAfterMaxAge() throws InterruptedException {
+        vehicleAwareness.pathPredictionMaxAge = 100;
+        List<RoutePointStamped> first = vehicleAwareness.getPathPrediction();
+        Thread.sleep(200);
+        List<RoutePointStamped> expired = vehicleAwareness.getPathPrediction();
+        assertNotSame(first, expired);
+        verify(mockConverter, times(2)).convertToPath(any(Trajectory.class), anyInt());
+
+        // A negative max age never reuses a prediction
+        vehicleAwareness.pathPredictionMaxAge = -1;
+        assertNotSame(expired, vehicleAwareness.getPathPrediction());
+        verify(mockConverter, times(3)).convertToPath(any(Trajectory.class), anyInt());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRegeneration() throws InterruptedException {
+        final int CALLERS = 8;
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockConverter.convertToPath(any(Trajectory.class), anyInt())).thenAnswer(inv -> {
+            converting.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return newPath();
+        });
+
+        List<List<RoutePointStamped>> results = new ArrayList<>();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            Thread caller = new Thread(() -> {
+                List<RoutePointStamped> result = vehicleAwareness.getPathPrediction();
+                synchronized (results) {
+                    results.add(result);
+                }
+            });
+            callers.add(caller);
+        }
+
+        // Hold the first caller in the converter until every other caller is waiting for it
+        callers.get(0).start();
+        assertTrue(converting.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < CALLERS; i++) {
+            callers.get(i).start();
+        }
+        for (int i = 1; i < CALLERS; i++) {
+            while (callers.get(i).getState() != Thread.State.BLOCKED) {
+                Thread.sleep(1);
+            }
+        }
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join(10000);
+        }
+
+        assertEquals(CALLERS, results.size());
+        for (List<RoutePointStamped> result : results) {
+            assertSame(results.get(0), result);
+        }
+        verify(mockConverter, times(1)).convertToPath(any(Trajectory.class), anyInt());
+    }
+}
@@ -520,7 +520,57 @@ public class ConflictManagerTest {
     //// Test conflict with no path stored
     assertTrue(cm.getConflicts(path).isEmpty());
   }
-  
+
+  @Test
+  public void testConflictingVehiclesAcrossConflict() {
+    double[] cellSize = {1,1,1};
+    double downtrackMargin = 0.5;
+    double crosstrackMargin = 0.5;
+    double timeMargin = 0.5;
+    MockTimeProvider timeProvider = new MockTimeProvider();
+    timeProvider.setCurrentTime(0.0);
+    ConflictManager cm = new ConflictManager(new NSpatialHashMapFactory(cellSize), downtrackMargin, crosstrackMargin, timeMargin, 0.0, 0.0, 0.0, timeProvider);
+    cm.setRoute(route);
+    // Build a host path and two vehicle paths which overlap its first and second half
+    List<RoutePointStamped> path = new ArrayList<>();
+    List<RoutePointStamped> path1 = new ArrayList<>();
+    List<RoutePointStamped> path2 = new ArrayList<>();
+    for (int i = 0; i <= 4; i++) {
+      RoutePointStamped rp = new RoutePointStamped(i * 0.5, 0, i * 0.5);
+      rp.setSegDowntrack(i * 0.5);
+      rp.setSegmentIdx(0);
+      path.add(rp);
+      if (i <= 2) {
+        path1.add(rp);
+      }
+      if (i >= 2) {
+        path2.add(rp);
+      }
+    }
+    assertTrue(cm.addMobilityPath(path1, "veh1"));
+    assertTrue(cm.addMobilityPath(path2, "veh2"));
+
+    // The overlaps begin at different host points but form a single conflict with both vehicles
+    List<ConflictSpace> conflicts = cm.getConflicts(path);
+    assertEquals(1, conflicts.size());
+    assertEquals(0, conflicts.get(0).getStartDowntrack(), 0.0000001);
+    assertEquals(2.0, conflicts.get(0).getEndDowntrack(), 0.0000001);
+    assertTrue(conflicts.get(0).getConflictingVehicles().contains("veh1"));
+    assertTrue(conflicts.get(0).getConflictingVehicles().contains("veh2"));
+    assertEquals(2, conflicts.get(0).getConflictingVehicles().size());
+
+    // The same holds for requested paths
+    assertTrue(cm.removeMobilityPath("veh1"));
+    assertTrue(cm.removeMobilityPath("veh2"));
+    assertTrue(cm.addRequestedPath(path1, "plan1", "veh1"));
+    assertTrue(cm.addRequestedPath(path2, "plan2", "veh2"));
+    conflicts = cm.getConflicts(path);
+    assertEquals(1, conflicts.size());
+    assertTrue(conflicts.get(0).getConflictingVehicles().contains("veh1"));
+    assertTrue(conflicts.get(0).getConflictingVehicles().contains("veh2"));
+    assertEquals(2, conflicts.get(0).getConflictingVehicles().size());
+  }
+
   @Test
   public void testGetConflictsBetweenPaths() {
     double[] cellSize = {1,1,1};
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.conflictdetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.PathConflictIndex.PathSnapshot;
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+
+public class PathConflictIndexTest {
+
+  private List<RoutePointStamped> buildPath(double startDowntrack, double crosstrack, double startTime, int numPoints) {
+    List<RoutePointStamped> path = new ArrayList<>();
+    for (int i = 0; i < numPoints; i++) {
+      RoutePointStamped rp = new RoutePointStamped(startDowntrack + i * 0.5, crosstrack, startTime + i * 0.5);
+      rp.setSegDowntrack(startDowntrack + i * 0.5);
+      rp.setSegmentIdx(0);
+      path.add(rp);
+    }
+    return path;
+  }
+
+  private PathConflictIndex buildIndex() {
+    return new PathConflictIndex(0.5, 0.5, 0.5, 1.0);
+  }
+
+  private List<String> findConflicts(PathConflictIndex index, double downtrack, double crosstrack, double time,
+    double minTime, String key) {
+    List<String> conflicts = new ArrayList<>();
+    for (PathSnapshot path : index.getSnapshot()) {
+      if ((key == null || key.equals(path.getKey()))
+        && path.collides(downtrack, crosstrack, time, 0.5, 0.5, 0.5, minTime)) {
+        conflicts.add(path.getVehicleId());
+      }
+    }
+    return conflicts;
+  }
+
+  @Test
+  public void testPutReplacesOnlyOwnEntries() {
+    PathConflictIndex index = buildIndex();
+    index.put("veh1", "veh1", buildPath(0, 0, 0, 5));
+    index.put("veh2", "veh2", buildPath(0, 0, 0, 5));
+    assertEquals(2, index.size());
+
+    List<String> conflicts = findConflicts(index, 1.0, 0, 1.0, 0.0, null);
+    assertEquals(2, conflicts.size());
+    assertTrue(conflicts.contains("veh1"));
+    assertTrue(conflicts.contains("veh2"));
+
+    // Move veh1 to another lane
+    index.put("veh1", "veh1", buildPath(0, 5, 0, 5));
+    assertEquals(2, index.size());
+    conflicts = findConflicts(index, 1.0, 0, 1.0, 0.0, null);
+    assertEquals(1, conflicts.size());
+    assertTrue(conflicts.contains("veh2"));
+
+    conflicts = findConflicts(index, 1.0, 5, 1.0, 0.0, null);
+    assertEquals(1, conflicts.size());
+    assertTrue(conflicts.contains("veh1"));
+
+    // Restrict to a single key
+    assertTrue(findConflicts(index, 1.0, 0, 1.0, 0.0, "veh1").isEmpty());
+    conflicts = findConflicts(index, 1.0, 0, 1.0, 0.0, "veh2");
+    assertEquals(1, conflicts.size());
+
+    assertTrue(index.remove("veh2"));
+    assertFalse(index.remove("veh2"));
+    conflicts = findConflicts(index, 1.0, 0, 1.0, 0.0, null);
+    assertTrue(conflicts.isEmpty());
+  }
+
+  @Test
+  public void testEviction() {
+    PathConflictIndex index = buildIndex();
+    index.put("veh1", "veh1", buildPath(0, 0, 0, 5)); // Last point at 2.0 s so bounds end at 2.5 s
+    index.put("veh2", "veh2", buildPath(0, 0, 10, 5)); // Last point at 12.0 s
+
+    // Nothing expired yet
+    assertTrue(index.evictExpired(2.0).isEmpty());
+    assertEquals(2, index.size());
+
+    // Expired but still in the current bucket so it is only ignored by queries
+    assertTrue(findConflicts(index, 1.0, 0, 1.0, 2.6, null).isEmpty());
+    assertTrue(index.evictExpired(2.6).isEmpty());
+    assertEquals(2, index.size());
+
+    // Bucket has passed
+    List<PathSnapshot> evicted = index.evictExpired(3.0);
+    assertEquals(1, evicted.size());
+    assertEquals("veh1", evicted.get(0).getKey());
+    assertFalse(index.contains("veh1"));
+    assertTrue(index.contains("veh2"));
+
+    // Eviction is only evaluated once per bucket
+    assertTrue(index.evictExpired(3.5).isEmpty());
+
+    evicted = index.evictExpired(13.0);
+    assertEquals(1, evicted.size());
+    assertTrue(index.isEmpty());
+    assertEquals(0, index.getSnapshot().length);
+  }
+
+  @Test
+  public void testSnapshotIsImmutable() {
+    PathConflictIndex index = buildIndex();
+    index.put("plan1", "veh1", buildPath(0, 0, 0, 5));
+    PathSnapshot[] snapshot = index.getSnapshot();
+    assertEquals(1, snapshot.length);
+    assertEquals("plan1", snapshot[0].getKey());
+    assertEquals("veh1", snapshot[0].getVehicleId());
+
+    // Later modifications publish a new snapshot and leave the old one untouched
+    index.put("plan2", "veh2", buildPath(0, 0, 0, 5));
+    index.remove("plan1");
+    assertEquals(1, snapshot.length);
+    assertEquals("plan1", snapshot[0].getKey());
+    assertEquals(1, index.getSnapshot().length);
+    assertEquals("plan2", index.getSnapshot()[0].getKey());
+
+    // Points outside the time window of the path do not collide
+    PathSnapshot path = index.getSnapshot()[0];
+    assertTrue(path.collides(1.0, 0, 1.0, 0.5, 0.5, 0.5, 0.0));
+    assertFalse(path.collides(0.5, 0, 1.9, 0.1, 0.1, 0.1, 0.0)); // Points near 1.9 s are at 1.5 m and 2.0 m
+    assertTrue(path.collides(2.0, 0, 1.9, 0.1, 0.1, 0.1, 0.0));
+  }
+}
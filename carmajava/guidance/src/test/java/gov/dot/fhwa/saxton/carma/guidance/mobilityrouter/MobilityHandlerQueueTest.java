@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.mobilityrouter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+
+/**
+ * Runs unit tests for the MobilityHandlerQueue and StrategyIndex classes
+ */
+public class MobilityHandlerQueueTest {
+
+    /**
+     * Executor which only runs tasks when asked to
+     */
+    private static class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private ILogger mockLogger;
+    private ManualExecutor executor;
+    private List<String> ran;
+
+    @Before
+    public void setup() {
+        mockLogger = mock(ILogger.class);
+        executor = new ManualExecutor();
+        ran = new ArrayList<>();
+    }
+
+    private Runnable task(String name) {
+        return () -> ran.add(name);
+    }
+
+    @Test
+    public void testShedsOldestWhenFull() {
+        MobilityHandlerQueue queue = new MobilityHandlerQueue("test", 3, executor, mockLogger);
+        for (int i = 0; i < 5; i++) {
+            queue.submit(null, task("t" + i));
+        }
+        assertEquals(3, queue.getQueueDepth());
+        assertEquals(2, queue.getShedCount());
+        assertTrue(queue.isOverloaded());
+        verify(mockLogger, times(1)).warn(anyString());
+
+        executor.runAll();
+        assertEquals(Arrays.asList("t2", "t3", "t4"), ran);
+        assertEquals(0, queue.getQueueDepth());
+        assertFalse(queue.isOverloaded());
+        verify(mockLogger, times(1)).info(anyString());
+    }
+
+    @Test
+    public void testShedHookRunsForShedCallback() {
+        MobilityHandlerQueue queue = new MobilityHandlerQueue("test", 2, executor, mockLogger);
+        List<String> shedHooks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String name = "t" + i;
+            queue.submit(null, task(name), () -> shedHooks.add(name));
+        }
+        // Shed hooks run on the submitting thread as soon as their callback is shed
+        assertEquals(Arrays.asList("t0", "t1"), shedHooks);
+        queue.submit(null, task("t4"));
+        assertEquals(Arrays.asList("t0", "t1", "t2"), shedHooks);
+
+        executor.runAll();
+        assertEquals(Arrays.asList("t3", "t4"), ran);
+        assertEquals(Arrays.asList("t0", "t1", "t2"), shedHooks);
+    }
+
+    @Test
+    public void testCoalescesByKey() {
+        MobilityHandlerQueue queue = new MobilityHandlerQueue("test", 3, executor, mockLogger);
+        queue.submit("a", task("a1"));
+        queue.submit("b", task("b1"));
+        queue.submit(null, task("n1"));
+        queue.submit("a", task("a2"));
+        assertEquals(3, queue.getQueueDepth());
+        assertEquals(1, queue.getCoalescedCount());
+
+        // Shedding the oldest callback also forgets its key
+        queue.submit("c", task("c1"));
+        queue.submit("a", task("a3"));
+        executor.runAll();
+        assertEquals(Arrays.asList("n1", "c1", "a3"), ran);
+    }
+
+    @Test
+    public void testOneCallbackScheduledAtATime() {
+        MobilityHandlerQueue queue = new MobilityHandlerQueue("test", 10, executor, mockLogger);
+        for (int i = 0; i < 5; i++) {
+            queue.submit(null, task("t" + i));
+        }
+        assertEquals(1, executor.tasks.size());
+        executor.tasks.poll().run();
+        assertEquals(Arrays.asList("t0"), ran);
+        // Remaining work is rescheduled behind other handlers rather than run in a loop
+        assertEquals(1, executor.tasks.size());
+        queue.submit(null, () -> {
+            throw new IllegalStateException("handler failure");
+        });
+        queue.submit(null, task("t5"));
+        executor.runAll();
+        assertEquals(Arrays.asList("t0", "t1", "t2", "t3", "t4", "t5"), ran);
+    }
+
+    @Test
+    public void testStrategyIndex() {
+        StrategyIndex<String> index = new StrategyIndex<>();
+        assertTrue(index.register("Carma/Platooning", "platooning"));
+        assertTrue(index.register("Carma/CooperativeMerge", "merge"));
+        assertTrue(index.register("Carma/Platooning", "platooning2"));
+        assertFalse(index.register("Carma/Platooning", "platooning"));
+
+        assertEquals(Arrays.asList("platooning", "platooning2"), index.getHandlers("Carma/Platooning"));
+        assertEquals(Arrays.asList("platooning", "platooning2"), index.getHandlers("Platooning"));
+        assertEquals(Arrays.asList("merge"), index.getHandlers("Merge"));
+        assertEquals(Arrays.asList("platooning", "platooning2", "merge"), index.getHandlers(""));
+        assertTrue(index.getHandlers("Carma").isEmpty());
+        assertTrue(index.getHandlers("carma/platooning").isEmpty());
+        assertTrue(index.getHandlers("Other/Carma/Platooning").isEmpty());
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.mobilityrouter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.node.ConnectedNode;
+import org.ros.node.parameter.ParameterTree;
+
+import cav_msgs.MobilityHeader;
+import cav_msgs.MobilityOperation;
+import cav_msgs.MobilityRequest;
+import cav_msgs.MobilityResponse;
+import gov.dot.fhwa.saxton.carma.guidance.GuidanceState;
+import gov.dot.fhwa.saxton.carma.guidance.GuidanceStateMachine;
+import gov.dot.fhwa.saxton.carma.guidance.TrackingService;
+import gov.dot.fhwa.saxton.carma.guidance.VehicleAwareness;
+import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.IConflictManager;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPublisher;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnMessageCallback;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.ITrajectoryConverter;
+
+/**
+ * Checks that mobility messages are routed by strategy and that a slow handler does not delay the others
+ */
+public class MobilityRouterTest {
+
+    private static final int QUEUE_SIZE = 5;
+
+    private ILogger mockLogger;
+    private MobilityRouter router;
+    private OnMessageCallback<MobilityOperation> operationCallback;
+    private OnMessageCallback<MobilityRequest> requestCallback;
+    private IPublisher<MobilityResponse> mockAckPub;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        ILoggerFactory mockFact = mock(ILoggerFactory.class);
+        mockLogger = mock(ILogger.class);
+        when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+        LoggerManager.setLoggerFactory(mockFact);
+
+        GuidanceStateMachine mockStateMachine = mock(GuidanceStateMachine.class);
+        when(mockStateMachine.getState()).thenReturn(GuidanceState.ENGAGED);
+        ISubscriber<Object> mockSub = mock(ISubscriber.class);
+        ISubscriber<MobilityOperation> mockOperationSub = mock(ISubscriber.class);
+        ISubscriber<MobilityRequest> mockRequestSub = mock(ISubscriber.class);
+        IPubSubService mockPubSub = mock(IPubSubService.class);
+        when(mockPubSub.getSubscriberForTopic(anyString(), anyString())).thenReturn(mockSub);
+        when(mockPubSub.getSubscriberForTopic("incoming_mobility_operation", MobilityOperation._TYPE))
+                .thenReturn((ISubscriber) mockOperationSub);
+        when(mockPubSub.getSubscriberForTopic("incoming_mobility_request", MobilityRequest._TYPE))
+                .thenReturn((ISubscriber) mockRequestSub);
+        mockAckPub = mock(IPublisher.class);
+        when(mockAckPub.newMessage()).thenAnswer(invocation -> mock(MobilityResponse.class, RETURNS_DEEP_STUBS));
+        when(mockPubSub.getPublisherForTopic("outgoing_mobility_response", MobilityResponse._TYPE))
+                .thenReturn((IPublisher) mockAckPub);
+        ParameterTree mockParams = mock(ParameterTree.class);
+        when(mockParams.getString("~default_mobility_conflict_handler", "Yield Plugin")).thenReturn("Yield Plugin");
+        when(mockParams.getString("~vehicle_id", "")).thenReturn("host");
+        when(mockParams.getInteger("~mobility_handler_queue_size", 20)).thenReturn(QUEUE_SIZE);
+        ConnectedNode mockNode = mock(ConnectedNode.class);
+        when(mockNode.getParameterTree()).thenReturn(mockParams);
+
+        TrackingService mockTracking = mock(TrackingService.class);
+        when(mockTracking.getCurrentBSMId()).thenReturn("bsm");
+
+        router = new MobilityRouter(mockStateMachine, mockPubSub, mockNode, mock(IConflictManager.class),
+                mock(ITrajectoryConverter.class), mock(VehicleAwareness.class), null, mockTracking);
+        router.onStartup();
+
+        ArgumentCaptor<OnMessageCallback> captor = ArgumentCaptor.forClass(OnMessageCallback.class);
+        verify(mockOperationSub).registerOnMessageCallback(captor.capture());
+        operationCallback = captor.getValue();
+        verify(mockRequestSub).registerOnMessageCallback(captor.capture());
+        requestCallback = captor.getValue();
+    }
+
+    @After
+    public void cleanup() {
+        router.onCleanRestart();
+    }
+
+    private MobilityOperation operation(String strategy, String params) {
+        MobilityHeader header = mock(MobilityHeader.class);
+        when(header.getRecipientId()).thenReturn("");
+        when(header.getSenderId()).thenReturn("other");
+        when(header.getPlanId()).thenReturn("plan");
+        MobilityOperation msg = mock(MobilityOperation.class);
+        when(msg.getHeader()).thenReturn(header);
+        when(msg.getStrategy()).thenReturn(strategy);
+        when(msg.getStrategyParams()).thenReturn(params);
+        return msg;
+    }
+
+    private MobilityRequest request(String strategy, String planId) {
+        MobilityHeader header = mock(MobilityHeader.class);
+        when(header.getRecipientId()).thenReturn("host");
+        when(header.getSenderId()).thenReturn("other");
+        when(header.getPlanId()).thenReturn(planId);
+        MobilityRequest msg = mock(MobilityRequest.class);
+        when(msg.getHeader()).thenReturn(header);
+        when(msg.getStrategy()).thenReturn(strategy);
+        return msg;
+    }
+
+    @Test
+    public void testStrategyRouting() throws InterruptedException {
+        List<String> platooning = new CopyOnWriteArrayList<>();
+        List<String> yield = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(4);
+        router.registerMobilityOperationHandler("Carma/Platooning", msg -> {
+            platooning.add(msg.getStrategyParams());
+            latch.countDown();
+        });
+        router.registerMobilityOperationHandler("carma/yield", msg -> {
+            yield.add(msg.getStrategyParams());
+            latch.countDown();
+        });
+
+        operationCallback.onMessage(operation("Carma/Platooning", "full"));
+        operationCallback.onMessage(operation("Platooning", "suffix"));
+        operationCallback.onMessage(operation("Carma", "prefix"));
+        operationCallback.onMessage(operation("Yield", "case"));
+        operationCallback.onMessage(operation("carma/yield", "yield"));
+        operationCallback.onMessage(operation("", "empty"));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertTrue(platooning.contains("full"));
+        assertTrue(platooning.contains("suffix"));
+        assertTrue(platooning.contains("empty"));
+        assertEquals(3, platooning.size());
+        assertEquals(2, yield.size());
+        assertTrue(yield.contains("yield"));
+        assertTrue(yield.contains("empty"));
+    }
+
+    @Test
+    public void testSlowHandlerDoesNotDelayOthers() throws InterruptedException {
+        final int numMessages = 100;
+        final long slowHandlerMs = 100;
+        AtomicInteger slowCount = new AtomicInteger(0);
+        router.registerMobilityOperationHandler("Carma/Slow", msg -> {
+            slowCount.incrementAndGet();
+            try {
+                Thread.sleep(slowHandlerMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long[] sentNanos = new long[numMessages];
+        long[] latencyNanos = new long[numMessages];
+        CountDownLatch fastLatch = new CountDownLatch(numMessages);
+        router.registerMobilityOperationHandler("Carma/Fast", msg -> {
+            int i = Integer.parseInt(msg.getStrategyParams());
+            latencyNanos[i] = System.nanoTime() - sentNanos[i];
+            fastLatch.countDown();
+        });
+
+        // Flood both handlers. The slow handler alone would need 10 s to keep up.
+        for (int i = 0; i < numMessages; i++) {
+            MobilityOperation slow = operation("Carma/Slow", Integer.toString(i));
+            MobilityOperation fast = operation("Carma/Fast", Integer.toString(i));
+            operationCallback.onMessage(slow);
+            sentNanos[i] = System.nanoTime();
+            operationCallback.onMessage(fast);
+            Thread.sleep(2);
+        }
+
+        assertTrue(fastLatch.await(2, TimeUnit.SECONDS));
+        long maxLatencyNanos = 0;
+        for (long latency : latencyNanos) {
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        }
+        assertTrue("Fast handler waited " + maxLatencyNanos / 1e6 + " ms",
+                maxLatencyNanos < TimeUnit.MILLISECONDS.toNanos(slowHandlerMs / 2));
+
+        // The slow handler only works through its bounded queue and sheds the rest
+        Thread.sleep((QUEUE_SIZE + 2) * slowHandlerMs);
+        assertTrue("Slow handler ran " + slowCount.get() + " times", slowCount.get() < numMessages / 4);
+        verify(mockLogger, atLeastOnce()).warn(contains("falling behind"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShedRequestIsNacked() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(QUEUE_SIZE + 1);
+        router.registerMobilityRequestHandler("Carma/Slow", (msg, hasConflict, conflictSpace) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.countDown();
+            return MobilityRequestResponse.NO_RESPONSE;
+        });
+
+        // Block the handler on its first request, then overfill its queue by one
+        requestCallback.onMessage(request("Carma/Slow", "plan0"));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i <= QUEUE_SIZE + 1; i++) {
+            requestCallback.onMessage(request("Carma/Slow", "plan" + i));
+        }
+
+        // The oldest waiting request is NACKed as soon as it is shed
+        ArgumentCaptor<MobilityResponse> captor = ArgumentCaptor.forClass(MobilityResponse.class);
+        verify(mockAckPub, times(1)).publish(captor.capture());
+        MobilityResponse nack = captor.getValue();
+        verify(nack).setIsAccepted(false);
+        verify(nack.getHeader()).setPlanId("plan1");
+        verify(nack.getHeader()).setRecipientId("other");
+        verify(nack.getHeader()).setSenderId("host");
+        verify(nack.getHeader()).setSenderBsmId("bsm");
+
+        // The requests which were not shed are handled and get no other response
+        release.countDown();
+        assertTrue(handled.await(2, TimeUnit.SECONDS));
+        router.onCleanRestart();
+        verify(mockAckPub, times(1)).publish(any());
+    }
+}
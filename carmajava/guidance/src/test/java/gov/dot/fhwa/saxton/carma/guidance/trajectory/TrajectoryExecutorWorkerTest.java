@@ -47,7 +47,7 @@ public class TrajectoryExecutorWorkerTest {
     LoggerManager.setLoggerFactory(mockFact);
     
     MockitoAnnotations.initMocks(this);
-    IPublisher<cav_msgs.ActiveManeuvers> pub = (IPublisher<cav_msgs.ActiveManeuvers>) mock(IPublisher.class);
+    pub = (IPublisher<cav_msgs.ActiveManeuvers>) mock(IPublisher.class);
     when(pub.newMessage()).thenReturn(mock(ActiveManeuvers.class));
     tew = new TrajectoryExecutorWorker(guidanceCommands, 10.0, pub, null);
   }
@@ -308,7 +308,48 @@ public class TrajectoryExecutorWorkerTest {
     verify(m3, atLeastOnce()).executeTimeStep();
   }
 
+  @Test
+  public void testActiveManeuversPublishedOnChange() {
+    Trajectory t = new Trajectory(0.0, 20.0);
+
+    ISimpleManeuver m1 = newManeuver(0.0, 10.0, ManeuverType.LONGITUDINAL, false);
+    ISimpleManeuver m2 = newManeuver(10.0, 20.0, ManeuverType.LONGITUDINAL, false);
+
+    t.addManeuver(m1);
+    t.addManeuver(m2);
+
+    tew.runTrajectory(t);
+
+    // First tick always publishes, unchanged maneuvers are not republished
+    tew.updateDowntrackDistance(0.0);
+    tew.loop();
+    tew.updateDowntrackDistance(5.0);
+    tew.loop();
+    tew.loop();
+    verify(m1, times(3)).executeTimeStep();
+    verify(pub, times(1)).publish(any());
+
+    // A change of maneuver is published
+    tew.updateDowntrackDistance(12.0);
+    tew.loop();
+    assertEquals(m2, tew.getCurrentLongitudinalManeuver());
+    verify(pub, times(2)).publish(any());
+
+    // Moving back before the maneuver boundary returns to the earlier maneuver
+    tew.updateDowntrackDistance(9.5);
+    tew.loop();
+    assertEquals(m1, tew.getCurrentLongitudinalManeuver());
+    verify(pub, times(3)).publish(any());
+
+    // Keep alive messages are published once the period elapses
+    tew.activeManeuversKeepAliveMs = 0;
+    tew.loop();
+    tew.loop();
+    verify(pub, times(5)).publish(any());
+  }
+
   protected TrajectoryExecutorWorker tew;
+  protected IPublisher<cav_msgs.ActiveManeuvers> pub;
   @Mock
   protected GuidanceCommands guidanceCommands;
 }
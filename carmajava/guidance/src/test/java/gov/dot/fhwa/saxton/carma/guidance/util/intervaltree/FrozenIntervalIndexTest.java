@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.intervaltree;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+public class FrozenIntervalIndexTest {
+    private IntervalTree<String> tree;
+
+    @Before
+    public void setup() {
+        tree = IntervalTreeFactory.buildIntervalTree();
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        FrozenIntervalIndex<String> index = tree.freeze();
+        assertTrue(index.isDisjoint());
+        assertEquals(0, index.size());
+        assertNull(index.findAt(0.0));
+        assertNull(index.findFirstIntersection(0.0, 10.0));
+        assertTrue(Double.isNaN(index.findEndAt(0.0)));
+    }
+
+    @Test
+    public void testFindAt() {
+        tree.insert(new Interval<String>("b", 4.0, 5.0));
+        tree.insert(new Interval<String>("a", 0.0, 1.0));
+        tree.insert(new Interval<String>("c", 5.0, 11.0));
+        FrozenIntervalIndex<String> index = tree.freeze();
+
+        assertTrue(index.isDisjoint());
+        assertEquals(Arrays.asList("a", "b", "c"), index.getSortedData());
+        assertEquals("a", index.findAt(0.0));
+        assertEquals("a", index.findAt(0.5));
+        assertNull(index.findAt(1.0));
+        assertNull(index.findAt(2.0));
+        assertEquals("b", index.findAt(4.0));
+        assertEquals("c", index.findAt(5.0));
+        assertNull(index.findAt(11.0));
+        assertNull(index.findAt(-1.0));
+
+        assertEquals(5.0, index.findEndAt(4.5), 0.0);
+        assertTrue(Double.isNaN(index.findEndAt(2.0)));
+    }
+
+    @Test
+    public void testFindFirstIntersection() {
+        tree.insert(new Interval<String>("a", 0.0, 1.0));
+        tree.insert(new Interval<String>("b", 4.0, 5.0));
+        FrozenIntervalIndex<String> index = tree.freeze();
+
+        assertEquals("a", index.findFirstIntersection(-1.0, 10.0));
+        assertEquals("b", index.findFirstIntersection(1.0, 4.5));
+        assertNull(index.findFirstIntersection(1.0, 4.0));
+        assertNull(index.findFirstIntersection(5.0, 10.0));
+        assertNull(index.findFirstIntersection(4.5, 4.5));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testFindFirstIntersectionInverted() {
+        tree.insert(new Interval<String>("a", 0.0, 1.0));
+        tree.freeze().findFirstIntersection(1.0, 0.0);
+    }
+
+    @Test
+    public void testMatchesTree() {
+        for (int i = 0; i < 50; i++) {
+            tree.insert(new Interval<String>("i" + i, i * 3.0, i * 3.0 + 2.0));
+        }
+        FrozenIntervalIndex<String> index = tree.freeze();
+
+        assertEquals(tree.toSortedList(), index.toSortedList());
+        for (double pt = -1.0; pt < 155.0; pt += 0.25) {
+            SortedSet<Interval<String>> found = tree.findIntersectionsWith(pt);
+            String expected = found.isEmpty() ? null : found.first().getData();
+            assertEquals(expected, index.findAt(pt));
+        }
+    }
+
+    @Test
+    public void testNotDisjoint() {
+        tree.insert(new Interval<String>("a", 0.0, 0.0));
+        tree.insert(new Interval<String>("b", 4.0, 5.0));
+        assertFalse(tree.freeze().isDisjoint());
+    }
+
+    @Test
+    public void testFrozenIndexIgnoresLaterChanges() {
+        tree.insert(new Interval<String>("a", 0.0, 1.0));
+        FrozenIntervalIndex<String> index = tree.freeze();
+        tree.insert(new Interval<String>("b", 4.0, 5.0));
+
+        assertEquals(1, index.size());
+        assertNull(index.findAt(4.0));
+    }
+
+    @Test
+    public void testInsertAllSorted() {
+        List<Interval<String>> intervals = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            intervals.add(new Interval<String>("i" + i, i, i + 1.0));
+        }
+
+        assertTrue(tree.insertAllSorted(intervals));
+        assertEquals("i7", tree.root.data.first().getData());
+        assertEquals(intervals, tree.toSortedIntervalList());
+
+        // Overlapping intervals are rejected
+        assertFalse(tree.insertAllSorted(Arrays.asList(new Interval<String>("x", 0.5, 1.5))));
+    }
+}
@@ -17,9 +17,16 @@
 package gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import org.apache.commons.logging.Log;
 import org.junit.After;
@@ -44,10 +51,13 @@ import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
 import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.ConflictManager;
 import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.IMobilityTimeProvider;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.FutureLateralManeuver;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.FutureLongitudinalManeuver;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.IComplexManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.IManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.ISimpleManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LaneChange;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LaneKeeping;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LateralManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LongitudinalManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.SlowDown;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.SpeedUp;
@@ -61,6 +71,7 @@ import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.LongitudinalS
 import gov.dot.fhwa.saxton.carma.route.FileStrategy;
 import gov.dot.fhwa.saxton.carma.route.Route;
 import gov.dot.fhwa.saxton.carma.route.RouteSegment;
+import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
 
 public class TrajectoryConverterTest {
 
@@ -395,6 +406,55 @@ public class TrajectoryConverterTest {
       }
   }
 
+  @Test
+  public void testPathBufferRoundTrip() {
+    final int MAX_POINTS_IN_PATH = 60;
+    final double TIME_STEP = 0.1;
+    TrajectoryConverter tc = new TrajectoryConverter(MAX_POINTS_IN_PATH, TIME_STEP, messageFactory);
+    tc.setRoute(route);
+
+    // Path which crosses from the first segment into the second
+    double firstSegLength = route.getSegments().get(0).length();
+    RoutePathBuffer path = new RoutePathBuffer(MAX_POINTS_IN_PATH);
+    List<RoutePointStamped> pathList = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      double downtrack = firstSegLength - 10.0 + i * 0.5;
+      int segIdx = downtrack < firstSegLength ? 0 : 1;
+      double segDowntrack = segIdx == 0 ? downtrack : downtrack - firstSegLength;
+      path.add(downtrack, 0.5, 1000.0 + i * TIME_STEP, segIdx, segDowntrack);
+      pathList.add(new RoutePointStamped(downtrack, 0.5, 1000.0 + i * TIME_STEP, segIdx, segDowntrack));
+    }
+
+    // Buffer and list encoding produce the same message
+    cav_msgs.Trajectory message = tc.pathBufferToMessage(path);
+    cav_msgs.Trajectory listMessage = tc.pathToMessage(pathList);
+    assertEquals(39, message.getOffsets().size());
+    assertEquals(listMessage.getLocation().getEcefX(), message.getLocation().getEcefX());
+    assertEquals(listMessage.getLocation().getEcefY(), message.getLocation().getEcefY());
+    assertEquals(listMessage.getLocation().getEcefZ(), message.getLocation().getEcefZ());
+    for (int i = 0; i < message.getOffsets().size(); i++) {
+      assertEquals(listMessage.getOffsets().get(i).getOffsetX(), message.getOffsets().get(i).getOffsetX());
+      assertEquals(listMessage.getOffsets().get(i).getOffsetY(), message.getOffsets().get(i).getOffsetY());
+      assertEquals(listMessage.getOffsets().get(i).getOffsetZ(), message.getOffsets().get(i).getOffsetZ());
+    }
+
+    // Decoding recovers the path to within the accumulated cm truncation of the message offsets
+    RoutePathBuffer result = new RoutePathBuffer(1);
+    tc.messageToPath(message, 0, path.getSegDowntrack(0), result);
+    assertEquals(path.size(), result.size());
+    for (int i = 0; i < path.size(); i++) {
+      assertEquals(path.getDowntrack(i), result.getDowntrack(i), 0.5);
+      assertEquals(path.getCrosstrack(i), result.getCrosstrack(i), 0.5);
+      assertEquals(path.getStamp(i), result.getStamp(i), 0.001);
+    }
+    assertEquals(0, result.getSegmentIdx(0));
+    assertEquals(1, result.getSegmentIdx(result.size() - 1));
+
+    List<RoutePointStamped> resultList = tc.messageToPath(message, 0, path.getSegDowntrack(0));
+    assertEquals(result.size(), resultList.size());
+    assertEquals(result.getDowntrack(20), resultList.get(20).getDowntrack(), 0.0);
+  }
+
   @Test
   public void testRightVehicle() {
     final int MAX_POINTS_IN_PATH = 60;
@@ -526,4 +586,226 @@ public class TrajectoryConverterTest {
     }
     System.out.println("\n\n");
   }
+
+  private static final String RECORDED_PATHS_FILE = "src/test/resources/trajectory_converter_recorded_paths.csv";
+  private static final long[] RECORDED_PATH_SEEDS = {11, 23, 37, 41, 53, 67, 79, 83, 97, 101};
+  private static final int RECORDED_MAX_POINTS = 150;
+  private static final double RECORDED_TIME_STEP = 0.1;
+  private static final long RECORDED_START_TIME_MS = 1000;
+
+  /**
+   * Converts trajectories generated from fixed seeds and compares the paths with those recorded from the
+   * converter before future maneuvers were expanded recursively and paths were built in reused buffers
+   * <p>
+   * A single converter and buffer are used for every trajectory so points left from an earlier conversion
+   * would show up as differences. Each trajectory is converted with the full and a reduced point limit.
+   */
+  @Test
+  public void testConvertToPathMatchesRecordedPaths() throws IOException {
+    Map<String, List<double[]>> recorded = loadRecordedPaths();
+    Route recordedRoute = buildRecordedPathRoute();
+    TrajectoryConverter tc = new TrajectoryConverter(RECORDED_MAX_POINTS, RECORDED_TIME_STEP, messageFactory);
+    tc.setRoute(recordedRoute);
+    RoutePathBuffer buffer = new RoutePathBuffer(1);
+    for (long seed : RECORDED_PATH_SEEDS) {
+      RecordedPathCase c = new RecordedPathCase(seed, recordedRoute);
+      List<LongitudinalManeuver> longitudinal = new ArrayList<>(c.longitudinal);
+      List<LateralManeuver> lateral = new ArrayList<>(c.lateral);
+      for (int maxPoints : new int[] {RECORDED_MAX_POINTS, c.reducedMaxPoints}) {
+        String key = seed + "," + maxPoints;
+        List<double[]> expected = recorded.containsKey(key) ? recorded.get(key) : new ArrayList<>();
+        assertFalse(key, expected.isEmpty());
+
+        List<RoutePointStamped> points = tc.convertToPath(c.traj, RECORDED_START_TIME_MS,
+          c.downtrack, 0.0, c.segmentIdx, c.segDowntrack, c.lane, maxPoints);
+        assertEquals(key, expected.size(), points.size());
+        for (int i = 0; i < points.size(); i++) {
+          assertRecordedPoint(key + "," + i, expected.get(i), points.get(i));
+        }
+
+        tc.convertToPath(c.traj, RECORDED_START_TIME_MS,
+          c.downtrack, 0.0, c.segmentIdx, c.segDowntrack, c.lane, maxPoints, buffer);
+        assertEquals(key, expected.size(), buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+          assertRecordedPoint(key + "," + i, expected.get(i), buffer.getPoint(i));
+        }
+      }
+      // Future maneuvers are expanded without modifying the trajectory
+      assertEquals(longitudinal, c.longitudinal);
+      assertEquals(lateral, c.lateral);
+    }
+  }
+
+  private static void assertRecordedPoint(String msg, double[] expected, RoutePointStamped actual) {
+    assertEquals(msg, expected[0], actual.getDowntrack(), 1e-6);
+    assertEquals(msg, expected[1], actual.getCrosstrack(), 1e-6);
+    assertEquals(msg, expected[2], actual.getStamp(), 1e-6);
+    assertEquals(msg, (int) expected[3], actual.getSegmentIdx());
+    assertEquals(msg, expected[4], actual.getSegDowntrack(), 1e-6);
+  }
+
+  /**
+   * Loads the recorded paths keyed by seed and point limit
+   * Each line holds seed,maxPoints,downtrack,crosstrack,stamp,segmentIdx,segDowntrack with points in path order
+   */
+  private static Map<String, List<double[]>> loadRecordedPaths() throws IOException {
+    Map<String, List<double[]>> paths = new HashMap<>();
+    for (String line : Files.readAllLines(Paths.get(RECORDED_PATHS_FILE), StandardCharsets.UTF_8)) {
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      double[] point = new double[fields.length - 2];
+      for (int i = 0; i < point.length; i++) {
+        point[i] = Double.parseDouble(fields[i + 2]);
+      }
+      paths.computeIfAbsent(fields[0] + "," + fields[1], k -> new ArrayList<>()).add(point);
+    }
+    return paths;
+  }
+
+  /**
+   * Builds a 40 waypoint route heading north east with lane counts and widths which change along the route
+   */
+  private static Route buildRecordedPathRoute() {
+    List<RouteWaypoint> waypoints = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      double lat = 38.95647 + i * 0.00012;
+      double lon = -77.15031 + i * 0.00009 + 0.00003 * Math.sin(i * 0.5);
+      RouteWaypoint wp = new RouteWaypoint(new Location(lat, lon, 72.0));
+      wp.setWaypointId(i);
+      wp.setLaneCount(1 + (i / 5) % 3);
+      wp.setLaneWidth(i % 2 == 0 ? 3.7 : 3.5);
+      waypoints.add(wp);
+    }
+    return new Route(waypoints, "recorded_path_route", "recorded_path_route");
+  }
+
+  /**
+   * Trajectory and starting state generated from a seed
+   * The trajectory begins behind the vehicle and contains future maneuvers filled up to two levels deep
+   */
+  private static class RecordedPathCase {
+    final Trajectory traj = mock(Trajectory.class);
+    final List<LongitudinalManeuver> longitudinal;
+    final List<LateralManeuver> lateral;
+    final double downtrack;
+    final int segmentIdx;
+    final double segDowntrack;
+    final int lane;
+    final int reducedMaxPoints;
+
+    RecordedPathCase(long seed, Route route) {
+      Random rand = new Random(seed);
+      double planStart = 30.0 + rand.nextDouble() * 100.0;
+      double planEnd = planStart + 60.0 + rand.nextDouble() * 150.0;
+      downtrack = planStart + rand.nextDouble() * 20.0;
+      int idx = 0;
+      while (route.lengthOfSegments(0, idx) <= downtrack) {
+        idx++;
+      }
+      segmentIdx = idx;
+      segDowntrack = downtrack - route.lengthOfSegments(0, idx - 1);
+      lane = rand.nextInt(route.getSegments().get(idx).getDowntrackWaypoint().getLaneCount());
+      reducedMaxPoints = 20 + rand.nextInt(RECORDED_MAX_POINTS - 40);
+
+      double[] speed = {randomSpeed(rand)};
+      longitudinal = randomLongitudinalManeuvers(rand, planStart, planEnd, speed, 2, false);
+      lateral = randomLateralManeuvers(rand, planStart, planEnd, 2, false);
+      IComplexManeuver complex = null;
+      if (rand.nextInt(3) == 0) {
+        complex = mock(IComplexManeuver.class);
+        when(complex.getStartDistance()).thenReturn(planEnd);
+        when(complex.getEndDistance()).thenReturn(planEnd + 40.0);
+        when(complex.getMinExpectedSpeed()).thenReturn(speed[0] - 1.0);
+        when(complex.getMaxExpectedSpeed()).thenReturn(speed[0] + 1.0);
+      }
+      when(traj.getLongitudinalManeuvers()).thenReturn(longitudinal);
+      when(traj.getLateralManeuvers()).thenReturn(lateral);
+      when(traj.getComplexManeuver()).thenReturn(complex);
+    }
+
+    private static double randomSpeed(Random rand) {
+      return 2.0 + rand.nextDouble() * 15.0;
+    }
+
+    /**
+     * Splits [start, end) into longitudinal maneuvers, some of which are future maneuvers that are either empty
+     * or filled with maneuvers over the same distance.
+     * The recorded converter only expanded the first level of a filled future maneuver in place,
+     * so a future maneuver is not placed first inside another
+     */
+    private static List<LongitudinalManeuver> randomLongitudinalManeuvers(Random rand, double start, double end,
+      double[] speed, int depth, boolean nested) {
+      List<LongitudinalManeuver> maneuvers = new ArrayList<>();
+      int count = 1 + rand.nextInt(3);
+      double length = (end - start) / count;
+      for (int i = 0; i < count; i++) {
+        double startDist = start + i * length;
+        double endDist = i == count - 1 ? end : startDist + length;
+        double startSpeed = speed[0];
+        LongitudinalManeuver maneuver;
+        if (depth > 0 && (i > 0 || !nested) && rand.nextInt(2) == 0) {
+          FutureLongitudinalManeuver future = mock(FutureLongitudinalManeuver.class);
+          List<LongitudinalManeuver> children = new ArrayList<>();
+          if (rand.nextInt(4) == 0) {
+            speed[0] = randomSpeed(rand);
+          } else {
+            children = randomLongitudinalManeuvers(rand, startDist, endDist, speed, depth - 1, true);
+          }
+          when(future.getLongitudinalManeuvers()).thenReturn(children);
+          maneuver = future;
+        } else {
+          speed[0] = rand.nextInt(3) == 0 ? startSpeed : randomSpeed(rand);
+          if (speed[0] > startSpeed) {
+            maneuver = mock(SpeedUp.class);
+          } else if (speed[0] < startSpeed) {
+            maneuver = mock(SlowDown.class);
+          } else {
+            maneuver = mock(SteadySpeed.class);
+          }
+        }
+        when(maneuver.getStartDistance()).thenReturn(startDist);
+        when(maneuver.getEndDistance()).thenReturn(endDist);
+        when(maneuver.getStartSpeed()).thenReturn(startSpeed);
+        when(maneuver.getTargetSpeed()).thenReturn(speed[0]);
+        maneuvers.add(maneuver);
+      }
+      return maneuvers;
+    }
+
+    /**
+     * Splits [start, end) into lane keeping and lane change maneuvers in the same way as the longitudinal maneuvers
+     */
+    private static List<LateralManeuver> randomLateralManeuvers(Random rand, double start, double end,
+      int depth, boolean nested) {
+      List<LateralManeuver> maneuvers = new ArrayList<>();
+      int count = 1 + rand.nextInt(3);
+      double length = (end - start) / count;
+      for (int i = 0; i < count; i++) {
+        double startDist = start + i * length;
+        double endDist = i == count - 1 ? end : startDist + length;
+        int relativeLane = rand.nextInt(3) - 1;
+        LateralManeuver maneuver;
+        if (depth > 0 && (i > 0 || !nested) && rand.nextInt(2) == 0) {
+          FutureLateralManeuver future = mock(FutureLateralManeuver.class);
+          List<LateralManeuver> children = new ArrayList<>();
+          if (rand.nextInt(4) != 0) {
+            children = randomLateralManeuvers(rand, startDist, endDist, depth - 1, true);
+          }
+          when(future.getLateralManeuvers()).thenReturn(children);
+          maneuver = future;
+        } else if (relativeLane == 0) {
+          maneuver = mock(LaneKeeping.class);
+        } else {
+          maneuver = mock(LaneChange.class);
+        }
+        when(maneuver.getStartDistance()).thenReturn(startDist);
+        when(maneuver.getEndDistance()).thenReturn(endDist);
+        when(maneuver.getEndingRelativeLane()).thenReturn(relativeLane);
+        maneuvers.add(maneuver);
+      }
+      return maneuvers;
+    }
+  }
 }
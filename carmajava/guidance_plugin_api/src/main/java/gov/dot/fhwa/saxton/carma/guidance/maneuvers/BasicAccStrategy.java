@@ -16,27 +16,27 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.maneuvers;
 
-import gov.dot.fhwa.saxton.carma.guidance.signals.Pipeline;
-import gov.dot.fhwa.saxton.carma.guidance.signals.Signal;
+import gov.dot.fhwa.saxton.carma.guidance.signals.DoublePipeline;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
 import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
 
-import java.util.Optional;
-
 /**
  * Simple IAccStrategyImplementation based on a sliding blend of vehicle speeds.
  * <p>
  * Linearly blends our vehicle's speed command with the speed of the front vehicle based on
  * distance between the two.
+ * <p>
+ * The speed command pipeline operates on primitive values so that computing the override
+ * speed on each control tick does not allocate.
  */
 public class BasicAccStrategy extends AbstractAccStrategy {
   protected double standoffDistance = 5.0;
-  private Pipeline<Double> speedCmdPipeline; // Pipeline is assumed to include a pid controller
+  private DoublePipeline speedCmdPipeline; // Pipeline is assumed to include a pid controller
   private double exitDistanceFactor = 2.0;
   private boolean pidActive = false;
   protected ILogger log;
 
-  public BasicAccStrategy(double minStandoffDistance, double exitDistanceFactor, Pipeline<Double> speedCmdPipeline) {
+  public BasicAccStrategy(double minStandoffDistance, double exitDistanceFactor, DoublePipeline speedCmdPipeline) {
     super();
     this.standoffDistance = minStandoffDistance;
     this.exitDistanceFactor = exitDistanceFactor;
@@ -90,14 +90,16 @@ public class BasicAccStrategy extends AbstractAccStrategy {
 
     double speedCmd = desiredSpeedCommand;
     if (pidActive) {
-      Optional<Signal<Double>> speedCmdSignal = speedCmdPipeline
-          .apply(new Signal<>(computeActualTimeGap(distanceGap, currentSpeed, frontVehicleSpeed)));
-      double rawSpeedCmd = speedCmdSignal.get().getData() + currentSpeed;
+      double rawSpeedCmd = speedCmdPipeline.applyAsDouble(
+          computeActualTimeGap(distanceGap, currentSpeed, frontVehicleSpeed), (double) System.currentTimeMillis())
+          + currentSpeed;
       speedCmd = rawSpeedCmd;
       //speedCmd = applyAccelLimit(rawSpeedCmd, currentSpeed, maxAccel);
-      log.debug(String.format(
-          "ACC OVERRIDE CMD = %.02f, current speed = %.02f, override after accel limit applied (%.02f m/s/s) = %.02f, distToVehicle: %.02f m",
-          rawSpeedCmd, currentSpeed, maxAccel, speedCmd, distToFrontVehicle));
+      if (log.isDebugEnabled()) {
+        log.debug(String.format(
+            "ACC OVERRIDE CMD = %.02f, current speed = %.02f, override after accel limit applied (%.02f m/s/s) = %.02f, distToVehicle: %.02f m",
+            rawSpeedCmd, currentSpeed, maxAccel, speedCmd, distToFrontVehicle));
+      }
       speedCmd = Math.min(speedCmd, desiredSpeedCommand);
     }
 
@@ -16,7 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.maneuvers;
 
-import gov.dot.fhwa.saxton.carma.guidance.signals.Pipeline;
+import gov.dot.fhwa.saxton.carma.guidance.signals.DoublePipeline;
 
 /**
  * Factory-pattern class to produce BasicAccStrategy instances
@@ -27,10 +27,10 @@ public class BasicAccStrategyFactory implements IAccStrategyFactory {
   protected double maxAccel;
   protected double minStandoffDistance;
   protected double exitDistanceFactor;
-  protected Pipeline<Double> filterPipeline;
+  protected DoublePipeline filterPipeline;
   protected volatile static BasicAccStrategy strat;
 
-  public BasicAccStrategyFactory(double desiredTimeGap, double maxAccel, double vehicleResponseDelay, double minStandoffDistance, double exitDistanceFactor, Pipeline<Double> filterPipeline) {
+  public BasicAccStrategyFactory(double desiredTimeGap, double maxAccel, double vehicleResponseDelay, double minStandoffDistance, double exitDistanceFactor, DoublePipeline filterPipeline) {
     this.vehicleResponseDelay = vehicleResponseDelay;
     this.desiredTimeGap = desiredTimeGap;
     this.maxAccel = maxAccel;
@@ -23,7 +23,7 @@ import java.util.Optional;
  * If error between signal and setpoint is < deadband then filter will return the setpoint instead
  * Otherwise passes the provided signal through unchanged
  */
-public class Deadband implements Filter<Double> {
+public class Deadband implements Filter<Double>, DoubleFilter {
     private double setpoint = 0;
     private double deadband = 0;
 
@@ -71,6 +71,11 @@ public class Deadband implements Filter<Double> {
         return Optional.of(signal);
     }
 
+    @Override
+    public double applyAsDouble(double value, double timestamp) {
+        return Math.abs(setpoint - value) < deadband ? setpoint : value;
+    }
+
     @Override public void reset() {
         // No maintained state to reset
     }
@@ -79,4 +84,9 @@ public class Deadband implements Filter<Double> {
     public void changeSetpoint(Double setpoint) {
         // No setpoint in this filter
     }
+
+    @Override
+    public void changeSetpoint(double setpoint) {
+        // No setpoint in this filter
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.signals;
+
+/**
+ * Primitive specialization of {@link Filter} for double valued signals
+ * <p>
+ * Samples are passed as a value and timestamp pair so that no Signal or Optional objects
+ * need to be allocated per sample. Every sample produces an output value.
+ * Intended for control loops which run at a high rate.
+ */
+public interface DoubleFilter {
+
+    /**
+     * Apply the filter to the specified sample
+     * 
+     * @param value The input value to feed the filter
+     * @param timestamp The timestamp of the input value
+     * @return The output value of the filter
+     */
+    double applyAsDouble(double value, double timestamp);
+
+    /**
+     * Removes all maintained state from a filter and resets it to default values
+     * Note: This DOES NOT reset configured filter parameters
+     * 
+     * Example: A PID controller would have its integrator reset but not its setpoint
+     */
+    void reset();
+
+    /**
+     * Updates the setpoint of this filter
+     * Note: Filters are not required to have setpoints and this function should do nothing in that case. 
+     * 
+     * Example: A PID controller would have its setpoint changed
+     * @param setpoint The value to provide as the setpoint
+     */
+    void changeSetpoint(double setpoint);
+}
@@ -17,28 +17,28 @@
 package gov.dot.fhwa.saxton.carma.guidance.signals;
 
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Simple MovingAverageFilter
  * A moving average filter serves as extermely simple low pass filter
+ * <p>
+ * Samples are held in a fixed size ring buffer with a running sum so each sample is processed
+ * in constant time without allocation. Until the buffer is full the average is taken over the
+ * samples received so far.
  */
-public class MovingAverageFilter implements Filter<Double> {
-    private Queue<Double> samples = new ConcurrentLinkedQueue<Double>();
-    private int numSamples = 1; 
+public class MovingAverageFilter implements Filter<Double>, DoubleFilter {
+    private final double[] samples;
+    private int numSamples = 0; // Number of samples currently held
+    private int next = 0; // Index in samples of the next sample to write
     private double sum = 0;
 
     /**
-     * Construct a PID controller with the specified Kp, Ki, Kd, and setpoint values
+     * Construct a moving average filter over the specified number of samples
      * 
-     * @param Kp The coefficient associated with the proportional response of the PID controller
-     * @param Ki The coefficient associated with the integral response of the PID controller
-     * @param Kd The coefficient associated with the derivative response of the PID controller
-     * @param setpoint The initial setpoint to be used for error computation
+     * @param numSamples The number of samples to average. Values less than 1 are treated as 1
      */
     public MovingAverageFilter(int numSamples) {
-        this.numSamples = numSamples;
+        this.samples = new double[Math.max(1, numSamples)];
     }
 
     @Override
@@ -46,33 +46,39 @@ public class MovingAverageFilter implements Filter<Double> {
         // No setpoint in this filter
     }
 
+    @Override
+    public void changeSetpoint(double setpoint) {
+        // No setpoint in this filter
+    }
+
     /**
-     * Apply the PID controller to the input signal
-     * </p>
-     * The input signal is treated as the plant value and compared to the setpoint configured
-     * with adjustSetPoint for the purpose of error computation. The output signal is the 
-     * control response to correct the error.
+     * Apply the moving average filter to the input signal
      * 
-     * @param signal The measured plant value
-     * @return An Optional always containing the control response value
+     * @param signal The new sample
+     * @return An Optional always containing the average of the most recent samples
      */
     public Optional<Signal<Double>> apply(Signal<Double> signal) {
-        Double newSample = signal.getData();
-        samples.add(newSample); // Add the sample to the queue of samples
+        return Optional.of(new Signal<>(applyAsDouble(signal.getData(), signal.getTimestamp()), signal.getTimestamp()));
+    }
 
-        Double oldestValue = 0.0;
-        if (samples.size() > numSamples) {
-            oldestValue = samples.poll(); // Pop the oldest sample from the queue
+    @Override
+    public double applyAsDouble(double value, double timestamp) {
+        double oldestValue = 0.0;
+        if (numSamples == samples.length) {
+            oldestValue = samples[next]; // Overwrite the oldest sample
+        } else {
+            numSamples++;
         }
+        samples[next] = value;
+        next = (next + 1) % samples.length;
 
-        sum += -oldestValue + newSample;
-        Double result = sum / samples.size();
-
-        return Optional.of(new Signal<>(result, signal.getTimestamp()));
+        sum += -oldestValue + value;
+        return sum / numSamples;
     }
 
     @Override public void reset() {
         sum = 0;
-        samples = new ConcurrentLinkedQueue<Double>();
+        numSamples = 0;
+        next = 0;
     }
 }
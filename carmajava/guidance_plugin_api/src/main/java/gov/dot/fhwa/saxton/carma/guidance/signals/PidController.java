@@ -24,7 +24,7 @@ import java.util.Optional;
  * Transforms a plant value into a control signal for correcting error relative
  * to the PID controller's configured setpoint.
  */
-public class PidController implements Filter<Double> {
+public class PidController implements Filter<Double>, DoubleFilter {
     private final double Kp;
     private final double Ki;
     private final double Kd;
@@ -32,7 +32,9 @@ public class PidController implements Filter<Double> {
     private double integrator = 0;
     private double integratorMax = Double.MAX_VALUE;
     private double integratorMin = Double.MIN_VALUE;
-    private Optional<Signal<Double>> lastError = Optional.empty();
+    private boolean hasLastError = false;
+    private double lastError = 0;
+    private double lastErrorTimestamp = 0;
 
 
     /**
@@ -60,6 +62,11 @@ public class PidController implements Filter<Double> {
         this.setpoint = setpoint;
     }
 
+    @Override
+    public void changeSetpoint(double setpoint) {
+        this.setpoint = setpoint;
+    }
+
     /**
      * Apply the PID controller to the input signal
      * </p>
@@ -71,12 +78,17 @@ public class PidController implements Filter<Double> {
      * @return An Optional always containing the control response value
      */
     public Optional<Signal<Double>> apply(Signal<Double> signal) {
-        double error = setpoint - signal.getData();
+        return Optional.of(new Signal<>(applyAsDouble(signal.getData(), signal.getTimestamp()), signal.getTimestamp()));
+    }
+
+    @Override
+    public double applyAsDouble(double value, double timestamp) {
+        double error = setpoint - value;
         double output = Kp * error;
 
         // If this isn't our first timestep, handle the I and D terms
-        if (lastError.isPresent()) {
-            double dt = signal.getTimestamp() - lastError.get().getTimestamp();
+        if (hasLastError) {
+            double dt = timestamp - lastErrorTimestamp;
 
             if (Ki > 0) {
                 // double type will not overflow from positive to negative
@@ -89,12 +101,14 @@ public class PidController implements Filter<Double> {
                 output += Ki * integrator;
             }
 
-            output += Kd * (error - lastError.get().getData()) / dt;
+            output += Kd * (error - lastError) / dt;
         }
 
-        lastError = Optional.of(new Signal<>(error, signal.getTimestamp()));
+        hasLastError = true;
+        lastError = error;
+        lastErrorTimestamp = timestamp;
 
-        return Optional.of(new Signal<>(output, signal.getTimestamp()));
+        return output;
     }
 
     public void setIntegratorRange(double min, double max) {
@@ -104,7 +118,7 @@ public class PidController implements Filter<Double> {
     
     @Override public void reset() {
         integrator = 0;
-        lastError = Optional.empty();
+        hasLastError = false;
     }
     
 }
@@ -22,6 +22,7 @@ import gov.dot.fhwa.saxton.carma.guidance.maneuvers.ISimpleManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LateralManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LongitudinalManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.ManeuverType;
+import gov.dot.fhwa.saxton.carma.guidance.util.intervaltree.FrozenIntervalIndex;
 import gov.dot.fhwa.saxton.carma.guidance.util.intervaltree.Interval;
 import gov.dot.fhwa.saxton.carma.guidance.util.intervaltree.IntervalTree;
 import gov.dot.fhwa.saxton.carma.guidance.util.intervaltree.IntervalTreeFactory;
@@ -35,6 +36,10 @@ import java.util.SortedSet;
  * </p>
  * Stores both lateral and longitudinal trajectories made of maneuvers that can be individually executed
  * to command the vehicle
+ * <p>
+ * Once a trajectory has been fully planned it may be frozen with {@link #freeze()}, which builds array-backed
+ * indexes of its maneuvers. Lookups on a frozen trajectory use the indexes instead of the interval trees.
+ * Modifying a frozen trajectory discards the indexes.
  */
 public class Trajectory {
 
@@ -43,6 +48,8 @@ public class Trajectory {
   protected IntervalTree<LateralManeuver> lateralManeuvers;
   protected IntervalTree<LongitudinalManeuver> longitudinalManeuvers;
   protected IComplexManeuver complexManeuver = null;
+  protected FrozenIntervalIndex<LateralManeuver> frozenLateralManeuvers = null;
+  protected FrozenIntervalIndex<LongitudinalManeuver> frozenLongitudinalManeuvers = null;
   protected static final double DISTANCE_EPSILON = 0.00001;
 
   /**
@@ -66,14 +73,82 @@ public class Trajectory {
     lateralManeuvers = IntervalTreeFactory.buildIntervalTree();
     longitudinalManeuvers = IntervalTreeFactory.buildIntervalTree();
 
-    for (LateralManeuver m : traj.lateralManeuvers.toSortedList()) {
-      lateralManeuvers.insert(new Interval<LateralManeuver>(m, m.getStartDistance(), m.getEndDistance()));
+    copyIntervals(traj.sortedLateralManeuvers(), lateralManeuvers);
+    copyIntervals(traj.sortedLongitudinalManeuvers(), longitudinalManeuvers);
+
+    complexManeuver = traj.complexManeuver;
+  }
+
+  /**
+   * Insert sorted maneuvers into an empty tree
+   * <p>
+   * Non-empty, non-overlapping maneuvers are inserted so that the tree is balanced. Otherwise they are inserted
+   * in order as the tree orders empty intervals inconsistently.
+   */
+  private static <T extends IManeuver> void copyIntervals(List<T> sortedManeuvers, IntervalTree<T> tree) {
+    List<Interval<T>> intervals = new ArrayList<>(sortedManeuvers.size());
+    boolean disjoint = true;
+    double lastEnd = Double.NEGATIVE_INFINITY;
+    for (T m : sortedManeuvers) {
+      intervals.add(new Interval<T>(m, m.getStartDistance(), m.getEndDistance()));
+      disjoint &= m.getStartDistance() < m.getEndDistance() && m.getStartDistance() >= lastEnd;
+      lastEnd = m.getEndDistance();
     }
-    for (LongitudinalManeuver m : traj.longitudinalManeuvers.toSortedList()) {
-      longitudinalManeuvers.insert(new Interval<LongitudinalManeuver>(m, m.getStartDistance(), m.getEndDistance()));
+
+    if (disjoint) {
+      tree.insertAllSorted(intervals);
+    } else {
+      for (Interval<T> interval : intervals) {
+        tree.insert(interval);
+      }
     }
+  }
 
-    complexManeuver = traj.complexManeuver;
+  /**
+   * Build immutable indexes of the maneuvers in this trajectory for fast lookups during execution.
+   * <p>
+   * Should be called once the trajectory has been planned and validated. Adding maneuvers afterwards
+   * is still allowed but discards the indexes. Trajectories containing zero length maneuvers are not
+   * indexed and continue to use the interval trees.
+   */
+  public void freeze() {
+    if (!isFrozen()) {
+      FrozenIntervalIndex<LateralManeuver> laterals = lateralManeuvers.freeze();
+      FrozenIntervalIndex<LongitudinalManeuver> longitudinals = longitudinalManeuvers.freeze();
+      if (laterals.isDisjoint() && longitudinals.isDisjoint()) {
+        frozenLateralManeuvers = laterals;
+        frozenLongitudinalManeuvers = longitudinals;
+      }
+    }
+  }
+
+  /**
+   * Check if this trajectory has been frozen and not modified since
+   */
+  public boolean isFrozen() {
+    return frozenLateralManeuvers != null && frozenLongitudinalManeuvers != null;
+  }
+
+  /**
+   * Discard the indexes built by {@link #freeze()} after a modification
+   */
+  private void thaw() {
+    frozenLateralManeuvers = null;
+    frozenLongitudinalManeuvers = null;
+  }
+
+  /**
+   * Get the lateral maneuvers in sorted order without copying them when frozen. Do not modify the result.
+   */
+  private List<LateralManeuver> sortedLateralManeuvers() {
+    return isFrozen() ? frozenLateralManeuvers.getSortedData() : lateralManeuvers.toSortedList();
+  }
+
+  /**
+   * Get the longitudinal maneuvers in sorted order without copying them when frozen. Do not modify the result.
+   */
+  private List<LongitudinalManeuver> sortedLongitudinalManeuvers() {
+    return isFrozen() ? frozenLongitudinalManeuvers.getSortedData() : longitudinalManeuvers.toSortedList();
   }
 
   /**
@@ -99,11 +174,19 @@ public class Trajectory {
   public boolean addManeuver(ISimpleManeuver maneuver) {
     if (maneuver.getStartDistance() >= startLocation && maneuver.getEndDistance() <= endLocation) {
       if (maneuver instanceof LongitudinalManeuver) {
-        return longitudinalManeuvers.insert(new Interval<LongitudinalManeuver>((LongitudinalManeuver) maneuver,
+        boolean inserted = longitudinalManeuvers.insert(new Interval<LongitudinalManeuver>((LongitudinalManeuver) maneuver,
             maneuver.getStartDistance(), maneuver.getEndDistance()));
+        if (inserted) {
+          thaw();
+        }
+        return inserted;
       } else if (maneuver instanceof LateralManeuver) {
-        return lateralManeuvers.insert(new Interval<LateralManeuver>((LateralManeuver) maneuver,
+        boolean inserted = lateralManeuvers.insert(new Interval<LateralManeuver>((LateralManeuver) maneuver,
             maneuver.getStartDistance(), maneuver.getEndDistance()));
+        if (inserted) {
+          thaw();
+        }
+        return inserted;
       } else {
         // Maneuver is neither lateral nor longitudinal, we can't handle this case so reject it
         return false;
@@ -179,7 +262,7 @@ public class Trajectory {
    */
   public double findEarliestLongitudinalWindowOfSize(double size) {
     List<IManeuver> maneuvers = new ArrayList<>();
-    maneuvers.addAll(longitudinalManeuvers.toSortedList());
+    maneuvers.addAll(sortedLongitudinalManeuvers());
     if (complexManeuver != null) {
       maneuvers.add(complexManeuver);
     }
@@ -212,7 +295,7 @@ public class Trajectory {
    */
   public double findEarliestLateralWindowOfSize(double size) {
     List<IManeuver> maneuvers = new ArrayList<>();
-    maneuvers.addAll(lateralManeuvers.toSortedList());
+    maneuvers.addAll(sortedLateralManeuvers());
     if (complexManeuver != null) {
       maneuvers.add(complexManeuver);
     }
@@ -245,7 +328,7 @@ public class Trajectory {
    */
   public double findLatestLongitudinalWindowOfSize(double size) {
     List<IManeuver> maneuvers = new ArrayList<>();
-    maneuvers.addAll(longitudinalManeuvers.toSortedList());
+    maneuvers.addAll(sortedLongitudinalManeuvers());
     if (complexManeuver != null) {
       maneuvers.add(complexManeuver);
     }
@@ -279,7 +362,7 @@ public class Trajectory {
    */
   public double findLatestLateralWindowOfSize(double size) {
     List<IManeuver> maneuvers = new ArrayList<>();
-    maneuvers.addAll(lateralManeuvers.toSortedList());
+    maneuvers.addAll(sortedLateralManeuvers());
     if (complexManeuver != null) {
       maneuvers.add(complexManeuver);
     }
@@ -311,6 +394,23 @@ public class Trajectory {
   public List<IManeuver> getManeuversAt(double loc) {
     List<IManeuver> out = new ArrayList<>();
 
+    if (isFrozen()) {
+      LongitudinalManeuver lon = frozenLongitudinalManeuvers.findAt(loc);
+      if (lon != null) {
+        out.add(lon);
+      }
+      LateralManeuver lat = frozenLateralManeuvers.findAt(loc);
+      if (lat != null) {
+        out.add(lat);
+      }
+      if (complexManeuver != null && loc >= complexManeuver.getStartDistance()
+          && loc < complexManeuver.getEndDistance()) {
+        out.add(complexManeuver);
+      }
+
+      return out;
+    }
+
     for (Interval<LongitudinalManeuver> mvr : longitudinalManeuvers.findIntersectionsWith(loc)) {
       out.add(mvr.getData());
     }
@@ -331,6 +431,14 @@ public class Trajectory {
    * Undefined behavior if there are overlapping maneuvers of the same type
    */
   public IManeuver getManeuverAt(double loc, ManeuverType type) {
+    if (isFrozen() && type == ManeuverType.LATERAL) {
+      return frozenLateralManeuvers.findAt(loc);
+    }
+
+    if (isFrozen() && type == ManeuverType.LONGITUDINAL) {
+      return frozenLongitudinalManeuvers.findAt(loc);
+    }
+
     if (type == ManeuverType.LATERAL) {
       SortedSet<Interval<LateralManeuver>> mvrs = lateralManeuvers.findIntersectionsWith(loc);
       return (mvrs.isEmpty() ? null : mvrs.first().getData());
@@ -356,6 +464,14 @@ public class Trajectory {
    * Get the next maneuver of the specified type which will be wholly after loc, null if one cannot be found
    */
   public IManeuver getNextManeuverAfter(double loc, ManeuverType type) {
+    if (isFrozen() && type == ManeuverType.LONGITUDINAL) {
+      return getNextManeuverAfter(frozenLongitudinalManeuvers, loc);
+    }
+
+    if (isFrozen() && type == ManeuverType.LATERAL) {
+      return getNextManeuverAfter(frozenLateralManeuvers, loc);
+    }
+
     if (type == ManeuverType.LONGITUDINAL) {
       SortedSet<Interval<LongitudinalManeuver>> mvrsAtPt = longitudinalManeuvers.findIntersectionsWith(loc);
       if (!mvrsAtPt.isEmpty()) {
@@ -403,10 +519,22 @@ public class Trajectory {
     return null;
   }
 
+  /**
+   * Find the first maneuver in the index wholly after loc, skipping the maneuver at loc if present
+   */
+  private <T extends IManeuver> IManeuver getNextManeuverAfter(FrozenIntervalIndex<T> index, double loc) {
+    double endOfMvrAtPt = index.findEndAt(loc);
+    return index.findFirstIntersection(Double.isNaN(endOfMvrAtPt) ? loc : endOfMvrAtPt, endLocation);
+  }
+
   /**
    * Get the trajectory's stored lateral maneuvers in sorted order by start location
    */
   public List<LateralManeuver> getLateralManeuvers() {
+    if (isFrozen()) {
+      return frozenLateralManeuvers.toSortedList();
+    }
+
     List<LateralManeuver> out = new ArrayList<>();
     out.addAll(lateralManeuvers.toSortedList());
 
@@ -417,6 +545,10 @@ public class Trajectory {
    * Get the trajectory's stored longitudinal maneuvers in sorted order by start location
    */
   public List<LongitudinalManeuver> getLongitudinalManeuvers() {
+    if (isFrozen()) {
+      return frozenLongitudinalManeuvers.toSortedList();
+    }
+
     return longitudinalManeuvers.toSortedList();
   }
 
@@ -473,8 +605,8 @@ public class Trajectory {
     List<IManeuver> out = new ArrayList<>();
 
     // Merge the two sorted lists, a la mergesort
-    List<LateralManeuver> laterals = lateralManeuvers.toSortedList();
-    List<LongitudinalManeuver> longitudinals = longitudinalManeuvers.toSortedList();
+    List<LateralManeuver> laterals = getLateralManeuvers();
+    List<LongitudinalManeuver> longitudinals = getLongitudinalManeuvers();
     int numElems = laterals.size() + longitudinals.size();
 
     // Merge the lists by peeling elements off their fronts until one is empty
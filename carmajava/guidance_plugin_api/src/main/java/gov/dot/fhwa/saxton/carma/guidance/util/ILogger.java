@@ -16,7 +16,59 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.util;
 
+import java.util.function.Supplier;
+
 public interface ILogger {
+  /**
+   * Returns true if debug level messages will be written by this logger
+   */
+  public default boolean isDebugEnabled() {
+    return true;
+  }
+
+  /**
+   * Returns true if trace level messages will be written by this logger
+   */
+  public default boolean isTraceEnabled() {
+    return true;
+  }
+
+  /**
+   * Logs a debug message which is only constructed if debug logging is enabled
+   */
+  public default void debug(Supplier<String> message) {
+    if (isDebugEnabled()) {
+      debug(message.get());
+    }
+  }
+
+  /**
+   * Logs a tagged debug message which is only constructed if debug logging is enabled
+   */
+  public default void debug(String tag, Supplier<String> message) {
+    if (isDebugEnabled()) {
+      debug(tag, message.get());
+    }
+  }
+
+  /**
+   * Logs a trace message which is only constructed if trace logging is enabled
+   */
+  public default void trace(Supplier<String> message) {
+    if (isTraceEnabled()) {
+      trace(message.get());
+    }
+  }
+
+  /**
+   * Logs a tagged trace message which is only constructed if trace logging is enabled
+   */
+  public default void trace(String tag, Supplier<String> message) {
+    if (isTraceEnabled()) {
+      trace(tag, message.get());
+    }
+  }
+
   public void debug(String message);
 
   public void debug(String message, Throwable t);
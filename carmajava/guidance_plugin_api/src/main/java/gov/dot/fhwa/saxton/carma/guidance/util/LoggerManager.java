@@ -25,6 +25,10 @@ package gov.dot.fhwa.saxton.carma.guidance.util;
  */
 public class LoggerManager {
   private static ILoggerFactory loggerFactory;
+  private static final int PATH_DIAGNOSTICS_CAPACITY = 32;
+  private static final int PATH_DIAGNOSTICS_MAX_POINTS = 500;
+  private static final PathDiagnosticsBuffer pathDiagnostics =
+    new PathDiagnosticsBuffer(PATH_DIAGNOSTICS_CAPACITY, PATH_DIAGNOSTICS_MAX_POINTS);
 
   /**
    * Set the ILoggerFactory instance to be used to create new ILogger instances
@@ -60,4 +64,11 @@ public class LoggerManager {
       throw new RuntimeException("Unable to create logger for class!");
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Get the shared ring buffer of recently processed paths which can be dumped on demand for debugging
+   */
+  public static PathDiagnosticsBuffer getPathDiagnostics() {
+    return pathDiagnostics;
+  }
+}
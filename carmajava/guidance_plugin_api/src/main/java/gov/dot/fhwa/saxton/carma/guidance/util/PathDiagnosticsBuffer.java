@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of recent path snapshots kept for diagnostics
+ * <p>
+ * Paths are stored in a compact binary form so recording a path only copies primitive values.
+ * No strings are formatted until the buffer is dumped, which allows path forensics to stay enabled
+ * on hot message handling paths. Once full, the oldest snapshot is overwritten.
+ * <p>
+ * Each point is encoded as (downtrack, crosstrack, time, segmentDowntrack) doubles followed by the segment index.
+ * Paths longer than the configured maximum are truncated.
+ * <p>
+ * This class is thread safe
+ */
+public class PathDiagnosticsBuffer {
+  private static final int BYTES_PER_POINT = 4 * Double.BYTES + Integer.BYTES;
+
+  private final int maxPointsPerPath;
+  private final Snapshot[] snapshots;
+  private int next = 0;
+  private int count = 0;
+
+  /**
+   * A single recorded path
+   */
+  private static final class Snapshot {
+    String tag;
+    String id;
+    long timestampMs;
+    int numPoints;
+    int originalNumPoints;
+    final ByteBuffer data;
+
+    Snapshot(int maxPoints) {
+      data = ByteBuffer.allocate(maxPoints * BYTES_PER_POINT);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param capacity         The number of path snapshots to keep
+   * @param maxPointsPerPath The maximum number of points stored for each path
+   */
+  public PathDiagnosticsBuffer(int capacity, int maxPointsPerPath) {
+    if (capacity <= 0 || maxPointsPerPath <= 0) {
+      throw new IllegalArgumentException("PathDiagnosticsBuffer requires a positive capacity and path size");
+    }
+    this.maxPointsPerPath = maxPointsPerPath;
+    this.snapshots = new Snapshot[capacity];
+  }
+
+  /**
+   * Records a snapshot of the provided path overwriting the oldest snapshot if the buffer is full
+   *
+   * @param tag  A short description of the path source such as "MobilityPath"
+   * @param id   An identifier for the path such as a plan id. May be null
+   * @param path The path to record
+   */
+  public synchronized void record(String tag, String id, List<RoutePointStamped> path) {
+    Snapshot snapshot = snapshots[next];
+    if (snapshot == null) {
+      snapshot = new Snapshot(maxPointsPerPath);
+      snapshots[next] = snapshot;
+    }
+    snapshot.tag = tag;
+    snapshot.id = id;
+    snapshot.timestampMs = System.currentTimeMillis();
+    snapshot.originalNumPoints = path.size();
+    ByteBuffer data = snapshot.data;
+    data.clear();
+    int numPoints = 0;
+    for (RoutePointStamped rp : path) {
+      if (numPoints == maxPointsPerPath) {
+        break;
+      }
+      data.putDouble(rp.getDowntrack());
+      data.putDouble(rp.getCrosstrack());
+      data.putDouble(rp.getStamp());
+      data.putDouble(rp.getSegDowntrack());
+      data.putInt(rp.getSegmentIdx());
+      numPoints++;
+    }
+    snapshot.numPoints = numPoints;
+
+    next = (next + 1) % snapshots.length;
+    count = Math.min(count + 1, snapshots.length);
+  }
+
+  /**
+   * Gets the number of snapshots currently stored
+   *
+   * @return The number of snapshots
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * Removes all snapshots
+   */
+  public synchronized void clear() {
+    next = 0;
+    count = 0;
+  }
+
+  /**
+   * Formats all stored snapshots from oldest to newest
+   *
+   * @return A human readable dump of the stored paths
+   */
+  public String dump() {
+    return dump(null);
+  }
+
+  /**
+   * Formats the stored snapshots from oldest to newest
+   *
+   * @param id If not null only snapshots with this id are included
+   *
+   * @return A human readable dump of the stored paths
+   */
+  public synchronized String dump(String id) {
+    StringBuilder sb = new StringBuilder();
+    int oldest = (next - count + snapshots.length) % snapshots.length;
+    for (int i = 0; i < count; i++) {
+      Snapshot snapshot = snapshots[(oldest + i) % snapshots.length];
+      if (id == null || id.equals(snapshot.id)) {
+        appendSnapshot(sb, snapshot);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Formats the most recently recorded snapshot with the provided id
+   *
+   * @param id The id of the snapshot
+   *
+   * @return A human readable dump of the path or an empty string if no snapshot has the id
+   */
+  public synchronized String dumpLatest(String id) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= count; i++) {
+      Snapshot snapshot = snapshots[(next - i + snapshots.length) % snapshots.length];
+      if (id.equals(snapshot.id)) {
+        appendSnapshot(sb, snapshot);
+        break;
+      }
+    }
+    return sb.toString();
+  }
+
+  private void appendSnapshot(StringBuilder sb, Snapshot snapshot) {
+    sb.append(snapshot.tag).append(" ").append(snapshot.id).append(" recorded at ").append(snapshot.timestampMs)
+      .append(" with ").append(snapshot.originalNumPoints)
+      .append(" points (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n");
+    ByteBuffer data = snapshot.data;
+    for (int p = 0; p < snapshot.numPoints; p++) {
+      int offset = p * BYTES_PER_POINT;
+      sb.append(data.getDouble(offset)).append(", ")
+        .append(data.getDouble(offset + Double.BYTES)).append(", ")
+        .append(data.getDouble(offset + 2 * Double.BYTES)).append(", ")
+        .append(data.getInt(offset + 4 * Double.BYTES)).append(", ")
+        .append(data.getDouble(offset + 3 * Double.BYTES)).append("\n");
+    }
+    if (snapshot.numPoints < snapshot.originalNumPoints) {
+      sb.append("... truncated ").append(snapshot.originalNumPoints - snapshot.numPoints).append(" points\n");
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.intervaltree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, array-backed index of the intervals in an {@link IntervalTree}
+ * <p>
+ * Built once from a tree which will no longer be modified using {@link IntervalTree#freeze()}. The start and end points of the
+ * intervals are stored in sorted arrays so that point and interval lookups are binary searches
+ * which do not allocate, unlike the sorted sets returned by the tree.
+ * <p>
+ * Lookups assume non-empty, non-overlapping intervals which are closed on their start and open on their end,
+ * as in a tree built with {@link IntervalTreeFactory#buildIntervalTree()}. Empty intervals are not ordered
+ * consistently by that tree, so {@link #isDisjoint()} should be checked before using the lookup methods.
+ */
+public class FrozenIntervalIndex<T> {
+    private final List<T> sortedData;
+    private final Object[] data;
+    private final double[] starts;
+    private final double[] ends;
+    private final boolean disjoint;
+
+    /**
+     * Build an index of the intervals
+     * 
+     * @param sortedIntervals The intervals in sorted order
+     */
+    protected FrozenIntervalIndex(List<Interval<T>> sortedIntervals) {
+        int size = sortedIntervals.size();
+        List<T> all = new ArrayList<>(size);
+        data = new Object[size];
+        starts = new double[size];
+        ends = new double[size];
+
+        boolean ordered = true;
+        for (int i = 0; i < size; i++) {
+            Interval<T> interval = sortedIntervals.get(i);
+            all.add(interval.getData());
+            data[i] = interval.getData();
+            starts[i] = interval.getStart();
+            ends[i] = interval.getEnd();
+
+            if (starts[i] >= ends[i] || (i > 0 && ends[i - 1] > starts[i])) {
+                ordered = false;
+            }
+        }
+
+        sortedData = Collections.unmodifiableList(all);
+        disjoint = ordered;
+    }
+
+    /**
+     * Check if the intervals are non-empty, sorted and do not overlap. The lookup methods of this index
+     * only give correct results if this is true.
+     */
+    public boolean isDisjoint() {
+        return disjoint;
+    }
+
+    /**
+     * Find the index of the first interval which ends after the point
+     * Since the intervals do not overlap their ends are sorted as well as their starts
+     */
+    private int firstEndingAfter(double pt) {
+        int lo = 0;
+        int hi = ends.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] <= pt) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Get the data of the interval containing the point
+     * 
+     * @return The data of the interval, null if no interval contains the point
+     */
+    @SuppressWarnings("unchecked")
+    public T findAt(double pt) {
+        int i = firstEndingAfter(pt);
+        return (i < ends.length && starts[i] <= pt) ? (T) data[i] : null;
+    }
+
+    /**
+     * Get the data of the first interval which intersects [start, end)
+     * <p>
+     * Like {@link Interval}, will throw an ArithmeticException if start is greater than end
+     * 
+     * @return The data of the first intersecting interval, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T findFirstIntersection(double start, double end) {
+        if (start > end) {
+            throw new ArithmeticException(String.format("Attempted to create inverted interval [%.02f, %.02f)", start, end));
+        }
+        if (start == end) {
+            return null; // Empty intervals intersect nothing
+        }
+
+        int i = firstEndingAfter(start);
+        return (i < ends.length && starts[i] < end) ? (T) data[i] : null;
+    }
+
+    /**
+     * Get the end point of the interval containing the point
+     * 
+     * @return The end point of the interval, NaN if no interval contains the point
+     */
+    public double findEndAt(double pt) {
+        int i = firstEndingAfter(pt);
+        return (i < ends.length && starts[i] <= pt) ? ends[i] : Double.NaN;
+    }
+
+    /**
+     * Get an unmodifiable view of the data of all intervals in sorted order
+     */
+    public List<T> getSortedData() {
+        return sortedData;
+    }
+
+    /**
+     * Get the data of all intervals in sorted order, as {@link IntervalTree#toSortedList()}
+     */
+    public List<T> toSortedList() {
+        return new ArrayList<>(sortedData);
+    }
+
+    /**
+     * Get the number of intervals in the index
+     */
+    public int size() {
+        return sortedData.size();
+    }
+}
@@ -113,4 +113,48 @@ public class IntervalTree<T> {
 
         return out;
     }
-}
\ No newline at end of file
+
+    /**
+     * Build an immutable index of the intervals currently in the tree for fast lookups.
+     * Changes made to the tree after this call are not reflected in the index.
+     */
+    public FrozenIntervalIndex<T> freeze() {
+        return new FrozenIntervalIndex<>(toSortedIntervalList());
+    }
+
+    /**
+     * Insert intervals which are sorted according to the configured IntervalCalculatorStrategy.
+     * <p>
+     * Intervals are inserted middle first so that the tree stays balanced, where inserting them in
+     * order would leave each node with only a single child.
+     * 
+     * @return True if all the insertions were successful, false o.w.
+     */
+    public boolean insertAllSorted(List<Interval<T>> sortedIntervals) {
+        return insertMiddleFirst(sortedIntervals, 0, sortedIntervals.size());
+    }
+
+    private boolean insertMiddleFirst(List<Interval<T>> sortedIntervals, int from, int to) {
+        if (from >= to) {
+            return true;
+        }
+
+        int mid = (from + to) >>> 1;
+        boolean success = insert(sortedIntervals.get(mid));
+        success &= insertMiddleFirst(sortedIntervals, from, mid);
+        success &= insertMiddleFirst(sortedIntervals, mid + 1, to);
+        return success;
+    }
+
+    /**
+     * Get the intervals in this tree in sorted order
+     */
+    public List<Interval<T>> toSortedIntervalList() {
+        List<Interval<T>> out = new ArrayList<>();
+        if (root != null) {
+            root.collectIntervals(out);
+        }
+
+        return out;
+    }
+}
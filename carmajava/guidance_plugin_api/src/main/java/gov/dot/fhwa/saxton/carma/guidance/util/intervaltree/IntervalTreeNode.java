@@ -186,6 +186,21 @@ public class IntervalTreeNode<T> {
         return out;
     }
 
+    /**
+     * Append all intervals below this node in the tree to the list in sorted order
+     */
+    protected void collectIntervals(List<Interval<T>> out) {
+        if (left != null) {
+            left.collectIntervals(out);
+        }
+
+        out.addAll(data);
+
+        if (right != null) {
+            right.collectIntervals(out);
+        }
+    }
+
     @Override
     public String toString() {
         String dataString = "";
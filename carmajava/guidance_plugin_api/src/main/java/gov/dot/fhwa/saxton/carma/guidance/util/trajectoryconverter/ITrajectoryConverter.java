@@ -97,6 +97,27 @@ public interface ITrajectoryConverter {
    double downtrack, double crosstrack,
    int currentSegmentIdx, double segDowntrack, int lane, int maxPointsInPath);
 
+  /**
+   * Converts the provided trajectory and starting configuration into a path stored in the provided buffer
+   *
+   * Behaves the same as the list returning convertToPath functions but writes into a reusable buffer
+   * so repeated conversions do not allocate a new object per path point.
+   * The trajectory is not modified.
+   *
+   * @param traj The trajectory to convert
+   * @param startTimeMs The starting time for this path in ms
+   * @param downtrack Current downtrack distance on route, m
+   * @param crosstrack Current crosstrack on route, m
+   * @param currentSegmentIdx The current route segment index
+   * @param segDowntrack The current downtrack distance relative to the current segment start, m
+   * @param lane The current lane index
+   * @param maxPointsInPath The maximum number of points to include in the path, not to exceed the configured value
+   * @param path The buffer which will be cleared and then filled with the path
+   */
+  void convertToPath(Trajectory traj, long startTimeMs,
+   double downtrack, double crosstrack,
+   int currentSegmentIdx, double segDowntrack, int lane, int maxPointsInPath, RoutePathBuffer path);
+
   /**
    * Converts the provided trajectory and starting configuration into a list of (downtrack, crosstrack) points with associated time stamps
    * 
@@ -191,6 +212,18 @@ public interface ITrajectoryConverter {
    * @return The path described as points along a route
    */
   List<RoutePointStamped> messageToPath(cav_msgs.Trajectory trajMsg);
+
+  /**
+   * Helper function for converting a cav_msgs.Trajectory into a path stored in the provided buffer
+   * 
+   * Offsets are decoded directly into the buffer without creating intermediate point objects
+   * 
+   * @param trajMsg The message to be converted
+   * @param currentSegmentIdx The current route segment index
+   * @param segDowntrack the downtrack distance along the segment, m
+   * @param path The buffer which will be cleared and then filled with the path
+   */
+  void messageToPath(cav_msgs.Trajectory trajMsg, int currentSegmentIdx, double segDowntrack, RoutePathBuffer path);
   
   /**
    * Function converts a path to a cav_msgs.Trajectory message using the provided message factory
@@ -201,6 +234,17 @@ public interface ITrajectoryConverter {
    */
   cav_msgs.Trajectory pathToMessage(List<RoutePointStamped> path);
 
+  /**
+   * Function converts a path stored in a buffer to a cav_msgs.Trajectory message using the provided message factory
+   * 
+   * Points are encoded directly from the buffer without creating intermediate point objects
+   * 
+   * @param path The buffer of route points and times which defines the path
+   * 
+   * @return A cav_msgs.Trajectory message. This message will be empty if the path was empty
+   */
+  cav_msgs.Trajectory pathBufferToMessage(RoutePathBuffer path);
+
   /**
    * Function which converts and individual Simple Longitudinal Maneuver to a path based on starting configuration
    * This function is used internally in the convertToPath function
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable array backed storage for a path of route points
+ * <p>
+ * Points are stored as parallel arrays of downtrack, crosstrack, time, segment index and segment downtrack
+ * so filling and reading a path does not allocate per point. The buffer grows if needed but is intended to be
+ * sized once from the maximum number of points in a path and then cleared and reused.
+ * <p>
+ * This class is not thread safe
+ */
+public final class RoutePathBuffer {
+  private double[] downtracks;
+  private double[] crosstracks;
+  private double[] stamps;
+  private int[] segmentIdxs;
+  private double[] segDowntracks;
+  private int size = 0;
+
+  /**
+   * Constructor
+   *
+   * @param initialCapacity The number of points which can be stored before the buffer must grow
+   */
+  public RoutePathBuffer(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 1);
+    downtracks = new double[capacity];
+    crosstracks = new double[capacity];
+    stamps = new double[capacity];
+    segmentIdxs = new int[capacity];
+    segDowntracks = new double[capacity];
+  }
+
+  /**
+   * Removes all points while keeping the allocated storage
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Gets the number of points in the path
+   *
+   * @return The number of points
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the path contains no points
+   *
+   * @return True if empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets the number of points which can be stored without growing the buffer
+   *
+   * @return The capacity
+   */
+  public int capacity() {
+    return downtracks.length;
+  }
+
+  /**
+   * Adds a point to the end of the path
+   *
+   * @param downtrack    The downtrack distance along the route in m
+   * @param crosstrack   The crosstrack distance in m
+   * @param stamp        Time in seconds since Jan 1, 1970 00:00:00 UTC
+   * @param segmentIdx   The segment index
+   * @param segDowntrack The downtrack distance on the segment in m
+   */
+  public void add(double downtrack, double crosstrack, double stamp, int segmentIdx, double segDowntrack) {
+    if (size == downtracks.length) {
+      grow();
+    }
+    downtracks[size] = downtrack;
+    crosstracks[size] = crosstrack;
+    stamps[size] = stamp;
+    segmentIdxs[size] = segmentIdx;
+    segDowntracks[size] = segDowntrack;
+    size++;
+  }
+
+  /**
+   * Removes the point at the provided index shifting all later points down by one
+   *
+   * @param index The index of the point to remove
+   */
+  public void remove(int index) {
+    checkIndex(index);
+    int numMoved = size - index - 1;
+    if (numMoved > 0) {
+      System.arraycopy(downtracks, index + 1, downtracks, index, numMoved);
+      System.arraycopy(crosstracks, index + 1, crosstracks, index, numMoved);
+      System.arraycopy(stamps, index + 1, stamps, index, numMoved);
+      System.arraycopy(segmentIdxs, index + 1, segmentIdxs, index, numMoved);
+      System.arraycopy(segDowntracks, index + 1, segDowntracks, index, numMoved);
+    }
+    size--;
+  }
+
+  public double getDowntrack(int index) {
+    checkIndex(index);
+    return downtracks[index];
+  }
+
+  public double getCrosstrack(int index) {
+    checkIndex(index);
+    return crosstracks[index];
+  }
+
+  public void setCrosstrack(int index, double crosstrack) {
+    checkIndex(index);
+    crosstracks[index] = crosstrack;
+  }
+
+  public double getStamp(int index) {
+    checkIndex(index);
+    return stamps[index];
+  }
+
+  public int getSegmentIdx(int index) {
+    checkIndex(index);
+    return segmentIdxs[index];
+  }
+
+  public double getSegDowntrack(int index) {
+    checkIndex(index);
+    return segDowntracks[index];
+  }
+
+  /**
+   * Creates a new RoutePointStamped from the point at the provided index
+   *
+   * @param index The index of the point
+   *
+   * @return A new RoutePointStamped
+   */
+  public RoutePointStamped getPoint(int index) {
+    checkIndex(index);
+    return new RoutePointStamped(downtracks[index], crosstracks[index], stamps[index], segmentIdxs[index],
+      segDowntracks[index]);
+  }
+
+  /**
+   * Appends a RoutePointStamped for every point in this buffer to the provided list
+   *
+   * @param out The list to add points to
+   */
+  public void addTo(List<RoutePointStamped> out) {
+    for (int i = 0; i < size; i++) {
+      out.add(new RoutePointStamped(downtracks[i], crosstracks[i], stamps[i], segmentIdxs[i], segDowntracks[i]));
+    }
+  }
+
+  /**
+   * Copies the points in this buffer into a new list
+   *
+   * @return A new list of RoutePointStamped
+   */
+  public List<RoutePointStamped> toList() {
+    List<RoutePointStamped> out = new ArrayList<>(size);
+    addTo(out);
+    return out;
+  }
+
+  private void grow() {
+    int capacity = downtracks.length * 2;
+    downtracks = Arrays.copyOf(downtracks, capacity);
+    crosstracks = Arrays.copyOf(crosstracks, capacity);
+    stamps = Arrays.copyOf(stamps, capacity);
+    segmentIdxs = Arrays.copyOf(segmentIdxs, capacity);
+    segDowntracks = Arrays.copyOf(segDowntracks, capacity);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RoutePathBuffer [size=" + size + ", capacity=" + downtracks.length + "]";
+  }
+}
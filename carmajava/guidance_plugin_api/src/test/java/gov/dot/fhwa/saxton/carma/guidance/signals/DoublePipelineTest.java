@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.signals;
+
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DoublePipelineTest {
+
+    @Test
+    public void testMatchesGenericPipeline() {
+        Pipeline<Double> pipeline = new Pipeline<>(new Deadband(SETPOINT, DEADBAND),
+            new PidController(Kp, Ki, Kd, SETPOINT), new MovingAverageFilter(NUM_SAMPLES));
+        DoublePipeline doublePipeline = new DoublePipeline(new Deadband(SETPOINT, DEADBAND),
+            new PidController(Kp, Ki, Kd, SETPOINT), new MovingAverageFilter(NUM_SAMPLES));
+        assertEquals(3, doublePipeline.getNumFilters());
+
+        Random rand = new Random(0);
+        double timestamp = 0.0;
+        for (int i = 0; i < 200; i++) {
+            if (i == 100) {
+                pipeline.reset();
+                pipeline.changeSetpoint(2.0);
+                doublePipeline.reset();
+                doublePipeline.changeSetpoint(2.0);
+            }
+            timestamp += 0.05 + rand.nextDouble() * 0.1;
+            double value = rand.nextDouble() * 3.0;
+            Optional<Signal<Double>> expected = pipeline.apply(new Signal<>(value, timestamp));
+            assertTrue(expected.isPresent());
+            assertEquals(expected.get().getData(), doublePipeline.applyAsDouble(value, timestamp), EPSILON);
+        }
+    }
+
+    @Test
+    public void testCompose() {
+        DoublePipeline pipeline = new DoublePipeline();
+        assertEquals(5.0, pipeline.applyAsDouble(5.0, 0.0), EPSILON);
+
+        pipeline.compose(new MovingAverageFilter(2));
+        pipeline.compose(0, new Deadband(1.0, 0.5));
+        assertEquals(2, pipeline.getNumFilters());
+
+        // Deadband is applied before the moving average
+        assertEquals(1.0, pipeline.applyAsDouble(1.2, 0.0), EPSILON);
+        assertEquals(2.0, pipeline.applyAsDouble(3.0, 1.0), EPSILON);
+
+        // Deadband setpoints are only changed through adjustSetPoint
+        pipeline.changeSetpoints(3.0);
+        assertEquals(3.1, pipeline.applyAsDouble(3.2, 2.0), EPSILON);
+    }
+
+    private static final double SETPOINT = 1.0;
+    private static final double DEADBAND = 0.1;
+    private static final double Kp = 1.0;
+    private static final double Ki = 0.01;
+    private static final double Kd = 0.001;
+    private static final int NUM_SAMPLES = 4;
+    private static final double EPSILON = 0.000000001;
+}
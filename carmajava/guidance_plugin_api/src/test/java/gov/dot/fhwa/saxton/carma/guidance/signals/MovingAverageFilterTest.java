@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.signals;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MovingAverageFilterTest {
+
+    @Test
+    public void testAverageOverWindow() {
+        MovingAverageFilter filter = new MovingAverageFilter(3);
+
+        // Average over the samples received until the window is full
+        assertEquals(3.0, filter.applyAsDouble(3.0, 0.0), EPSILON);
+        assertEquals(2.0, filter.applyAsDouble(1.0, 1.0), EPSILON);
+        assertEquals(3.0, filter.applyAsDouble(5.0, 2.0), EPSILON);
+        // Oldest samples are dropped once the window is full
+        assertEquals(4.0, filter.applyAsDouble(6.0, 3.0), EPSILON);
+        assertEquals(5.0, filter.applyAsDouble(4.0, 4.0), EPSILON);
+        assertEquals(4.0, filter.apply(new Signal<>(2.0, 5.0)).get().getData(), EPSILON);
+
+        filter.reset();
+        assertEquals(7.0, filter.applyAsDouble(7.0, 6.0), EPSILON);
+        assertEquals(8.0, filter.applyAsDouble(9.0, 7.0), EPSILON);
+    }
+
+    @Test
+    public void testSingleSample() {
+        MovingAverageFilter filter = new MovingAverageFilter(1);
+        assertEquals(1.0, filter.applyAsDouble(1.0, 0.0), EPSILON);
+        assertEquals(-2.0, filter.applyAsDouble(-2.0, 1.0), EPSILON);
+
+        // Windows smaller than one sample pass the signal through
+        filter = new MovingAverageFilter(0);
+        assertEquals(4.0, filter.applyAsDouble(4.0, 0.0), EPSILON);
+        assertEquals(5.0, filter.applyAsDouble(5.0, 1.0), EPSILON);
+    }
+
+    private static final double EPSILON = 0.000001;
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.trajectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.IManeuver;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LateralManeuver;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LongitudinalManeuver;
+import gov.dot.fhwa.saxton.carma.guidance.maneuvers.ManeuverType;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+/**
+ * Compares maneuver lookups on a frozen trajectory against lookups on the interval trees
+ * <p>
+ * The trajectory executor looks up the active and next maneuvers every loop, so the lookup cost is measured
+ * by sweeping the full trajectory in small steps as execution would.
+ * Ignored in CI as the results depend on the machine it is run on.
+ */
+@Ignore("Ignore benchmark in CI system")
+public class TrajectoryBenchmark {
+
+  private static final int NUM_MANEUVERS = 200;
+  private static final double MANEUVER_LENGTH = 10.0; // m
+  private static final double STEP = 0.5; // m
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int MEASURED_ITERATIONS = 10;
+
+  private Trajectory planned;
+
+  @Before
+  public void setup() {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class, Mockito.withSettings().stubOnly());
+    ILogger mockLogger = mock(ILogger.class, Mockito.withSettings().stubOnly());
+    when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+
+    // Plan the trajectory as plugins do, by finding a window then filling it
+    planned = new Trajectory(0, NUM_MANEUVERS * MANEUVER_LENGTH);
+    for (int i = 0; i < NUM_MANEUVERS; i++) {
+      double lonStart = planned.findEarliestLongitudinalWindowOfSize(MANEUVER_LENGTH);
+      planned.addManeuver(newLongitudinalManeuver(lonStart, lonStart + MANEUVER_LENGTH));
+      double latStart = planned.findEarliestLateralWindowOfSize(MANEUVER_LENGTH);
+      planned.addManeuver(newLateralManeuver(latStart, latStart + MANEUVER_LENGTH));
+    }
+  }
+
+  @Test
+  public void benchmarkExecutionLookups() {
+    Trajectory unfrozen = new Trajectory(planned);
+    Trajectory frozen = new Trajectory(planned);
+    frozen.freeze();
+
+    // Both trajectories must give the same answers for the comparison to be fair
+    assertEquals(sweep(unfrozen), sweep(frozen));
+
+    double treeMs = meanSweepTimeMs(unfrozen);
+    double frozenMs = meanSweepTimeMs(frozen);
+    System.out.println(String.format("Sweep of %d maneuvers in %.1f m steps. Tree: %.3f ms Frozen: %.3f ms Speedup: %.1fx",
+      2 * NUM_MANEUVERS, STEP, treeMs, frozenMs, treeMs / frozenMs));
+  }
+
+  @Test
+  public void benchmarkCopyAndFreeze() {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      new Trajectory(planned).freeze();
+    }
+    long startTime = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      new Trajectory(planned);
+    }
+    double copyMs = (System.nanoTime() - startTime) / 1e6 / MEASURED_ITERATIONS;
+
+    startTime = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      new Trajectory(planned).freeze();
+    }
+    double copyAndFreezeMs = (System.nanoTime() - startTime) / 1e6 / MEASURED_ITERATIONS;
+    System.out.println(String.format("Copy of %d maneuvers: %.3f ms Copy and freeze: %.3f ms",
+      2 * NUM_MANEUVERS, copyMs, copyAndFreezeMs));
+  }
+
+  private double meanSweepTimeMs(Trajectory traj) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sweep(traj);
+    }
+    long startTime = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      sweep(traj);
+    }
+    return (System.nanoTime() - startTime) / 1e6 / MEASURED_ITERATIONS;
+  }
+
+  /**
+   * Performs the lookups of one executor loop at each step along the trajectory
+   *
+   * @return A checksum of the maneuvers found
+   */
+  private long sweep(Trajectory traj) {
+    long checksum = 0;
+    double end = traj.getEndLocation();
+    for (double loc = traj.getStartLocation(); loc < end; loc += STEP) {
+      checksum = checksum * 31 + identity(traj.getManeuverAt(loc, ManeuverType.LONGITUDINAL));
+      checksum = checksum * 31 + identity(traj.getManeuverAt(loc, ManeuverType.LATERAL));
+      checksum = checksum * 31 + identity(traj.getNextManeuverAfter(loc, ManeuverType.LONGITUDINAL));
+      checksum = checksum * 31 + identity(traj.getNextManeuverAfter(loc, ManeuverType.LATERAL));
+    }
+    return checksum;
+  }
+
+  private int identity(IManeuver maneuver) {
+    return System.identityHashCode(maneuver);
+  }
+
+  private LongitudinalManeuver newLongitudinalManeuver(double start, double end) {
+    LongitudinalManeuver mvr = mock(LongitudinalManeuver.class, Mockito.withSettings().stubOnly());
+    when(mvr.getStartDistance()).thenReturn(start);
+    when(mvr.getEndDistance()).thenReturn(end);
+    return mvr;
+  }
+
+  private LateralManeuver newLateralManeuver(double start, double end) {
+    LateralManeuver mvr = mock(LateralManeuver.class, Mockito.withSettings().stubOnly());
+    when(mvr.getStartDistance()).thenReturn(start);
+    when(mvr.getEndDistance()).thenReturn(end);
+    return mvr;
+  }
+}
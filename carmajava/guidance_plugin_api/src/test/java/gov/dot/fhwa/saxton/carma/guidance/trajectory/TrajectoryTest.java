@@ -398,5 +398,56 @@ public class TrajectoryTest {
     assertFalse(res);
   }
 
+  @Test
+  public void testFrozenLookupsMatchTree() {
+    for (int i = 0; i < 10; i++) {
+      traj.addManeuver(createLongitudinalManeuver(i * 2, i * 2 + 1));
+      traj.addManeuver(createLateralManeuver(i * 2 + 1, i * 2 + 2));
+    }
+    Trajectory frozen = new Trajectory(traj);
+    frozen.freeze();
+    assertTrue(frozen.isFrozen());
+    assertFalse(traj.isFrozen());
+
+    for (double loc = -1.0; loc < 20.0; loc += 0.25) {
+      assertEquals(traj.getManeuversAt(loc), frozen.getManeuversAt(loc));
+      for (ManeuverType type : new ManeuverType[] { ManeuverType.LATERAL, ManeuverType.LONGITUDINAL }) {
+        assertEquals(traj.getManeuverAt(loc, type), frozen.getManeuverAt(loc, type));
+        assertEquals(traj.getNextManeuverAfter(loc, type), frozen.getNextManeuverAfter(loc, type));
+      }
+    }
+    assertEquals(traj.getLateralManeuvers(), frozen.getLateralManeuvers());
+    assertEquals(traj.getLongitudinalManeuvers(), frozen.getLongitudinalManeuvers());
+    assertEquals(traj.getManeuvers(), frozen.getManeuvers());
+    assertEquals(traj.findEarliestLongitudinalWindowOfSize(1.0), frozen.findEarliestLongitudinalWindowOfSize(1.0), 0.0);
+    assertEquals(traj.findLatestLateralWindowOfSize(1.0), frozen.findLatestLateralWindowOfSize(1.0), 0.0);
+  }
+
+  @Test
+  public void testAddManeuverThawsTrajectory() {
+    traj.addManeuver(createLongitudinalManeuver(0, 5));
+    traj.freeze();
+    assertTrue(traj.isFrozen());
+
+    // Rejected maneuvers leave the trajectory frozen
+    assertFalse(traj.addManeuver(createLongitudinalManeuver(4, 6)));
+    assertTrue(traj.isFrozen());
+
+    LongitudinalManeuver m = createLongitudinalManeuver(5, 10);
+    assertTrue(traj.addManeuver(m));
+    assertFalse(traj.isFrozen());
+    assertEquals(m, traj.getManeuverAt(7, ManeuverType.LONGITUDINAL));
+  }
+
+  @Test
+  public void testFreezeWithEmptyManeuvers() {
+    traj.addManeuver(createLongitudinalManeuver(0, 0));
+    traj.addManeuver(createLongitudinalManeuver(5, 10));
+    traj.freeze();
+
+    // Empty maneuvers can't be indexed so lookups stay on the tree
+    assertFalse(traj.isFrozen());
+  }
+
   protected Trajectory traj;
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PathDiagnosticsBufferTest {
+
+  private List<RoutePointStamped> makePath(int numPoints, double offset) {
+    List<RoutePointStamped> path = new ArrayList<>();
+    for (int i = 0; i < numPoints; i++) {
+      path.add(new RoutePointStamped(offset + i, 0.5, 10.0 + i, 2, i));
+    }
+    return path;
+  }
+
+  @Test
+  public void testRecordAndDump() {
+    PathDiagnosticsBuffer buffer = new PathDiagnosticsBuffer(4, 10);
+    assertEquals(0, buffer.size());
+    assertEquals("", buffer.dump());
+
+    buffer.record("MobilityPath", "plan1", makePath(2, 100.0));
+    assertEquals(1, buffer.size());
+    String dump = buffer.dump();
+    assertTrue(dump.startsWith("MobilityPath plan1 recorded at "));
+    assertTrue(dump.contains("with 2 points"));
+    assertTrue(dump.contains("100.0, 0.5, 10.0, 2, 0.0\n"));
+    assertTrue(dump.contains("101.0, 0.5, 11.0, 2, 1.0\n"));
+  }
+
+  @Test
+  public void testOverwritesOldest() {
+    PathDiagnosticsBuffer buffer = new PathDiagnosticsBuffer(2, 10);
+    buffer.record("A", "plan1", makePath(1, 1.0));
+    buffer.record("B", "plan2", makePath(1, 2.0));
+    buffer.record("C", "plan3", makePath(1, 3.0));
+
+    assertEquals(2, buffer.size());
+    String dump = buffer.dump();
+    assertFalse(dump.contains("plan1"));
+    // Oldest first
+    assertTrue(dump.indexOf("plan2") < dump.indexOf("plan3"));
+
+    assertEquals("", buffer.dump("plan1"));
+    assertTrue(buffer.dump("plan3").startsWith("C plan3"));
+
+    buffer.clear();
+    assertEquals(0, buffer.size());
+    assertEquals("", buffer.dump());
+  }
+
+  @Test
+  public void testDumpLatestAndTruncation() {
+    PathDiagnosticsBuffer buffer = new PathDiagnosticsBuffer(4, 3);
+    buffer.record("HostPath", "host", makePath(1, 1.0));
+    buffer.record("MobilityPath", "plan1", makePath(1, 2.0));
+    buffer.record("HostPath", "host", makePath(5, 50.0));
+
+    String latest = buffer.dumpLatest("host");
+    assertTrue(latest.contains("with 5 points"));
+    assertTrue(latest.contains("52.0, 0.5, 12.0, 2, 2.0\n"));
+    assertFalse(latest.contains("53.0"));
+    assertTrue(latest.contains("... truncated 2 points"));
+    assertFalse(latest.contains("1.0, 0.5, 10.0"));
+    assertEquals("", buffer.dumpLatest("unknown"));
+  }
+}
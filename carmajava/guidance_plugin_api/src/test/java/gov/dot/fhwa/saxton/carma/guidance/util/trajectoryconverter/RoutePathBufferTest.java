@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter;
+
+import org.junit.Test;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoutePathBufferTest {
+
+  @Test
+  public void testAddAndRemove() {
+    RoutePathBuffer path = new RoutePathBuffer(2);
+    assertTrue(path.isEmpty());
+    for (int i = 0; i < 5; i++) {
+      path.add(i, 0.5 * i, 10.0 + i, i / 2, i % 2);
+    }
+    // Buffer grows past the initial capacity
+    assertEquals(5, path.size());
+    assertTrue(path.capacity() >= 5);
+    assertEquals(3.0, path.getDowntrack(3), 0.0001);
+    assertEquals(1.5, path.getCrosstrack(3), 0.0001);
+    assertEquals(13.0, path.getStamp(3), 0.0001);
+    assertEquals(1, path.getSegmentIdx(3));
+    assertEquals(1.0, path.getSegDowntrack(3), 0.0001);
+
+    path.remove(1);
+    assertEquals(4, path.size());
+    assertEquals(0.0, path.getDowntrack(0), 0.0001);
+    assertEquals(2.0, path.getDowntrack(1), 0.0001);
+    assertEquals(4.0, path.getDowntrack(3), 0.0001);
+    path.remove(3);
+    assertEquals(3, path.size());
+
+    path.setCrosstrack(0, -1.0);
+    assertEquals(-1.0, path.getCrosstrack(0), 0.0001);
+
+    try {
+      path.getDowntrack(3);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      // Expected
+    }
+
+    int capacity = path.capacity();
+    path.clear();
+    assertTrue(path.isEmpty());
+    assertEquals(capacity, path.capacity());
+  }
+
+  @Test
+  public void testToList() {
+    RoutePathBuffer path = new RoutePathBuffer(10);
+    path.add(1.0, 2.0, 3.0, 4, 5.0);
+    path.add(6.0, 7.0, 8.0, 9, 10.0);
+
+    List<RoutePointStamped> points = path.toList();
+    assertEquals(2, points.size());
+    assertEquals(6.0, points.get(1).getDowntrack(), 0.0001);
+    assertEquals(7.0, points.get(1).getCrosstrack(), 0.0001);
+    assertEquals(8.0, points.get(1).getStamp(), 0.0001);
+    assertEquals(9, points.get(1).getSegmentIdx());
+    assertEquals(10.0, points.get(1).getSegDowntrack(), 0.0001);
+
+    // Points are copies so the buffer can be reused
+    path.clear();
+    path.add(0.0, 0.0, 0.0, 0, 0.0);
+    assertEquals(1.0, points.get(0).getDowntrack(), 0.0001);
+    assertEquals(0.0, path.getPoint(0).getDowntrack(), 0.0001);
+  }
+}
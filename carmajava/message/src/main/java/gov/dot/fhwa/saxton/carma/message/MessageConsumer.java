@@ -18,10 +18,13 @@ package gov.dot.fhwa.saxton.carma.message;
 
 
 import cav_srvs.*;
-import gov.dot.fhwa.saxton.carma.message.factory.DSRCMessageFactory;
+import gov.dot.fhwa.saxton.carma.message.MessageLane.OverflowPolicy;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
 import gov.dot.fhwa.saxton.carma.message.factory.IMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageCodecContext;
 import gov.dot.fhwa.saxton.carma.message.factory.MessageContainer;
-import gov.dot.fhwa.saxton.carma.message.helper.MessageStatistic;
+import gov.dot.fhwa.saxton.carma.message.helper.MessageMetrics;
+import gov.dot.fhwa.saxton.carma.message.helper.MessageTypeMetrics;
 import gov.dot.fhwa.saxton.carma.rosutils.AlertSeverity;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonBaseNode;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
@@ -29,15 +32,21 @@ import gov.dot.fhwa.saxton.carma.rosutils.RosServiceSynchronizer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
 
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.ros.internal.message.Message;
 import org.ros.message.MessageListener;
+import org.ros.message.Time;
+import org.ros.node.Node;
 import org.ros.node.parameter.ParameterTree;
 import org.ros.node.topic.Subscriber;
 
 import cav_msgs.ByteArray;
+import cav_msgs.MobilityHeader;
 import cav_msgs.MobilityOperation;
 import cav_msgs.MobilityPath;
 import cav_msgs.MobilityRequest;
@@ -104,11 +113,15 @@ public class MessageConsumer extends SaxtonBaseNode {
 	// Connected Node
 	protected ConnectedNode connectedNode_ = null;
 	
-	// Recoding message frequency
-	protected MessageStatistic messageCounters = null;
+	// Recording message rates, codec latency and message age for each message type
+	protected final MessageMetrics metrics_ = new MessageMetrics();
 	
-	// Messages to be encoded
-	protected BlockingQueue<MessageContainer> dsrcMessageQueue = new LinkedBlockingQueue<>();
+	// Each message type is queued and processed in its own lane so that a burst of one type cannot delay the others
+	protected final Map<String, MessageLane<MessageContainer>> outboundLanes_ = new HashMap<>(); // messages to be encoded
+	protected final Map<String, MessageLane<ByteArray>> inboundLanes_ = new HashMap<>(); // messages to be decoded
+	protected static final List<String> OUTBOUND_TYPES = Arrays.asList("BSM", "MobilityRequest", "MobilityPath", "MobilityResponse", "MobilityOperation");
+	protected static final List<String> INBOUND_TYPES = Arrays.asList("BSM", "MobilityRequest", "MobilityPath", "MobilityResponse", "MobilityOperation", "MAP", "SPAT");
+	protected static final long REPORT_PERIOD_MS = 5000;
 
 	// Configure parameters
     protected boolean publishOutboundBsm_ = true;
@@ -116,6 +129,12 @@ public class MessageConsumer extends SaxtonBaseNode {
     protected boolean publishOutboundMobilityPath_ = true;
     protected boolean publishOutboundMobilityResponse_ = true;
     protected boolean publishOutboundMobilityOperation_ = true;
+    protected int laneCapacity_ = 100;
+    protected int laneWorkers_ = 1;
+    protected int bsmLaneCapacity_ = 500;
+    protected int bsmLaneWorkers_ = 1;
+    protected OverflowPolicy laneOverflowPolicy_ = OverflowPolicy.DROP_OLDEST;
+    protected OverflowPolicy bsmLaneOverflowPolicy_ = OverflowPolicy.DROP_OLDEST;
     
 	@Override
 	public GraphName getDefaultNodeName() {
@@ -137,15 +156,22 @@ public class MessageConsumer extends SaxtonBaseNode {
             publishOutboundMobilityPath_ = param.getBoolean("~/publish_outbound_mobility_path", true);
             publishOutboundMobilityResponse_ = param.getBoolean("~/publish_outbound_mobility_response", true);
             publishOutboundMobilityOperation_ = param.getBoolean("~/publish_outbound_mobility_operation", true);
+            laneCapacity_ = param.getInteger("~/lane_capacity", 100);
+            laneWorkers_ = param.getInteger("~/lane_workers", 1);
+            bsmLaneCapacity_ = param.getInteger("~/bsm_lane_capacity", 500);
+            bsmLaneWorkers_ = param.getInteger("~/bsm_lane_workers", 1);
+            laneOverflowPolicy_ = OverflowPolicy.valueOf(param.getString("~/lane_overflow_policy", "DROP_OLDEST"));
+            bsmLaneOverflowPolicy_ = OverflowPolicy.valueOf(param.getString("~/bsm_lane_overflow_policy", "DROP_OLDEST"));
         }catch (Exception e) {
             log_.warn("STARTUP", "Error reading Message parameters. Using defaults.");
         }
         log_.debug("Read params to publish outbound: BSM = " + publishOutboundBsm_ + ", REQUEST = " + publishOutboundMobilityRequest_);
         log_.debug("Read params to publish outbound: PATH = " + publishOutboundMobilityPath_ + ", RESPONSE = " + publishOutboundMobilityResponse_);
         log_.debug("Read params to publish outbound: OPERATION = " + publishOutboundMobilityOperation_);
+        log_.debug("Read params for lanes: capacity = " + laneCapacity_ + ", workers = " + laneWorkers_ +
+                   ", overflow = " + laneOverflowPolicy_ + ", BSM capacity = " + bsmLaneCapacity_ +
+                   ", BSM workers = " + bsmLaneWorkers_ + ", BSM overflow = " + bsmLaneOverflowPolicy_);
 
-        //initialize message statistic
-		messageCounters = new MessageStatistic(connectedNode_, log_);
 		
 		//initialize alert sub, pub
 		alertSub_ = this.connectedNode_.newSubscriber("system_alert", SystemAlert._TYPE);
@@ -235,14 +261,10 @@ public class MessageConsumer extends SaxtonBaseNode {
 		    handleException(new RosRuntimeException("Cannot initialize necessary publishers."));
 		}
 		
-		//register new message counters
-		messageCounters.registerEntry("BSM");
-		messageCounters.registerEntry("MobilityRequest");
-		messageCounters.registerEntry("MobilityPath");
-		messageCounters.registerEntry("MobilityResponse");
-		messageCounters.registerEntry("MobilityOperation");
-		messageCounters.registerEntry("MAP");
-		messageCounters.registerEntry("SPAT");
+		//create a metrics recorder for each message type so all types are reported
+		for(String type : INBOUND_TYPES) {
+		    metrics_.get(type);
+		}
 		
 		//initialize Subs
 		bsmSub_ = connectedNode_.newSubscriber("outgoing_j2735_bsm", BSM._TYPE);
@@ -256,86 +278,333 @@ public class MessageConsumer extends SaxtonBaseNode {
 		    log_.error("Cannot initialize necessary subscribers.");
 		    handleException(new RosRuntimeException("Cannot initialize necessary subscribers."));
 		}
-        bsmSub_.addMessageListener((bsm) -> dsrcMessageQueue.add(new MessageContainer("BSM", bsm)));
-        mobilityReqSub_.addMessageListener((req) -> dsrcMessageQueue.add(new MessageContainer("MobilityRequest", req)));
-        mobilityPathSub_.addMessageListener((path) -> dsrcMessageQueue.add(new MessageContainer("MobilityPath", path)));
-        mobilityResponseSub_.addMessageListener((response) -> dsrcMessageQueue.add(new MessageContainer("MobilityResponse", response)));
-        mobilityOperationSub_.addMessageListener((op) -> dsrcMessageQueue.add(new MessageContainer("MobilityOperation", op)));
-        inboundSub_.addMessageListener((msg) -> {
-		    messageCounters.onMessageReceiving(msg.getMessageType());
-		    IMessage<?> message = DSRCMessageFactory.getMessage(msg.getMessageType(), connectedNode_, log_, connectedNode_.getTopicMessageFactory());
-		    if(message != null) {
-		        MessageContainer decodedMessage = message.decode(msg);
-	            if(decodedMessage.getMessage() != null) {
-	                switch (decodedMessage.getType()) {
-	                case "BSM":
-	                    bsmPub_.publish((BSM) decodedMessage.getMessage());
-	                    break;
-	                case "MobilityRequest":
-	                    mobilityReqPub_.publish((MobilityRequest) decodedMessage.getMessage());
-	                    log_.debug("V2V", "Received & decoded MobilityRequest, plan ID = " +
-	                                ((MobilityRequest) decodedMessage.getMessage()).getHeader().getPlanId());
-	                    break;
-	                case "MobilityPath":
-	                    mobilityPathPub_.publish((MobilityPath) decodedMessage.getMessage());
-	                    log_.debug("V2V", "Received & decoded MobilityPath, plan ID = " +
-	                                ((MobilityPath) decodedMessage.getMessage()).getHeader().getPlanId());
-	                    break;
-	                case "MobilityResponse":
-	                    mobilityResponsePub_.publish((MobilityResponse) decodedMessage.getMessage());
-	                    log_.debug("V2V", "Received & decoded MobilityResponse, plan ID = " +
-								((MobilityResponse) decodedMessage.getMessage()).getHeader().getPlanId());
-						break;
-	                case "MobilityOperation":
-	                    mobilityOperationPub_.publish((MobilityOperation) decodedMessage.getMessage());
-	                    log_.debug("V2V", "Received & decoded MobilityOperation, plan ID = " +
-								((MobilityOperation) decodedMessage.getMessage()).getHeader().getPlanId());
-						break;
-	                case "MAP":
-	                    MapData map = (MapData) decodedMessage.getMessage();
-	                    map.getHeader().setStamp(connectedNode_.getCurrentTime());
-	                    mapPub_.publish(map);
-                            break;
-	                case "SPAT":
-	                    spatPub_.publish((SPAT) decodedMessage.getMessage());
-                            break;
-	                default:
-	                    log_.warn("Cannot find correct publisher for " + decodedMessage.getType());
-	                }
-	            }
-		    }
-		});
+		
+		startLanes();
+		
+        bsmSub_.addMessageListener((bsm) -> outboundLanes_.get("BSM").offer(new MessageContainer("BSM", bsm)));
+        mobilityReqSub_.addMessageListener((req) -> outboundLanes_.get("MobilityRequest").offer(new MessageContainer("MobilityRequest", req)));
+        mobilityPathSub_.addMessageListener((path) -> outboundLanes_.get("MobilityPath").offer(new MessageContainer("MobilityPath", path)));
+        mobilityResponseSub_.addMessageListener((response) -> outboundLanes_.get("MobilityResponse").offer(new MessageContainer("MobilityResponse", response)));
+        mobilityOperationSub_.addMessageListener((op) -> outboundLanes_.get("MobilityOperation").offer(new MessageContainer("MobilityOperation", op)));
+        inboundSub_.addMessageListener(this::onInboundMessage);
 		
 		// This CancellableLoop will be canceled automatically when the node shuts down.
 		connectedNode_.executeCancellableLoop(new CancellableLoop() {
+		    private final Map<String, MessageTypeMetrics.Snapshot> previousSnapshots = new HashMap<>();
+		    
 			@Override
 			protected void loop() throws InterruptedException {
-			    MessageContainer outgoingMessage = dsrcMessageQueue.take();
-			    String mtype = outgoingMessage.getType();
-			    if((mtype.equals("BSM")             && publishOutboundBsm_) ||
-				   (mtype.equals("MobilityRequest") && publishOutboundMobilityRequest_) ||
-				   (mtype.equals("MobilityPath") && publishOutboundMobilityPath_) ||
-				   (mtype.equals("MobilityResponse") && publishOutboundMobilityResponse_) ||
-				   (mtype.equals("MobilityOperation") && publishOutboundMobilityOperation_)) {
-			        IMessage<?> message = DSRCMessageFactory.getMessage(outgoingMessage.getType(), connectedNode_, log_, connectedNode_.getTopicMessageFactory());
-                    if(message != null) {
-                        log_.debug("Found message factory on type " + outgoingMessage.getType());
-                        MessageContainer encodedMessage = message.encode(outgoingMessage.getMessage());
-                        if(encodedMessage.getMessage() != null) {
-                            log_.debug("We encode " + outgoingMessage.getType());
-                            messageCounters.onMessageSending(((ByteArray) encodedMessage.getMessage()).getMessageType());
-                            outboundPub_.publish((ByteArray) encodedMessage.getMessage());
-                        } else {
-                            log_.warn("We failed to encode " + outgoingMessage.getType());
-                        }
-                    }
-			        
+			    // Report message and lane metrics so that slow or overloaded message types can be seen in the log
+			    Thread.sleep(REPORT_PERIOD_MS);
+			    for(MessageTypeMetrics.Snapshot snapshot : metrics_.snapshot()) {
+			        log_.info(snapshot.getMessageType(), snapshot.describeSince(previousSnapshots.get(snapshot.getMessageType())));
+			        previousSnapshots.put(snapshot.getMessageType(), snapshot);
+			    }
+			    for(MessageLane<?> lane : outboundLanes_.values()) {
+			        logLane(lane);
+			    }
+			    for(MessageLane<?> lane : inboundLanes_.values()) {
+			        logLane(lane);
 			    }
 			}
 		});
 		
 	}
 	
+	/**
+	 * Creates and starts the outbound and inbound lanes of every message type.
+	 * Each worker has its own codecs since they are not thread safe
+	 */
+	protected void startLanes() {
+	    MessageLane.IKeyExtractor<MessageContainer> outboundBsmKeys = (c) -> outboundBsmKey((BSM) c.getMessage());
+	    MessageLane.IKeyExtractor<ByteArray> inboundBsmKeys = MessageConsumer::inboundBsmKey;
+	    for(String type : OUTBOUND_TYPES) {
+	        outboundLanes_.put(type, newLane("Outbound" + type, type,
+	            type.equals("BSM") ? outboundBsmKeys : null,
+	            () -> {
+	                MessageCodecContext codecs = newCodecContext();
+	                return (List<MessageContainer> batch) -> encodeAndPublish(batch, codecs);
+	            }));
+	    }
+	    for(String type : INBOUND_TYPES) {
+	        inboundLanes_.put(type, newLane("Inbound" + type, type,
+	            type.equals("BSM") ? inboundBsmKeys : null,
+	            () -> {
+	                MessageCodecContext codecs = newCodecContext();
+	                return (List<ByteArray> batch) -> decodeAndPublish(batch, codecs);
+	            }));
+	    }
+	    for(MessageLane<?> lane : outboundLanes_.values()) {
+	        lane.start();
+	    }
+	    for(MessageLane<?> lane : inboundLanes_.values()) {
+	        lane.start();
+	    }
+	}
+	
+	/**
+	 * Queues a received binary message in the inbound lane of its type
+	 */
+	protected void onInboundMessage(ByteArray msg) {
+	    MessageLane<ByteArray> lane = inboundLanes_.get(msg.getMessageType());
+	    if(lane != null) {
+	        metrics_.get(msg.getMessageType()).onMessageReceiving(msg.getContent().capacity());
+	        lane.offer(msg);
+	    } else {
+	        log_.warn("Cannot find the right message lane for " + msg.getMessageType());
+	    }
+	}
+	
+	/**
+	 * Creates a lane for one message type. BSM lanes keep only the latest message from each sender.
+	 * BSM lanes and the other lanes each have their own capacity, workers and overflow policy.
+	 */
+	protected <T> MessageLane<T> newLane(String name, String type, MessageLane.IKeyExtractor<T> keyExtractor,
+	                                     MessageLane.IHandlerFactory<T> handlerFactory) {
+	    boolean isBsm = type.equals("BSM");
+	    return new MessageLane<>(name, isBsm ? bsmLaneCapacity_ : laneCapacity_, isBsm ? bsmLaneWorkers_ : laneWorkers_,
+	        isBsm ? bsmLaneOverflowPolicy_ : laneOverflowPolicy_, keyExtractor, handlerFactory);
+	}
+	
+	protected MessageCodecContext newCodecContext() {
+	    return new MessageCodecContext(connectedNode_, log_, connectedNode_.getTopicMessageFactory());
+	}
+	
+	/**
+	 * @return The temporary id of the BSM as hex, used to coalesce outgoing BSMs from the same sender
+	 */
+	protected static Object outboundBsmKey(BSM bsm) {
+	    return ChannelBuffers.hexDump(bsm.getCoreData().getId());
+	}
+	
+	/**
+	 * @return The temporary id read from the encoded BSM, used to coalesce incoming BSMs from the same sender.
+	 * Null if no id could be read, so the BSM is never coalesced
+	 */
+	protected static Object inboundBsmKey(ByteArray msg) {
+	    long id = BSMMessage.peekTemporaryId(msg.getContent());
+	    return id == -1 ? null : Long.valueOf(id);
+	}
+	
+	private void logLane(MessageLane<?> lane) {
+	    if(lane.getNumDropped() > 0 || lane.getNumFailed() > 0) {
+	        log_.warn(lane.getName(), lane.toString());
+	    } else {
+	        log_.debug(lane.getName(), lane.toString());
+	    }
+	}
+	
+	/**
+	 * Decodes incoming messages and publishes them on the topic of their type in order.
+	 * BSMs are decoded together with a single call into the asn1c library.
+	 * 
+	 * @param incomingMessages The binary messages received
+	 * @param codecs The codecs of the calling thread
+	 */
+	protected void decodeAndPublish(List<ByteArray> incomingMessages, MessageCodecContext codecs) {
+	    List<ByteArray> incomingBsms = new ArrayList<>();
+	    for(ByteArray msg : incomingMessages) {
+	        if(msg.getMessageType().equals("BSM")) {
+	            incomingBsms.add(msg);
+	        }
+	    }
+	    Iterator<MessageContainer> decodedBsms = null;
+	    if(!incomingBsms.isEmpty()) {
+	        long decodeStart = System.nanoTime();
+	        try {
+	            decodedBsms = codecs.getBSMCodec().decodeBatch(incomingBsms).iterator();
+	        } catch(RuntimeException e) {
+	            log_.warn("Failed to decode and publish " + incomingBsms.size() + " BSMs", e);
+	        }
+	        // The batch is decoded in one call so each BSM is given an equal share of the time
+	        long decodeNanos = (System.nanoTime() - decodeStart) / incomingBsms.size();
+	        MessageTypeMetrics bsmMetrics = metrics_.get("BSM");
+	        for(int i = 0; i < incomingBsms.size(); i++) {
+	            bsmMetrics.recordDecodeLatency(decodeNanos);
+	        }
+	    }
+	    
+	    for(ByteArray msg : incomingMessages) {
+	        try {
+	            if(!msg.getMessageType().equals("BSM")) {
+	                publish(msg, decode(msg, codecs));
+	            } else if(decodedBsms != null) {
+	                publish(msg, decodedBsms.next());
+	            }
+	        } catch(RuntimeException e) {
+	            log_.warn("Failed to decode and publish " + msg.getMessageType(), e);
+	        }
+	    }
+	}
+	
+	/**
+	 * @return The decoded message, or null if there is no codec for its type
+	 */
+	private MessageContainer decode(ByteArray msg, MessageCodecContext codecs) {
+	    IMessage<?> message = codecs.getCodec(msg.getMessageType());
+	    if(message == null) {
+	        return null;
+	    }
+	    long decodeStart = System.nanoTime();
+	    MessageContainer decodedMessage = message.decode(msg);
+	    metrics_.get(msg.getMessageType()).recordDecodeLatency(System.nanoTime() - decodeStart);
+	    return decodedMessage;
+	}
+	
+	/**
+	 * Publishes a decoded message on the topic of its type. Nothing is published if it could not be decoded
+	 */
+	private void publish(ByteArray msg, MessageContainer decodedMessage) {
+	    if(decodedMessage != null && decodedMessage.getMessage() != null) {
+	        // The header of the binary message is stamped by the driver when the message is received
+	        recordAge(metrics_.get(msg.getMessageType()), ageOf(msg.getHeader().getStamp()));
+	        switch (decodedMessage.getType()) {
+	        case "BSM":
+	            bsmPub_.publish((BSM) decodedMessage.getMessage());
+	            break;
+	        case "MobilityRequest":
+	            mobilityReqPub_.publish((MobilityRequest) decodedMessage.getMessage());
+	            log_.debug("V2V", "Received & decoded MobilityRequest, plan ID = " +
+	                        ((MobilityRequest) decodedMessage.getMessage()).getHeader().getPlanId());
+	            break;
+	        case "MobilityPath":
+	            mobilityPathPub_.publish((MobilityPath) decodedMessage.getMessage());
+	            log_.debug("V2V", "Received & decoded MobilityPath, plan ID = " +
+	                        ((MobilityPath) decodedMessage.getMessage()).getHeader().getPlanId());
+	            break;
+	        case "MobilityResponse":
+	            mobilityResponsePub_.publish((MobilityResponse) decodedMessage.getMessage());
+	            log_.debug("V2V", "Received & decoded MobilityResponse, plan ID = " +
+	                        ((MobilityResponse) decodedMessage.getMessage()).getHeader().getPlanId());
+	            break;
+	        case "MobilityOperation":
+	            mobilityOperationPub_.publish((MobilityOperation) decodedMessage.getMessage());
+	            log_.debug("V2V", "Received & decoded MobilityOperation, plan ID = " +
+	                        ((MobilityOperation) decodedMessage.getMessage()).getHeader().getPlanId());
+	            break;
+	        case "MAP":
+	            MapData map = (MapData) decodedMessage.getMessage();
+	            map.getHeader().setStamp(connectedNode_.getCurrentTime());
+	            mapPub_.publish(map);
+	            break;
+	        case "SPAT":
+	            spatPub_.publish((SPAT) decodedMessage.getMessage());
+	            break;
+	        default:
+	            log_.warn("Cannot find correct publisher for " + decodedMessage.getType());
+	        }
+	    }
+	}
+	
+	/**
+	 * Encodes and publishes outgoing messages in order. BSMs are encoded together
+	 * with a single call into the asn1c library.
+	 * 
+	 * @param outgoingMessages The plain messages to send
+	 * @param codecs The codecs of the calling thread
+	 */
+	protected void encodeAndPublish(List<MessageContainer> outgoingMessages, MessageCodecContext codecs) {
+	    List<Message> outgoingBsms = new ArrayList<>();
+	    for(MessageContainer outgoingMessage : outgoingMessages) {
+	        if(outgoingMessage.getType().equals("BSM") && publishOutboundBsm_) {
+	            outgoingBsms.add(outgoingMessage.getMessage());
+	        }
+	    }
+	    Iterator<MessageContainer> encodedBsms = null;
+	    if(!outgoingBsms.isEmpty()) {
+	        long encodeStart = System.nanoTime();
+	        encodedBsms = codecs.getBSMCodec().encodeBatch(outgoingBsms).iterator();
+	        // The batch is encoded in one call so each BSM is given an equal share of the time
+	        long encodeNanos = (System.nanoTime() - encodeStart) / outgoingBsms.size();
+	        MessageTypeMetrics bsmMetrics = metrics_.get("BSM");
+	        for(int i = 0; i < outgoingBsms.size(); i++) {
+	            bsmMetrics.recordEncodeLatency(encodeNanos);
+	        }
+	    }
+	    
+	    for(MessageContainer outgoingMessage : outgoingMessages) {
+	        String mtype = outgoingMessage.getType();
+	        MessageContainer encodedMessage = null;
+	        if(mtype.equals("BSM") && publishOutboundBsm_) {
+	            encodedMessage = encodedBsms.next();
+	        } else if((mtype.equals("MobilityRequest") && publishOutboundMobilityRequest_) ||
+	                  (mtype.equals("MobilityPath") && publishOutboundMobilityPath_) ||
+	                  (mtype.equals("MobilityResponse") && publishOutboundMobilityResponse_) ||
+	                  (mtype.equals("MobilityOperation") && publishOutboundMobilityOperation_)) {
+	            IMessage<?> message = codecs.getCodec(mtype);
+	            if(message != null) {
+	                log_.debug("Found message factory on type " + mtype);
+	                long encodeStart = System.nanoTime();
+	                encodedMessage = message.encode(outgoingMessage.getMessage());
+	                metrics_.get(mtype).recordEncodeLatency(System.nanoTime() - encodeStart);
+	            }
+	        }
+	        if(encodedMessage == null) {
+	            continue;
+	        }
+	        if(encodedMessage.getMessage() != null) {
+	            log_.debug("We encode " + mtype);
+	            ByteArray binaryMessage = (ByteArray) encodedMessage.getMessage();
+	            MessageTypeMetrics metrics = metrics_.get(mtype);
+	            metrics.onMessageSending(binaryMessage.getContent().capacity());
+	            recordAge(metrics, outgoingAge(outgoingMessage.getMessage()));
+	            outboundPub_.publish(binaryMessage);
+	        } else {
+	            log_.warn("We failed to encode " + mtype);
+	        }
+	    }
+	}
+	
+	/**
+	 * @return The age in ns of an outgoing plain message from its header timestamp, or -1 if it has none
+	 */
+	private long outgoingAge(Message plainMessage) {
+	    MobilityHeader header = null;
+	    if(plainMessage instanceof BSM) {
+	        return ageOf(((BSM) plainMessage).getHeader().getStamp());
+	    } else if(plainMessage instanceof MobilityRequest) {
+	        header = ((MobilityRequest) plainMessage).getHeader();
+	    } else if(plainMessage instanceof MobilityPath) {
+	        header = ((MobilityPath) plainMessage).getHeader();
+	    } else if(plainMessage instanceof MobilityResponse) {
+	        header = ((MobilityResponse) plainMessage).getHeader();
+	    } else if(plainMessage instanceof MobilityOperation) {
+	        header = ((MobilityOperation) plainMessage).getHeader();
+	    }
+	    if(header == null || header.getTimestamp() <= 0) {
+	        return -1;
+	    }
+	    // Mobility header timestamps are in ms since the epoch
+	    return (System.currentTimeMillis() - header.getTimestamp()) * 1000000L;
+	}
+	
+	/**
+	 * @return The time in ns since a ROS header stamp, or -1 if the stamp is not set
+	 */
+	private long ageOf(Time stamp) {
+	    if(stamp == null || stamp.isZero()) {
+	        return -1;
+	    }
+	    return connectedNode_.getCurrentTime().subtract(stamp).totalNsecs();
+	}
+	
+	private static void recordAge(MessageTypeMetrics metrics, long ageNanos) {
+	    if(ageNanos != -1) {
+	        metrics.recordAge(ageNanos);
+	    }
+	}
+	
+	@Override
+	public void onShutdown(Node node) {
+	    for(MessageLane<?> lane : outboundLanes_.values()) {
+	        lane.shutdown();
+	    }
+	    for(MessageLane<?> lane : inboundLanes_.values()) {
+	        lane.shutdown();
+	    }
+	    super.onShutdown(node);
+	}
+	
 	@Override
 	protected void handleException(Throwable e) {
 		String msg = "Uncaught exception in " + connectedNode_.getName() + " caught by handleException";
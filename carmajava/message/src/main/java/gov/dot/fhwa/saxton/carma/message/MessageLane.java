@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of messages of one type with its own worker threads
+ * <p>
+ * The MessageConsumer gives each message type its own lane so that a burst of one type, such as BSMs,
+ * cannot delay the processing of another type, such as MobilityRequests.
+ * <p>
+ * When the lane is full a new message either replaces the oldest queued message or is dropped,
+ * depending on the {@link OverflowPolicy}. If a key extractor is provided, a new message with the same
+ * key as a queued message replaces that message in place. This is used to keep only the latest BSM from each sender.
+ * <p>
+ * Each worker takes all queued messages at once and passes them to its own handler, so handlers may keep
+ * state which is not thread safe. Messages are handled in the order they were queued when there is one worker.
+ * <p>
+ * Every offered message is eventually counted exactly once as processed, failed, dropped or coalesced,
+ * unless it is still queued or the lane is shut down.
+ */
+public class MessageLane<T> {
+
+    /**
+     * What to do with a new message when the lane is full
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST, // Remove the oldest queued message to make room
+        DROP_NEWEST  // Drop the new message
+    }
+
+    /**
+     * Identifies messages which replace each other in the queue
+     */
+    @FunctionalInterface
+    public interface IKeyExtractor<T> {
+        /**
+         * @return The key of the message or null if the message should never replace another
+         */
+        Object getKey(T message);
+    }
+
+    /**
+     * Processes messages taken from the lane
+     */
+    @FunctionalInterface
+    public interface IBatchHandler<T> {
+        /**
+         * @param messages The messages taken from the lane, in queue order
+         */
+        void handle(List<T> messages);
+    }
+
+    /**
+     * Creates the handler used by one worker thread
+     */
+    @FunctionalInterface
+    public interface IHandlerFactory<T> {
+        IBatchHandler<T> newHandler();
+    }
+
+    // A queued message. The message is replaced in place when a newer one with the same key arrives
+    private static class Slot<T> {
+        T message;
+        final Object key;
+
+        Slot(T message, Object key) {
+            this.message = message;
+            this.key = key;
+        }
+    }
+
+    private final String name;
+    private final int capacity;
+    private final int numWorkers;
+    private final OverflowPolicy policy;
+    private final IKeyExtractor<T> keyExtractor;
+    private final IHandlerFactory<T> handlerFactory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<Slot<T>> queue;
+    private final Map<Object, Slot<T>> slotsByKey = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = false;
+
+    // Metrics
+    private final AtomicLong numOffered = new AtomicLong(0);
+    private final AtomicLong numProcessed = new AtomicLong(0);
+    private final AtomicLong numDropped = new AtomicLong(0);
+    private final AtomicLong numCoalesced = new AtomicLong(0);
+    private final AtomicLong numFailed = new AtomicLong(0);
+    private final AtomicLong maxQueueDepth = new AtomicLong(0);
+
+    /**
+     * Constructor
+     *
+     * @param name The name of the lane, used to name its worker threads
+     * @param capacity The maximum number of queued messages
+     * @param numWorkers The number of worker threads
+     * @param policy What to do with a new message when the lane is full
+     * @param keyExtractor Identifies messages which replace each other. May be null if messages are never replaced
+     * @param handlerFactory Creates the handler of each worker thread
+     */
+    public MessageLane(String name, int capacity, int numWorkers, OverflowPolicy policy,
+        IKeyExtractor<T> keyExtractor, IHandlerFactory<T> handlerFactory) {
+        if (capacity < 1 || numWorkers < 1) {
+            throw new IllegalArgumentException("MessageLane " + name + " needs a capacity and worker count of at least 1");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.numWorkers = numWorkers;
+        this.policy = policy;
+        this.keyExtractor = keyExtractor;
+        this.handlerFactory = handlerFactory;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Starts the worker threads which will run until {@link #shutdown()} is called
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            for (int i = 0; i < numWorkers; i++) {
+                final IBatchHandler<T> handler = handlerFactory.newHandler();
+                Thread worker = new Thread(() -> work(handler), "MessageLane-" + name + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the worker threads. Queued messages are discarded
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            queue.clear();
+            slotsByKey.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues a message for processing. Never blocks
+     *
+     * @param message The message to queue
+     *
+     * @return False if the message was dropped because the lane was full
+     */
+    public boolean offer(T message) {
+        numOffered.incrementAndGet();
+        Object key = keyExtractor != null ? keyExtractor.getKey(message) : null;
+        lock.lock();
+        try {
+            if (key != null) {
+                Slot<T> queued = slotsByKey.get(key);
+                if (queued != null) {
+                    queued.message = message;
+                    numCoalesced.incrementAndGet();
+                    return true;
+                }
+            }
+            if (queue.size() >= capacity) {
+                numDropped.incrementAndGet();
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    return false;
+                }
+                removeKey(queue.poll());
+            }
+            Slot<T> slot = new Slot<>(message, key);
+            queue.add(slot);
+            if (key != null) {
+                slotsByKey.put(key, slot);
+            }
+            maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work(IBatchHandler<T> handler) {
+        List<T> batch = new ArrayList<>();
+        while (running) {
+            batch.clear();
+            lock.lock();
+            try {
+                while (running && queue.isEmpty()) {
+                    notEmpty.await();
+                }
+                Slot<T> slot;
+                while ((slot = queue.poll()) != null) {
+                    removeKey(slot);
+                    batch.add(slot.message);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                handler.handle(batch);
+                numProcessed.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                // Keep the worker alive so the lane does not stall
+                numFailed.addAndGet(batch.size());
+            }
+        }
+    }
+
+    private void removeKey(Slot<T> slot) {
+        if (slot.key != null) {
+            slotsByKey.remove(slot.key);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of messages currently queued
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The largest number of messages which have been queued at once
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getNumOffered() {
+        return numOffered.get();
+    }
+
+    /**
+     * @return The number of messages whose batch was handled without an exception
+     */
+    public long getNumProcessed() {
+        return numProcessed.get();
+    }
+
+    /**
+     * @return The number of messages dropped because the lane was full
+     */
+    public long getNumDropped() {
+        return numDropped.get();
+    }
+
+    /**
+     * @return The number of queued messages replaced by a newer message with the same key
+     */
+    public long getNumCoalesced() {
+        return numCoalesced.get();
+    }
+
+    /**
+     * @return The number of messages whose batch handler threw an exception.
+     * The lane cannot tell how far the handler got, so every message of the batch is counted as failed
+     */
+    public long getNumFailed() {
+        return numFailed.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s lane: depth %d (max %d), offered %d, processed %d, dropped %d, coalesced %d, failed %d",
+            name, getQueueDepth(), getMaxQueueDepth(), getNumOffered(), getNumProcessed(), getNumDropped(),
+            getNumCoalesced(), getNumFailed());
+    }
+}
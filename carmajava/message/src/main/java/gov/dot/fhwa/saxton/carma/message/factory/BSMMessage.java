@@ -16,8 +16,11 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -26,6 +29,7 @@ import org.ros.message.MessageFactory;
 import org.ros.node.ConnectedNode;
 
 import j2735_msgs.BSM;
+import j2735_msgs.BSMCoreData;
 import cav_msgs.ByteArray;
 import gov.dot.fhwa.saxton.carma.message.helper.BSMMessageHelper;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
@@ -33,13 +37,45 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 /**
  * This class is the actual worker for encoding and decoding BSM message
  * by using J2735 compiler shared library.
+ * <p>
+ * Scratch buffers are reused between calls, so an instance should only be used by one thread.
+ * The batch methods encode or decode many BSMs with a single JNI call.
+ * Encoded BSMs are written straight into direct buffers, and single BSMs are decoded from them,
+ * when the native library supports it.
  */
 public class BSMMessage implements IMessage<BSM> {
 
+    /**
+     * The number of ints used to pass one BSM to or from the batch native methods. In order:
+     * msgCnt, id[4], secMark, lat, lon, elev, accuracy[3], transmission, speed, heading, angle,
+     * acceleration[4], brakes[6], vehicle_size[2]
+     */
+    public static final int BSM_FIELD_COUNT = 28;
+    // Must match the size of the encode buffer in the asn1c wrapper
+    public static final int MAX_ENCODED_BSM_SIZE = 128;
+
+    // False once the native library is found to be without the batch methods
+    private static volatile boolean batchSupported = true;
+    // False once the native library is found to be without the direct buffer methods
+    private static volatile boolean directSupported = true;
+    // Size of each direct chunk that encoded BSMs are written into
+    private static final int ENCODE_CHUNK_SIZE = 64 * 1024;
+
     protected ConnectedNode node_;
     protected SaxtonLogger log_;
     protected MessageFactory messageFactory_;
 
+    // Reusable scratch buffers
+    private final byte[] idScratch_ = new byte[4];
+    private final byte[] brakeStatusScratch_ = new byte[6];
+    private int[] batchFields_ = new int[0];
+    private int[] batchLengths_ = new int[0];
+    private int[] batchOffsets_ = new int[0];
+    private int[] batchResults_ = new int[0];
+    private byte[] batchBytes_ = new byte[0];
+    private final DirectBufferArena directBuffers_ = new DirectBufferArena(ENCODE_CHUNK_SIZE);
+    private boolean useDirectBuffers_ = true;
+
     public BSMMessage(ConnectedNode node, SaxtonLogger log, MessageFactory messageFactory) {
         this.node_ = node;
         this.log_ = log;
@@ -87,6 +123,62 @@ public class BSMMessage implements IMessage<BSM> {
 	 */
 	private native int decode_BSM(byte[] encoded_array, Object plain_msg, byte[] bsm_id, Object accuracy,
 			Object transmission, Object accelset, byte[] brakeStatus, Object size);
+
+	/**
+	 * This is the declaration for the direct buffer encode native method. It takes the same
+	 * fields as encode_BSM but writes the encoded BSM into a direct buffer instead of a new array.
+	 *
+	 * @param encoded Direct output buffer of at least MAX_ENCODED_BSM_SIZE bytes
+	 * @return -1 means encode failed; otherwise the number of bytes written to encoded
+	 */
+	private native int encode_BSM_direct(
+			int msgCnt, int[] id, int secMark, int lat, int lon, int elev, int[] accuracy,
+			int transmission, int speed, int heading, int angle, int[] acceleration,
+			int[] wheel_brakes, int[] vehicle_size, ByteBuffer encoded);
+
+	/**
+	 * This is the declaration for the direct buffer decode native method. It decodes the BSM
+	 * in place from a direct buffer and sets the same outputs as decode_BSM.
+	 *
+	 * @param encoded Direct buffer holding the encoded BSM at index 0
+	 * @param length The number of encoded bytes
+	 * @return -1 means decode failed; 0 means decode is successful
+	 */
+	private native int decode_BSM_direct(ByteBuffer encoded, int length, Object plain_msg, byte[] bsm_id, Object accuracy,
+			Object transmission, Object accelset, byte[] brakeStatus, Object size);
+
+	/**
+	 * This is the declaration for the batch encode native method. It encodes count BSMs in one call.
+	 *
+	 * @param count The number of BSMs to encode
+	 * @param fields The fields of each BSM packed as described by BSM_FIELD_COUNT
+	 * @param encoded Output buffer of count * MAX_ENCODED_BSM_SIZE bytes. BSM i is written at i * MAX_ENCODED_BSM_SIZE
+	 * @param lengths Output length of each encoded BSM, -1 if that BSM could not be encoded
+	 * @return -1 means the arrays could not be accessed; 0 means the batch was processed
+	 */
+	private native int encode_BSM_batch(int count, int[] fields, byte[] encoded, int[] lengths);
+
+	/**
+	 * This is the declaration for the direct buffer batch encode native method. It takes the same
+	 * fields as encode_BSM_batch but writes the encoded BSMs back to back into a direct buffer.
+	 *
+	 * @param encoded Direct output buffer of at least count * MAX_ENCODED_BSM_SIZE bytes
+	 * @param lengths Output length of each encoded BSM, -1 if that BSM could not be encoded and takes no space
+	 * @return -1 means the arrays or buffer could not be accessed; 0 means the batch was processed
+	 */
+	private native int encode_BSM_batch_direct(int count, int[] fields, ByteBuffer encoded, int[] lengths);
+
+	/**
+	 * This is the declaration for the batch decode native method. It decodes count BSMs in one call.
+	 *
+	 * @param count The number of BSMs to decode
+	 * @param encoded The encoded BSMs back to back
+	 * @param offsets The start of each encoded BSM in encoded, followed by the end of the last one
+	 * @param fields Output fields of each BSM packed as described by BSM_FIELD_COUNT
+	 * @param results Output result of each BSM, -1 means decode failed; 0 means decode is successful
+	 * @return -1 means the arrays could not be accessed; 0 means the batch was processed
+	 */
+	private native int decode_BSM_batch(int count, byte[] encoded, int[] offsets, int[] fields, int[] results);
 	
 	@Override
     public MessageContainer encode(Message plainMessage) {
@@ -94,19 +186,17 @@ public class BSMMessage implements IMessage<BSM> {
         int[] brakes_status = {
                 helper_bsm.getWheel_brakes(), helper_bsm.getTraction(), helper_bsm.getAbs(),
                 helper_bsm.getScs(), helper_bsm.getBba(), helper_bsm.getAux()};
-        byte[] encode_msg = encode_BSM(
-                helper_bsm.getMsgCnt(), helper_bsm.getId(), helper_bsm.getSecMark(),
-                helper_bsm.getLat(), helper_bsm.getLon(), helper_bsm.getElev(),
-                helper_bsm.getAccuracy(), helper_bsm.getTransmission(), helper_bsm.getSpeed(),
-                helper_bsm.getHeading(), helper_bsm.getAngle(), helper_bsm.getAcceleration(),
-                brakes_status, helper_bsm.getVehicle_size()
-                );
-        if(encode_msg == null) {
+        ChannelBuffer buffer;
+        if(useDirectBuffers_ && directSupported) {
+            buffer = encodeDirect(helper_bsm, brakes_status);
+        } else {
+            buffer = encodeArray(helper_bsm, brakes_status);
+        }
+        if(buffer == null) {
             log_.error("BSM", "BSMMessage cannot encode bsm message.");
             return new MessageContainer("ByteArray", null);
         }
         ByteArray binary_msg = messageFactory_.newFromType(ByteArray._TYPE);
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encode_msg);
         binary_msg.setContent(buffer);
         binary_msg.setMessageType("BSM");
         binary_msg.getHeader().setFrameId("0");
@@ -117,21 +207,17 @@ public class BSMMessage implements IMessage<BSM> {
     @Override
     public MessageContainer decode(ByteArray binaryMessage) {
         ChannelBuffer channelBuffer = binaryMessage.getContent();
-        byte[] encoded_bsm = new byte[channelBuffer.capacity()];
-        for(int i = 0; i < channelBuffer.capacity(); i++) {
-            encoded_bsm[i] = channelBuffer.getByte(i);
-        }
-        byte[] temp_ID = new byte[4];
+        byte[] temp_ID = idScratch_;
         Arrays.fill(temp_ID, (byte) 0);
-        byte[] brakeStatus = new byte[6];
+        byte[] brakeStatus = brakeStatusScratch_;
         Arrays.fill(brakeStatus, (byte) 0);
         BSM msg_object = messageFactory_.newFromType(BSM._TYPE);
-        int result = decode_BSM(
-                encoded_bsm, msg_object.getCoreData(),
-                temp_ID, msg_object.getCoreData().getAccuracy(),
-                msg_object.getCoreData().getTransmission(), msg_object.getCoreData().getAccelSet(),
-                brakeStatus, msg_object.getCoreData().getSize()
-                );
+        int result;
+        if(useDirectBuffers_ && directSupported) {
+            result = decodeDirect(channelBuffer, msg_object.getCoreData(), temp_ID, brakeStatus);
+        } else {
+            result = decodeArray(channelBuffer, msg_object.getCoreData(), temp_ID, brakeStatus);
+        }
         if(result == -1) {
             log_.error("BSM", "BSMMessage cannot decode bsm message");
             return new MessageContainer("BSM", null);
@@ -149,4 +235,368 @@ public class BSMMessage implements IMessage<BSM> {
         msg_object.getHeader().setStamp(node_.getCurrentTime());
         return new MessageContainer("BSM", msg_object);
     }
+
+    /**
+     * Read the temporary id of an encoded BSM without decoding it. The UPER layout is an extension bit and the
+     * 15 bit messageId of the MessageFrame, the length of the open type value, the extension and two optional
+     * bits of the BasicSafetyMessage, the 7 bit msgCnt and then the 4 byte id.
+     *
+     * @param encoded The encoded BSM MessageFrame
+     * @return The id as an unsigned 32 bit value, or -1 if the content is not long enough to hold one
+     */
+    public static long peekTemporaryId(ChannelBuffer encoded) {
+        final int lengthBit = 16;
+        int idBit = 34;
+        if(encoded.capacity() < 3) {
+            return -1;
+        }
+        if((encoded.getByte(lengthBit / 8) & 0x80) != 0) {
+            idBit += 8; // Two byte length determinant
+        }
+        int lastByte = (idBit + 32) / 8;
+        if(encoded.capacity() <= lastByte) {
+            return -1;
+        }
+        long bits = 0;
+        for(int i = idBit / 8; i <= lastByte; i++) {
+            bits = (bits << 8) | (encoded.getByte(i) & 0xff);
+        }
+        int trailingBits = (lastByte + 1) * 8 - (idBit + 32);
+        return (bits >>> trailingBits) & 0xffffffffL;
+    }
+
+    /**
+     * @return False if the native library was found to be without the direct buffer methods
+     */
+    public static boolean isDirectSupported() {
+        return directSupported;
+    }
+
+    /**
+     * @return False if the native library was found to be without the batch methods
+     */
+    public static boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    /**
+     * Enable or disable the direct buffer path of {@link #encode(Message)} and {@link #decode(ByteArray)}.
+     * It is enabled by default and is skipped anyway if the native library does not support it.
+     * The encoded bytes and decoded fields are the same on both paths.
+     */
+    public void setDirectBuffersEnabled(boolean enabled) {
+        useDirectBuffers_ = enabled;
+    }
+
+    /**
+     * Encode into a committed region of the direct arena and wrap it without copying
+     */
+    private ChannelBuffer encodeDirect(BSMMessageHelper helper_bsm, int[] brakes_status) {
+        ByteBuffer region = directBuffers_.reserve(MAX_ENCODED_BSM_SIZE);
+        int length;
+        try {
+            length = encode_BSM_direct(
+                    helper_bsm.getMsgCnt(), helper_bsm.getId(), helper_bsm.getSecMark(),
+                    helper_bsm.getLat(), helper_bsm.getLon(), helper_bsm.getElev(),
+                    helper_bsm.getAccuracy(), helper_bsm.getTransmission(), helper_bsm.getSpeed(),
+                    helper_bsm.getHeading(), helper_bsm.getAngle(), helper_bsm.getAcceleration(),
+                    brakes_status, helper_bsm.getVehicle_size(), region
+                    );
+        } catch(UnsatisfiedLinkError e) {
+            log_.warn("BSM", "asn1c library does not support direct buffers. Using byte arrays.");
+            directSupported = false;
+            return encodeArray(helper_bsm, brakes_status);
+        }
+        if(length == -1) {
+            return null;
+        }
+        return ChannelBuffers.wrappedBuffer(directBuffers_.commit(region, length));
+    }
+
+    private ChannelBuffer encodeArray(BSMMessageHelper helper_bsm, int[] brakes_status) {
+        byte[] encode_msg = encode_BSM(
+                helper_bsm.getMsgCnt(), helper_bsm.getId(), helper_bsm.getSecMark(),
+                helper_bsm.getLat(), helper_bsm.getLon(), helper_bsm.getElev(),
+                helper_bsm.getAccuracy(), helper_bsm.getTransmission(), helper_bsm.getSpeed(),
+                helper_bsm.getHeading(), helper_bsm.getAngle(), helper_bsm.getAcceleration(),
+                brakes_status, helper_bsm.getVehicle_size()
+                );
+        if(encode_msg == null) {
+            return null;
+        }
+        return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encode_msg);
+    }
+
+    /**
+     * Decode in place if the content is direct, otherwise after one copy into the direct scratch buffer
+     */
+    private int decodeDirect(ChannelBuffer channelBuffer, BSMCoreData coreData, byte[] temp_ID, byte[] brakeStatus) {
+        try {
+            return decode_BSM_direct(
+                    directBuffers_.readable(channelBuffer), channelBuffer.capacity(), coreData,
+                    temp_ID, coreData.getAccuracy(), coreData.getTransmission(), coreData.getAccelSet(),
+                    brakeStatus, coreData.getSize()
+                    );
+        } catch(UnsatisfiedLinkError e) {
+            log_.warn("BSM", "asn1c library does not support direct buffers. Using byte arrays.");
+            directSupported = false;
+            return decodeArray(channelBuffer, coreData, temp_ID, brakeStatus);
+        }
+    }
+
+    private int decodeArray(ChannelBuffer channelBuffer, BSMCoreData coreData, byte[] temp_ID, byte[] brakeStatus) {
+        byte[] encoded_bsm = new byte[channelBuffer.capacity()];
+        channelBuffer.getBytes(0, encoded_bsm);
+        return decode_BSM(
+                encoded_bsm, coreData,
+                temp_ID, coreData.getAccuracy(),
+                coreData.getTransmission(), coreData.getAccelSet(),
+                brakeStatus, coreData.getSize()
+                );
+    }
+
+    /**
+     * Encode a batch of BSMs with a single JNI call. Falls back to encoding one at a time if
+     * the native library does not provide the batch method.
+     * 
+     * @param plainMessages The BSMs to encode
+     * @return One container per input BSM, in order, as returned by {@link #encode(Message)}
+     */
+    public List<MessageContainer> encodeBatch(List<? extends Message> plainMessages) {
+        int count = plainMessages.size();
+        List<MessageContainer> out = new ArrayList<>(count);
+        if(count == 0) {
+            return out;
+        }
+        if(!batchSupported) {
+            for(Message plainMessage : plainMessages) {
+                out.add(encode(plainMessage));
+            }
+            return out;
+        }
+
+        batchFields_ = ensureCapacity(batchFields_, count * BSM_FIELD_COUNT);
+        batchLengths_ = ensureCapacity(batchLengths_, count);
+        for(int i = 0; i < count; i++) {
+            packFields(((BSM) plainMessages.get(i)).getCoreData(), batchFields_, i * BSM_FIELD_COUNT);
+        }
+
+        List<ChannelBuffer> buffers = null;
+        if(useDirectBuffers_ && directSupported) {
+            try {
+                buffers = encodeBatchDirect(count);
+            } catch(UnsatisfiedLinkError e) {
+                log_.warn("BSM", "asn1c library does not support direct buffers. Using byte arrays.");
+                directSupported = false;
+            }
+        }
+        if(buffers == null) {
+            try {
+                buffers = encodeBatchArray(count);
+            } catch(UnsatisfiedLinkError e) {
+                log_.warn("BSM", "asn1c library does not support batch encoding. Encoding BSMs one at a time.");
+                batchSupported = false;
+                return encodeBatch(plainMessages);
+            }
+        }
+
+        for(ChannelBuffer buffer : buffers) {
+            if(buffer == null) {
+                log_.error("BSM", "BSMMessage cannot encode bsm message.");
+                out.add(new MessageContainer("ByteArray", null));
+                continue;
+            }
+            ByteArray binary_msg = messageFactory_.newFromType(ByteArray._TYPE);
+            binary_msg.setContent(buffer);
+            binary_msg.setMessageType("BSM");
+            binary_msg.getHeader().setFrameId("0");
+            binary_msg.getHeader().setStamp(node_.getCurrentTime());
+            out.add(new MessageContainer("ByteArray", binary_msg));
+        }
+        return out;
+    }
+
+    /**
+     * Encode the packed batch back to back into one committed region of the direct arena
+     * and wrap each BSM without copying
+     *
+     * @return The encoded content of each BSM, or null for those that could not be encoded
+     */
+    private List<ChannelBuffer> encodeBatchDirect(int count) {
+        ByteBuffer region = directBuffers_.reserve(count * MAX_ENCODED_BSM_SIZE);
+        int result = encode_BSM_batch_direct(count, batchFields_, region, batchLengths_);
+        int total = 0;
+        for(int i = 0; i < count && result != -1; i++) {
+            total += Math.max(batchLengths_[i], 0);
+        }
+        ByteBuffer encoded = directBuffers_.commit(region, total);
+        List<ChannelBuffer> buffers = new ArrayList<>(count);
+        int offset = 0;
+        for(int i = 0; i < count; i++) {
+            if(result == -1 || batchLengths_[i] < 0) {
+                buffers.add(null);
+                continue;
+            }
+            ByteBuffer bsm = encoded.duplicate();
+            bsm.position(offset).limit(offset + batchLengths_[i]);
+            buffers.add(ChannelBuffers.wrappedBuffer(bsm.slice().order(ByteOrder.LITTLE_ENDIAN)));
+            offset += batchLengths_[i];
+        }
+        return buffers;
+    }
+
+    /**
+     * Encode the packed batch into the byte array scratch buffer and copy each BSM out of it
+     *
+     * @return The encoded content of each BSM, or null for those that could not be encoded
+     */
+    private List<ChannelBuffer> encodeBatchArray(int count) {
+        batchBytes_ = ensureCapacity(batchBytes_, count * MAX_ENCODED_BSM_SIZE);
+        int result = encode_BSM_batch(count, batchFields_, batchBytes_, batchLengths_);
+        List<ChannelBuffer> buffers = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            if(result == -1 || batchLengths_[i] < 0) {
+                buffers.add(null);
+                continue;
+            }
+            buffers.add(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, batchBytes_, i * MAX_ENCODED_BSM_SIZE, batchLengths_[i]));
+        }
+        return buffers;
+    }
+
+    /**
+     * Decode a batch of BSMs with a single JNI call. Falls back to decoding one at a time if
+     * the native library does not provide the batch method.
+     * 
+     * @param binaryMessages The encoded BSMs
+     * @return One container per input message, in order, as returned by {@link #decode(ByteArray)}
+     */
+    public List<MessageContainer> decodeBatch(List<ByteArray> binaryMessages) {
+        int count = binaryMessages.size();
+        List<MessageContainer> out = new ArrayList<>(count);
+        if(count == 0) {
+            return out;
+        }
+        if(!batchSupported) {
+            for(ByteArray binaryMessage : binaryMessages) {
+                out.add(decode(binaryMessage));
+            }
+            return out;
+        }
+
+        batchOffsets_ = ensureCapacity(batchOffsets_, count + 1);
+        int totalBytes = 0;
+        for(int i = 0; i < count; i++) {
+            batchOffsets_[i] = totalBytes;
+            totalBytes += binaryMessages.get(i).getContent().capacity();
+        }
+        batchOffsets_[count] = totalBytes;
+        batchBytes_ = ensureCapacity(batchBytes_, totalBytes);
+        for(int i = 0; i < count; i++) {
+            ChannelBuffer content = binaryMessages.get(i).getContent();
+            content.getBytes(0, batchBytes_, batchOffsets_[i], content.capacity());
+        }
+        batchFields_ = ensureCapacity(batchFields_, count * BSM_FIELD_COUNT);
+        batchResults_ = ensureCapacity(batchResults_, count);
+
+        int result;
+        try {
+            result = decode_BSM_batch(count, batchBytes_, batchOffsets_, batchFields_, batchResults_);
+        } catch(UnsatisfiedLinkError e) {
+            log_.warn("BSM", "asn1c library does not support batch decoding. Decoding BSMs one at a time.");
+            batchSupported = false;
+            return decodeBatch(binaryMessages);
+        }
+
+        for(int i = 0; i < count; i++) {
+            if(result == -1 || batchResults_[i] == -1) {
+                log_.error("BSM", "BSMMessage cannot decode bsm message");
+                out.add(new MessageContainer("BSM", null));
+                continue;
+            }
+            BSM msg_object = messageFactory_.newFromType(BSM._TYPE);
+            unpackFields(batchFields_, i * BSM_FIELD_COUNT, msg_object.getCoreData());
+            msg_object.getHeader().setFrameId("MessageConsumer");
+            msg_object.getHeader().setStamp(node_.getCurrentTime());
+            out.add(new MessageContainer("BSM", msg_object));
+        }
+        return out;
+    }
+
+    /**
+     * Pack the fields of a BSM into the layout described by BSM_FIELD_COUNT
+     */
+    private void packFields(BSMCoreData coreData, int[] fields, int offset) {
+        BSMMessageHelper helper_bsm = new BSMMessageHelper(coreData);
+        int i = offset;
+        fields[i++] = helper_bsm.getMsgCnt();
+        i = copyInto(helper_bsm.getId(), fields, i);
+        fields[i++] = helper_bsm.getSecMark();
+        fields[i++] = helper_bsm.getLat();
+        fields[i++] = helper_bsm.getLon();
+        fields[i++] = helper_bsm.getElev();
+        i = copyInto(helper_bsm.getAccuracy(), fields, i);
+        fields[i++] = helper_bsm.getTransmission();
+        fields[i++] = helper_bsm.getSpeed();
+        fields[i++] = helper_bsm.getHeading();
+        fields[i++] = helper_bsm.getAngle();
+        i = copyInto(helper_bsm.getAcceleration(), fields, i);
+        fields[i++] = helper_bsm.getWheel_brakes();
+        fields[i++] = helper_bsm.getTraction();
+        fields[i++] = helper_bsm.getAbs();
+        fields[i++] = helper_bsm.getScs();
+        fields[i++] = helper_bsm.getBba();
+        fields[i++] = helper_bsm.getAux();
+        copyInto(helper_bsm.getVehicle_size(), fields, i);
+    }
+
+    /**
+     * Set the fields of a BSM from the layout described by BSM_FIELD_COUNT. The casts
+     * match the types used by the setters called from the single message native decoder.
+     */
+    private void unpackFields(int[] fields, int offset, BSMCoreData coreData) {
+        int i = offset;
+        coreData.setMsgCount((byte) fields[i++]);
+        for(int j = 0; j < idScratch_.length; j++) {
+            idScratch_[j] = (byte) fields[i++];
+        }
+        coreData.setId(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, idScratch_));
+        coreData.setSecMark((short) fields[i++]);
+        coreData.setLatitude(fields[i++]);
+        coreData.setLongitude(fields[i++]);
+        coreData.setElev(fields[i++]);
+        coreData.getAccuracy().setSemiMajor((byte) fields[i++]);
+        coreData.getAccuracy().setSemiMinor((byte) fields[i++]);
+        coreData.getAccuracy().setOrientation((short) fields[i++]);
+        coreData.getTransmission().setTransmissionState((byte) fields[i++]);
+        coreData.setSpeed((short) fields[i++]);
+        coreData.setHeading((short) fields[i++]);
+        coreData.setAngle((byte) fields[i++]);
+        coreData.getAccelSet().setLateral((short) fields[i++]);
+        coreData.getAccelSet().setLongitudinal((short) fields[i++]);
+        coreData.getAccelSet().setVert((byte) fields[i++]);
+        coreData.getAccelSet().setYawRate((short) fields[i++]);
+        //Set BrakeAppliedStatus after default shift in asn1c library
+        coreData.getBrakes().getWheelBrakes().setBrakeAppliedStatus((byte) (((byte) fields[i++]) >> 3));
+        coreData.getBrakes().getTraction().setTractionControlStatus((byte) fields[i++]);
+        coreData.getBrakes().getAbs().setAntiLockBrakeStatus((byte) fields[i++]);
+        coreData.getBrakes().getScs().setStabilityControlStatus((byte) fields[i++]);
+        coreData.getBrakes().getBrakeBoost().setBrakeBoostApplied((byte) fields[i++]);
+        coreData.getBrakes().getAuxBrakes().setAuxiliaryBrakeStatus((byte) fields[i++]);
+        coreData.getSize().setVehicleWidth((short) fields[i++]);
+        coreData.getSize().setVehicleLength((short) fields[i]);
+    }
+
+    private static int copyInto(int[] src, int[] dest, int offset) {
+        System.arraycopy(src, 0, dest, offset, src.length);
+        return offset + src.length;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array.length >= size ? array : new int[Math.max(size, array.length * 2)];
+    }
+
+    private static byte[] ensureCapacity(byte[] array, int size) {
+        return array.length >= size ? array : new byte[Math.max(size, array.length * 2)];
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.factory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * Direct memory shared between the Java message codecs and the asn1c library.
+ * <p>
+ * Native encoders write into a region reserved from a large direct chunk. Once the encoded length
+ * is known the region is committed and handed out as a view which can be wrapped by a ChannelBuffer
+ * without copying. Committed regions are never written again. When a chunk is used up a new one is
+ * allocated, and the old chunk is freed by the garbage collector once no message refers to it.
+ * <p>
+ * Native decoders read from the content of a direct ChannelBuffer in place, or from a reused
+ * direct scratch buffer if the content is on the heap.
+ * <p>
+ * This class is not thread safe. Each codec owns its own arena.
+ */
+class DirectBufferArena {
+
+    private final int chunkSize_;
+    private ByteBuffer chunk_;
+    private ByteBuffer scratch_;
+
+    /**
+     * @param chunkSize The number of bytes allocated each time the current chunk is used up
+     */
+    DirectBufferArena(int chunkSize) {
+        chunkSize_ = chunkSize;
+        chunk_ = ByteBuffer.allocateDirect(chunkSize);
+        scratch_ = ByteBuffer.allocateDirect(0);
+    }
+
+    /**
+     * Reserve a region for a native encoder to write into
+     *
+     * @param maxSize The largest number of bytes the encoder may write
+     * @return A direct buffer whose capacity is maxSize
+     */
+    ByteBuffer reserve(int maxSize) {
+        if(chunk_.remaining() < maxSize) {
+            chunk_ = ByteBuffer.allocateDirect(Math.max(chunkSize_, maxSize));
+        }
+        ByteBuffer region = chunk_.duplicate();
+        region.limit(region.position() + maxSize);
+        return region.slice();
+    }
+
+    /**
+     * Commit the bytes written into the most recently reserved region
+     *
+     * @param region The region returned by the last call to {@link #reserve(int)}
+     * @param length The number of bytes written at the start of the region
+     * @return A little endian view of the written bytes
+     */
+    ByteBuffer commit(ByteBuffer region, int length) {
+        chunk_.position(chunk_.position() + length);
+        ByteBuffer encoded = region.duplicate();
+        encoded.clear().limit(length);
+        return encoded.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get the content of a ChannelBuffer as direct memory for a native decoder. The first
+     * capacity() bytes of the ChannelBuffer start at index 0 of the returned buffer.
+     * The returned buffer is only valid until the next call to this method.
+     */
+    ByteBuffer readable(ChannelBuffer content) {
+        int length = content.capacity();
+        if(content.isDirect()) {
+            ByteBuffer view = content.toByteBuffer(0, length);
+            if(view.isDirect()) {
+                return view.slice();
+            }
+        }
+        if(scratch_.capacity() < length) {
+            scratch_ = ByteBuffer.allocateDirect(Math.max(length, scratch_.capacity() * 2));
+        }
+        ByteBuffer target = scratch_.duplicate();
+        target.clear().limit(length);
+        content.getBytes(0, target);
+        return scratch_;
+    }
+}
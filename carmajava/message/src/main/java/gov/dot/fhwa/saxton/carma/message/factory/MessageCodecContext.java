@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.factory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ros.message.MessageFactory;
+import org.ros.node.ConnectedNode;
+
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+
+/**
+ * Holds one long-lived encoder/decoder per message type so that codecs and their
+ * scratch buffers are reused between messages instead of being rebuilt by
+ * {@link DSRCMessageFactory} for every message.
+ * <p>
+ * The codecs keep per-call state, so a context is not thread safe. Each thread which
+ * encodes or decodes messages should own its own context.
+ */
+public class MessageCodecContext {
+
+    protected final ConnectedNode node_;
+    protected final SaxtonLogger log_;
+    protected final MessageFactory messageFactory_;
+    protected final Map<String, IMessage<?>> codecs_ = new HashMap<>();
+
+    public MessageCodecContext(ConnectedNode node, SaxtonLogger log, MessageFactory messageFactory) {
+        this.node_ = node;
+        this.log_ = log;
+        this.messageFactory_ = messageFactory;
+    }
+
+    /**
+     * Get the codec for a message type, creating it on first use
+     * 
+     * @param messageType The DSRC message type such as "BSM"
+     * @return The codec for the type, null if the type is not supported
+     */
+    public IMessage<?> getCodec(String messageType) {
+        IMessage<?> codec = codecs_.get(messageType);
+        if(codec == null) {
+            codec = DSRCMessageFactory.getMessage(messageType, node_, log_, messageFactory_);
+            if(codec != null) {
+                codecs_.put(messageType, codec);
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Get the BSM codec, which also supports batch encoding and decoding
+     */
+    public BSMMessage getBSMCodec() {
+        return (BSMMessage) getCodec("BSM");
+    }
+}
@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -35,12 +36,32 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 /**
  * This class is the actual worker for encoding and decoding Mobility Path message
  * by using J2735 compiler shared library.
+ * Decode buffers are reused between calls, so an instance should only be used by one thread.
+ * Messages are passed to and from the native library through direct buffers when it supports them.
  */
 public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
 
         private MessageFactory factory;
         private SaxtonLogger log;
 
+        // Must match the size of the encode buffer in the asn1c wrapper
+        private static final int MAX_ENCODED_PATH_SIZE = 512;
+        // Size of each direct chunk that encoded messages are written into
+        private static final int ENCODE_CHUNK_SIZE = 64 * 1024;
+        // False once the native library is found to be without the direct buffer methods
+        private static volatile boolean directSupported = true;
+        private final DirectBufferArena directBuffers = new DirectBufferArena(ENCODE_CHUNK_SIZE);
+        private boolean useDirectBuffers = true;
+
+        // Decode scratch buffers, reset before each use
+        private final byte[] senderId = new byte[16];
+        private final byte[] targetId = new byte[16];
+        private final byte[] bsmId = new byte[8];
+        private final byte[] planId = new byte[36];
+        private final byte[] timestamp = new byte[19];
+        private final byte[] trajectoryStartTime = new byte[19];
+        private final int[][] offsets = new int[3][60];
+
         public MobilityPathMessage(SaxtonLogger log, MessageFactory factory) {
                 this.factory = factory;
                 this.log = log;
@@ -78,6 +99,39 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                         byte[] bsmId, byte[] planId, byte[] timestamp, Object currentLocation, byte[] locationTimestamp,
                         int[][] offsets);
 
+        /**
+         * This is the declaration for the direct buffer encode native method. It takes the same fields as
+         * encodeMobilityPath but writes the encoded message into a direct buffer instead of a new array.
+         * @return -1 means encode failed; otherwise the number of bytes written to encodedBuffer
+         */
+        private native int encodeMobilityPathDirect(byte[] senderId, byte[] targetId, byte[] senderBSMId, byte[] planId,
+                        byte[] timestamp, int currentX, int currentY, int currentZ, byte[] locationTimestamp,
+                        int[][] offsets, ByteBuffer encodedBuffer);
+
+        /**
+         * This is the declaration for the direct buffer decode native method. It decodes the first length bytes
+         * of a direct buffer in place and sets the same outputs as decodeMobilityPath.
+         * @return -1 means decode failed; 0 means decode is successful
+         */
+        private native int decodeMobilityPathDirect(ByteBuffer encodedBuffer, int length, Object mobilityPath, byte[] senderId,
+                        byte[] targetId, byte[] bsmId, byte[] planId, byte[] timestamp, Object currentLocation,
+                        byte[] locationTimestamp, int[][] offsets);
+
+        /**
+         * @return False if the native library was found to be without the direct buffer methods
+         */
+        public static boolean isDirectSupported() {
+                return directSupported;
+        }
+
+        /**
+         * Enable or disable the direct buffer path of {@link #encode(Message)} and {@link #decode(ByteArray)}.
+         * It is enabled by default and is skipped anyway if the native library does not support it.
+         */
+        public void setDirectBuffersEnabled(boolean enabled) {
+                useDirectBuffers = enabled;
+        }
+
         public byte[] callJniEncode(MobilityPath message) {
                 MobilityPathHelper helper = new MobilityPathHelper(message);
                 return encodeMobilityPath(helper.getHeaderHelper().getSenderId(),
@@ -90,15 +144,55 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                                 helper.getTrajectoryHelper().getOffsets());
         }
 
+        /**
+         * Encode into a committed region of the direct arena and wrap it without copying
+         * @return the encoded message or null if it could not be encoded
+         */
+        private ChannelBuffer callJniEncodeDirect(MobilityPath message) {
+                MobilityPathHelper helper = new MobilityPathHelper(message);
+                ByteBuffer region = directBuffers.reserve(MAX_ENCODED_PATH_SIZE);
+                int length;
+                try {
+                        length = encodeMobilityPathDirect(helper.getHeaderHelper().getSenderId(),
+                                        helper.getHeaderHelper().getTargetId(), helper.getHeaderHelper().getBSMId(),
+                                        helper.getHeaderHelper().getPlanId(), helper.getHeaderHelper().getTimestamp(),
+                                        helper.getTrajectoryHelper().getStartLocationHelper().getEcefX(),
+                                        helper.getTrajectoryHelper().getStartLocationHelper().getEcefY(),
+                                        helper.getTrajectoryHelper().getStartLocationHelper().getEcefZ(),
+                                        helper.getTrajectoryHelper().getStartLocationHelper().getTimestamp(),
+                                        helper.getTrajectoryHelper().getOffsets(), region);
+                } catch (UnsatisfiedLinkError e) {
+                        log.warn("MobilityPath", "asn1c library does not support direct buffers. Using byte arrays.");
+                        directSupported = false;
+                        return callJniEncodeArray(message);
+                }
+                if (length == -1) {
+                        return null;
+                }
+                return ChannelBuffers.wrappedBuffer(directBuffers.commit(region, length));
+        }
+
+        private ChannelBuffer callJniEncodeArray(MobilityPath message) {
+                byte[] encodedMsg = callJniEncode(message);
+                if (encodedMsg == null) {
+                        return null;
+                }
+                return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
+        }
+
         @Override
         public MessageContainer encode(Message plainMessage) {
-                byte[] encodedMsg = callJniEncode((MobilityPath) plainMessage);
-                if (encodedMsg == null) {
+                ChannelBuffer buffer;
+                if (useDirectBuffers && directSupported) {
+                        buffer = callJniEncodeDirect((MobilityPath) plainMessage);
+                } else {
+                        buffer = callJniEncodeArray((MobilityPath) plainMessage);
+                }
+                if (buffer == null) {
                         log.warn("MobilityRequest", "MobilityPathMessage cannot encode the message");
                         return new MessageContainer("ByteArray", null);
                 }
                 ByteArray binaryMsg = factory.newFromType(ByteArray._TYPE);
-                ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
                 binaryMsg.setContent(buffer);
                 binaryMsg.setMessageType("MobilityPath");
                 binaryMsg.getHeader().setFrameId("0");
@@ -109,17 +203,11 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
         @Override
         public MessageContainer decode(ByteArray binaryMessage) {
                 ChannelBuffer buffer = binaryMessage.getContent();
-                byte[] encodedMsg = new byte[buffer.capacity()];
-                for (int i = 0; i < buffer.capacity(); i++) {
-                        encodedMsg[i] = buffer.getByte(i);
-                }
-                byte[] senderId = new byte[16];
-                byte[] targetId = new byte[16];
-                byte[] bsmId = new byte[8];
-                byte[] planId = new byte[36];
-                byte[] timestamp = new byte[19];
-                byte[] trajectoryStartTime = new byte[19];
-                int[][] offsets = new int[3][60];
+                Arrays.fill(senderId, (byte) 0);
+                Arrays.fill(targetId, (byte) 0);
+                Arrays.fill(bsmId, (byte) 0);
+                Arrays.fill(planId, (byte) 0);
+                Arrays.fill(timestamp, (byte) 0);
                 // fill with character 'zero'
                 Arrays.fill(trajectoryStartTime, (byte) 48);
                 // fill with unavailable data 
@@ -127,8 +215,12 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                 Arrays.fill(offsets[1], 501);
                 Arrays.fill(offsets[2], 501);
                 MobilityPath path = factory.newFromType(MobilityPath._TYPE);
-                int result = decodeMobilityPath(encodedMsg, path, senderId, targetId, bsmId, planId, timestamp,
-                                path.getTrajectory().getLocation(), trajectoryStartTime, offsets);
+                int result;
+                if (useDirectBuffers && directSupported) {
+                        result = callJniDecodeDirect(buffer, path);
+                } else {
+                        result = callJniDecodeArray(buffer, path);
+                }
                 if (result == -1) {
                         log.warn("MobilityPathMessage cannot decode message.");
                         return new MessageContainer("MobilityPath", null);
@@ -144,4 +236,26 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                 return new MessageContainer("MobilityPath", path);
         }
 
+        /**
+         * Decode in place if the content is direct, otherwise after one copy into the direct scratch buffer
+         */
+        private int callJniDecodeDirect(ChannelBuffer buffer, MobilityPath path) {
+                try {
+                        return decodeMobilityPathDirect(directBuffers.readable(buffer), buffer.capacity(), path, senderId,
+                                        targetId, bsmId, planId, timestamp, path.getTrajectory().getLocation(),
+                                        trajectoryStartTime, offsets);
+                } catch (UnsatisfiedLinkError e) {
+                        log.warn("MobilityPath", "asn1c library does not support direct buffers. Using byte arrays.");
+                        directSupported = false;
+                        return callJniDecodeArray(buffer, path);
+                }
+        }
+
+        private int callJniDecodeArray(ChannelBuffer buffer, MobilityPath path) {
+                byte[] encodedMsg = new byte[buffer.capacity()];
+                buffer.getBytes(0, encodedMsg);
+                return decodeMobilityPath(encodedMsg, path, senderId, targetId, bsmId, planId, timestamp,
+                                path.getTrajectory().getLocation(), trajectoryStartTime, offsets);
+        }
+
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -35,11 +36,35 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 /**
  * This class is the actual worker for encoding and decoding Mobility Request message
  * by using J2735 compiler shared library.
+ * Decode buffers are reused between calls, so an instance should only be used by one thread.
+ * Messages are passed to and from the native library through direct buffers when it supports them.
  */
 public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
     
     protected SaxtonLogger log_;
     protected MessageFactory messageFactory_;
+
+    // Must match the size of the encode buffer in the asn1c wrapper
+    private static final int MAX_ENCODED_REQUEST_SIZE = 512;
+    // Size of each direct chunk that encoded messages are written into
+    private static final int ENCODE_CHUNK_SIZE = 64 * 1024;
+    // False once the native library is found to be without the direct buffer methods
+    private static volatile boolean directSupported = true;
+    private final DirectBufferArena directBuffers_ = new DirectBufferArena(ENCODE_CHUNK_SIZE);
+    private boolean useDirectBuffers_ = true;
+
+    // Decode scratch buffers, reset before each use
+    private final byte[] senderId = new byte[16];
+    private final byte[] targetId = new byte[16];
+    private final byte[] bsmId = new byte[8];
+    private final byte[] planId = new byte[36];
+    private final byte[] timestamp = new byte[19];
+    private final byte[] strategy = new byte[50];
+    private final byte[] locationTime = new byte[19];
+    private final byte[] strategyParams = new byte[100];
+    private final byte[] trajectoryStartTime = new byte[19];
+    private final int[][] offsets = new int[3][60];
+    private final byte[] expiration = new byte[19];
     
     public MobilityRequestMessage(SaxtonLogger log, MessageFactory messageFactory) {
         this.log_ = log;
@@ -81,15 +106,55 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
             Object currentLocation, byte[] locationTime, byte[] strategyParams, Object trajectoryStartLocation,
             byte[] trajectoryStartTime, int[][] offsets, byte[] expiration);
     
+    /**
+     * This is the declaration for the direct buffer encode native method. It takes the same fields as
+     * encodeMobilityRequest but writes the encoded message into a direct buffer instead of a new array.
+     * @return -1 means encode failed; otherwise the number of bytes written to encodedBuffer
+     */
+    private native int encodeMobilityRequestDirect(
+            byte[] senderId, byte[] targetId, byte[] senderBSMId, byte[] planId, byte[] timestamp, byte[] strategy,
+            int planType, int urgency, int currentX, int currentY, int currentZ, byte[] currentT, byte[] strategyParams,
+            int startX, int startY, int startZ, byte[] startT, int[][] offsets, byte[] expiration, ByteBuffer encodedBuffer);
+
+    /**
+     * This is the declaration for the direct buffer decode native method. It decodes the first length bytes
+     * of a direct buffer in place and sets the same outputs as decodeMobilityRequest.
+     * @return -1 means decode failed; 0 means decode is successful
+     */
+    private native int decodeMobilityRequestDirect(
+            ByteBuffer encodedBuffer, int length, Object mobilityReq, byte[] senderId, byte[] targetId,
+            byte[] bsmId, byte[] planId, byte[] timestamp, byte[] strategy, Object planType,
+            Object currentLocation, byte[] locationTime, byte[] strategyParams, Object trajectoryStartLocation,
+            byte[] trajectoryStartTime, int[][] offsets, byte[] expiration);
+
+    /**
+     * @return False if the native library was found to be without the direct buffer methods
+     */
+    public static boolean isDirectSupported() {
+        return directSupported;
+    }
+
+    /**
+     * Enable or disable the direct buffer path of {@link #encode(Message)} and {@link #decode(ByteArray)}.
+     * It is enabled by default and is skipped anyway if the native library does not support it.
+     */
+    public void setDirectBuffersEnabled(boolean enabled) {
+        useDirectBuffers_ = enabled;
+    }
+
     @Override
     public MessageContainer encode(Message plainMessage) {
-        byte[] encodedMsg = this.callJniEncode((MobilityRequest) plainMessage);
-        if(encodedMsg == null) {
+        ChannelBuffer buffer;
+        if(useDirectBuffers_ && directSupported) {
+            buffer = callJniEncodeDirect((MobilityRequest) plainMessage);
+        } else {
+            buffer = callJniEncodeArray((MobilityRequest) plainMessage);
+        }
+        if(buffer == null) {
             log_.warn("MobilityRequest", "MobilityRequestMessage cannot encode the message");
             return new MessageContainer("ByteArray", null);
         }
         ByteArray binaryMsg = messageFactory_.newFromType(ByteArray._TYPE);
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
         binaryMsg.setContent(buffer);
         binaryMsg.setMessageType("MobilityRequest");
         binaryMsg.getHeader().setFrameId("0");
@@ -100,21 +165,13 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
     @Override
     public MessageContainer decode(ByteArray binaryMessage) {
         ChannelBuffer buffer = binaryMessage.getContent();
-        byte[] encodedMsg = new byte[buffer.capacity()];
-        for(int i = 0; i < buffer.capacity(); i++) {
-            encodedMsg[i] = buffer.getByte(i);
-        }
-        byte[] senderId = new byte[16];
-        byte[] targetId = new byte[16];
-        byte[] bsmId = new byte[8];
-        byte[] planId = new byte[36];
-        byte[] timestamp = new byte[19];
-        byte[] strategy = new byte[50];
-        byte[] locationTime = new byte[19];
-        byte[] strategyParams = new byte[100];
-        byte[] trajectoryStartTime = new byte[19];
-        int[][] offsets = new int[3][60];
-        byte[] expiration = new byte[19];
+        Arrays.fill(senderId, (byte) 0);
+        Arrays.fill(targetId, (byte) 0);
+        Arrays.fill(bsmId, (byte) 0);
+        Arrays.fill(planId, (byte) 0);
+        Arrays.fill(strategy, (byte) 0);
+        Arrays.fill(locationTime, (byte) 0);
+        Arrays.fill(strategyParams, (byte) 0);
         // fill with character 'zero'
         Arrays.fill(timestamp, (byte) 48);
         Arrays.fill(trajectoryStartTime, (byte) 48);
@@ -124,10 +181,12 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
         Arrays.fill(offsets[1], 501);
         Arrays.fill(offsets[2], 501);
         MobilityRequest request = messageFactory_.newFromType(MobilityRequest._TYPE);
-        int result = callJniDecode(
-                encodedMsg, request, senderId, targetId, bsmId, planId, timestamp, strategy,
-                request.getPlanType(), request.getLocation(), locationTime, strategyParams,
-                request.getTrajectory().getLocation(), trajectoryStartTime, offsets, expiration);
+        int result;
+        if(useDirectBuffers_ && directSupported) {
+            result = callJniDecodeDirect(buffer, request);
+        } else {
+            result = callJniDecodeArray(buffer, request);
+        }
         if(result == -1) {
             log_.warn("MobilityRequest", "MobilityRequestMessage cannot decode message.");
             return new MessageContainer("MobilityRequest", null);
@@ -147,6 +206,70 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
         return new MessageContainer("MobilityRequest", request);
     }
     
+    /**
+     * Encode into a committed region of the direct arena and wrap it without copying
+     * @return the encoded message or null if it could not be encoded
+     */
+    private ChannelBuffer callJniEncodeDirect(MobilityRequest request) {
+        MobilityRequestHelper helper = new MobilityRequestHelper(request);
+        ByteBuffer region = directBuffers_.reserve(MAX_ENCODED_REQUEST_SIZE);
+        int length;
+        try {
+            length = encodeMobilityRequestDirect(
+                    helper.getHeaderHelper().getSenderId(), helper.getHeaderHelper().getTargetId(),
+                    helper.getHeaderHelper().getBSMId(), helper.getHeaderHelper().getPlanId(),
+                    helper.getHeaderHelper().getTimestamp(), helper.getStrategy(), helper.getPlanType(),
+                    helper.getUrgency(), helper.getLocationHelper().getEcefX(), helper.getLocationHelper().getEcefY(),
+                    helper.getLocationHelper().getEcefZ(), helper.getLocationHelper().getTimestamp(),
+                    helper.getStrategyParams(), helper.getTrajectoryHelper().getStartLocationHelper().getEcefX(),
+                    helper.getTrajectoryHelper().getStartLocationHelper().getEcefY(),
+                    helper.getTrajectoryHelper().getStartLocationHelper().getEcefZ(),
+                    helper.getTrajectoryHelper().getStartLocationHelper().getTimestamp(),
+                    helper.getTrajectoryHelper().getOffsets(), helper.getExpiration(), region);
+        } catch(UnsatisfiedLinkError e) {
+            log_.warn("MobilityRequest", "asn1c library does not support direct buffers. Using byte arrays.");
+            directSupported = false;
+            return callJniEncodeArray(request);
+        }
+        if(length == -1) {
+            return null;
+        }
+        return ChannelBuffers.wrappedBuffer(directBuffers_.commit(region, length));
+    }
+
+    private ChannelBuffer callJniEncodeArray(MobilityRequest request) {
+        byte[] encodedMsg = callJniEncode(request);
+        if(encodedMsg == null) {
+            return null;
+        }
+        return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
+    }
+
+    /**
+     * Decode in place if the content is direct, otherwise after one copy into the direct scratch buffer
+     */
+    private int callJniDecodeDirect(ChannelBuffer buffer, MobilityRequest request) {
+        try {
+            return decodeMobilityRequestDirect(
+                    directBuffers_.readable(buffer), buffer.capacity(), request, senderId, targetId, bsmId, planId,
+                    timestamp, strategy, request.getPlanType(), request.getLocation(), locationTime, strategyParams,
+                    request.getTrajectory().getLocation(), trajectoryStartTime, offsets, expiration);
+        } catch(UnsatisfiedLinkError e) {
+            log_.warn("MobilityRequest", "asn1c library does not support direct buffers. Using byte arrays.");
+            directSupported = false;
+            return callJniDecodeArray(buffer, request);
+        }
+    }
+
+    private int callJniDecodeArray(ChannelBuffer buffer, MobilityRequest request) {
+        byte[] encodedMsg = new byte[buffer.capacity()];
+        buffer.getBytes(0, encodedMsg);
+        return callJniDecode(
+                encodedMsg, request, senderId, targetId, bsmId, planId, timestamp, strategy,
+                request.getPlanType(), request.getLocation(), locationTime, strategyParams,
+                request.getTrajectory().getLocation(), trajectoryStartTime, offsets, expiration);
+    }
+
     public byte[] callJniEncode(MobilityRequest request) {
         MobilityRequestHelper helper = new MobilityRequestHelper(request);
         byte[] encodedMsg = encodeMobilityRequest(
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative durations in nanoseconds
+ * <p>
+ * Values below 32 ns have their own bucket. Above that each power of two is split into 32 buckets,
+ * so a recorded value is known to within about 3%. Values above {@link #MAX_TRACKABLE_NANOS} (about 2.4 hours)
+ * are counted in the last bucket and negative values in the first.
+ * <p>
+ * Recording is a few atomic increments and never blocks. {@link #snapshot()} copies the buckets without pausing
+ * recording threads, so a snapshot taken during recording may include some but not all of the concurrently
+ * recorded values. Every value is in a snapshot taken after its record call returned.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 42;
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong(0);
+    private final AtomicLong total = new AtomicLong(0);
+
+    /**
+     * Records one value
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        buckets.incrementAndGet(bucketIndex(value));
+        total.addAndGet(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * @return A copy of the recorded values which is not affected by later recording
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, max.get(), total.get());
+    }
+
+    static int bucketIndex(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return The largest value which falls in the bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * The values of a histogram at one point in time
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+        private final long total;
+
+        private Snapshot(long[] counts, long max, long total) {
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.max = max;
+            this.total = total;
+        }
+
+        /**
+         * @return The number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The largest recorded value in ns or 0 if there are none
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return The mean of the recorded values in ns or 0 if there are none
+         */
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) total / count;
+        }
+
+        /**
+         * Gets the value at a percentile. The result is the upper bound of the bucket holding
+         * the percentile, so it is never less than the exact value and at most about 3% more.
+         *
+         * @param percentile The percentile from 0 to 100, such as 99.9
+         * @return The value in ns or 0 if there are no recorded values
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0.0), 100.0) / 100.0 * count);
+            rank = Math.max(rank, 1);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @return The number of recorded values between from and to in ns, inclusive, counted by bucket
+         */
+        public long getCountBetween(long from, long to) {
+            long sum = 0;
+            int last = bucketIndex(Math.min(Math.max(to, 0), MAX_TRACKABLE_NANOS));
+            for (int i = bucketIndex(Math.min(Math.max(from, 0), MAX_TRACKABLE_NANOS)); i <= last; i++) {
+                sum += counts[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms (%d samples)",
+                getValueAtPercentile(50) / 1e6, getValueAtPercentile(99) / 1e6, getValueAtPercentile(99.9) / 1e6,
+                max / 1e6, count);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one {@link MessageTypeMetrics} recorder for each DSRC message type
+ * <p>
+ * Recorders are found by a hash lookup which does not lock, and are created the first time a message type is used.
+ */
+public class MessageMetrics {
+
+    private final ConcurrentMap<String, MessageTypeMetrics> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the recorder of a message type, creating it if needed
+     *
+     * @param messageType The type name, such as "BSM"
+     * @return The recorder for the type
+     */
+    public MessageTypeMetrics get(String messageType) {
+        MessageTypeMetrics recorder = recorders.get(messageType);
+        if (recorder == null) {
+            recorder = recorders.computeIfAbsent(messageType, MessageTypeMetrics::new);
+        }
+        return recorder;
+    }
+
+    /**
+     * @return A snapshot of every recorder sorted by message type, taken without pausing recording threads
+     */
+    public List<MessageTypeMetrics.Snapshot> snapshot() {
+        List<String> types = new ArrayList<>(recorders.keySet());
+        Collections.sort(types);
+        List<MessageTypeMetrics.Snapshot> snapshots = new ArrayList<>(types.size());
+        for (String type : types) {
+            snapshots.add(recorders.get(type).snapshot());
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free recorder of the traffic and codec performance of one DSRC message type
+ * <p>
+ * Counts and byte totals of incoming and outgoing messages, encode and decode latency, and message age are recorded.
+ * Age is the time from the timestamp in a message header until the message was handled by the MessageConsumer.
+ * All methods may be called from any number of threads at once.
+ */
+public class MessageTypeMetrics {
+
+    private final String messageType;
+    private final LongAdder incomingCount = new LongAdder();
+    private final LongAdder incomingBytes = new LongAdder();
+    private final LongAdder outgoingCount = new LongAdder();
+    private final LongAdder outgoingBytes = new LongAdder();
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    private final LatencyHistogram age = new LatencyHistogram();
+
+    public MessageTypeMetrics(String messageType) {
+        this.messageType = messageType;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * Records a message received from the DSRC driver
+     *
+     * @param bytes The size of the encoded message
+     */
+    public void onMessageReceiving(int bytes) {
+        incomingCount.increment();
+        incomingBytes.add(bytes);
+    }
+
+    /**
+     * Records a message published to the DSRC driver
+     *
+     * @param bytes The size of the encoded message
+     */
+    public void onMessageSending(int bytes) {
+        outgoingCount.increment();
+        outgoingBytes.add(bytes);
+    }
+
+    public void recordEncodeLatency(long nanos) {
+        encodeLatency.record(nanos);
+    }
+
+    public void recordDecodeLatency(long nanos) {
+        decodeLatency.record(nanos);
+    }
+
+    /**
+     * @param nanos The time in ns from the header timestamp of a message until it was handled
+     */
+    public void recordAge(long nanos) {
+        age.record(nanos);
+    }
+
+    /**
+     * @return A copy of the recorded values taken without pausing recording threads
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(messageType, System.nanoTime(), incomingCount.sum(), incomingBytes.sum(),
+            outgoingCount.sum(), outgoingBytes.sum(), encodeLatency.snapshot(), decodeLatency.snapshot(), age.snapshot());
+    }
+
+    /**
+     * The values of a MessageTypeMetrics at one point in time
+     */
+    public static class Snapshot {
+        private final String messageType;
+        private final long takenNanos;
+        private final long incomingCount;
+        private final long incomingBytes;
+        private final long outgoingCount;
+        private final long outgoingBytes;
+        private final LatencyHistogram.Snapshot encodeLatency;
+        private final LatencyHistogram.Snapshot decodeLatency;
+        private final LatencyHistogram.Snapshot age;
+
+        private Snapshot(String messageType, long takenNanos, long incomingCount, long incomingBytes,
+            long outgoingCount, long outgoingBytes, LatencyHistogram.Snapshot encodeLatency,
+            LatencyHistogram.Snapshot decodeLatency, LatencyHistogram.Snapshot age) {
+            this.messageType = messageType;
+            this.takenNanos = takenNanos;
+            this.incomingCount = incomingCount;
+            this.incomingBytes = incomingBytes;
+            this.outgoingCount = outgoingCount;
+            this.outgoingBytes = outgoingBytes;
+            this.encodeLatency = encodeLatency;
+            this.decodeLatency = decodeLatency;
+            this.age = age;
+        }
+
+        public String getMessageType() {
+            return messageType;
+        }
+
+        /**
+         * @return The System.nanoTime() at which the snapshot was taken
+         */
+        public long getTakenNanos() {
+            return takenNanos;
+        }
+
+        public long getIncomingCount() {
+            return incomingCount;
+        }
+
+        public long getIncomingBytes() {
+            return incomingBytes;
+        }
+
+        public long getOutgoingCount() {
+            return outgoingCount;
+        }
+
+        public long getOutgoingBytes() {
+            return outgoingBytes;
+        }
+
+        public LatencyHistogram.Snapshot getEncodeLatency() {
+            return encodeLatency;
+        }
+
+        public LatencyHistogram.Snapshot getDecodeLatency() {
+            return decodeLatency;
+        }
+
+        public LatencyHistogram.Snapshot getAge() {
+            return age;
+        }
+
+        /**
+         * Summarizes the traffic since an earlier snapshot of the same message type
+         *
+         * @param previous The earlier snapshot or null to summarize all traffic since the start
+         * @return Rates over the interval followed by the latency distributions since the start
+         */
+        public String describeSince(Snapshot previous) {
+            double seconds = previous == null ? 0.0 : (takenNanos - previous.takenNanos) / 1e9;
+            long incoming = incomingCount - (previous == null ? 0 : previous.incomingCount);
+            long outgoing = outgoingCount - (previous == null ? 0 : previous.outgoingCount);
+            long inBytes = incomingBytes - (previous == null ? 0 : previous.incomingBytes);
+            long outBytes = outgoingBytes - (previous == null ? 0 : previous.outgoingBytes);
+            StringBuilder sb = new StringBuilder(messageType);
+            if (seconds > 0.0) {
+                sb.append(String.format(": incoming %.02f Hz (%.0f B/s), outgoing %.02f Hz (%.0f B/s)",
+                    incoming / seconds, inBytes / seconds, outgoing / seconds, outBytes / seconds));
+            } else {
+                sb.append(String.format(": incoming %d (%d B), outgoing %d (%d B)", incoming, inBytes, outgoing, outBytes));
+            }
+            if (decodeLatency.getCount() > 0) {
+                sb.append("; decode ").append(decodeLatency);
+            }
+            if (encodeLatency.getCount() > 0) {
+                sb.append("; encode ").append(encodeLatency);
+            }
+            if (age.getCount() > 0) {
+                sb.append("; age ").append(age);
+            }
+            return sb.toString();
+        }
+    }
+}
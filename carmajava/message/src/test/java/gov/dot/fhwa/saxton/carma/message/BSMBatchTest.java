@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.ByteArray;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageCodecContext;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageContainer;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+import j2735_msgs.BSM;
+
+/**
+ * Checks that the batch BSM encoder and decoder give the same results as the single message ones
+ */
+public class BSMBatchTest {
+
+    static final String BSM_HEX = "00 14 25 03 97 0d 6b 3b 13 39 26 6e 92 6a 1e a6 c1 55 90 00 7f ff 8c cc af ff f0 80 7e fa 1f a1 00 7f ff 08 00 4b 09 b0";
+
+    SaxtonLogger mockLogger;
+    ConnectedNode mockNode;
+    MessageFactory messageFactory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+    BSMMessage message;
+
+    @Before
+    public void setup() {
+        mockLogger = mock(SaxtonLogger.class);
+        mockNode = mock(ConnectedNode.class);
+        when(mockNode.getCurrentTime()).thenReturn(Time.fromMillis(0));
+        message = new BSMMessage(mockNode, mockLogger, messageFactory);
+    }
+
+    /**
+     * Builds BSMs which differ in several fields by decoding a known BSM and changing it
+     */
+    List<Message> buildBsms(int count) {
+        List<Message> bsms = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            BSM bsm = (BSM) message.decode(binaryMessage(BSM_HEX)).getMessage();
+            bsm.getCoreData().setMsgCount((byte) i);
+            bsm.getCoreData().setLatitude(bsm.getCoreData().getLatitude() + i * 100);
+            bsm.getCoreData().setSpeed((short) (i * 10));
+            bsm.getCoreData().getAccelSet().setLongitudinal((short) (i - 5));
+            bsms.add(bsm);
+        }
+        return bsms;
+    }
+
+    @Test
+    public void encodeBatchMatchesEncode() {
+        List<Message> bsms = buildBsms(12);
+        List<MessageContainer> batch = message.encodeBatch(bsms);
+        // The batch methods silently fall back to one JNI call per BSM on an asn1c library without them
+        assertTrue("asn1c library is without the batch BSM methods", BSMMessage.isBatchSupported());
+        assertEquals(bsms.size(), batch.size());
+        for(int i = 0; i < bsms.size(); i++) {
+            ByteArray expected = (ByteArray) message.encode(bsms.get(i)).getMessage();
+            ByteArray actual = (ByteArray) batch.get(i).getMessage();
+            assertEquals("ByteArray", batch.get(i).getType());
+            assertEquals("BSM", actual.getMessageType());
+            assertEquals(expected.getContent(), actual.getContent());
+        }
+    }
+
+    @Test
+    public void decodeBatchMatchesDecode() {
+        List<ByteArray> encoded = new ArrayList<>();
+        for(Message bsm : buildBsms(12)) {
+            encoded.add((ByteArray) message.encode(bsm).getMessage());
+        }
+        List<MessageContainer> batch = message.decodeBatch(encoded);
+        assertTrue("asn1c library is without the batch BSM methods", BSMMessage.isBatchSupported());
+        assertEquals(encoded.size(), batch.size());
+        for(int i = 0; i < encoded.size(); i++) {
+            assertEquals("BSM", batch.get(i).getType());
+            assertEquals(message.decode(encoded.get(i)).getMessage(), batch.get(i).getMessage());
+        }
+    }
+
+    @Test
+    public void decodeBatchWithInvalidMessage() {
+        List<ByteArray> encoded = new ArrayList<>();
+        encoded.add(binaryMessage(BSM_HEX));
+        encoded.add(binaryMessage("ff ff ff"));
+        encoded.add(binaryMessage(BSM_HEX));
+        List<MessageContainer> batch = message.decodeBatch(encoded);
+        assertNotNull(batch.get(0).getMessage());
+        assertNull(batch.get(1).getMessage());
+        assertEquals(batch.get(0).getMessage(), batch.get(2).getMessage());
+        assertEquals(0, message.decodeBatch(new ArrayList<>()).size());
+    }
+
+    @Test
+    public void codecContextReusesCodecs() {
+        MessageCodecContext context = new MessageCodecContext(mockNode, mockLogger, messageFactory);
+        assertSame(context.getCodec("BSM"), context.getCodec("BSM"));
+        assertSame(context.getCodec("BSM"), context.getBSMCodec());
+        assertSame(context.getCodec("MobilityPath"), context.getCodec("MobilityPath"));
+        assertNull(context.getCodec("Unknown"));
+    }
+
+    @Test
+    public void peekTemporaryIdMatchesDecode() {
+        BSM bsm = (BSM) message.decode(binaryMessage(BSM_HEX)).getMessage();
+        ChannelBuffer id = bsm.getCoreData().getId();
+        long expected = 0;
+        for(int i = 0; i < 4; i++) {
+            expected = (expected << 8) | (id.getByte(i) & 0xff);
+        }
+        assertEquals(0x5c35acecL, BSMMessage.peekTemporaryId(getBufferFromHex(BSM_HEX)));
+        assertEquals(expected, BSMMessage.peekTemporaryId(getBufferFromHex(BSM_HEX)));
+        // Re-encoded BSMs from other senders
+        for(Message other : buildBsms(3)) {
+            ((BSM) other).getCoreData().setId(getBufferFromHex("01 02 03 0" + ((BSM) other).getCoreData().getMsgCount()));
+            ChannelBuffer encoded = ((ByteArray) message.encode(other).getMessage()).getContent();
+            assertEquals(0x01020300L + ((BSM) other).getCoreData().getMsgCount(), BSMMessage.peekTemporaryId(encoded));
+        }
+        assertEquals(-1, BSMMessage.peekTemporaryId(getBufferFromHex("00 14 05 03")));
+    }
+
+    ByteArray binaryMessage(String hex) {
+        ByteArray msg = messageFactory.newFromType(ByteArray._TYPE);
+        msg.setMessageType("BSM");
+        msg.setContent(getBufferFromHex(hex));
+        return msg;
+    }
+
+    ChannelBuffer getBufferFromHex(String hex) {
+        byte[] rawBytes = DatatypeConverter.parseHexBinary(hex.replaceAll("[^A-Fa-f0-9]", ""));
+        return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, rawBytes);
+    }
+}
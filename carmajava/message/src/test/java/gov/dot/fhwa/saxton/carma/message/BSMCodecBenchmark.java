@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.ByteArray;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.DSRCMessageFactory;
+import gov.dot.fhwa.saxton.carma.message.factory.IMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageCodecContext;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+import j2735_msgs.BSM;
+
+/**
+ * Compares the throughput and allocation of BSM encoding and decoding when a new codec is
+ * built for every message, when a codec context is reused, and when BSMs are batched.
+ * <p>
+ * Each rate is simulated as one second of traffic, so a rate of 100 BSMs per second is
+ * measured as repeated batches of 100 BSMs.
+ * Ignored in CI as the results depend on the machine it is run on.
+ */
+@Ignore("Ignore benchmark in CI system")
+public class BSMCodecBenchmark {
+
+    private static final int[] RATES = {10, 100, 1000}; // BSMs per second
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    private interface IRun {
+        void run(List<Message> plain, List<ByteArray> encoded);
+    }
+
+    private SaxtonLogger logger;
+    private ConnectedNode node;
+    private MessageFactory messageFactory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+    private MessageCodecContext context;
+
+    @Before
+    public void setup() {
+        logger = mock(SaxtonLogger.class, Mockito.withSettings().stubOnly());
+        node = mock(ConnectedNode.class, Mockito.withSettings().stubOnly());
+        when(node.getCurrentTime()).thenReturn(Time.fromMillis(0));
+        context = new MessageCodecContext(node, logger, messageFactory);
+    }
+
+    @Test
+    public void benchmarkEncode() {
+        benchmark("Encode", "Per message", (plain, encoded) -> {
+            for(Message bsm : plain) {
+                DSRCMessageFactory.getMessage("BSM", node, logger, messageFactory).encode(bsm);
+            }
+        });
+        benchmark("Encode", "Context", (plain, encoded) -> {
+            IMessage<?> codec = context.getCodec("BSM");
+            for(Message bsm : plain) {
+                codec.encode(bsm);
+            }
+        });
+        benchmark("Encode", "Batch", (plain, encoded) -> context.getBSMCodec().encodeBatch(plain));
+    }
+
+    @Test
+    public void benchmarkDecode() {
+        benchmark("Decode", "Per message", (plain, encoded) -> {
+            for(ByteArray bsm : encoded) {
+                DSRCMessageFactory.getMessage("BSM", node, logger, messageFactory).decode(bsm);
+            }
+        });
+        benchmark("Decode", "Context", (plain, encoded) -> {
+            IMessage<?> codec = context.getCodec("BSM");
+            for(ByteArray bsm : encoded) {
+                codec.decode(bsm);
+            }
+        });
+        benchmark("Decode", "Batch", (plain, encoded) -> context.getBSMCodec().decodeBatch(encoded));
+    }
+
+    private void benchmark(String operation, String path, IRun run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for(int rate : RATES) {
+            List<Message> plain = buildBsms(rate);
+            List<ByteArray> encoded = new ArrayList<>();
+            for(Message bsm : plain) {
+                encoded.add((ByteArray) context.getCodec("BSM").encode(bsm).getMessage());
+            }
+
+            for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+                run.run(plain, encoded);
+            }
+            long startBytes = threads.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+            for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+                run.run(plain, encoded);
+            }
+            long elapsed = System.nanoTime() - startTime;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - startBytes;
+            long messages = (long) rate * MEASURED_ITERATIONS;
+            System.out.println(String.format("%s %s at %d BSMs/s: %.0f BSMs/s throughput, %.0f bytes allocated per BSM",
+                operation, path, rate, messages / (elapsed / 1e9), (double) allocated / messages));
+        }
+    }
+
+    private List<Message> buildBsms(int count) {
+        BSMMessage codec = context.getBSMCodec();
+        List<Message> bsms = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            ByteArray binary = messageFactory.newFromType(ByteArray._TYPE);
+            binary.setMessageType("BSM");
+            binary.setContent(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN,
+                DatatypeConverter.parseHexBinary(BSMBatchTest.BSM_HEX.replaceAll(" ", ""))));
+            BSM bsm = (BSM) codec.decode(binary).getMessage();
+            bsm.getCoreData().setMsgCount((byte) (i % 128));
+            bsm.getCoreData().setSecMark((short) (i % 60000));
+            bsms.add(bsm);
+        }
+        return bsms;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.ByteArray;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.IMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageContainer;
+import gov.dot.fhwa.saxton.carma.message.factory.MobilityPathMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MobilityRequestMessage;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+import j2735_msgs.BSM;
+
+/**
+ * Checks that the direct buffer codec path gives byte identical results to the byte array path
+ * over a corpus of recorded BSM, MobilityPath and MobilityRequest payloads
+ */
+public class DirectBufferCodecTest {
+
+    // The BSM recorded in BSMBatchTest with its wheel brakes set to unavailable, since BSMMessageHelper
+    // encodes every wheel brake state other than all on or all off as unavailable
+    static final List<String> BSM_CORPUS = Arrays.asList(
+            "00 14 25 03 97 0d 6b 3b 13 39 26 6e 92 6a 1e a6 c1 55 90 00 7f ff 8c cc af ff f0 80 7e fa 1f a1 00 7f ff 10 00"
+            + " 4b 09 b0");
+
+    // MobilityPath payloads without and with trajectory offsets, as recorded in MobilityPathTest
+    static final List<String> MOBILITY_PATH_CORPUS = Arrays.asList(
+            "00 f2 61 4d 5a 71 27 d4 5a d1 ab 16 0c 02 dd d6 2c 20 c2 87 12 2c 66 2c 58 b1 62 c5 8b 15 ac 99 32 64 b5 9b"
+            + " 36 6c d6 c1 83 06 0a d6 2c 58 b1 62 c5 8b 16 2c 58 b1 60 c1 83 06 0c 18 30 60 c1 8b 26 6d 1a b6 6e e1 ca"
+            + " 60 ca 83 44 c1 95 06 89 83 2a 0d 18 30 60 c1 83 06 0c 18 30 60 c1 83 06 0c 18 30 60 00",
+            "00 f2 6c 4d 5a 71 27 d4 5a d1 ab 16 0c 02 dd d6 2c 20 c2 87 12 2c 66 2c 58 b1 62 c5 8b 15 ac 99 32 64 b5 9b"
+            + " 36 6c d6 c1 83 06 0a d6 2c 58 b1 62 c5 8b 16 2c 58 b1 60 c1 83 06 0c 18 30 60 c1 8b 26 6d 1a b6 6e e1 ca"
+            + " 60 ca 83 44 c1 95 06 89 83 2a 0d 18 30 60 c1 83 06 0c 18 30 60 c1 83 06 0c 18 30 60 1b fc ff 3f d0 44 11"
+            + " 04 41 10 6c 24");
+
+    // MobilityRequest payloads without and with optional fields, as recorded in MobilityRequestDecodeTest
+    static final List<String> MOBILITY_REQUEST_CORPUS = Arrays.asList(
+            "00 f0 80 83 4d 5a 71 27 d4 5a d1 ab 16 0c 02 dd d6 2c 20 c2 87 12 2c 66 2c 58 b1 62 c5 8b 15 ac 99 32 64 b5"
+            + " 9b 36 6c d6 c1 83 06 0a d6 2c 58 b1 62 c5 8b 16 2c 58 b1 60 c1 83 06 0c 18 30 60 c1 8b 26 6d 1a b6 6e e1 c8"
+            + " 3a 1e 1e 5b 70 af a1 b3 0f 4d fb f7 69 dd 9c 3e 74 c2 a4 4a e9 85 b5 17 93 0c 43 32 b0 60 c1 83 06 0c 18 30"
+            + " 60 c1 83 06 0c 18 30 60 c0 8c 1a 51 d8 ba 6a b9 82 c4 10 69 47 64 e9 8b 65 cc 00",
+            "00 f0 81 91 4d 5a 71 27 d4 5a d1 ab 16 0c 02 dd d6 2c 20 c2 87 12 2c 66 2c 58 b1 62 c5 8b 15 ac 99 32 64 b5"
+            + " 9b 36 6c d6 c1 83 06 0a d6 2c 58 b1 62 c5 8b 16 2c 58 b1 60 c1 83 06 0c 18 30 60 c1 8b 26 6d 1a b6 6e e1 cf"
+            + " 3a 1e 1e 5b 70 af a1 b3 0f 4d fb f7 69 dd 9c 3e 74 c2 a4 4a e9 85 b5 17 93 0c 43 32 b0 60 c1 83 06 0c 18 30"
+            + " 60 c1 83 06 0c 18 30 60 c0 8c 1a 51 d8 ba 6a b9 82 c4 10 69 47 64 e9 8b 65 cc 13 06 54 4c 26 0c a8 98 4c 19"
+            + " 51 30 c1 83 06 0c 18 30 60 c1 83 06 0c 18 30 60 c1 83 5f 1f 47 d1 f4 7d 5f 57 d5 f6 7d 9f 67 dd f7 7d df 87"
+            + " e1 f8 7e 5f 97 e5 fa 7e 9f a7 ed fb 7e df c7 f1 fc 7f 5f d7 f5 fe 7f 9f e7 fd ff 7f e0 08 02 00 80 60 18 06"
+            + " 02 80 a0 28 0e 03 80 e0 48 12 04 81 60 58 16 06 81 a0 68 1e 07 81 e0 88 22 08 82 60 98 26 0a 82 a0 a8 2e 0b"
+            + " 82 e0 c8 32 0c 83 60 d8 36 0e 83 a0 e8 3e 0f 83 e1 08 42 10 84 61 18 46 12 84 a1 28 4e 13 84 e1 48 52 14 85"
+            + " 61 58 56 16 85 a1 68 5e 17 85 e1 88 62 18 86 61 98 66 1a 86 a1 a8 6e 1b 86 e1 c8 72 1c 87 61 d8 76 1e 87 a1"
+            + " e8 7e 1f 87 e2 08 82 20 88 62 18 86 22 88 a2 28 8e 23 88 e2 48 92 24 89 62 58 96 26 89 a2 68 9e 27 89 e2 88"
+            + " a2 28 8a 62 98 a6 2a 8a a2 a8 ae 2b 8a e2 c8 b2 2c 8b 62 d8 b6 2e 8b a2 e8 be 2f 8b d8 30 60 c1 83 06 0c 18"
+            + " 30 60 c1 83 06 0c 18 38 64");
+
+    SaxtonLogger mockLogger;
+    ConnectedNode mockNode;
+    MessageFactory messageFactory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+    BSMMessage arrayBsm;
+    BSMMessage directBsm;
+    MobilityPathMessage arrayPath;
+    MobilityPathMessage directPath;
+    MobilityRequestMessage arrayRequest;
+    MobilityRequestMessage directRequest;
+
+    @Before
+    public void setup() {
+        mockLogger = mock(SaxtonLogger.class);
+        mockNode = mock(ConnectedNode.class);
+        when(mockNode.getCurrentTime()).thenReturn(Time.fromMillis(0));
+        arrayBsm = new BSMMessage(mockNode, mockLogger, messageFactory);
+        arrayBsm.setDirectBuffersEnabled(false);
+        directBsm = new BSMMessage(mockNode, mockLogger, messageFactory);
+        arrayPath = new MobilityPathMessage(mockLogger, messageFactory);
+        arrayPath.setDirectBuffersEnabled(false);
+        directPath = new MobilityPathMessage(mockLogger, messageFactory);
+        arrayRequest = new MobilityRequestMessage(mockLogger, messageFactory);
+        arrayRequest.setDirectBuffersEnabled(false);
+        directRequest = new MobilityRequestMessage(mockLogger, messageFactory);
+    }
+
+    @Test
+    public void bsmRoundTripMatchesArrayPath() {
+        for(String hex : BSM_CORPUS) {
+            checkRoundTrip(arrayBsm, directBsm, "BSM", hex);
+        }
+        // The direct path silently falls back to byte arrays on an asn1c library without it
+        assertTrue("asn1c library is without the direct buffer BSM methods", BSMMessage.isDirectSupported());
+    }
+
+    @Test
+    public void mobilityPathRoundTripMatchesArrayPath() {
+        for(String hex : MOBILITY_PATH_CORPUS) {
+            checkRoundTrip(arrayPath, directPath, "MobilityPath", hex);
+        }
+        assertTrue("asn1c library is without the direct buffer MobilityPath methods", MobilityPathMessage.isDirectSupported());
+    }
+
+    @Test
+    public void mobilityRequestRoundTripMatchesArrayPath() {
+        for(String hex : MOBILITY_REQUEST_CORPUS) {
+            checkRoundTrip(arrayRequest, directRequest, "MobilityRequest", hex);
+        }
+        assertTrue("asn1c library is without the direct buffer MobilityRequest methods", MobilityRequestMessage.isDirectSupported());
+    }
+
+    @Test
+    public void directDecodeWithInvalidMessage() {
+        assertNull(directBsm.decode(binaryMessage("BSM", heapBuffer("ff ff ff"))).getMessage());
+        assertNull(directBsm.decode(binaryMessage("BSM", directBuffer("ff ff ff"))).getMessage());
+        assertNull(directPath.decode(binaryMessage("MobilityPath", directBuffer("ff ff ff"))).getMessage());
+        assertNull(directRequest.decode(binaryMessage("MobilityRequest", directBuffer("ff ff ff"))).getMessage());
+        // A well formed BSM is not a MobilityRequest
+        assertNull(arrayRequest.decode(binaryMessage("MobilityRequest", heapBuffer(BSM_CORPUS.get(0)))).getMessage());
+        assertNull(directRequest.decode(binaryMessage("MobilityRequest", directBuffer(BSM_CORPUS.get(0)))).getMessage());
+        // A well formed MessageFrame of another type is not a BSM
+        ChannelBuffer request = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, MessageConsumerTest.MOBILITY_REQUEST_FRAME);
+        assertNull(arrayBsm.decode(binaryMessage("BSM", request)).getMessage());
+        assertNull(directBsm.decode(binaryMessage("BSM", request)).getMessage());
+    }
+
+    @Test
+    public void directEncodeOutputsStayValid() {
+        // Encoded messages must not be overwritten by later encodes sharing the same direct memory
+        Message bsm = arrayBsm.decode(binaryMessage("BSM", heapBuffer(BSMBatchTest.BSM_HEX))).getMessage();
+        ChannelBuffer expected = ((ByteArray) arrayBsm.encode(bsm).getMessage()).getContent();
+        ByteArray first = (ByteArray) directBsm.encode(bsm).getMessage();
+        for(int i = 0; i < 1000; i++) {
+            directBsm.encode(bsm);
+        }
+        assertEquals(expected, first.getContent());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, first.getContent().order());
+        assertTrue(BSMMessage.isDirectSupported());
+    }
+
+    @Test
+    public void directBatchEncodeMatchesArrayPath() {
+        List<Message> bsms = new ArrayList<>();
+        for(int i = 0; i < 600; i++) {
+            BSM bsm = (BSM) arrayBsm.decode(binaryMessage("BSM", heapBuffer(BSM_CORPUS.get(0)))).getMessage();
+            bsm.getCoreData().setMsgCount((byte) (i % 128));
+            bsm.getCoreData().setSpeed((short) i);
+            bsms.add(bsm);
+        }
+        // The batch is larger than one direct chunk
+        List<MessageContainer> expected = arrayBsm.encodeBatch(bsms);
+        List<MessageContainer> actual = directBsm.encodeBatch(bsms);
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); i++) {
+            ChannelBuffer content = ((ByteArray) actual.get(i).getMessage()).getContent();
+            assertEquals(((ByteArray) expected.get(i).getMessage()).getContent(), content);
+            assertTrue(content.isDirect());
+            assertEquals(ByteOrder.LITTLE_ENDIAN, content.order());
+        }
+        assertTrue(BSMMessage.isDirectSupported());
+    }
+
+    /**
+     * Decodes a recorded payload from heap and direct memory, then encodes it again,
+     * checking both paths agree with each other and with the recording
+     */
+    private void checkRoundTrip(IMessage<?> array, IMessage<?> direct, String type, String hex) {
+        MessageContainer expectedDecode = array.decode(binaryMessage(type, heapBuffer(hex)));
+        assertNotNull(expectedDecode.getMessage());
+        assertEquals(expectedDecode.getMessage(), direct.decode(binaryMessage(type, heapBuffer(hex))).getMessage());
+        assertEquals(expectedDecode.getMessage(), direct.decode(binaryMessage(type, directBuffer(hex))).getMessage());
+
+        ChannelBuffer arrayEncoded = ((ByteArray) array.encode(expectedDecode.getMessage()).getMessage()).getContent();
+        ChannelBuffer directEncoded = ((ByteArray) direct.encode(expectedDecode.getMessage()).getMessage()).getContent();
+        assertEquals(heapBuffer(hex), arrayEncoded);
+        assertEquals(arrayEncoded, directEncoded);
+    }
+
+    ByteArray binaryMessage(String type, ChannelBuffer content) {
+        ByteArray msg = messageFactory.newFromType(ByteArray._TYPE);
+        msg.setMessageType(type);
+        msg.setContent(content);
+        return msg;
+    }
+
+    ChannelBuffer heapBuffer(String hex) {
+        return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, parseHex(hex));
+    }
+
+    ChannelBuffer directBuffer(String hex) {
+        byte[] rawBytes = parseHex(hex);
+        ByteBuffer direct = ByteBuffer.allocateDirect(rawBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(rawBytes).flip();
+        return ChannelBuffers.wrappedBuffer(direct);
+    }
+
+    byte[] parseHex(String hex) {
+        return DatatypeConverter.parseHexBinary(hex.replaceAll("[^A-Fa-f0-9]", ""));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.message.helper.LatencyHistogram;
+
+/**
+ * Runs unit tests for the LatencyHistogram class
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0.0, snapshot.getMean(), 0.0);
+        assertEquals(0, snapshot.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 0; v < 64; v++) {
+            histogram.record(v);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(64, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        assertEquals(31, snapshot.getValueAtPercentile(50));
+        assertEquals(63, snapshot.getValueAtPercentile(100));
+        assertEquals(1, snapshot.getCountBetween(40, 40));
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        final int n = 100000;
+        for (long v = 1; v <= n; v++) {
+            histogram.record(v * 1000); // 1 us to 100 ms
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(n, snapshot.getCount());
+        assertEquals(n * 1000L, snapshot.getMax());
+        assertEquals((n + 1) / 2.0 * 1000, snapshot.getMean(), 1e-6);
+        double[] percentiles = { 50, 90, 99, 99.9, 100 };
+        for (double p : percentiles) {
+            long exact = (long) Math.ceil(p / 100.0 * n) * 1000;
+            long value = snapshot.getValueAtPercentile(p);
+            assertTrue(p + ": " + value + " < " + exact, value >= exact);
+            assertTrue(p + ": " + value + " > " + exact, value <= exact * 1.035);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, snapshot.getMax());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNoSamples() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int numThreads = 8;
+        final int samplesPerThread = 200000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean recording = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            // Each thread records values in its own range so the counts of each range can be checked
+            final long base = (t + 1) * 1000000L;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < samplesPerThread; i++) {
+                    histogram.record(base + i % 1000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Snapshots taken while recording never go backwards
+        Thread reader = new Thread(() -> {
+            long lastCount = 0;
+            while (recording.get()) {
+                long count = histogram.snapshot().getCount();
+                if (count < lastCount) {
+                    throw new AssertionError("Snapshot count went from " + lastCount + " to " + count);
+                }
+                lastCount = count;
+            }
+        });
+        reader.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recording.set(false);
+        reader.join();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) numThreads * samplesPerThread, snapshot.getCount());
+        for (int t = 0; t < numThreads; t++) {
+            long base = (t + 1) * 1000000L;
+            assertEquals(samplesPerThread, snapshot.getCountBetween(base, base + 999));
+        }
+        assertEquals(numThreads * 1000000L + 999, snapshot.getMax());
+        double expectedMean = 0;
+        for (int t = 0; t < numThreads; t++) {
+            expectedMean += (t + 1) * 1000000.0 + 499.5;
+        }
+        assertEquals(expectedMean / numThreads, snapshot.getMean(), 1e-6);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.topic.Publisher;
+
+import cav_msgs.ByteArray;
+import cav_msgs.MobilityRequest;
+import gov.dot.fhwa.saxton.carma.message.MessageLane.OverflowPolicy;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.IMessage;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageCodecContext;
+import gov.dot.fhwa.saxton.carma.message.factory.MessageContainer;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+import j2735_msgs.BSM;
+
+/**
+ * Runs unit tests for decoding and publishing in the MessageConsumer class
+ */
+public class MessageConsumerTest {
+
+    // A MobilityRequest MessageFrame, which is well formed but not a BSM
+    static final byte[] MOBILITY_REQUEST_FRAME = {0, -16, -128, -125, 77, 90, 113, 39, -44, 90, -47, -85, 22, 12, 2, -35,
+                                                  -42, 44, 32, -62, -121, 18, 44, 102, 44, 88, -79, 98, -59, -117, 21, -84,
+                                                  -103, 50, 100, -75, -101, 54, 108, -42, -63, -125, 6, 10, -42, 44, 88, -79,
+                                                  98, -59, -117, 22, 44, 88, -79, 96, -63, -125, 6, 12, 24, 48, 96, -63, -117,
+                                                  38, 109, 26, -74, 110, -31, -56, 58, 30, 30, 91, 112, -81, -95, -77, 15, 77,
+                                                  -5, -9, 105, -35, -100, 62, 116, -62, -92, 74, -23, -123, -75, 23, -109, 12,
+                                                  67, 50, -80, 96, -63, -125, 6, 12, 24, 48, 96, -63, -125, 6, 12, 24, 48, 96,
+                                                  -64, -116, 26, 81, -40, -70, 106, -71, -126, -60, 16, 105, 71, 100, -23, -117, 101, -52, 0};
+
+    SaxtonLogger mockLogger;
+    ConnectedNode mockNode;
+    Publisher<BSM> mockBsmPub;
+    MessageFactory messageFactory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+    BSMMessage reference;
+    BSMMessage bsmCodec;
+    MessageCodecContext codecs;
+    MessageConsumer consumer;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setup() {
+        mockLogger = mock(SaxtonLogger.class);
+        mockNode = mock(ConnectedNode.class);
+        when(mockNode.getCurrentTime()).thenReturn(Time.fromMillis(0));
+        mockBsmPub = mock(Publisher.class);
+        reference = new BSMMessage(mockNode, mockLogger, messageFactory);
+        bsmCodec = spy(new BSMMessage(mockNode, mockLogger, messageFactory));
+        codecs = mock(MessageCodecContext.class);
+        when(codecs.getBSMCodec()).thenReturn(bsmCodec);
+        when(codecs.getCodec("BSM")).thenReturn(bsmCodec);
+        consumer = new MessageConsumer();
+        consumer.connectedNode_ = mockNode;
+        consumer.log_ = mockLogger;
+        consumer.bsmPub_ = mockBsmPub;
+    }
+
+    @Test
+    public void decodeAndPublishMixedBsmBatch() {
+        BSM other = (BSM) reference.decode(binaryMessage(getBufferFromHex(BSMBatchTest.BSM_HEX))).getMessage();
+        other.getCoreData().setId(getBufferFromHex("01 02 03 04"));
+        other.getCoreData().setSpeed((short) 500);
+        ChannelBuffer otherEncoded = ((ByteArray) reference.encode(other).getMessage()).getContent();
+
+        List<ByteArray> batch = new ArrayList<>();
+        batch.add(binaryMessage(getBufferFromHex(BSMBatchTest.BSM_HEX)));
+        batch.add(binaryMessage(getBufferFromHex("ff ff ff")));
+        batch.add(binaryMessage(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, MOBILITY_REQUEST_FRAME)));
+        batch.add(binaryMessage(otherEncoded));
+        consumer.decodeAndPublish(batch, codecs);
+
+        // The lane batch is decoded with one call and only the valid BSMs are published, in order
+        assertTrue("asn1c library is without the batch BSM methods", BSMMessage.isBatchSupported());
+        verify(bsmCodec, times(1)).decodeBatch(batch);
+        verify(bsmCodec, never()).decode(any(ByteArray.class));
+        ArgumentCaptor<BSM> published = ArgumentCaptor.forClass(BSM.class);
+        verify(mockBsmPub, times(2)).publish(published.capture());
+        assertEquals(reference.decode(batch.get(0)).getMessage(), published.getAllValues().get(0));
+        assertEquals(reference.decode(batch.get(3)).getMessage(), published.getAllValues().get(1));
+        assertEquals(500, published.getAllValues().get(1).getCoreData().getSpeed());
+        assertEquals(batch.size(), consumer.metrics_.get("BSM").snapshot().getDecodeLatency().getCount());
+    }
+
+    @Test
+    public void lanesUseTheOverflowPolicyOfTheirType() {
+        consumer.laneCapacity_ = 1;
+        consumer.bsmLaneCapacity_ = 1;
+        consumer.laneOverflowPolicy_ = OverflowPolicy.DROP_NEWEST;
+        consumer.bsmLaneOverflowPolicy_ = OverflowPolicy.DROP_OLDEST;
+        MessageLane<String> requestLane = consumer.newLane("Test", "MobilityRequest", null, () -> (List<String> batch) -> {});
+        MessageLane<String> bsmLane = consumer.newLane("Test", "BSM", null, () -> (List<String> batch) -> {});
+        assertTrue(requestLane.offer("first"));
+        assertFalse(requestLane.offer("second"));
+        assertTrue(bsmLane.offer("first"));
+        assertTrue(bsmLane.offer("second"));
+        assertEquals(1, requestLane.getNumDropped());
+        assertEquals(1, bsmLane.getNumDropped());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void bsmFloodDoesNotDelayMobilityRequests() throws InterruptedException {
+        final int REQUESTS = 20;
+        final int BSMS_PER_REQUEST = 250;
+        final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(1);
+        final long[] offerTimes = new long[REQUESTS];
+        final AtomicLong maxLatency = new AtomicLong();
+        CountDownLatch releaseBsmLane = new CountDownLatch(1);
+
+        // BSM decoding blocks so the BSM lane is stuck for the whole flood
+        BSMMessage blockedBsmCodec = mock(BSMMessage.class);
+        when(blockedBsmCodec.decodeBatch(anyList())).thenAnswer(inv -> {
+            releaseBsmLane.await(10, TimeUnit.SECONDS);
+            List<MessageContainer> decoded = new ArrayList<>();
+            for(int i = 0; i < ((List<ByteArray>) inv.getArgument(0)).size(); i++) {
+                decoded.add(new MessageContainer("BSM", null));
+            }
+            return decoded;
+        });
+        // Each request carries its index so the time it waited in its lane can be measured
+        IMessage<MobilityRequest> requestCodec = new IMessage<MobilityRequest>() {
+            @Override
+            public MessageContainer encode(Message plainMessage) {
+                return new MessageContainer("ByteArray", null);
+            }
+
+            @Override
+            public MessageContainer decode(ByteArray binaryMessage) {
+                long latency = System.nanoTime() - offerTimes[binaryMessage.getContent().getByte(0)];
+                maxLatency.accumulateAndGet(latency, Math::max);
+                return new MessageContainer("MobilityRequest", messageFactory.newFromType(MobilityRequest._TYPE));
+            }
+        };
+        MessageCodecContext floodCodecs = mock(MessageCodecContext.class);
+        when(floodCodecs.getBSMCodec()).thenReturn(blockedBsmCodec);
+        when(floodCodecs.getCodec("MobilityRequest")).thenReturn((IMessage) requestCodec);
+
+        MessageConsumer floodedConsumer = new MessageConsumer() {
+            @Override
+            protected MessageCodecContext newCodecContext() {
+                return floodCodecs;
+            }
+        };
+        floodedConsumer.connectedNode_ = mockNode;
+        floodedConsumer.log_ = mockLogger;
+        floodedConsumer.mobilityReqPub_ = mock(Publisher.class);
+        floodedConsumer.startLanes();
+        try {
+            for(int i = 0; i < REQUESTS; i++) {
+                for(int j = 0; j < BSMS_PER_REQUEST; j++) {
+                    floodedConsumer.onInboundMessage(binaryMessage(getBufferFromHex("ff ff ff")));
+                }
+                ByteArray request = binaryMessage(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, new byte[] {(byte) i}));
+                request.setMessageType("MobilityRequest");
+                offerTimes[i] = System.nanoTime();
+                floodedConsumer.onInboundMessage(request);
+            }
+
+            // Every request is delivered by its own lane while the BSM lane is still blocked
+            MessageLane<ByteArray> requestLane = floodedConsumer.inboundLanes_.get("MobilityRequest");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while(requestLane.getNumProcessed() < REQUESTS && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(REQUESTS, requestLane.getNumProcessed());
+            assertEquals(0, requestLane.getNumDropped());
+            verify(floodedConsumer.mobilityReqPub_, times(REQUESTS)).publish(any(MobilityRequest.class));
+            assertTrue("MobilityRequest waited " + maxLatency.get() + " ns", maxLatency.get() < MAX_LATENCY_NANOS);
+            MessageLane<ByteArray> bsmLane = floodedConsumer.inboundLanes_.get("BSM");
+            assertEquals(0, bsmLane.getNumProcessed());
+            assertTrue(bsmLane.getNumDropped() > 0);
+        } finally {
+            releaseBsmLane.countDown();
+            floodedConsumer.onShutdown(mock(Node.class));
+        }
+    }
+
+    ByteArray binaryMessage(ChannelBuffer content) {
+        ByteArray msg = messageFactory.newFromType(ByteArray._TYPE);
+        msg.setMessageType("BSM");
+        msg.setContent(content);
+        return msg;
+    }
+
+    ChannelBuffer getBufferFromHex(String hex) {
+        byte[] rawBytes = DatatypeConverter.parseHexBinary(hex.replaceAll("[^A-Fa-f0-9]", ""));
+        return ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, rawBytes);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.message.MessageLane.OverflowPolicy;
+
+/**
+ * Runs unit tests for the MessageLane class
+ */
+public class MessageLaneTest {
+
+    // A message from a sender
+    private static class TestMessage {
+        final String sender;
+        final int value;
+
+        TestMessage(String sender, int value) {
+            this.sender = sender;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return sender + value;
+        }
+    }
+
+    private final List<MessageLane<?>> lanes = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (MessageLane<?> lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Creates a lane whose handler records the messages it handles
+     */
+    private MessageLane<TestMessage> newLane(int capacity, OverflowPolicy policy, boolean coalesce, List<String> handled) {
+        MessageLane<TestMessage> lane = new MessageLane<>("Test", capacity, 1, policy,
+            coalesce ? (TestMessage m) -> m.sender : null,
+            () -> (List<TestMessage> batch) -> {
+                for (TestMessage m : batch) {
+                    handled.add(m.toString());
+                }
+            });
+        lanes.add(lane);
+        return lane;
+    }
+
+    @Test
+    public void testHandlesInOrder() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        MessageLane<TestMessage> lane = newLane(1000, OverflowPolicy.DROP_OLDEST, false, handled);
+        lane.start();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            assertTrue(lane.offer(new TestMessage("a", i)));
+            expected.add("a" + i);
+        }
+        assertTrue(waitForCount(() -> lane.getNumProcessed(), 500));
+        assertEquals(expected, handled);
+        assertEquals(0, lane.getQueueDepth());
+        assertEquals(500, lane.getNumOffered());
+        assertEquals(0, lane.getNumDropped());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        MessageLane<TestMessage> lane = newLane(3, OverflowPolicy.DROP_OLDEST, false, handled);
+        // Offered before the workers start so the queue fills
+        for (int i = 0; i < 5; i++) {
+            assertTrue(lane.offer(new TestMessage("a", i)));
+        }
+        assertEquals(3, lane.getQueueDepth());
+        assertEquals(3, lane.getMaxQueueDepth());
+        assertEquals(2, lane.getNumDropped());
+        lane.start();
+        assertTrue(waitForCount(() -> lane.getNumProcessed(), 3));
+        assertEquals(Arrays.asList("a2", "a3", "a4"), handled);
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        MessageLane<TestMessage> lane = newLane(3, OverflowPolicy.DROP_NEWEST, false, handled);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(lane.offer(new TestMessage("a", i)));
+        }
+        assertFalse(lane.offer(new TestMessage("a", 3)));
+        assertEquals(1, lane.getNumDropped());
+        lane.start();
+        assertTrue(waitForCount(() -> lane.getNumProcessed(), 3));
+        assertEquals(Arrays.asList("a0", "a1", "a2"), handled);
+    }
+
+    @Test
+    public void testCoalesceBySender() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        MessageLane<TestMessage> lane = newLane(2, OverflowPolicy.DROP_OLDEST, true, handled);
+        lane.offer(new TestMessage("a", 0));
+        lane.offer(new TestMessage("b", 0));
+        lane.offer(new TestMessage("a", 1)); // Replaces a0 in place
+        lane.offer(new TestMessage("b", 1)); // Replaces b0 in place
+        assertEquals(2, lane.getQueueDepth());
+        assertEquals(2, lane.getNumCoalesced());
+        assertEquals(0, lane.getNumDropped());
+        lane.offer(new TestMessage("c", 0)); // Full, so a1 is dropped
+        assertEquals(1, lane.getNumDropped());
+        lane.offer(new TestMessage("a", 2)); // a is no longer queued, so b1 is dropped
+        assertEquals(2, lane.getNumDropped());
+        lane.start();
+        assertTrue(waitForCount(() -> lane.getNumProcessed(), 2));
+        assertEquals(Arrays.asList("c0", "a2"), handled);
+    }
+
+    @Test
+    public void testHandlerExceptionDoesNotStopLane() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        MessageLane<TestMessage> lane = new MessageLane<>("Test", 10, 1, OverflowPolicy.DROP_OLDEST, null,
+            () -> (List<TestMessage> batch) -> {
+                for (TestMessage m : batch) {
+                    if (m.value < 0) {
+                        throw new IllegalStateException("Bad message");
+                    }
+                    handled.add(m.toString());
+                }
+            });
+        lanes.add(lane);
+        // Offered before the workers start so they are handled as one batch which fails part way through
+        lane.offer(new TestMessage("a", 0));
+        lane.offer(new TestMessage("a", -1));
+        lane.offer(new TestMessage("a", 1));
+        lane.start();
+        assertTrue(waitForCount(() -> lane.getNumFailed(), 3));
+        assertEquals(0, lane.getNumProcessed());
+        lane.offer(new TestMessage("a", 2));
+        assertTrue(waitForCount(() -> lane.getNumProcessed(), 1));
+        assertEquals(3, lane.getNumFailed());
+        assertEquals(Arrays.asList("a0", "a2"), handled);
+    }
+
+    /**
+     * Blocks the BSM lane with a full queue, with the same lane configuration the MessageConsumer uses,
+     * and checks that MobilityRequests are still handled. Without separate lanes each MobilityRequest
+     * would wait behind every queued BSM.
+     */
+    @Test
+    public void testBsmFloodDoesNotDelayMobilityRequests() throws Exception {
+        final int numSenders = 200;
+        final int numRounds = 5;
+        final int numRequests = 100;
+
+        CountDownLatch bsmStarted = new CountDownLatch(1);
+        CountDownLatch releaseBsm = new CountDownLatch(1);
+        MessageLane<TestMessage> bsmLane = new MessageLane<>("BSM", 500, 1, OverflowPolicy.DROP_OLDEST,
+            (TestMessage m) -> m.sender,
+            () -> (List<TestMessage> batch) -> {
+                bsmStarted.countDown();
+                try {
+                    releaseBsm.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch requestsHandled = new CountDownLatch(numRequests);
+        MessageLane<TestMessage> requestLane = new MessageLane<>("MobilityRequest", 100, 1, OverflowPolicy.DROP_OLDEST, null,
+            () -> (List<TestMessage> batch) -> {
+                for (TestMessage m : batch) {
+                    requests.add(m.toString());
+                    requestsHandled.countDown();
+                }
+            });
+        lanes.add(bsmLane);
+        lanes.add(requestLane);
+        bsmLane.start();
+        requestLane.start();
+
+        // Hold the BSM worker in its first batch, then flood the lane with repeated BSMs from every sender
+        bsmLane.offer(new TestMessage("first", 0));
+        assertTrue(bsmStarted.await(5, TimeUnit.SECONDS));
+        for (int round = 0; round < numRounds; round++) {
+            for (int i = 0; i < numSenders; i++) {
+                bsmLane.offer(new TestMessage("sender" + i, round));
+            }
+        }
+        // Only the latest BSM of each sender is kept
+        assertEquals(numSenders, bsmLane.getQueueDepth());
+        assertEquals((numRounds - 1) * numSenders, bsmLane.getNumCoalesced());
+        assertEquals(0, bsmLane.getNumDropped());
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            requestLane.offer(new TestMessage("request", i));
+            expected.add("request" + i);
+        }
+        // Every request is handled while the BSMs are still waiting
+        assertTrue(requestsHandled.await(5, TimeUnit.SECONDS));
+        assertEquals(expected, requests);
+        assertEquals(numSenders, bsmLane.getQueueDepth());
+        assertEquals(0, bsmLane.getNumProcessed());
+        assertEquals(0, requestLane.getNumDropped());
+
+        releaseBsm.countDown();
+        assertTrue(waitForCount(() -> bsmLane.getNumProcessed(), 1 + numSenders));
+    }
+
+    private interface ICounter {
+        long get();
+    }
+
+    /**
+     * Waits up to 5 seconds for a counter to reach the expected value
+     */
+    private boolean waitForCount(ICounter counter, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.get() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        return counter.get() == expected;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.message.helper.MessageMetrics;
+import gov.dot.fhwa.saxton.carma.message.helper.MessageTypeMetrics;
+
+/**
+ * Runs unit tests for the MessageMetrics and MessageTypeMetrics classes
+ */
+public class MessageMetricsTest {
+
+    static final String[] TYPES = { "MobilityRequest", "BSM", "MobilityPath", "MobilityResponse" };
+
+    @Test
+    public void testRecorderPerType() {
+        MessageMetrics metrics = new MessageMetrics();
+        MessageTypeMetrics bsm = metrics.get("BSM");
+        assertSame(bsm, metrics.get("BSM"));
+        assertEquals("BSM", bsm.getMessageType());
+        for (String type : TYPES) {
+            metrics.get(type);
+        }
+        List<MessageTypeMetrics.Snapshot> snapshots = metrics.snapshot();
+        assertEquals(TYPES.length, snapshots.size());
+        assertEquals("BSM", snapshots.get(0).getMessageType());
+        assertEquals("MobilityPath", snapshots.get(1).getMessageType());
+        assertEquals("MobilityRequest", snapshots.get(2).getMessageType());
+        assertEquals("MobilityResponse", snapshots.get(3).getMessageType());
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNoSamples() throws Exception {
+        final MessageMetrics metrics = new MessageMetrics();
+        final int threadsPerType = 4;
+        final int messagesPerThread = 50000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (final String type : TYPES) {
+            for (int t = 0; t < threadsPerType; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < messagesPerThread; i++) {
+                        // Look the recorder up every time, as the MessageConsumer does
+                        MessageTypeMetrics recorder = metrics.get(type);
+                        recorder.onMessageReceiving(10);
+                        recorder.recordDecodeLatency(50000);
+                        recorder.recordAge(i % 1000 * 1000000L);
+                        recorder.onMessageSending(20);
+                        recorder.recordEncodeLatency(100000);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+        }
+
+        start.countDown();
+        MessageTypeMetrics.Snapshot previous = metrics.get("BSM").snapshot();
+        boolean running = true;
+        while (running) {
+            // Snapshots taken during recording only go forward
+            MessageTypeMetrics.Snapshot current = metrics.get("BSM").snapshot();
+            assertTrue(current.getIncomingCount() >= previous.getIncomingCount());
+            assertTrue(current.getDecodeLatency().getCount() >= previous.getDecodeLatency().getCount());
+            assertTrue(current.getTakenNanos() >= previous.getTakenNanos());
+            previous = current;
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long expected = (long) threadsPerType * messagesPerThread;
+        List<MessageTypeMetrics.Snapshot> snapshots = metrics.snapshot();
+        assertEquals(TYPES.length, snapshots.size());
+        for (MessageTypeMetrics.Snapshot snapshot : snapshots) {
+            assertEquals(expected, snapshot.getIncomingCount());
+            assertEquals(expected * 10, snapshot.getIncomingBytes());
+            assertEquals(expected, snapshot.getOutgoingCount());
+            assertEquals(expected * 20, snapshot.getOutgoingBytes());
+            assertEquals(expected, snapshot.getDecodeLatency().getCount());
+            assertEquals(expected, snapshot.getEncodeLatency().getCount());
+            assertEquals(expected, snapshot.getAge().getCount());
+            assertEquals(50000.0, snapshot.getDecodeLatency().getMean(), 0.0);
+            assertEquals(100000.0, snapshot.getEncodeLatency().getMean(), 0.0);
+            assertEquals(999000000L, snapshot.getAge().getMax());
+        }
+    }
+
+    @Test
+    public void testDescribeSince() {
+        MessageTypeMetrics recorder = new MessageTypeMetrics("BSM");
+        MessageTypeMetrics.Snapshot first = recorder.snapshot();
+        assertEquals("BSM: incoming 0 (0 B), outgoing 0 (0 B)", first.describeSince(null));
+        recorder.onMessageReceiving(40);
+        recorder.recordDecodeLatency(2000000);
+        MessageTypeMetrics.Snapshot second = recorder.snapshot();
+        String description = second.describeSince(first);
+        assertTrue(description, description.startsWith("BSM: incoming "));
+        assertTrue(description, description.contains("Hz"));
+        assertTrue(description, description.contains("; decode p50 2.000 ms"));
+        assertTrue(description, !description.contains("encode"));
+        assertEquals("BSM: incoming 1 (40 B), outgoing 0 (0 B); decode p50 2.000 ms, p99 2.000 ms, p99.9 2.000 ms,"
+            + " max 2.000 ms (1 samples)", second.describeSince(null));
+    }
+}
@@ -21,7 +21,6 @@ import cav_msgs.RouteState;
 import cav_msgs.SystemAlert;
 import geometry_msgs.TransformStamped;
 import gov.dot.fhwa.saxton.carma.geometry.GeodesicCartesianConverter;
-import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.QuaternionUtils;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector;
@@ -29,6 +28,7 @@ import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector3D;
 import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 import gov.dot.fhwa.saxton.carma.route.Route;
+import gov.dot.fhwa.saxton.carma.route.RouteGeometry;
 import gov.dot.fhwa.saxton.carma.route.RouteSegment;
 import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
 import gov.dot.fhwa.saxton.carma.route.WorkerState;
@@ -45,9 +45,9 @@ import org.ros.rosjava_geometry.Vector3;
 import std_msgs.Header;
 import tf2_msgs.TFMessage;
 import java.nio.ByteOrder;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * The EnvironmentWorker is responsible for implementing all non pub-sub logic of the EnvironmentManager node
@@ -74,6 +74,67 @@ public class EnvironmentWorker {
   protected RouteState routeState;
   protected double distBackward;
   protected double distForward;
+  // Object lists at least this large are projected in parallel
+  protected int parallelObjectThreshold;
+
+  /**
+   * Values shared by all objects of a single external object message and the projection of each object
+   */
+  protected static final class ObjectProjectionContext {
+    final Route route;
+    final RouteGeometry geometry;
+    final RouteState routeState;
+    final double[] odomToEarthRotation = new double[9];
+    final double[] odomToEarthTranslation = new double[3];
+    final int hostSegIndex;
+    final int firstSegIndex;
+    final int lastSegIndex;
+
+    // Projection of each object into its route segment, indexed by the position of the object in the message
+    // Vector values are stored as consecutive x, y, z triples
+    final int[] segmentIndices;
+    final double[] positions;
+    final double[] downtracks;
+    final double[] velocities;
+    final double[] sizes;
+    final int[] primaryLanes;
+    final byte[][] secondaryLanes;
+
+    ObjectProjectionContext(Route route, RouteState routeState, Transform earthToOdom, int hostSegIndex,
+      int firstSegIndex, int lastSegIndex, int numObjects) {
+      this.route = route;
+      this.geometry = route.getGeometry();
+      this.routeState = routeState;
+      Quaternion rotation = earthToOdom.getRotationAndScale();
+      QuaternionUtils.rotateAndScaleMatrix(rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW(), odomToEarthRotation);
+      Vector3 translation = earthToOdom.getTranslation();
+      odomToEarthTranslation[0] = translation.getX();
+      odomToEarthTranslation[1] = translation.getY();
+      odomToEarthTranslation[2] = translation.getZ();
+      this.hostSegIndex = hostSegIndex;
+      this.firstSegIndex = firstSegIndex;
+      this.lastSegIndex = lastSegIndex;
+      this.segmentIndices = new int[numObjects];
+      this.positions = new double[3 * numObjects];
+      this.downtracks = new double[numObjects];
+      this.velocities = new double[3 * numObjects];
+      this.sizes = new double[3 * numObjects];
+      this.primaryLanes = new int[numObjects];
+      this.secondaryLanes = new byte[numObjects][];
+    }
+  }
+
+  /**
+   * Working storage for projecting a single object, reused by each thread which projects objects
+   */
+  private static final class ProjectionScratch {
+    final Point3D ecefPoint = new Point3D(0.0, 0.0, 0.0);
+    final double[] objRotation = new double[9];
+    final double[] halfSize = new double[3];
+    final double[] axis = new double[3];
+  }
+
+  private static final ThreadLocal<ProjectionScratch> projectionScratch = ThreadLocal.withInitial(ProjectionScratch::new);
 
   /**
    * Constructor
@@ -92,6 +153,28 @@ public class EnvironmentWorker {
   public EnvironmentWorker(IRoadwayManager roadwayMgr, Log log, String earthFrame, String mapFrame,
     String odomFrame, String baseLinkFrame, String globalPositionSensorFrame, String localPositionSensorFrame,
     double distBackward, double distForward) {
+    this(roadwayMgr, log, earthFrame, mapFrame, odomFrame, baseLinkFrame, globalPositionSensorFrame,
+      localPositionSensorFrame, distBackward, distForward, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param roadwayMgr EnvironmentWorker used to publish data and get stored transforms
+   * @param log    Logging object
+   * @param earthFrame The frame id used to identify the ECEF frame
+   * @param mapFrame The frame id used to identify the global map frame
+   * @param odomFrame The frame id used to identify the local planning frame
+   * @param baseLinkFrame The frame id used to identify the host vehicle frame
+   * @param globalPositionSensorFrame The frame id used to identify the frame of a global position sensor
+   * @param localPositionSensorFrame The frame id used to identify a local odometry position sensor frame
+   * @param distBackward The distance in m uptrack of the host vehicles segment which will be included
+   * @param distForward The distance in m downtrack of the host vehicles segment which will be included
+   * @param parallelObjectThreshold The number of objects in a message at which they will be projected in parallel
+   */
+  public EnvironmentWorker(IRoadwayManager roadwayMgr, Log log, String earthFrame, String mapFrame,
+    String odomFrame, String baseLinkFrame, String globalPositionSensorFrame, String localPositionSensorFrame,
+    double distBackward, double distForward, int parallelObjectThreshold) {
     this.log = new SaxtonLogger(this.getClass().getSimpleName(), log);
     this.roadwayMgr = roadwayMgr;
     this.earthFrame = earthFrame;
@@ -102,6 +185,7 @@ public class EnvironmentWorker {
     this.localPositionSensorFrame = localPositionSensorFrame;
     this.distBackward = distBackward;
     this.distForward = distForward;
+    this.parallelObjectThreshold = parallelObjectThreshold;
   }
 
  /**
@@ -133,16 +217,32 @@ public class EnvironmentWorker {
       log.debug("Roadway ignoring object message as no route is selected");
       return;
     }
-    List<cav_msgs.ExternalObject> objects = externalObjects.getObjects();
-    List<RoadwayObstacle> roadwayObstacles = new LinkedList<>();
-    // TODO we may want the transform to be done per object
+    cav_msgs.ExternalObject[] objects = externalObjects.getObjects().toArray(new cav_msgs.ExternalObject[0]);
     Transform earthToOdom = roadwayMgr.getTransform(earthFrame, odomFrame, externalObjects.getHeader().getStamp());
     log.debug("Objects Stamp: " + externalObjects.getHeader().getStamp());
     if (earthToOdom == null) {
       log.warn("Roadway could not process object message as earth to odom transform was null");
+      return;
     }
-    for (cav_msgs.ExternalObject obj: objects) {
-      roadwayObstacles.add(buildObstacleFromMsg(obj, earthToOdom));
+
+    // Everything which does not depend on the object is computed once for the whole message
+    int hostSegIndex = currentSegment.getUptrackWaypoint().getWaypointId();
+    double hostSegDowntrack = routeState.getSegmentDownTrack();
+    ObjectProjectionContext context = new ObjectProjectionContext(activeRoute, routeState, earthToOdom, hostSegIndex,
+      activeRoute.subsectionStartIndex(hostSegIndex, hostSegDowntrack, distBackward),
+      activeRoute.subsectionEndIndex(hostSegIndex, hostSegDowntrack, distForward), objects.length);
+
+    if (objects.length >= parallelObjectThreshold) {
+      IntStream.range(0, objects.length).parallel().forEach((i) -> projectObject(objects[i], i, context));
+    } else {
+      for (int i = 0; i < objects.length; i++) {
+        projectObject(objects[i], i, context);
+      }
+    }
+    // Messages are only created on this thread
+    List<RoadwayObstacle> roadwayObstacles = new ArrayList<>(objects.length);
+    for (int i = 0; i < objects.length; i++) {
+      roadwayObstacles.add(buildObstacleFromMsg(objects[i], i, context));
     }
     cav_msgs.RoadwayEnvironment roadwayMsg = messageFactory.newFromType(cav_msgs.RoadwayEnvironment._TYPE);
     roadwayMsg.setRoadwayObstacles(roadwayObstacles);
@@ -150,45 +250,51 @@ public class EnvironmentWorker {
   }
 
   /**
-   * Helper function constructs a RoadwayObstacle from an ExternalObject 
+   * Helper function projects an ExternalObject into the frame of its route segment
+   * The object pose, bounds and velocity are converted using primitive math
+   * so no intermediate transforms or point objects are created.
+   * This function may be called concurrently for different objects of the same message.
    * 
    * @param obj The external object to convert (Should be defined relative to odom frame)
-   * @param earthToOdom The corresponding transform from the earth to the odom frame
-   * 
-   * @return A fully constructed RoadwayObstacle object
+   * @param objIndex The index of the object in its message
+   * @param context The values shared by all objects in the message, which receives the projection of the object
    */
-  protected RoadwayObstacle buildObstacleFromMsg(cav_msgs.ExternalObject obj, Transform earthToOdom) {
-    //Get Id
-    int id = obj.getId();  
-    // Get connected vehicle type
-    ConnectedVehicleType connectedVehicleType = ConnectedVehicleType.NOT_CONNECTED;
-    if ((short) (obj.getPresenceVector() & cav_msgs.ExternalObject.BSM_ID_PRESENCE_VECTOR) != 0) {
-      connectedVehicleType = ConnectedVehicleType.CONNECTED;
-    }
-    
-    // Convert object to ECEF frame  
-    Transform objInOdom = Transform.fromPoseMessage(obj.getPose().getPose());
-    Transform objInECEF = earthToOdom.multiply(objInOdom);
-
-    Vector3 objVecECEF = objInECEF.getTranslation();
-    Point3D objPositionECEF = new Point3D(objVecECEF.getX(), objVecECEF.getY(), objVecECEF.getZ());
-
-    // Find the route segment which this route segment is on
-    int currentSegIndex = currentSegment.getUptrackWaypoint().getWaypointId();
-    List<RouteSegment> segmentsToSearch = activeRoute.findRouteSubsection(currentSegIndex, routeState.getSegmentDownTrack(), distBackward, distForward);
-    RouteSegment bestSegment = activeRoute.routeSegmentOfPoint(objPositionECEF, segmentsToSearch);
-    int segmentIndex = bestSegment.getUptrackWaypoint().getWaypointId();
+  protected void projectObject(cav_msgs.ExternalObject obj, int objIndex, ObjectProjectionContext context) {
+    final RouteGeometry geometry = context.geometry;
+    final RouteState routeState = context.routeState;
+    final double[] r = context.odomToEarthRotation;
+    final double[] t = context.odomToEarthTranslation;
+    final ProjectionScratch scratch = projectionScratch.get();
+    final int offset = 3 * objIndex;
+
+    // Convert object to ECEF frame
+    geometry_msgs.Pose pose = obj.getPose().getPose();
+    geometry_msgs.Point pos = pose.getPosition();
+    double ecefX = r[0] * pos.getX() + r[1] * pos.getY() + r[2] * pos.getZ() + t[0];
+    double ecefY = r[3] * pos.getX() + r[4] * pos.getY() + r[5] * pos.getZ() + t[1];
+    double ecefZ = r[6] * pos.getX() + r[7] * pos.getY() + r[8] * pos.getZ() + t[2];
+
+    // Find the route segment which this object is on
+    scratch.ecefPoint.setX(ecefX);
+    scratch.ecefPoint.setY(ecefY);
+    scratch.ecefPoint.setZ(ecefZ);
+    int segmentIndex = context.route.routeSegmentIndexOfPoint(scratch.ecefPoint,
+      context.firstSegIndex, context.lastSegIndex);
+    RouteSegment bestSegment = context.route.getSegments().get(segmentIndex);
+    context.segmentIndices[objIndex] = segmentIndex;
    
     // Convert object to segment frame
-    Transform objInSegment = bestSegment.getECEFToSegmentTransform().invert().multiply(objInECEF); // Find the transform from the segment to this object
-    Vector3 objVec = objInSegment.getTranslation();
-    Point3D objPosition = new Point3D(objVec.getX(), objVec.getY(), objVec.getZ());
-    double downtrackDistance = objDowntrack(segmentIndex, currentSegIndex, objPosition.getX(), routeState.getSegmentDownTrack(), routeState.getDownTrack());
-    double crosstrackDistance = objPosition.getY(); //bestSegment.crossTrackDistance(objPosition);
+    final double[] objPosition = context.positions;
+    geometry.ecefPointInSegmentFrame(segmentIndex, ecefX, ecefY, ecefZ, scratch.axis);
+    System.arraycopy(scratch.axis, 0, objPosition, offset, 3);
+    context.downtracks[objIndex] = objDowntrack(segmentIndex, context.hostSegIndex, objPosition[offset],
+      routeState.getSegmentDownTrack(), routeState.getDownTrack());
+    double crosstrackDistance = objPosition[offset + 1];
     
     // Convert velocities
-    Transform odomInSegment = bestSegment.getECEFToSegmentTransform().invert().multiply(earthToOdom);
-    Vector3 velocityLinear = odomInSegment.getRotationAndScale().rotateAndScaleVector(Vector3.fromVector3Message(obj.getVelocity().getTwist().getLinear()));
+    geometry_msgs.Vector3 velocity = obj.getVelocity().getTwist().getLinear();
+    rotateOdomToSegment(geometry, segmentIndex, r, velocity.getX(), velocity.getY(), velocity.getZ(), scratch.axis);
+    System.arraycopy(scratch.axis, 0, context.velocities, offset, 3);
     
     // Calculate obj lanes
     int primaryLane = bestSegment.determinePrimaryLane(crosstrackDistance);
@@ -208,44 +314,72 @@ public class EnvironmentWorker {
       }
       primaryLane = expectedLane;
     }
-    // Determine secondary lanes
-    List<Point3D> objPoints = new LinkedList<>();
+    context.primaryLanes[objIndex] = primaryLane;
+
+    // Determine the axis aligned bounds of the object in the segment frame
+    // Each half extent is the sum of the absolute projections of the object's half size vectors onto that axis
+    geometry_msgs.Quaternion orientation = pose.getOrientation();
+    final double[] objRotation = scratch.objRotation;
+    QuaternionUtils.rotateAndScaleMatrix(orientation.getX(), orientation.getY(), orientation.getZ(), orientation.getW(), objRotation);
     geometry_msgs.Vector3 size = obj.getSize();
-    objPoints.add(new Point3D(size.getX(), size.getY(), size.getZ()));
-    objPoints.add(new Point3D(size.getX(), size.getY(),-size.getZ()));
-    objPoints.add(new Point3D(size.getX(), -size.getY(), size.getZ()));
-    objPoints.add(new Point3D(size.getX(), -size.getY(), -size.getZ()));
-    objPoints.add(new Point3D(-size.getX(), size.getY(), size.getZ()));
-    objPoints.add(new Point3D(-size.getX(), size.getY(), -size.getZ()));
-    objPoints.add(new Point3D(-size.getX(), -size.getY(), size.getZ()));
-    objPoints.add(new Point3D(-size.getX(), -size.getY(), -size.getZ()));
-
-    CartesianObject cartObj = new CartesianObject(objPoints);
-    CartesianObject cartObjInSegment = cartObj.transform(objInSegment);
-    final int minIdx = CartesianObject.MIN_BOUND_IDX;
-    final int maxIdx = CartesianObject.MAX_BOUND_IDX;
-    final int xIdx = 0;
-    final int yIdx = 1;
-    final int zIdx = 2;
-    double[][] bounds = cartObjInSegment.getBounds();
-    byte[]  secondaryLanes = bestSegment.determineSecondaryLanes(bounds[yIdx][minIdx], bounds[yIdx][maxIdx], primaryLane);
-    
-    // Convert AABB to size
-    double sizeX = (bounds[xIdx][maxIdx] - bounds[xIdx][minIdx]) / 2.0;
-    double sizeY = (bounds[yIdx][maxIdx] - bounds[yIdx][minIdx]) / 2.0;
-    double sizeZ = (bounds[zIdx][maxIdx] - bounds[zIdx][minIdx]) / 2.0;
+    final double[] halfSize = scratch.halfSize;
+    halfSize[0] = size.getX();
+    halfSize[1] = size.getY();
+    halfSize[2] = size.getZ();
+    final double[] axis = scratch.axis;
+    double sizeX = 0.0;
+    double sizeY = 0.0;
+    double sizeZ = 0.0;
+    for (int i = 0; i < 3; i++) {
+      rotateOdomToSegment(geometry, segmentIndex, r, objRotation[i], objRotation[3 + i], objRotation[6 + i], axis);
+      double extent = Math.abs(halfSize[i]);
+      sizeX += Math.abs(axis[0]) * extent;
+      sizeY += Math.abs(axis[1]) * extent;
+      sizeZ += Math.abs(axis[2]) * extent;
+    }
+    context.sizes[offset] = sizeX;
+    context.sizes[offset + 1] = sizeY;
+    context.sizes[offset + 2] = sizeZ;
+    context.secondaryLanes[objIndex] = bestSegment.determineSecondaryLanes(crosstrackDistance - sizeY,
+      crosstrackDistance + sizeY, primaryLane);
+  }
+
+  /**
+   * Helper function constructs a RoadwayObstacle from an ExternalObject and its projection
+   * 
+   * @param obj The external object to convert (Should be defined relative to odom frame)
+   * @param objIndex The index of the object in its message
+   * @param context The context which holds the projection of the object computed by
+   * {@link #projectObject(cav_msgs.ExternalObject, int, ObjectProjectionContext)}
+   * 
+   * @return A fully constructed RoadwayObstacle object
+   */
+  protected RoadwayObstacle buildObstacleFromMsg(cav_msgs.ExternalObject obj, int objIndex, ObjectProjectionContext context) {
+    //Get Id
+    int id = obj.getId();  
+    // Get connected vehicle type
+    ConnectedVehicleType connectedVehicleType = ConnectedVehicleType.NOT_CONNECTED;
+    if ((short) (obj.getPresenceVector() & cav_msgs.ExternalObject.BSM_ID_PRESENCE_VECTOR) != 0) {
+      connectedVehicleType = ConnectedVehicleType.CONNECTED;
+    }
+    final int offset = 3 * objIndex;
+    final double[] objPosition = context.positions;
+    final double[] velocityLinear = context.velocities;
+    RouteSegment bestSegment = context.route.getSegments().get(context.segmentIndices[objIndex]);
+    byte[] secondaryLanes = context.secondaryLanes[objIndex];
+
     geometry_msgs.Vector3 sizeMsg = messageFactory.newFromType(geometry_msgs.Vector3._TYPE);
-    sizeMsg.setX(sizeX);
-    sizeMsg.setY(sizeY);
-    sizeMsg.setZ(sizeZ);
+    sizeMsg.setX(context.sizes[offset]);
+    sizeMsg.setY(context.sizes[offset + 1]);
+    sizeMsg.setZ(context.sizes[offset + 2]);
 
     // Construct new roadway obstacle
 
     RoadwayObstacle newObstacle = messageFactory.newFromType(RoadwayObstacle._TYPE);
     newObstacle.setConnectedVehicleType(connectedVehicleType.toMessage());
-    newObstacle.setCrossTrack(crosstrackDistance);
-    newObstacle.setDownTrack(downtrackDistance);
-    newObstacle.setPrimaryLane((byte)primaryLane);
+    newObstacle.setCrossTrack(objPosition[offset + 1]);
+    newObstacle.setDownTrack(context.downtracks[objIndex]);
+    newObstacle.setPrimaryLane((byte) context.primaryLanes[objIndex]);
     if (secondaryLanes.length > 0) { // Ensure we only try to set if secondary lanes are present
       newObstacle.setSecondaryLanes(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, secondaryLanes));
     }
@@ -263,16 +397,19 @@ public class EnvironmentWorker {
     newObj.setObjectType(obj.getObjectType());
 
     newObj.getPose().setCovariance(obj.getPose().getCovariance());
-    newObj.getPose().getPose().getPosition().setX(objPosition.getX());
-    newObj.getPose().getPose().getPosition().setY(objPosition.getY());
-    newObj.getPose().getPose().getPosition().setZ(objPosition.getZ());
+    newObj.getPose().getPose().getPosition().setX(objPosition[offset]);
+    newObj.getPose().getPose().getPosition().setY(objPosition[offset + 1]);
+    newObj.getPose().getPose().getPosition().setZ(objPosition[offset + 2]);
     newObj.getPose().getPose().setOrientation(Quaternion.identity().toQuaternionMessage(newObj.getPose().getPose().getOrientation()));
    
     newObj.setRelativeLane(obj.getRelativeLane());
     newObj.setSize(sizeMsg);
     
     newObj.getVelocity().setCovariance(obj.getVelocity().getCovariance());
-    newObj.getVelocity().getTwist().setLinear(velocityLinear.toVector3Message(newObj.getVelocity().getTwist().getLinear()));
+    geometry_msgs.Vector3 velocityMsg = newObj.getVelocity().getTwist().getLinear();
+    velocityMsg.setX(velocityLinear[offset]);
+    velocityMsg.setY(velocityLinear[offset + 1]);
+    velocityMsg.setZ(velocityLinear[offset + 2]);
     
     // Remove the object parameters which will not be passed on
     newObj.setPresenceVector(
@@ -288,6 +425,27 @@ public class EnvironmentWorker {
     return newObstacle;
   }
 
+  /**
+   * Helper function rotates a vector in the odom frame into the frame of a route segment
+   * 
+   * @param geometry The route geometry
+   * @param segmentIndex The index of the segment
+   * @param odomToEarthRotation The row major rotation from the odom frame to the earth frame
+   * @param x The x component in the odom frame
+   * @param y The y component in the odom frame
+   * @param z The z component in the odom frame
+   * @param out Array of at least length 3 which will be set to the vector in the segment frame
+   */
+  private static void rotateOdomToSegment(RouteGeometry geometry, int segmentIndex, double[] odomToEarthRotation,
+    double x, double y, double z, double[] out) {
+    final double[] r = odomToEarthRotation;
+    geometry.ecefVectorInSegmentFrame(segmentIndex,
+      r[0] * x + r[1] * y + r[2] * z,
+      r[3] * x + r[4] * y + r[5] * z,
+      r[6] * x + r[7] * y + r[8] * z,
+      out);
+  }
+
   /**
    * Calculates the downtrack value of an object based on its segment downtrack
    * 
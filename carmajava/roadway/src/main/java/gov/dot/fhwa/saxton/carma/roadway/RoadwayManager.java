@@ -90,6 +90,7 @@ public class RoadwayManager extends SaxtonBaseNode implements IRoadwayManager{
     String localPositionSensorFrameId = params.getString("~local_position_sensor_frame_id", "pinpoint");
     double distBackward = params.getDouble("~distance_behind_vehicle", 100.0);
     double distForward = params.getDouble("~distance_infront_of_vehicle", 200.0);
+    int parallelObjectThreshold = params.getInteger("~parallel_object_threshold", 64);
 
     // Topics Initialization
     // Publishers
@@ -103,7 +104,7 @@ public class RoadwayManager extends SaxtonBaseNode implements IRoadwayManager{
     // This means any future modifications which attempt to publish data shortly after initialization will be valid
     environmentWorker = new EnvironmentWorker(this, connectedNode.getLog(), earthFrameId,
       mapFrameId, odomFrameId, baseLinkFrameId, globalPositionSensorFrameId, localPositionSensorFrameId,
-       distBackward, distForward);
+       distBackward, distForward, parallelObjectThreshold);
     // transformMaintainer = new TransformMaintainer(this, connectedNode.getLog(), earthFrameId,
     //   mapFrameId, odomFrameId, baseLinkFrameId, globalPositionSensorFrameId, localPositionSensorFrameId);
 
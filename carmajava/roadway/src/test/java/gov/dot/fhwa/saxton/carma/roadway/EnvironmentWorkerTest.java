@@ -17,17 +17,25 @@
 package gov.dot.fhwa.saxton.carma.roadway;
 
 import cav_msgs.ExternalObject;
+import cav_msgs.ExternalObjectList;
 import cav_msgs.HeadingStamped;
+import cav_msgs.RoadwayObstacle;
+import cav_msgs.RouteState;
 import cav_msgs.SystemAlert;
 import geometry_msgs.PoseWithCovariance;
 import geometry_msgs.TransformStamped;
 import gov.dot.fhwa.saxton.carma.geometry.GeodesicCartesianConverter;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector3D;
 import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import gov.dot.fhwa.saxton.carma.route.Route;
+import gov.dot.fhwa.saxton.carma.route.RouteSegment;
+import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
 import nav_msgs.Odometry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,8 +49,12 @@ import sensor_msgs.NavSatFix;
 import sensor_msgs.NavSatStatus;
 import tf2_msgs.TFMessage;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -95,4 +107,176 @@ public class EnvironmentWorkerTest {
     envWkr.handleSystemAlertMsg(alertMsg);
     assertTrue(roadwayMgr.isShutdown());
   }
+
+  private static final double TOLERANCE = 1e-6;
+  private static final int HOST_SEGMENT = 10;
+  private static final double HOST_SEGMENT_DOWNTRACK = 5.0;
+  private static final double HOST_DOWNTRACK = 205.0;
+
+  /**
+   * Test that external objects are projected onto the route as they were by the transform chain
+   * of the previous implementation, both when projected sequentially and in parallel
+   */
+  @Test
+  public void testHandleExternalObjectsMatchesTransformChain() {
+    // A gently curving and climbing route of 20 m segments with 3 lanes
+    List<RouteWaypoint> waypoints = new ArrayList<>();
+    double lat = 38.95;
+    double lon = -77.15;
+    double heading = 0.3;
+    for (int i = 0; i < 40; i++) {
+      RouteWaypoint wp = new RouteWaypoint(new Location(lat, lon, 50.0 + i * 0.2));
+      wp.setWaypointId(i);
+      wp.setLaneCount(3);
+      wp.setLaneWidth(3.7);
+      wp.setMinCrossTrack(-6.0);
+      wp.setMaxCrossTrack(6.0);
+      waypoints.add(wp);
+      heading += 0.05;
+      lat += 20.0 * Math.cos(heading) / 111000.0;
+      lon += 20.0 * Math.sin(heading) / 87000.0;
+    }
+    Route route = new Route(waypoints, "route", "route");
+
+    RouteState routeState = messageFactory.newFromType(RouteState._TYPE);
+    routeState.setSegmentDownTrack(HOST_SEGMENT_DOWNTRACK);
+    routeState.setDownTrack(HOST_DOWNTRACK);
+    routeState.setLaneIndex((byte) 1);
+
+    // The odom frame is near the host segment and turned slightly away from it
+    Transform earthToOdom = route.getSegments().get(HOST_SEGMENT).getECEFToSegmentTransform()
+      .multiply(new Transform(new Vector3(3.0, 0.5, -0.2), Quaternion.fromAxisAngle(Vector3.zAxis(), 0.2)));
+
+    // Objects ahead, behind and beside the host with random orientations
+    Random rand = new Random(42);
+    byte[] relativeLanes = {ExternalObject.HOST_LANE, ExternalObject.LEFT_LANE, ExternalObject.RIGHT_LANE};
+    List<ExternalObject> objects = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ExternalObject obj = messageFactory.newFromType(ExternalObject._TYPE);
+      obj.setId(i);
+      short presenceVector = ExternalObject.POSE_PRESENCE_VECTOR;
+      if (i % 2 == 0) {
+        presenceVector |= ExternalObject.BSM_ID_PRESENCE_VECTOR;
+      }
+      if (i % 3 == 0) {
+        presenceVector |= ExternalObject.RELATIVE_LANE_PRESENCE_VECTOR;
+        obj.setRelativeLane(relativeLanes[rand.nextInt(relativeLanes.length)]);
+      }
+      obj.setPresenceVector(presenceVector);
+      geometry_msgs.Pose pose = obj.getPose().getPose();
+      pose.getPosition().setX(rand.nextDouble() * 160.0 - 60.0);
+      pose.getPosition().setY(rand.nextDouble() * 16.0 - 8.0);
+      pose.getPosition().setZ(rand.nextDouble() * 2.0 - 1.0);
+      Quaternion orientation = new Quaternion(rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian(),
+        rand.nextGaussian()).normalize();
+      pose.setOrientation(orientation.toQuaternionMessage(pose.getOrientation()));
+      obj.getSize().setX(rand.nextDouble() * 3.0);
+      obj.getSize().setY(rand.nextDouble() * 1.5);
+      obj.getSize().setZ(rand.nextDouble());
+      geometry_msgs.Vector3 velocity = obj.getVelocity().getTwist().getLinear();
+      velocity.setX(rand.nextDouble() * 30.0 - 5.0);
+      velocity.setY(rand.nextDouble() * 2.0 - 1.0);
+      velocity.setZ(rand.nextDouble() * 0.2 - 0.1);
+      objects.add(obj);
+    }
+
+    for (int parallelObjectThreshold : new int[] {Integer.MAX_VALUE, 1}) {
+      MockRoadwayManager roadwayMgr = new MockRoadwayManager() {
+        @Override public Transform getTransform(String parentFrame, String childFrame, Time stamp) {
+          return earthToOdom;
+        }
+      };
+      EnvironmentWorker envWkr = new EnvironmentWorker(roadwayMgr, log, "earth", "map", "odom",
+        "base_link", "pinpoint", "pinpoint", 200, 100, parallelObjectThreshold);
+      envWkr.activeRoute = route;
+      envWkr.currentSegment = route.getSegments().get(HOST_SEGMENT);
+      envWkr.routeState = routeState;
+
+      ExternalObjectList objectList = messageFactory.newFromType(ExternalObjectList._TYPE);
+      objectList.setObjects(objects);
+      envWkr.handleExternalObjectsMsg(objectList);
+
+      List<RoadwayObstacle> obstacles = roadwayMgr.getLastRoadwayEnvironment().getRoadwayObstacles();
+      assertEquals(objects.size(), obstacles.size());
+      for (int i = 0; i < objects.size(); i++) {
+        assertMatchesTransformChain(envWkr, route, earthToOdom, routeState, objects.get(i), obstacles.get(i));
+      }
+    }
+  }
+
+  /**
+   * Projects an object with the transforms and bounding box corners used before the projection was
+   * reduced to matrix math, then checks the obstacle built by the worker against it
+   */
+  private void assertMatchesTransformChain(EnvironmentWorker envWkr, Route route, Transform earthToOdom,
+    RouteState routeState, ExternalObject obj, RoadwayObstacle obstacle) {
+    Transform objInECEF = earthToOdom.multiply(Transform.fromPoseMessage(obj.getPose().getPose()));
+    Vector3 objVecECEF = objInECEF.getTranslation();
+    int segmentIndex = route.routeSegmentIndexOfPoint(new Point3D(objVecECEF.getX(), objVecECEF.getY(), objVecECEF.getZ()),
+      route.subsectionStartIndex(HOST_SEGMENT, HOST_SEGMENT_DOWNTRACK, 200),
+      route.subsectionEndIndex(HOST_SEGMENT, HOST_SEGMENT_DOWNTRACK, 100));
+    RouteSegment segment = route.getSegments().get(segmentIndex);
+
+    Transform segmentToObj = segment.getECEFToSegmentTransform().invert().multiply(objInECEF);
+    Vector3 position = segmentToObj.getTranslation();
+    Vector3 velocity = segment.getECEFToSegmentTransform().invert().multiply(earthToOdom).getRotationAndScale()
+      .rotateAndScaleVector(Vector3.fromVector3Message(obj.getVelocity().getTwist().getLinear()));
+
+    List<Point3D> corners = new ArrayList<>();
+    geometry_msgs.Vector3 size = obj.getSize();
+    for (int sx = -1; sx <= 1; sx += 2) {
+      for (int sy = -1; sy <= 1; sy += 2) {
+        for (int sz = -1; sz <= 1; sz += 2) {
+          corners.add(new Point3D(sx * size.getX(), sy * size.getY(), sz * size.getZ()));
+        }
+      }
+    }
+    double[][] bounds = new CartesianObject(corners).transform(segmentToObj).getBounds();
+    final int minIdx = CartesianObject.MIN_BOUND_IDX;
+    final int maxIdx = CartesianObject.MAX_BOUND_IDX;
+
+    int primaryLane = segment.determinePrimaryLane(position.getY());
+    if ((short) (obj.getPresenceVector() & ExternalObject.RELATIVE_LANE_PRESENCE_VECTOR) != 0) {
+      switch (obj.getRelativeLane()) {
+        case ExternalObject.HOST_LANE:
+          primaryLane = routeState.getLaneIndex();
+          break;
+        case ExternalObject.RIGHT_LANE:
+          primaryLane = routeState.getLaneIndex() - 1;
+          break;
+        case ExternalObject.LEFT_LANE:
+          primaryLane = routeState.getLaneIndex() + 1;
+          break;
+      }
+    }
+    byte[] secondaryLanes = segment.determineSecondaryLanes(bounds[1][minIdx], bounds[1][maxIdx], primaryLane);
+
+    assertEquals(segment.getDowntrackWaypoint().getWaypointId(), obstacle.getWaypointId());
+    assertEquals(envWkr.objDowntrack(segmentIndex, HOST_SEGMENT, position.getX(), HOST_SEGMENT_DOWNTRACK, HOST_DOWNTRACK),
+      obstacle.getDownTrack(), TOLERANCE);
+    assertEquals(position.getY(), obstacle.getCrossTrack(), TOLERANCE);
+    assertEquals(primaryLane, obstacle.getPrimaryLane());
+    ChannelBuffer lanes = obstacle.getSecondaryLanes();
+    byte[] actualSecondaryLanes = new byte[lanes.readableBytes()];
+    lanes.getBytes(lanes.readerIndex(), actualSecondaryLanes);
+    assertArrayEquals(secondaryLanes, actualSecondaryLanes);
+    byte expectedType = (short) (obj.getPresenceVector() & ExternalObject.BSM_ID_PRESENCE_VECTOR) != 0 ?
+      cav_msgs.ConnectedVehicleType.CONNECTED : cav_msgs.ConnectedVehicleType.NOT_CONNECTED;
+    assertEquals(expectedType, obstacle.getConnectedVehicleType().getType());
+
+    ExternalObject actual = obstacle.getObject();
+    assertEquals(obj.getId(), actual.getId());
+    geometry_msgs.Point actualPosition = actual.getPose().getPose().getPosition();
+    assertEquals(position.getX(), actualPosition.getX(), TOLERANCE);
+    assertEquals(position.getY(), actualPosition.getY(), TOLERANCE);
+    assertEquals(position.getZ(), actualPosition.getZ(), TOLERANCE);
+    geometry_msgs.Vector3 actualVelocity = actual.getVelocity().getTwist().getLinear();
+    assertEquals(velocity.getX(), actualVelocity.getX(), TOLERANCE);
+    assertEquals(velocity.getY(), actualVelocity.getY(), TOLERANCE);
+    assertEquals(velocity.getZ(), actualVelocity.getZ(), TOLERANCE);
+    geometry_msgs.Vector3 actualSize = actual.getSize();
+    assertEquals((bounds[0][maxIdx] - bounds[0][minIdx]) / 2.0, actualSize.getX(), TOLERANCE);
+    assertEquals((bounds[1][maxIdx] - bounds[1][minIdx]) / 2.0, actualSize.getY(), TOLERANCE);
+    assertEquals((bounds[2][maxIdx] - bounds[2][minIdx]) / 2.0, actualSize.getZ(), TOLERANCE);
+  }
 }
@@ -31,6 +31,7 @@ import tf2_msgs.TFMessage;
 public class MockRoadwayManager implements IRoadwayManager {
   private final FrameTransformTree tfTree = new FrameTransformTree();
   private boolean shutdown = false;
+  private RoadwayEnvironment lastRoadwayEnvironment = null;
 
   @Override public void publishTF(TFMessage tfMessage) {
     for (TransformStamped transform : tfMessage.getTransforms()) {
@@ -40,7 +41,7 @@ public class MockRoadwayManager implements IRoadwayManager {
   }
 
   @Override public void publishRoadwayEnvironment(RoadwayEnvironment roadwayEnvMsg) {
-    // Nothing to do
+    lastRoadwayEnvironment = roadwayEnvMsg;
   }
 
   @Override public Transform getTransform(String parentFrame, String childFrame, Time stamp) {
@@ -58,4 +59,8 @@ public class MockRoadwayManager implements IRoadwayManager {
   public boolean isShutdown(){
     return shutdown;
   }
+
+  public RoadwayEnvironment getLastRoadwayEnvironment() {
+    return lastRoadwayEnvironment;
+  }
 }
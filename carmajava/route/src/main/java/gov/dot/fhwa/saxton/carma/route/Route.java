@@ -22,6 +22,7 @@ import org.ros.message.Time;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +40,8 @@ public class Route {
   protected List<RouteSegment> segments;
   protected List<RouteWaypoint> waypoints;
   protected boolean valid = false;
+  protected RouteGeometry geometry;
+  protected volatile RouteSegmentIndex segmentIndex;
 
   /**
    * Default constructor does nothing.
@@ -90,7 +93,7 @@ public class Route {
    * @return The route object
    */
   public static Route fromMessage(cav_msgs.Route routeMsg){
-    List<RouteWaypoint> waypoints = new LinkedList<>();
+    List<RouteWaypoint> waypoints = new ArrayList<>();
 
     List<cav_msgs.RouteSegment> segmentMsgs = routeMsg.getSegments();
     if (segmentMsgs.size() > 0) {
@@ -103,33 +106,55 @@ public class Route {
   }
 
   /**
-   * Calculates the length of a route
-   * @return the length of the route in meters
+   * Calculates the length of a route and rebuilds the precomputed route geometry
+   * Must be called whenever the segments change
    */
   protected void calculateLength(){
-    double totalLength = 0;
-
-    for(RouteSegment seg: segments) {
-      totalLength += seg.length();
-    }
-    this.routeLength = totalLength;
+    this.geometry = new RouteGeometry(segments);
+    this.segmentIndex = null; // Rebuilt on next use
+    this.routeLength = geometry.getRouteLength();
   }
 
   /**
    * Calculates the distance downtrack to the end of the segment with the specified index.
    * The calculation is performed from the start of the segment with the specified startIndex
+   * Uses the precomputed segment downtracks so it runs in constant time
    * @param startIndex the index of the first segment to be included in the length calculation
    * @param finalIndex the index of the final segment to be included in the length calculation
    * @return the length of the route in meters
    */
   public double lengthOfSegments(int startIndex, int finalIndex){
-    double totalLength = 0;
+    return geometry.lengthOfSegments(startIndex, finalIndex);
+  }
 
-    for(int i = startIndex; i <= finalIndex; i++) {
-      totalLength += segments.get(i).length();
-    }
+  /**
+   * Gets the precomputed geometry of this route's segments
+   * A new object is built whenever the segments of this route change
+   *
+   * @return The route geometry
+   */
+  public RouteGeometry getGeometry() {
+    return geometry;
+  }
 
-    return totalLength;
+  /**
+   * Gets the spatial index of this route's segments
+   * The index is built on first use after the segments of this route change
+   *
+   * @return The segment index
+   */
+  public RouteSegmentIndex getSegmentIndex() {
+    RouteSegmentIndex index = segmentIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = segmentIndex;
+        if (index == null) {
+          index = new RouteSegmentIndex(segments);
+          segmentIndex = index;
+        }
+      }
+    }
+    return index;
   }
 
   /**
@@ -256,7 +281,7 @@ public class Route {
     RouteWaypoint prevPrevWaypoint = null;
     boolean updatePreviousWP = false;
     // Build segments from waypoints
-    segments = new LinkedList<>(); // Clear currnet waypoints
+    segments = new ArrayList<>(); // Clear currnet waypoints
 
     for(RouteWaypoint waypoint: waypointList){
 
@@ -351,33 +376,60 @@ public class Route {
    * @param distForward The distance in m downtrack of the starting segment which will be included, m
    */
   public List<RouteSegment> findRouteSubsection(int startingIndex, double segmentDowntrack, double distBackward, double distForward) {
-    List<RouteSegment> subList = new LinkedList<>();
     if (startingIndex < 0 || startingIndex >= segments.size())
-      return subList;
+      return new LinkedList<>();
 
-    subList.add(segments.get(startingIndex));
+    int firstIdx = subsectionStartIndex(startingIndex, segmentDowntrack, distBackward);
+    int lastIdx = subsectionEndIndex(startingIndex, segmentDowntrack, distForward);
+    return new ArrayList<>(segments.subList(firstIdx, lastIdx + 1));
+  }
 
+  /**
+   * Returns the index of the first segment of the subsection described in
+   * {@link #findRouteSubsection(int, double, double, double)}
+   *
+   * @param startingIndex The index of the route segment which will be the starting point for the search
+   * @param segmentDowntrack The distance along the specified segment to start the calculation from, m
+   * @param distBackward The distance in m uptrack of the starting segment which will be included, m
+   *
+   * @return The index of the first segment in the subsection
+   */
+  public int subsectionStartIndex(int startingIndex, double segmentDowntrack, double distBackward) {
     // Process segments behind host vehicle
     double distance = segmentDowntrack;
+    int firstIdx = startingIndex;
     for (int i = startingIndex - 1; i >= 0; i--) {
       if (distance > distBackward) {
         break;
       }
       distance += segments.get(i).length();
-      subList.add(segments.get(i));
+      firstIdx = i;
     }
+    return firstIdx;
+  }
 
-    Collections.reverse(subList);
+  /**
+   * Returns the index of the last segment of the subsection described in
+   * {@link #findRouteSubsection(int, double, double, double)}
+   *
+   * @param startingIndex The index of the route segment which will be the starting point for the search
+   * @param segmentDowntrack The distance along the specified segment to start the calculation from, m
+   * @param distForward The distance in m downtrack of the starting segment which will be included, m
+   *
+   * @return The index of the last segment in the subsection
+   */
+  public int subsectionEndIndex(int startingIndex, double segmentDowntrack, double distForward) {
     // Process segments infront of host vehicle
-    distance = segments.get(startingIndex).length - segmentDowntrack;
+    double distance = segments.get(startingIndex).length - segmentDowntrack;
+    int lastIdx = startingIndex;
     for (int i = startingIndex + 1; i < segments.size(); i++) {
       if (distance > distForward) {
         break;
       }
       distance += segments.get(i).length();
-      subList.add(segments.get(i));
+      lastIdx = i;
     }
-    return subList;
+    return lastIdx;
   }
 
   /**
@@ -402,10 +454,19 @@ public class Route {
    * @return The matching route segment
    */
   public RouteSegment routeSegmentOfPoint(Point3D point, List<RouteSegment> segments) {
+    return segments.get(indexOfSegmentContaining(point, segments));
+  }
+
+  /**
+   * Helper function which returns the position in the provided list of the segment selected by
+   * {@link #routeSegmentOfPoint(Point3D, List)}
+   */
+  private int indexOfSegmentContaining(Point3D point, List<RouteSegment> segments) {
     double maxCrosstrackAllowed = 0.0;
     double prevMaxCrosstrack = 0.0;
-    RouteSegment bestSegment = segments.get(0); // Default to starting segment if no match is found
+    int bestIdx = 0; // Default to starting segment if no match is found
 
+    int i = 0;
     for (RouteSegment seg : segments) {
       RouteWaypoint wp = seg.getDowntrackWaypoint();
       maxCrosstrackAllowed = Math.max(Math.abs(wp.getMinCrossTrack()), Math.abs(wp.getMaxCrossTrack())); //either could be negative
@@ -417,17 +478,52 @@ public class Route {
       //check if it's in the extended bounding box
       if (-prevMaxCrosstrack < downTrack && downTrack <= seg.length()) {
         if (Math.abs(crossTrack) <= maxCrosstrackAllowed) {
-          return seg;
+          return i;
         }
-        bestSegment = seg;
+        bestIdx = i;
       }
 
       prevMaxCrosstrack = maxCrosstrackAllowed;
+      i++;
     }
 
     //couldn't find a matching segment, so use the first segment within the downtrack range of. 
     // Or the starting segment assuming we are before the route
-    return bestSegment;
+    return bestIdx;
+  }
+
+  /**
+   * Get the index of the route segment in the provided index range which the provided point should be considered in.
+   * Gives the same result as {@link #routeSegmentOfPoint(Point3D, List)} called with the segments in the range,
+   * but uses the segment index of this route so only segments near the point are evaluated.
+   * The full range is only searched if no nearby segment contains the point.
+   * 
+   * @param point The 3d point to match with a segment
+   * @param firstIdx The index of the first segment to search
+   * @param lastIdx The index of the last segment to search
+   * 
+   * @return The index of the matching route segment
+   */
+  public int routeSegmentIndexOfPoint(Point3D point, int firstIdx, int lastIdx) {
+    final RouteGeometry routeGeometry = geometry;
+    final double[] segPoint = new double[3];
+    int idx = getSegmentIndex().firstMatch(point, firstIdx, lastIdx, (i) -> {
+      RouteWaypoint wp = segments.get(i).getDowntrackWaypoint();
+      double maxCrosstrackAllowed = Math.max(Math.abs(wp.getMinCrossTrack()), Math.abs(wp.getMaxCrossTrack()));
+      double prevMaxCrosstrack = 0.0;
+      if (i > firstIdx) {
+        RouteWaypoint prevWp = segments.get(i - 1).getDowntrackWaypoint();
+        prevMaxCrosstrack = Math.max(Math.abs(prevWp.getMinCrossTrack()), Math.abs(prevWp.getMaxCrossTrack()));
+      }
+      routeGeometry.ecefPointInSegmentFrame(i, point.getX(), point.getY(), point.getZ(), segPoint);
+      return -prevMaxCrosstrack < segPoint[0] && segPoint[0] <= routeGeometry.getSegmentLength(i)
+        && Math.abs(segPoint[1]) <= maxCrosstrackAllowed;
+    });
+    if (idx >= 0) {
+      return idx;
+    }
+    // No nearby segment contains the point so fall back to the full search
+    return firstIdx + indexOfSegmentContaining(point, segments.subList(firstIdx, lastIdx + 1));
   }
 
   @Override
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ros.rosjava_geometry.Quaternion;
+import org.ros.rosjava_geometry.Transform;
+import org.ros.rosjava_geometry.Vector3;
+
+/**
+ * Immutable precomputed geometry of the segments of a route
+ * <p>
+ * Built once from a list of segments so that common route queries do not need to walk the segment list.
+ * Holds the downtrack distance of the start of each segment as a prefix sum, the segment lengths,
+ * the lane width and count of each segment and the frame transforms of each segment along with their inverses.
+ * The transforms are also stored as 3x4 row major matrices so points can be converted between the ECEF frame
+ * and a segment frame without allocating objects.
+ * <p>
+ * Segment properties are taken from the downtrack waypoint of the segment as is done in {@link RouteSegment}
+ */
+public final class RouteGeometry {
+  private static final int MATRIX_SIZE = 12;
+
+  private final int numSegments;
+  // Downtrack distance of the start of each segment. The final element is the route length
+  private final double[] segmentStartDowntracks;
+  private final double[] segmentLengths;
+  private final double[] laneWidths;
+  private final int[] laneCounts;
+  private final Transform[] ecefToSegmentTransforms;
+  private final Transform[] segmentToECEFTransforms;
+  // Maps points in a segment frame to the ECEF frame
+  private final double[] segmentPointToECEF;
+  // Maps points in the ECEF frame to a segment frame
+  private final double[] ecefPointToSegment;
+
+  /**
+   * Constructor
+   *
+   * @param segments The ordered segments of the route
+   */
+  public RouteGeometry(List<RouteSegment> segments) {
+    numSegments = segments.size();
+    segmentStartDowntracks = new double[numSegments + 1];
+    segmentLengths = new double[numSegments];
+    laneWidths = new double[numSegments];
+    laneCounts = new int[numSegments];
+    ecefToSegmentTransforms = new Transform[numSegments];
+    segmentToECEFTransforms = new Transform[numSegments];
+    segmentPointToECEF = new double[numSegments * MATRIX_SIZE];
+    ecefPointToSegment = new double[numSegments * MATRIX_SIZE];
+
+    double downtrack = 0;
+    int i = 0;
+    for (RouteSegment seg : segments) {
+      RouteWaypoint wp = seg.getDowntrackWaypoint();
+      segmentStartDowntracks[i] = downtrack;
+      segmentLengths[i] = seg.length();
+      laneWidths[i] = wp.getLaneWidth();
+      laneCounts[i] = wp.getLaneCount();
+      ecefToSegmentTransforms[i] = seg.getECEFToSegmentTransform();
+      segmentToECEFTransforms[i] = seg.getSegmentToECEFTransform();
+      storeMatrices(ecefToSegmentTransforms[i], i * MATRIX_SIZE);
+      downtrack += seg.length();
+      i++;
+    }
+    segmentStartDowntracks[numSegments] = downtrack;
+  }
+
+  /**
+   * Gets the number of segments in the route
+   *
+   * @return The number of segments
+   */
+  public int getNumSegments() {
+    return numSegments;
+  }
+
+  /**
+   * Gets the length of the route
+   *
+   * @return The route length in m
+   */
+  public double getRouteLength() {
+    return segmentStartDowntracks[numSegments];
+  }
+
+  /**
+   * Gets the downtrack distance of the start of the specified segment
+   *
+   * @param index The segment index
+   *
+   * @return The downtrack distance along the route in m
+   */
+  public double getSegmentStartDowntrack(int index) {
+    checkIndex(index);
+    return segmentStartDowntracks[index];
+  }
+
+  /**
+   * Gets the length of the specified segment
+   *
+   * @param index The segment index
+   *
+   * @return The segment length in m
+   */
+  public double getSegmentLength(int index) {
+    checkIndex(index);
+    return segmentLengths[index];
+  }
+
+  /**
+   * Gets the lane width of the specified segment
+   *
+   * @param index The segment index
+   *
+   * @return The lane width in m
+   */
+  public double getLaneWidth(int index) {
+    checkIndex(index);
+    return laneWidths[index];
+  }
+
+  /**
+   * Gets the number of lanes of the specified segment
+   *
+   * @param index The segment index
+   *
+   * @return The lane count
+   */
+  public int getLaneCount(int index) {
+    checkIndex(index);
+    return laneCounts[index];
+  }
+
+  /**
+   * Calculates the distance from the start of the segment at startIndex to the end of the segment at finalIndex
+   * Returns 0 if finalIndex is less than startIndex
+   *
+   * @param startIndex the index of the first segment to be included in the length calculation
+   * @param finalIndex the index of the final segment to be included in the length calculation
+   *
+   * @return the length in m
+   */
+  public double lengthOfSegments(int startIndex, int finalIndex) {
+    if (finalIndex < startIndex) {
+      return 0.0;
+    }
+    checkIndex(startIndex);
+    checkIndex(finalIndex);
+    return segmentStartDowntracks[finalIndex + 1] - segmentStartDowntracks[startIndex];
+  }
+
+  /**
+   * Finds the index of the segment containing the provided downtrack distance
+   * A segment contains all points from its start up to but not including its end.
+   * Distances before the route start map to the first segment and distances past the route end map to the last segment.
+   *
+   * @param downtrack The downtrack distance along the route in m
+   *
+   * @return The segment index or -1 if the route has no segments
+   */
+  public int getSegmentIndexAtDowntrack(double downtrack) {
+    if (numSegments == 0) {
+      return -1;
+    }
+    // Search the segment starts. The route length entry is excluded so the last segment is returned past the end
+    int idx = Arrays.binarySearch(segmentStartDowntracks, 0, numSegments, downtrack);
+    if (idx < 0) {
+      idx = -idx - 2; // Insertion point - 1 is the segment starting before this distance
+    } else {
+      // Zero length segments share a start. Use the last one
+      while (idx + 1 < numSegments && segmentStartDowntracks[idx + 1] == downtrack) {
+        idx++;
+      }
+    }
+    return Math.max(0, idx);
+  }
+
+  /**
+   * Gets the transform describing the location and rotation of the specified segment's FRD frame in the ECEF frame
+   *
+   * @param index The segment index
+   *
+   * @return The same transform as {@link RouteSegment#getECEFToSegmentTransform()}
+   */
+  public Transform getECEFToSegmentTransform(int index) {
+    checkIndex(index);
+    return ecefToSegmentTransforms[index];
+  }
+
+  /**
+   * Gets the inverse of the specified segment's ECEF to segment transform
+   *
+   * @param index The segment index
+   *
+   * @return The same transform as {@link RouteSegment#getSegmentToECEFTransform()}
+   */
+  public Transform getSegmentToECEFTransform(int index) {
+    checkIndex(index);
+    return segmentToECEFTransforms[index];
+  }
+
+  /**
+   * Converts a point in the ECEF frame into the frame of the specified segment
+   *
+   * @param index The segment index
+   * @param x The ECEF x coordinate in m
+   * @param y The ECEF y coordinate in m
+   * @param z The ECEF z coordinate in m
+   * @param out Array of at least length 3 which will be set to the (downtrack, crosstrack, down) location in the segment frame
+   */
+  public void ecefPointInSegmentFrame(int index, double x, double y, double z, double[] out) {
+    final double[] m = ecefPointToSegment;
+    final int o = index * MATRIX_SIZE;
+    out[0] = m[o] * x + m[o + 1] * y + m[o + 2] * z + m[o + 3];
+    out[1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z + m[o + 7];
+    out[2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z + m[o + 11];
+  }
+
+  /**
+   * Rotates a vector in the ECEF frame into the frame of the specified segment
+   * Unlike {@link #ecefPointInSegmentFrame(int, double, double, double, double[])} no translation is applied
+   *
+   * @param index The segment index
+   * @param x The ECEF x component
+   * @param y The ECEF y component
+   * @param z The ECEF z component
+   * @param out Array of at least length 3 which will be set to the vector in the segment frame
+   */
+  public void ecefVectorInSegmentFrame(int index, double x, double y, double z, double[] out) {
+    final double[] m = ecefPointToSegment;
+    final int o = index * MATRIX_SIZE;
+    out[0] = m[o] * x + m[o + 1] * y + m[o + 2] * z;
+    out[1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z;
+    out[2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z;
+  }
+
+  /**
+   * Converts a point in the frame of the specified segment into the ECEF frame
+   *
+   * @param index The segment index
+   * @param segX The downtrack distance along the segment in m
+   * @param segY The crosstrack distance from the segment in m
+   * @param segZ The distance below the segment in m
+   * @param out Array of at least length 3 which will be set to the ECEF location in m
+   */
+  public void segmentPointInECEF(int index, double segX, double segY, double segZ, double[] out) {
+    final double[] m = segmentPointToECEF;
+    final int o = index * MATRIX_SIZE;
+    out[0] = m[o] * segX + m[o + 1] * segY + m[o + 2] * segZ + m[o + 3];
+    out[1] = m[o + 4] * segX + m[o + 5] * segY + m[o + 6] * segZ + m[o + 7];
+    out[2] = m[o + 8] * segX + m[o + 9] * segY + m[o + 10] * segZ + m[o + 11];
+  }
+
+  /**
+   * Stores the provided transform and its inverse as 3x4 row major matrices at the provided offset
+   */
+  private void storeMatrices(Transform transform, int offset) {
+    final double[] forward = segmentPointToECEF;
+    final double[] inverse = ecefPointToSegment;
+    Quaternion rotation = transform.getRotationAndScale();
+    Vector3 c0 = rotation.rotateAndScaleVector(Vector3.xAxis());
+    Vector3 c1 = rotation.rotateAndScaleVector(Vector3.yAxis());
+    Vector3 c2 = rotation.rotateAndScaleVector(Vector3.zAxis());
+    Vector3 t = transform.getTranslation();
+
+    final double a = c0.getX(), b = c1.getX(), c = c2.getX();
+    final double d = c0.getY(), e = c1.getY(), f = c2.getY();
+    final double g = c0.getZ(), h = c1.getZ(), k = c2.getZ();
+    forward[offset] = a;
+    forward[offset + 1] = b;
+    forward[offset + 2] = c;
+    forward[offset + 3] = t.getX();
+    forward[offset + 4] = d;
+    forward[offset + 5] = e;
+    forward[offset + 6] = f;
+    forward[offset + 7] = t.getY();
+    forward[offset + 8] = g;
+    forward[offset + 9] = h;
+    forward[offset + 10] = k;
+    forward[offset + 11] = t.getZ();
+
+    // Invert the rotation and scale then rotate the negated translation
+    final double det = a * (e * k - f * h) - b * (d * k - f * g) + c * (d * h - e * g);
+    final double i00 = (e * k - f * h) / det;
+    final double i01 = (c * h - b * k) / det;
+    final double i02 = (b * f - c * e) / det;
+    final double i10 = (f * g - d * k) / det;
+    final double i11 = (a * k - c * g) / det;
+    final double i12 = (c * d - a * f) / det;
+    final double i20 = (d * h - e * g) / det;
+    final double i21 = (b * g - a * h) / det;
+    final double i22 = (a * e - b * d) / det;
+    inverse[offset] = i00;
+    inverse[offset + 1] = i01;
+    inverse[offset + 2] = i02;
+    inverse[offset + 3] = -(i00 * t.getX() + i01 * t.getY() + i02 * t.getZ());
+    inverse[offset + 4] = i10;
+    inverse[offset + 5] = i11;
+    inverse[offset + 6] = i12;
+    inverse[offset + 7] = -(i10 * t.getX() + i11 * t.getY() + i12 * t.getZ());
+    inverse[offset + 8] = i20;
+    inverse[offset + 9] = i21;
+    inverse[offset + 10] = i22;
+    inverse[offset + 11] = -(i20 * t.getX() + i21 * t.getY() + i22 * t.getZ());
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= numSegments) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Segments: " + numSegments);
+    }
+  }
+}
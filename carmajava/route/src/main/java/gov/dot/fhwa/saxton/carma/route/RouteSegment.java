@@ -45,6 +45,7 @@ public class RouteSegment {
   final protected double length;
   final protected GeodesicCartesianConverter gcc = new GeodesicCartesianConverter();
   final protected Transform ecefToUptrackWP;
+  final protected Transform uptrackWPToECEF;
 
   /**
    * Constructor initializes this segment with the given waypoints.
@@ -57,6 +58,7 @@ public class RouteSegment {
     this.lineSegment = new LineSegment3D(this.uptrackWP.getECEFPoint(), this.downtrackWP.getECEFPoint());
     this.length = this.lineSegment.length();
     this.ecefToUptrackWP = getSegmentAllignedFRDFrame();
+    this.uptrackWPToECEF = this.ecefToUptrackWP.invert();
   }
 
     /**
@@ -71,6 +73,7 @@ public class RouteSegment {
     this.lineSegment = new LineSegment3D(this.uptrackWP.getECEFPoint(), this.downtrackWP.getECEFPoint());
     this.length = this.lineSegment.length();
     this.ecefToUptrackWP = ecefToUptrackWP;
+    this.uptrackWPToECEF = this.ecefToUptrackWP.invert();
   }
 
   /**
@@ -137,9 +140,8 @@ public class RouteSegment {
    * @param ecefPoint A point located in an ecef frame
    */
   private Point3D ecefPointInSegmentFrame(Point3D ecefPoint) {
-    Transform ecefToPoint = new Transform(new Vector3(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()), Quaternion.identity());
-    Transform segmentToPoint = getECEFToSegmentTransform().invert().multiply(ecefToPoint); // Find the transform from the segment to this object
-    Vector3 pntVec = segmentToPoint.getTranslation();
+    // Apply the cached inverse transform to find the location of the point relative to the segment
+    Vector3 pntVec = uptrackWPToECEF.apply(new Vector3(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()));
     Point3D pntPosition = new Point3D(pntVec.getX(), pntVec.getY(), pntVec.getZ());
 
     return pntPosition;
@@ -199,6 +201,15 @@ public class RouteSegment {
     return this.ecefToUptrackWP;
   }
 
+  /**
+   * Gets the inverse of the ECEF to segment transform
+   * Applying this transform to a point in the ECEF frame gives the location of that point in the FRD frame of this segment
+   * The transform is computed once when the segment is constructed
+   */
+  public Transform getSegmentToECEFTransform() {
+    return this.uptrackWPToECEF;
+  }
+
   /**
    * Helper function which calculates a FRD frame located on the uptrack waypoint of a segment.
    * X-Axis: Along segment
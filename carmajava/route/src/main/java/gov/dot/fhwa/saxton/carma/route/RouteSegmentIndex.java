@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.CartesianObject;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.ISpatialCollisionVisitor;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.PackedSpatialHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Spatial index over the segments of a route used to find the segments near an ECEF point
+ * without evaluating every segment of the route
+ * <p>
+ * Each segment is stored in a {@link PackedSpatialHashMap} as an axis aligned box around its end points. The box is
+ * padded by the maximum crosstrack of the segment, the maximum crosstrack of the previous segment (matching the uptrack
+ * extension used by {@link Route#routeSegmentOfPoint(Point3D, List)}) and a fixed margin.
+ * <p>
+ * Segment frames place no limit on the distance of a point above or below the segment, so both the segment end points and
+ * queried points are first projected along the earth radius onto a sphere passing through the start of the route.
+ * This removes most of any altitude difference between a point and the waypoints. The remaining error grows by a few meters
+ * for each km of altitude difference and is covered by the margin. Callers which need to handle points far from
+ * the route should fall back to a full search when no segment is found.
+ * <p>
+ * The index is immutable once built. Queries only read the hash map and collect candidates into a per thread buffer,
+ * so they do not lock and may run concurrently
+ */
+public final class RouteSegmentIndex {
+  // Default size in m of each cell of the index
+  public static final double DEFAULT_CELL_SIZE = 100.0;
+  // Default margin in m added around each segment
+  public static final double DEFAULT_MARGIN = 30.0;
+
+  private final PackedSpatialHashMap map;
+  private final double referenceRadius;
+  private final double margin;
+  private final int numSegments;
+
+  // Candidate buffer of each querying thread
+  private static final ThreadLocal<Candidates> scratch = ThreadLocal.withInitial(Candidates::new);
+
+  /**
+   * Candidate segment indices collected during a query
+   */
+  private static final class Candidates implements ISpatialCollisionVisitor {
+    int[] indices = new int[16];
+    int count = 0;
+    int min = 0;
+    int max = 0;
+    // The queried point projected onto the reference sphere
+    final Point3D projected = new Point3D(0.0, 0.0, 0.0);
+    // True while a query on this thread is using the buffer
+    boolean inUse = false;
+
+    @Override
+    public boolean visit(CartesianObject obj) {
+      int segmentIdx = ((SegmentBounds) obj).segmentIdx;
+      if (min <= segmentIdx && segmentIdx <= max) {
+        if (count == indices.length) {
+          indices = Arrays.copyOf(indices, indices.length * 2);
+        }
+        indices[count++] = segmentIdx;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The bounds of a single segment
+   */
+  private static final class SegmentBounds extends CartesianObject {
+    final int segmentIdx;
+
+    SegmentBounds(int segmentIdx, Point3D min, Point3D max) {
+      super(Arrays.asList(min, max));
+      this.segmentIdx = segmentIdx;
+    }
+  }
+
+  /**
+   * Constructor which uses the default cell size and margin
+   *
+   * @param segments The ordered segments of the route
+   */
+  public RouteSegmentIndex(List<RouteSegment> segments) {
+    this(segments, DEFAULT_CELL_SIZE, DEFAULT_MARGIN);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param segments The ordered segments of the route
+   * @param cellSize The size in m of each cell of the index
+   * @param margin The distance in m added around each segment beyond its crosstrack limits
+   */
+  public RouteSegmentIndex(List<RouteSegment> segments, double cellSize, double margin) {
+    this.map = new PackedSpatialHashMap(new double[] {cellSize, cellSize, cellSize});
+    this.margin = margin;
+    this.numSegments = segments.size();
+    this.referenceRadius = numSegments == 0 ? 0.0 : norm(segments.get(0).getUptrackWaypoint().getECEFPoint());
+
+    double[] start = new double[3];
+    double[] end = new double[3];
+    double prevMaxCrosstrack = 0.0;
+    int i = 0;
+    for (RouteSegment seg : segments) {
+      RouteWaypoint wp = seg.getDowntrackWaypoint();
+      double maxCrosstrack = Math.max(Math.abs(wp.getMinCrossTrack()), Math.abs(wp.getMaxCrossTrack()));
+      double padding = maxCrosstrack + prevMaxCrosstrack + margin;
+
+      project(seg.getUptrackWaypoint().getECEFPoint(), start);
+      project(wp.getECEFPoint(), end);
+      Point3D min = new Point3D(
+        Math.min(start[0], end[0]) - padding, Math.min(start[1], end[1]) - padding, Math.min(start[2], end[2]) - padding);
+      Point3D max = new Point3D(
+        Math.max(start[0], end[0]) + padding, Math.max(start[1], end[1]) + padding, Math.max(start[2], end[2]) + padding);
+      map.insert(new SegmentBounds(i, min, max));
+
+      prevMaxCrosstrack = maxCrosstrack;
+      i++;
+    }
+  }
+
+  /**
+   * Gets the number of segments in this index
+   *
+   * @return The number of segments
+   */
+  public int getNumSegments() {
+    return numSegments;
+  }
+
+  /**
+   * Gets the margin added around each segment
+   *
+   * @return The margin in m
+   */
+  public double getMargin() {
+    return margin;
+  }
+
+  /**
+   * Finds the lowest segment index in the provided range whose bounds contain the point and which satisfies the provided test
+   * Only the segments near the point are tested
+   *
+   * @param point The ECEF point to locate
+   * @param firstIdx The index of the first segment to consider
+   * @param lastIdx The index of the last segment to consider
+   * @param matches Exact test applied to each candidate segment index in ascending order
+   *
+   * @return The index of the first matching segment or -1 if no segment near the point matched
+   */
+  public int firstMatch(Point3D point, int firstIdx, int lastIdx, IntPredicate matches) {
+    if (numSegments == 0 || lastIdx < firstIdx) {
+      return -1;
+    }
+    Candidates candidates = scratch.get();
+    if (candidates.inUse) {
+      // The test queried an index itself on this thread
+      candidates = new Candidates();
+    }
+    candidates.inUse = true;
+    try {
+      candidates.count = 0;
+      candidates.min = firstIdx;
+      candidates.max = lastIdx;
+      project(point, candidates.projected);
+      map.visitCollisions(candidates.projected, candidates);
+
+      Arrays.sort(candidates.indices, 0, candidates.count);
+      for (int i = 0; i < candidates.count; i++) {
+        if (matches.test(candidates.indices[i])) {
+          return candidates.indices[i];
+        }
+      }
+      return -1;
+    } finally {
+      candidates.inUse = false;
+    }
+  }
+
+  /**
+   * Projects an ECEF point along the earth radius onto the reference sphere
+   */
+  private void project(Point3D point, Point3D out) {
+    double norm = norm(point);
+    double scale = norm == 0.0 ? 1.0 : referenceRadius / norm;
+    out.setX(point.getX() * scale);
+    out.setY(point.getY() * scale);
+    out.setZ(point.getZ() * scale);
+  }
+
+  /**
+   * Projects an ECEF point along the earth radius onto the reference sphere
+   */
+  private void project(Point3D point, double[] out) {
+    double norm = norm(point);
+    double scale = norm == 0.0 ? 1.0 : referenceRadius / norm;
+    out[0] = point.getX() * scale;
+    out[1] = point.getY() * scale;
+    out[2] = point.getZ() * scale;
+  }
+
+  private static double norm(Point3D point) {
+    return Math.sqrt(point.getX() * point.getX() + point.getY() * point.getY() + point.getZ() * point.getZ());
+  }
+}
@@ -36,6 +36,7 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * The RouteWorker is responsible for implementing all non pub-sub logic of the RouteManager node
@@ -322,22 +323,50 @@ public class RouteWorker {
     Location hostLocation =  gcc.cartesian2Geodesic(hostVehicleInECEF, Transform.identity());
     log.debug("getValidStartingWPIndex: lat = " + hostLocation.getLatitude() + ", lon = " + hostLocation.getLongitude());
     
-    int count = 0;
-    for (RouteSegment seg: activeRoute.getSegments()) {      
-      RouteWaypoint wp = seg.getDowntrackWaypoint();
-      double crossTrack = seg.crossTrackDistance(hostVehicleInECEF);
-      double downTrack = seg.downTrackDistance(hostVehicleInECEF);
-
-      if (0.0 <= downTrack && downTrack <= seg.length()
-          && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
-          return count = count + 1; // On valid segment return the index
-      } else if (count == 0 && downTrack < 0.0 && Math.abs(downTrack) < maxJoinDistance
-                 && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
-        return count; // Before the first waypoint return 0 and we will add a new waypoint on the vehicle
+    List<RouteSegment> segments = activeRoute.getSegments();
+    if (segments.isEmpty()) {
+      return -1;
+    }
+    // Check the first segment which also allows joining before the first waypoint
+    RouteSegment firstSeg = segments.get(0);
+    if (isValidStartingSegment(firstSeg)) {
+      return 1; // On valid segment return the index
+    }
+    double firstDownTrack = firstSeg.downTrackDistance(hostVehicleInECEF);
+    if (firstDownTrack < 0.0 && Math.abs(firstDownTrack) < maxJoinDistance
+        && isWithinCrossTrackLimits(firstSeg)) {
+      return 0; // Before the first waypoint return 0 and we will add a new waypoint on the vehicle
+    }
+    // Only evaluate the segments near the vehicle
+    int segIdx = activeRoute.getSegmentIndex().firstMatch(hostVehicleInECEF, 1, segments.size() - 1,
+      (i) -> isValidStartingSegment(segments.get(i)));
+    if (segIdx < 0) {
+      // Not near any segment. Fall back to checking every segment
+      for (int i = 1; i < segments.size(); i++) {
+        if (isValidStartingSegment(segments.get(i))) {
+          segIdx = i;
+          break;
+        }
       }
-      count++;
     }
-    return -1;
+    return segIdx < 0 ? -1 : segIdx + 1; // Return the index of the downtrack waypoint
+  }
+
+  /**
+   * Helper function returns true if the host vehicle is within the downtrack and crosstrack bounds of a segment
+   */
+  private boolean isValidStartingSegment(RouteSegment seg) {
+    double downTrack = seg.downTrackDistance(hostVehicleInECEF);
+    return 0.0 <= downTrack && downTrack <= seg.length() && isWithinCrossTrackLimits(seg);
+  }
+
+  /**
+   * Helper function returns true if the host vehicle is within the crosstrack bounds of a segment
+   */
+  private boolean isWithinCrossTrackLimits(RouteSegment seg) {
+    RouteWaypoint wp = seg.getDowntrackWaypoint();
+    double crossTrack = seg.crossTrackDistance(hostVehicleInECEF);
+    return wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack();
   }
 
   /**
@@ -370,7 +399,7 @@ public class RouteWorker {
     currentSegmentIndex = index - 1;
     currentSegment = activeRoute.getSegments().get(currentSegmentIndex);
     currentWaypointIndex = index; // The current waypoint should be the downtrack one
-    downtrackDistance = Math.max(0, activeRoute.lengthOfSegments(0, currentSegmentIndex - 1) + currentSegment.downTrackDistance(hostVehicleInECEF));
+    downtrackDistance = Math.max(0, activeRoute.getGeometry().getSegmentStartDowntrack(currentSegmentIndex) + currentSegment.downTrackDistance(hostVehicleInECEF));
     crossTrackDistance = currentSegment.crossTrackDistance(hostVehicleInECEF);
     currentLane = currentSegment.determinePrimaryLane(crossTrackDistance);
 
@@ -433,7 +462,7 @@ public class RouteWorker {
     Vector3 transInECEF = earthToHostVehicle.getTranslation();
     Point3D pointInECEF = new Point3D(transInECEF.getX(), transInECEF.getY(), transInECEF.getZ());
     currentSegmentDowntrack = currentSegment.downTrackDistance(hostVehicleInECEF);
-    downtrackDistance = Math.max(0.0, activeRoute.lengthOfSegments(0, currentSegmentIndex - 1) + currentSegmentDowntrack);
+    downtrackDistance = Math.max(0.0, activeRoute.getGeometry().getSegmentStartDowntrack(currentSegmentIndex) + currentSegmentDowntrack);
 
     // Update crosstrack distance
     crossTrackDistance = currentSegment.crossTrackDistance(hostVehicleInECEF);
@@ -25,7 +25,13 @@ import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector3D;
 import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.After;
@@ -34,6 +40,7 @@ import org.junit.Test;
 import org.ros.message.MessageFactory;
 import org.ros.node.NodeConfiguration;
 import org.ros.rosjava_geometry.Transform;
+import org.ros.rosjava_geometry.Vector3;
 
 import sensor_msgs.NavSatFix;
 import sensor_msgs.NavSatStatus;
@@ -109,6 +116,156 @@ public class RouteTest {
     System.out.println("\n\n");
   }
 
+  /**
+   * Tests the precomputed route geometry against the route segments
+   * @throws Exception
+   */
+  @Test
+  public void testRouteGeometry() throws Exception {
+    FileStrategy fS = new FileStrategy("src/test/resources/routes/colonial_farm_rd_outbound.yaml", log);
+    Route route = Route.fromMessage(fS.load().toMessage(messageFactory)); // Load route with waypoint ids assigned.
+    RouteGeometry geometry = route.getGeometry();
+    List<RouteSegment> segments = route.getSegments();
+    assertEquals(segments.size(), geometry.getNumSegments());
+    assertEquals(route.getRouteLength(), geometry.getRouteLength(), 0.0001);
+
+    double downtrack = 0.0;
+    for (int i = 0; i < segments.size(); i++) {
+      RouteSegment seg = segments.get(i);
+      assertEquals(downtrack, geometry.getSegmentStartDowntrack(i), 0.0001);
+      assertEquals(seg.length(), geometry.getSegmentLength(i), 0.0001);
+      assertEquals(seg.getDowntrackWaypoint().getLaneWidth(), geometry.getLaneWidth(i), 0.0001);
+      assertEquals(seg.getDowntrackWaypoint().getLaneCount(), geometry.getLaneCount(i));
+      assertEquals(downtrack, route.lengthOfSegments(0, i - 1), 0.0001);
+      // Points in the middle of a segment map to that segment
+      if (seg.length() > 0.0) {
+        assertEquals(i, geometry.getSegmentIndexAtDowntrack(downtrack + seg.length() / 2.0));
+      }
+
+      // Matrices match the segment transforms
+      Point3D ecefPoint = seg.getDowntrackWaypoint().getECEFPoint();
+      double[] segPoint = new double[3];
+      geometry.ecefPointInSegmentFrame(i, ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ(), segPoint);
+      assertEquals(seg.downTrackDistance(ecefPoint), segPoint[0], 0.001);
+      assertEquals(seg.crossTrackDistance(ecefPoint), segPoint[1], 0.001);
+      double[] ecef = new double[3];
+      geometry.segmentPointInECEF(i, segPoint[0], segPoint[1], segPoint[2], ecef);
+      assertEquals(ecefPoint.getX(), ecef[0], 0.001);
+      assertEquals(ecefPoint.getY(), ecef[1], 0.001);
+      assertEquals(ecefPoint.getZ(), ecef[2], 0.001);
+
+      downtrack += seg.length();
+    }
+    assertEquals(0.0, route.lengthOfSegments(3, 2), 0.0);
+    assertEquals(0, geometry.getSegmentIndexAtDowntrack(-10.0));
+    assertEquals(segments.size() - 1, geometry.getSegmentIndexAtDowntrack(route.getRouteLength() + 10.0));
+  }
+
+  /**
+   * Tests that the segment index finds the same segments as the full search
+   * @throws Exception
+   */
+  @Test
+  public void testRouteSegmentIndexOfPoint() throws Exception {
+    FileStrategy fS = new FileStrategy("src/test/resources/routes/colonial_farm_rd_outbound.yaml", log);
+    Route route = Route.fromMessage(fS.load().toMessage(messageFactory)); // Load route with waypoint ids assigned.
+    List<RouteSegment> segments = route.getSegments();
+    int lastIdx = segments.size() - 1;
+
+    for (int i = 0; i < segments.size(); i++) {
+      RouteSegment seg = segments.get(i);
+      // Points along the segment, beside it and above it
+      for (double crosstrack : new double[] {0.0, 1.5, -1.5, 30.0}) {
+        Transform segToECEF = seg.getSegmentToECEFTransform();
+        Vector3 vec = segToECEF.apply(new Vector3(seg.length() / 2.0, crosstrack, -2.0));
+        Point3D point = new Point3D(vec.getX(), vec.getY(), vec.getZ());
+
+        RouteSegment expected = route.routeSegmentOfPoint(point, segments);
+        assertEquals(segments.indexOf(expected), route.routeSegmentIndexOfPoint(point, 0, lastIdx));
+
+        int firstSubIdx = route.subsectionStartIndex(i, seg.length() / 2.0, 50.0);
+        int lastSubIdx = route.subsectionEndIndex(i, seg.length() / 2.0, 50.0);
+        List<RouteSegment> subsection = route.findRouteSubsection(i, seg.length() / 2.0, 50.0, 50.0);
+        assertEquals(subsection.size(), lastSubIdx - firstSubIdx + 1);
+        assertEquals(subsection.get(0), segments.get(firstSubIdx));
+        expected = route.routeSegmentOfPoint(point, subsection);
+        assertEquals(segments.indexOf(expected), route.routeSegmentIndexOfPoint(point, firstSubIdx, lastSubIdx));
+      }
+    }
+
+    // A point far from the route is not found by the index
+    Point3D farPoint = new Point3D(0.0, 0.0, 6378137.0);
+    assertEquals(-1, route.getSegmentIndex().firstMatch(farPoint, 0, lastIdx, (i) -> true));
+    assertEquals(segments.indexOf(route.routeSegmentOfPoint(farPoint, segments)),
+      route.routeSegmentIndexOfPoint(farPoint, 0, lastIdx));
+  }
+
+  /**
+   * Tests that segment index queries run concurrently and give the same results as sequential queries
+   * @throws Exception
+   */
+  @Test
+  public void testRouteSegmentIndexConcurrentQueries() throws Exception {
+    FileStrategy fS = new FileStrategy("src/test/resources/routes/colonial_farm_rd_outbound.yaml", log);
+    Route route = Route.fromMessage(fS.load().toMessage(messageFactory));
+    List<RouteSegment> segments = route.getSegments();
+    int lastIdx = segments.size() - 1;
+
+    List<Point3D> points = new ArrayList<>();
+    for (RouteSegment seg : segments) {
+      Point3D start = seg.getUptrackWaypoint().getECEFPoint();
+      Point3D end = seg.getDowntrackWaypoint().getECEFPoint();
+      points.add(new Point3D((start.getX() + end.getX()) / 2.0, (start.getY() + end.getY()) / 2.0,
+        (start.getZ() + end.getZ()) / 2.0));
+    }
+    RouteSegmentIndex index = route.getSegmentIndex();
+    List<Integer> expected = new ArrayList<>();
+    for (Point3D point : points) {
+      expected.add(index.firstMatch(point, 0, lastIdx, (i) -> segmentContains(segments.get(i), point)));
+      // The midpoint of each segment is found in that segment
+      assertEquals(points.indexOf(point), (int) expected.get(expected.size() - 1));
+    }
+
+    // Every thread waits inside its first test for all the others,
+    // which times out if the index holds a lock while running the test
+    final int numThreads = 4;
+    CyclicBarrier allInsideTest = new CyclicBarrier(numThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<List<Integer>>> results = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        results.add(executor.submit(() -> {
+          boolean[] waited = {false};
+          List<Integer> found = new ArrayList<>();
+          for (Point3D point : points) {
+            found.add(index.firstMatch(point, 0, lastIdx, (i) -> {
+              if (!waited[0]) {
+                waited[0] = true;
+                try {
+                  allInsideTest.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                  throw new IllegalStateException("Segment index queries did not run concurrently", e);
+                }
+              }
+              return segmentContains(segments.get(i), point);
+            }));
+          }
+          return found;
+        }));
+      }
+      for (Future<List<Integer>> result : results) {
+        assertEquals(expected, result.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean segmentContains(RouteSegment seg, Point3D point) {
+    double downtrack = seg.downTrackDistance(point);
+    return 0.0 <= downtrack && downtrack <= seg.length() && Math.abs(seg.crossTrackDistance(point)) <= 3.0;
+  }
+
   /**
    * Calculates the extra point to make two routes have equal length
    * Assumes route assignments are correct (long vs short)
@@ -356,9 +356,10 @@ public class RSUMeterWorker {
   private double getDowntrackDistanceFromLocation(Location loc) {
     Point3D ecefPoint = gcc.geodesic2Cartesian(loc, Transform.identity());
 
-    RouteSegment seg = mainRoadRoute.routeSegmentOfPoint(ecefPoint, mainRoadRoute.getSegments()); // TODO could be optimized
+    int segmentIdx = mainRoadRoute.routeSegmentIndexOfPoint(ecefPoint, 0, mainRoadRoute.getSegments().size() - 1);
+    RouteSegment seg = mainRoadRoute.getSegments().get(segmentIdx);
     double segmentDowntrack = seg.downTrackDistance(ecefPoint);
-    return segmentDowntrack + mainRoadRoute.lengthOfSegments(0, seg.getUptrackWaypoint().getWaypointId() - 1);
+    return segmentDowntrack + mainRoadRoute.lengthOfSegments(0, segmentIdx - 1);
   }
 
   /**
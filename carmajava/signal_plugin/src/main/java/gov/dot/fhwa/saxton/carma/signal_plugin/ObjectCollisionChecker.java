@@ -55,6 +55,7 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
  * The object motion predictions are used for collision checking to prevent the plugin from planning a path through a detected object
  * Additionally, when an upcoming collision is detected based on new data, a total replan will be requested
  * After a replan occurs additional replans will be requested at time increments equal to half the prediction period or when a new collision is identified
+ * Proposed plan edges are checked against an {@link ObstaclePredictionIndex} which is rebuilt whenever the object predictions are updated
  * This system is capable of handling multiple in lane objects, but makes the assumption that lane id's will not change between the host vehicle and the detected objects.
  */
 public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChecker {
@@ -64,6 +65,8 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
   // Tracked objects
   Map<Integer, PriorityQueue<RoadwayObstacle>> trackedLaneObjectsHistory = new HashMap<>();  
   Map<Integer, List<RoutePointStamped>> trackedLaneObjectsPredictions = new HashMap<>();
+  // Index of the current predictions used by the planner. Rebuilt each time the predictions change
+  private volatile ObstaclePredictionIndex predictionIndex = ObstaclePredictionIndex.EMPTY;
 
   private final AtomicReference<List<RoutePointStamped>> interpolatedHostPlan = new AtomicReference<>(new LinkedList<>()); // Current Host Plan
 
@@ -226,6 +229,10 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
       trackedLaneObjectsPredictions.remove(objId);
     }
 
+    // Index the predictions once so that plan expansion can check edges without building new structures
+    predictionIndex = ObstaclePredictionIndex.build(trackedLaneObjectsPredictions.values(),
+      downtrackMargin, crosstrackMargin, timeMargin, longitudinalBias, lateralBias, temporalBias);
+
     // Check for collisions using new object data
     
 
@@ -308,19 +315,25 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
 
   @Override
   public boolean hasCollision(List<Node> trajectory, double timeOffset, double distanceOffset) {
+    // Check the proposed trajectory against the indexed predictions of all tracked objects
+    final ObstaclePredictionIndex index = predictionIndex;
+    if (index.isEmpty() || trajectory.isEmpty()) {
+      return false;
+    }
 
-   // System.out.println("Checking collision with traj: " + trajectory);
-   // System.out.println("timeOffest: " + timeOffset + " distanceOffset: " + distanceOffset + " distanceStep: " + distanceStep);
-    // Convert the proposed trajectory to route points
-    List<RoutePointStamped> routePlan = motionInterpolator.interpolateMotion(trajectory, distanceStep,
-      timeOffset, distanceOffset
-    );
-
-  //  System.out.println("RoutePlan: " + routePlan);
-
-    boolean hasCollision = checkCollision(routePlan, 1.0);
-
-    return hasCollision; // Check for collisions with tracked objects
+    Node prevNode = null;
+    for (Node n : trajectory) {
+      if (prevNode != null && index.hasCollision(
+        prevNode.getDistanceAsDouble() + distanceOffset, prevNode.getTimeAsDouble() + timeOffset, prevNode.getSpeedAsDouble(),
+        n.getDistanceAsDouble() + distanceOffset, n.getTimeAsDouble() + timeOffset, n.getSpeedAsDouble())) {
+        return true;
+      }
+      prevNode = n;
+    }
 
+    if (trajectory.size() == 1) {
+      return index.hasCollision(prevNode.getDistanceAsDouble() + distanceOffset, prevNode.getTimeAsDouble() + timeOffset);
+    }
+    return false;
   }
 }
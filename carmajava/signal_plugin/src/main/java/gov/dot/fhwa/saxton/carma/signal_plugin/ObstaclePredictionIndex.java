@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+
+/**
+ * Immutable index of the predicted positions of tracked objects used to check host motion for collisions
+ * <p>
+ * Every predicted object point is stored as a box in (downtrack, time) which already includes the collision margins of both
+ * the object and the host vehicle along with the configured biases. A host position collides with a predicted point
+ * when it falls inside that point's box, which matches the bounding box overlap test of
+ * {@link gov.dot.fhwa.saxton.carma.guidance.conflictdetector.IConflictDetector}.
+ * The host vehicle is assumed to be at a crosstrack of 0, so points which can never overlap the host crosstrack are dropped
+ * when the index is built.
+ * <p>
+ * Between two plan nodes the host downtrack is a quadratic function of time under constant acceleration.
+ * The range of that function over the time a box is active can be computed exactly, so host motion is tested against
+ * each box without interpolating points along the motion. The boxes are sorted by start time so only those active
+ * during the motion are tested.
+ * <p>
+ * This class is immutable and safe to share between threads
+ */
+public final class ObstaclePredictionIndex {
+
+  public static final ObstaclePredictionIndex EMPTY = new ObstaclePredictionIndex(new double[0], new double[0], new double[0], new double[0]);
+
+  // Box bounds sorted by minimum time
+  private final double[] minTimes;
+  private final double[] maxTimes;
+  private final double[] minDowntracks;
+  private final double[] maxDowntracks;
+  // The longest time span of any box
+  private final double maxTimeSpan;
+
+  private ObstaclePredictionIndex(double[] minTimes, double[] maxTimes, double[] minDowntracks, double[] maxDowntracks) {
+    this.minTimes = minTimes;
+    this.maxTimes = maxTimes;
+    this.minDowntracks = minDowntracks;
+    this.maxDowntracks = maxDowntracks;
+    double span = 0.0;
+    for (int i = 0; i < minTimes.length; i++) {
+      span = Math.max(span, maxTimes[i] - minTimes[i]);
+    }
+    this.maxTimeSpan = span;
+  }
+
+  /**
+   * Builds an index from the predicted trajectories of objects
+   * <p>
+   * The time margin of each object is half the time step of its prediction plus a small overlap.
+   * Predictions with a single point use the provided default time margin.
+   *
+   * @param predictions The predicted trajectory of each object
+   * @param downtrackMargin The downtrack distance in m added on each side of both host and object points
+   * @param crosstrackMargin The crosstrack distance in m added on each side of both host and object points
+   * @param defaultTimeMargin The time in s added on each side of points for objects with a single predicted point
+   * @param longitudinalBias Fraction of the downtrack margin by which host points are shifted
+   * @param lateralBias Fraction of the crosstrack margin by which host points are shifted
+   * @param temporalBias Fraction of the time margin by which host points are shifted
+   *
+   * @return The new index
+   */
+  public static ObstaclePredictionIndex build(Collection<List<RoutePointStamped>> predictions,
+    double downtrackMargin, double crosstrackMargin, double defaultTimeMargin,
+    double longitudinalBias, double lateralBias, double temporalBias) {
+
+    int numPoints = 0;
+    for (List<RoutePointStamped> prediction : predictions) {
+      numPoints += prediction.size();
+    }
+    if (numPoints == 0) {
+      return EMPTY;
+    }
+
+    // Boxes are stored as [minTime, maxTime, minDowntrack, maxDowntrack] until sorted
+    double[][] boxes = new double[numPoints][];
+    int count = 0;
+    final double hostCrosstrack = crosstrackMargin * lateralBias;
+    final double downtrackShift = downtrackMargin * longitudinalBias;
+    for (List<RoutePointStamped> prediction : predictions) {
+      double timeMargin = defaultTimeMargin;
+      if (prediction.size() > 1) {
+        // The time margin should be half delta t plus a small bit of overlap
+        timeMargin = ((prediction.get(1).getStamp() - prediction.get(0).getStamp()) / 2.0) + 0.0001;
+      }
+      final double timeShift = timeMargin * temporalBias;
+      for (RoutePointStamped point : prediction) {
+        if (Math.abs(point.getCrosstrack() - hostCrosstrack) > 2.0 * crosstrackMargin) {
+          continue; // The host can never overlap this point
+        }
+        // Shift the box opposite to the host bias so host positions can be tested without the bias
+        boxes[count++] = new double[] {
+          point.getStamp() - timeShift - 2.0 * timeMargin,
+          point.getStamp() - timeShift + 2.0 * timeMargin,
+          point.getDowntrack() - downtrackShift - 2.0 * downtrackMargin,
+          point.getDowntrack() - downtrackShift + 2.0 * downtrackMargin
+        };
+      }
+    }
+    if (count == 0) {
+      return EMPTY;
+    }
+
+    Arrays.sort(boxes, 0, count, (b1, b2) -> Double.compare(b1[0], b2[0]));
+    double[] minTimes = new double[count];
+    double[] maxTimes = new double[count];
+    double[] minDowntracks = new double[count];
+    double[] maxDowntracks = new double[count];
+    for (int i = 0; i < count; i++) {
+      minTimes[i] = boxes[i][0];
+      maxTimes[i] = boxes[i][1];
+      minDowntracks[i] = boxes[i][2];
+      maxDowntracks[i] = boxes[i][3];
+    }
+    return new ObstaclePredictionIndex(minTimes, maxTimes, minDowntracks, maxDowntracks);
+  }
+
+  /**
+   * Checks if this index contains any predicted points
+   *
+   * @return True if no collision can be found with this index
+   */
+  public boolean isEmpty() {
+    return minTimes.length == 0;
+  }
+
+  /**
+   * Gets the number of predicted points which can collide with the host
+   *
+   * @return The number of boxes in the index
+   */
+  public int size() {
+    return minTimes.length;
+  }
+
+  /**
+   * Checks if the host at a single position collides with any predicted point
+   *
+   * @param downtrack The host downtrack in m
+   * @param time The time in s
+   *
+   * @return True if a collision was found
+   */
+  public boolean hasCollision(double downtrack, double time) {
+    return hasCollision(downtrack, time, 0.0, downtrack, time, 0.0);
+  }
+
+  /**
+   * Checks if the host moving with constant acceleration between two states collides with any predicted point
+   * <p>
+   * The acceleration is taken from the change in speed. The motion is adjusted so it passes exactly through both states
+   * even if the provided distances are not consistent with the speeds.
+   *
+   * @param startDowntrack The host downtrack in m at the start of the motion
+   * @param startTime The time in s at the start of the motion
+   * @param startSpeed The host speed in m/s at the start of the motion
+   * @param endDowntrack The host downtrack in m at the end of the motion
+   * @param endTime The time in s at the end of the motion
+   * @param endSpeed The host speed in m/s at the end of the motion
+   *
+   * @return True if a collision was found
+   */
+  public boolean hasCollision(double startDowntrack, double startTime, double startSpeed,
+    double endDowntrack, double endTime, double endSpeed) {
+
+    if (minTimes.length == 0) {
+      return false;
+    }
+    final double dt = endTime - startTime;
+    // Downtrack as a function of time since start: startDowntrack + b * tau + c * tau^2
+    final double c;
+    final double b;
+    if (dt > 0.0) {
+      c = (endSpeed - startSpeed) / (2.0 * dt);
+      b = (endDowntrack - startDowntrack) / dt - c * dt;
+    } else {
+      c = 0.0;
+      b = 0.0;
+    }
+
+    // Only boxes which start before the motion ends and end after it starts are active
+    final int first = firstIndexAfter(startTime - maxTimeSpan, false);
+    final int last = firstIndexAfter(endTime, true);
+    for (int i = first; i < last; i++) {
+      final double lowTime = Math.max(startTime, minTimes[i]);
+      final double highTime = Math.min(endTime, maxTimes[i]);
+      if (lowTime > highTime) {
+        continue;
+      }
+      double minDowntrack;
+      double maxDowntrack;
+      if (dt > 0.0) {
+        final double tauLow = lowTime - startTime;
+        final double tauHigh = highTime - startTime;
+        final double xLow = startDowntrack + (b + c * tauLow) * tauLow;
+        final double xHigh = startDowntrack + (b + c * tauHigh) * tauHigh;
+        minDowntrack = Math.min(xLow, xHigh);
+        maxDowntrack = Math.max(xLow, xHigh);
+        // Include the turning point if the motion reverses within the active time
+        if (c != 0.0) {
+          final double tauTurn = -b / (2.0 * c);
+          if (tauLow < tauTurn && tauTurn < tauHigh) {
+            final double xTurn = startDowntrack + (b + c * tauTurn) * tauTurn;
+            minDowntrack = Math.min(minDowntrack, xTurn);
+            maxDowntrack = Math.max(maxDowntrack, xTurn);
+          }
+        }
+      } else {
+        minDowntrack = Math.min(startDowntrack, endDowntrack);
+        maxDowntrack = Math.max(startDowntrack, endDowntrack);
+      }
+      if (minDowntrack <= maxDowntracks[i] && maxDowntrack >= minDowntracks[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the index of the first box whose minimum time is at or after the provided time
+   * If strict is true boxes whose minimum time equals the provided time are skipped
+   */
+  private int firstIndexAfter(double time, boolean strict) {
+    int low = 0;
+    int high = minTimes.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (minTimes[mid] < time || (strict && minTimes[mid] == time)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+/**
+ * Runs trajectory planning requests on a single long lived worker thread
+ * <p>
+ * Each request is stamped with a generation number when it is submitted. Submitting a new request supersedes all
+ * earlier requests. Superseded requests which have not started are dropped without running, and a request which is
+ * already running can poll {@link #isCurrent(long)} to abandon its work as soon as newer data has arrived.
+ * This lets a replan preempt an in-flight plan instead of waiting behind it.
+ * <p>
+ * Requests run one at a time because the EAD planning objects are not thread safe.
+ * <p>
+ * Latency is measured from submission to completion for requests which complete while still current.
+ * The counts of completed, superseded, and failed requests are also tracked.
+ */
+public class PlanningService {
+
+  /**
+   * A unit of planning work
+   */
+  @FunctionalInterface
+  public interface IPlanningTask {
+    /**
+     * Performs planning for a request
+     * Implementations should stop early when {@link PlanningService#isCurrent(long)} returns false for their generation
+     *
+     * @param generation The generation of the request being planned
+     *
+     * @return True if planning succeeded
+     */
+    boolean plan(long generation);
+  }
+
+  private static final String THREAD_NAME = "TrafficSignalPlanner";
+
+  private final ILogger log = LoggerManager.getLogger();
+  private final ExecutorService executor;
+  private final AtomicLong generation = new AtomicLong(0);
+
+  // Metrics
+  private final AtomicLong numSubmitted = new AtomicLong(0);
+  private final AtomicLong numCompleted = new AtomicLong(0);
+  private final AtomicLong numSuperseded = new AtomicLong(0);
+  private final AtomicLong numFailed = new AtomicLong(0);
+  private final AtomicLong lastLatencyNanos = new AtomicLong(0);
+  private final AtomicLong maxLatencyNanos = new AtomicLong(0);
+  private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+
+  /**
+   * Constructor
+   * Starts the worker thread which will run until {@link #shutdown()} is called
+   */
+  public PlanningService() {
+    executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+      Thread t = new Thread(r, THREAD_NAME);
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Submits a new planning request which supersedes all earlier requests
+   *
+   * @param task The planning work to perform
+   *
+   * @return The generation of the new request
+   */
+  public long submit(IPlanningTask task) {
+    final long requestGeneration = generation.incrementAndGet();
+    final long submitTime = System.nanoTime();
+    numSubmitted.incrementAndGet();
+    try {
+      executor.execute(() -> run(task, requestGeneration, submitTime));
+    } catch (RejectedExecutionException e) {
+      log.warn("Planning request " + requestGeneration + " rejected as the planning service is shut down");
+    }
+    return requestGeneration;
+  }
+
+  /**
+   * Supersedes all submitted requests without submitting a new one
+   */
+  public void cancelAll() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Checks if a request is still the most recent request
+   *
+   * @param requestGeneration The generation of the request
+   *
+   * @return True if no newer request has been submitted or cancelled
+   */
+  public boolean isCurrent(long requestGeneration) {
+    return generation.get() == requestGeneration;
+  }
+
+  /**
+   * Stops the worker thread. Any running request is superseded
+   */
+  public void shutdown() {
+    cancelAll();
+    executor.shutdown();
+  }
+
+  private void run(IPlanningTask task, long requestGeneration, long submitTime) {
+    if (!isCurrent(requestGeneration)) {
+      numSuperseded.incrementAndGet(); // Drop requests which were superseded while waiting
+      return;
+    }
+    boolean succeeded = false;
+    try {
+      succeeded = task.plan(requestGeneration);
+    } catch (RuntimeException e) {
+      log.error("Planning request " + requestGeneration + " threw exception", e);
+    }
+
+    if (!isCurrent(requestGeneration)) {
+      numSuperseded.incrementAndGet();
+      log.info("Planning request " + requestGeneration + " was superseded");
+    } else if (succeeded) {
+      final long latency = System.nanoTime() - submitTime;
+      lastLatencyNanos.set(latency);
+      totalLatencyNanos.addAndGet(latency);
+      numCompleted.incrementAndGet();
+      maxLatencyNanos.accumulateAndGet(latency, Math::max);
+      log.info(String.format("Planning request %d completed in %.1f ms. Average: %.1f ms Max: %.1f ms Completed: %d Superseded: %d Failed: %d",
+        requestGeneration, latency / 1e6, getAverageLatencyMs(), maxLatencyNanos.get() / 1e6,
+        numCompleted.get(), numSuperseded.get(), numFailed.get()));
+    } else {
+      numFailed.incrementAndGet();
+    }
+  }
+
+  public long getNumSubmitted() {
+    return numSubmitted.get();
+  }
+
+  public long getNumCompleted() {
+    return numCompleted.get();
+  }
+
+  public long getNumSuperseded() {
+    return numSuperseded.get();
+  }
+
+  public long getNumFailed() {
+    return numFailed.get();
+  }
+
+  /**
+   * @return The latency in ms of the most recently completed request
+   */
+  public double getLastLatencyMs() {
+    return lastLatencyNanos.get() / 1e6;
+  }
+
+  /**
+   * @return The largest latency in ms of any completed request
+   */
+  public double getMaxLatencyMs() {
+    return maxLatencyNanos.get() / 1e6;
+  }
+
+  /**
+   * @return The average latency in ms of completed requests or 0 if none have completed
+   */
+  public double getAverageLatencyMs() {
+    final long completed = numCompleted.get();
+    return completed == 0 ? 0.0 : (totalLatencyNanos.get() / 1e6) / completed;
+  }
+}
@@ -152,7 +152,7 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
     private static final int MAX_PLAN_RETRIES = 3; // Maximum number of replanning attempts when a replan request is processed
 
     // Planning Variables
-    private AtomicBoolean replanning = new AtomicBoolean(false);
+    private PlanningService planningService; // Runs planning requests off of the callback threads. Newer requests preempt older ones
     private AtomicReference<List<Node>> currentPlan = new AtomicReference<>();
     private AtomicDouble planStartingDowntrack = new AtomicDouble();
 
@@ -190,6 +190,8 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
 
         popupOnRedTime = appConfig.getDoubleValue("popupOnRedTime");
 
+        planningService = new PlanningService();
+
         // Initialize custom maneuver inputs
         IManeuverInputs platformInputs = pluginServiceLocator.getManeuverPlanner().getManeuverInputs();
         pluginManeuverInputs = new TrafficSignalManeuverInputs(platformInputs, appConfig.getDoubleValue("ead.response.lag"), appConfig.getDoubleValue("defaultAccel") + 1.0);
@@ -429,67 +431,77 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
     @Override
     public void triggerNewPlan(final boolean availability) {
         log.info("Trying to request replan with availability: " + availability);
-        if (replanning.compareAndSet(false, true)) {
-
-            // Just return if the availability is false
-            if (!availability) {
-                setAvailability(availability);
-                pluginServiceLocator.getArbitratorService().requestNewPlan();
-                replanning.set(false);
-                return;
-            }
 
-            // Generate plan in new thread
-            Thread planningThread = new Thread(new Runnable() {
-
-                @Override
-                public void run() {
-                    log.info("Attempting Ead Plan");
-                    // Planning
-                    double currentDowntrack = pluginServiceLocator.getRouteService().getCurrentDowntrackDistance();
-                    double speedLimit = pluginServiceLocator.getRouteService().getSpeedLimitAtLocation(currentDowntrack).getLimit();
-                    DataElementHolder state = null;
-                    List<Node> eadResult = null;
-                    
-                    for (int i = 0; i < MAX_PLAN_RETRIES; i++) {
-                        state = getCurrentStateData(speedLimit);
-        
-                        eadResult = generatePlan(state);
-                        if (eadResult != null) {
-                            break;
-                        }
-                    }
-                    
-                    // Store the current plan
-                    DoubleDataElement startTime = (DoubleDataElement) state.get(DataElementKey.PLANNING_START_TIME);
-                    DoubleDataElement startDowntrack = (DoubleDataElement) state.get(DataElementKey.PLANNING_START_DOWNTRACK);
-        
-                    setPlan(eadResult, startDowntrack.value());
-                    
-                    if (eadResult == null) {
-                        log.warn("Ead result was null requesting plan with no availability");
-                        setAvailability(false);
-                        pluginServiceLocator.getArbitratorService().requestNewPlan();
-                        replanning.set(false);
-                        return;
-                    }
-        
-                    log.info("EadAStar result is path of size: " + eadResult.size());
-                    log.info("EadAStar Num ANA iterations: " + ANAStarSolver.iterationCount);
-                    // Set the new plan as the current plan for collision checker
-                    collisionChecker.setHostPlan(eadResult, startTime.value(), startDowntrack.value());
+        // Just return if the availability is false
+        if (!availability) {
+            planningService.cancelAll(); // Abandon any plan in progress so it cannot restore availability
+            setAvailability(availability);
+            pluginServiceLocator.getArbitratorService().requestNewPlan();
+            return;
+        }
+
+        // Generate plan on the planning thread. Any plan still in progress is abandoned in favor of this one
+        long generation = planningService.submit((long gen) -> planForRequest(gen, availability));
+        log.info("Submitted plan request " + generation);
+    }
+
+    /**
+     * Generates a new plan and requests a replan from the arbitrator if it is successful
+     * Planning stops early if the request is superseded by a newer request
+     * 
+     * @param generation The generation of the plan request from the planning service
+     * @param availability The availability to set if planning is successful
+     * 
+     * @return True if a plan was generated
+     */
+    private boolean planForRequest(long generation, boolean availability) {
+        log.info("Attempting Ead Plan");
+        if (glidepathTrajectory != null) {
+            glidepathTrajectory.setPlanCancellationCheck(() -> !planningService.isCurrent(generation));
+        }
+        // Planning
+        double currentDowntrack = pluginServiceLocator.getRouteService().getCurrentDowntrackDistance();
+        double speedLimit = pluginServiceLocator.getRouteService().getSpeedLimitAtLocation(currentDowntrack).getLimit();
+        DataElementHolder state = null;
+        List<Node> eadResult = null;
         
-                    log.info("Planning Successful Requesting replan with availability: " + availability);
-                    setAvailability(availability);
-                    pluginServiceLocator.getArbitratorService().requestNewPlan();
-                }
+        for (int i = 0; i < MAX_PLAN_RETRIES && planningService.isCurrent(generation); i++) {
+            state = getCurrentStateData(speedLimit);
 
-            });
+            eadResult = generatePlan(state);
+            if (eadResult != null) {
+                break;
+            }
+        }
 
-            planningThread.start();
+        // A newer request will provide the plan
+        if (!planningService.isCurrent(generation)) {
+            log.info("Abandoning superseded plan request " + generation);
+            return false;
+        }
+        
+        // Store the current plan
+        DoubleDataElement startTime = (DoubleDataElement) state.get(DataElementKey.PLANNING_START_TIME);
+        DoubleDataElement startDowntrack = (DoubleDataElement) state.get(DataElementKey.PLANNING_START_DOWNTRACK);
 
-            
+        setPlan(eadResult, startDowntrack.value());
+        
+        if (eadResult == null) {
+            log.warn("Ead result was null requesting plan with no availability");
+            setAvailability(false);
+            pluginServiceLocator.getArbitratorService().requestNewPlan();
+            return false;
         }
+
+        log.info("EadAStar result is path of size: " + eadResult.size());
+        log.info("EadAStar Num ANA iterations: " + ANAStarSolver.iterationCount);
+        // Set the new plan as the current plan for collision checker
+        collisionChecker.setHostPlan(eadResult, startTime.value(), startDowntrack.value());
+
+        log.info("Planning Successful Requesting replan with availability: " + availability);
+        setAvailability(availability);
+        pluginServiceLocator.getArbitratorService().requestNewPlan();
+        return true;
     }
 
     private List<Node> generatePlan(DataElementHolder state) {
@@ -871,6 +883,9 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
 
     @Override
     public void onTerminate() {
+        if (planningService != null) {
+            planningService.shutdown();
+        }
     }
 
     static protected List<gov.dot.fhwa.saxton.carma.signal_plugin.asd.IntersectionData> convertIntersections(
@@ -919,7 +934,6 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
                     traj.getStartLocation(), traj.getEndLocation());
             
             traj.addManeuver(steadySpeed);
-            replanning.set(false);
             return new TrajectoryPlanningResponse();
         }
 
@@ -933,11 +947,16 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
         log.info("Granted highest planning priority");
 
         // See if valid plan is available
-        List<Node> eadResult = currentPlan.get();
+        // The plan and its starting downtrack are read together as a newer plan may be stored at any time
+        List<Node> eadResult;
+        double startDist;
+        synchronized (currentPlan) {
+            eadResult = currentPlan.get();
+            startDist = planStartingDowntrack.get();
+        }
 
         if (eadResult == null) {
             log.warn("PlanTrajectory: Ead result is null");
-            replanning.set(false);
             return new TrajectoryPlanningResponse();
         } else {
             log.info("PlanTrajectory: Ead result is path of size: " + eadResult.size());
@@ -985,10 +1004,6 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
 
         // CONVERT AND INSERT MANEUVERS
         // TODO we should get the starting distance as current downtrack when starting to plan
-        double startDist;
-        synchronized (currentPlan) {
-            startDist = planStartingDowntrack.get(); // TODO this change is not thread safe
-        }
         Node prev = null;
         double prevManeuverEndDist = 0;
         boolean firstManeuver = true;
@@ -1055,7 +1070,6 @@ public class TrafficSignalPlugin extends AbstractPlugin implements IStrategicPlu
         log.info("Planning complete");
         log.info("Added Maneuvers: " + traj.getLongitudinalManeuvers().toString());
         
-        replanning.set(false);
         return new TrajectoryPlanningResponse();
     }
 
@@ -105,6 +105,47 @@ public class MapMessage implements IAsdMessage {
 		return refPoint_;
 	}
 
+	/**
+	 * always : a 64 bit hash of the intersections ID, content version, reference point and every lane's attributes and nodes
+	 * 
+	 * Note: two messages with the same hash can be assumed to describe the same geometry, so this can be used to
+	 * detect when a repeated MAP message has actually changed.
+	 */
+	public long contentHash() {
+		long hash = HASH_OFFSET;
+		hash = hashStep(hash, intersectionId_);
+		hash = hashStep(hash, contentVersion_);
+		if (refPoint_ != null) {
+			hash = hashStep(hash, Double.doubleToLongBits(refPoint_.lat()));
+			hash = hashStep(hash, Double.doubleToLongBits(refPoint_.lon()));
+		}
+		hash = hashStep(hash, lane_.size());
+		for (Lane lane : lane_) {
+			hash = hashStep(hash, lane.id());
+			hash = hashStep(hash, lane.isApproach() ? 1 : 0);
+			hash = hashStep(hash, lane.width());
+			hash = hashStep(hash, lane.attributes());
+			Location[] nodes = lane.getNodes();
+			hash = hashStep(hash, nodes.length);
+			for (Location node : nodes) {
+				hash = hashStep(hash, Double.doubleToLongBits(node.lat()));
+				hash = hashStep(hash, Double.doubleToLongBits(node.lon()));
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * always : hash combined with all 8 bytes of value
+	 */
+	private static long hashStep(long hash, long value) {
+		for (int i = 0;  i < 8;  ++i) {
+			hash ^= (value >>> (8*i)) & 0xff;
+			hash *= HASH_PRIME;
+		}
+		return hash;
+	}
+	
 	/**
 	 * prints a synopsis of the message content to the log file for human reading
 	 */
@@ -163,4 +204,6 @@ public class MapMessage implements IAsdMessage {
 	private Location			refPoint_;				//the reference point
 	private Vector<Lane>		lane_;
 	private static ILogger		log_ = LoggerManager.getLogger(MapMessage.class);
+	private static final long	HASH_OFFSET = 0xcbf29ce484222325L;	//FNV-1a 64 bit offset basis
+	private static final long	HASH_PRIME = 0x100000001b3L;		//FNV-1a 64 bit prime
 }
@@ -48,6 +48,9 @@ public class EadAStar implements IEad {
     protected double                    fineSpeedInc_;              //speed increment for detailed planning, m/s                                                        
     protected double                    maxDistanceError_;          //max allowable deviation from plan, m
     protected boolean                   replanNeeded_ = true;       //do we need to replan the trajectory?
+    protected List<Node>                prevPath_ = null;           //detailed path from the previous plan, used to warm start the solver
+    protected double                    prevStartTime_;             //planning start time of prevPath_, sec
+    protected double                    prevStartDowntrack_;        //planning start downtrack of prevPath_, m
 
 
     protected String                    desiredFuelCostModel_;
@@ -61,6 +64,7 @@ public class EadAStar implements IEad {
     protected static final ILogger            log_ = LoggerManager.getLogger(EadAStar.class);
 
     protected static final int          MAX_COURSE_PATH_ATTEMPTS = 1; // max iterations for solving coarse path
+    protected static final int          MAX_WARM_START_NODES = 200; // max length of the path following the previous plan
 
 
 
@@ -172,12 +176,17 @@ public class EadAStar implements IEad {
         fuelCostModel_.setGoal(goal);
         // No need to time tolerance as that is not evaluated in the isGoal check since time is part of the cost
         fuelCostModel_.setTolerances(new Node(0.51*fineSpeedInc_*fineTimeInc_, 0, 0.51*fineSpeedInc_));
+        warmStartSolver(start, startTime, startDowntrack);
         List<Node> path = solver_.solve(start, fuelCostModel_, fineNeighborCalc_);
         if (path == null  ||  path.size() == 0) {
+            prevPath_ = null;
             String msg = "///// planDetailedPath solver was unable to define a path.";
             log_.error("EAD", msg);
             throw new Exception(msg);
         }
+        prevPath_ = path;
+        prevStartTime_ = startTime;
+        prevStartDowntrack_ = startDowntrack;
         
         //evaluate the chosen path [summarizeDetailedPath]
         summarizeDetailedPath(path, goal);
@@ -186,6 +195,36 @@ public class EadAStar implements IEad {
     }
 
 
+    /**
+     * Provides the solver with an initial solution that follows the previous detailed path from the new start node.
+     * The path is built from the current neighbor calculator, so it already accounts for changes in signal timing or
+     * NCV predictions since the previous plan. With a finite solution cost from the start, an anytime solver only
+     * searches the part of the tree which can improve on that path. Otherwise it must first search for any path to the goal.
+     * Only solvers derived from ANAStarSolver accept an initial solution.
+     */
+    protected void warmStartSolver(Node start, double startTime, double startDowntrack) {
+        if (!(solver_ instanceof ANAStarSolver)  ||  prevPath_ == null) {
+            return;
+        }
+
+        //the previous path is only useful if the new start lies within it
+        double timeOffset = startTime - prevStartTime_;
+        double distanceOffset = startDowntrack - prevStartDowntrack_;
+        if (timeOffset < 0.0  ||  timeOffset > prevPath_.get(prevPath_.size() - 1).getTimeAsDouble()) {
+            return;
+        }
+
+        List<Node> seed = ReferencePathTracker.track(start, prevPath_, timeOffset, distanceOffset,
+                                                     fuelCostModel_, fineNeighborCalc_, MAX_WARM_START_NODES);
+        if (seed.isEmpty()) {
+            log_.debug("EAD", "Unable to follow the previous plan to the goal. Planning without an initial solution");
+            return;
+        }
+        log_.debug("EAD", "Warm starting solver with a path of " + seed.size() + " nodes following the previous plan");
+        ((ANAStarSolver)solver_).setInitialSolution(seed);
+    }
+
+
     /**
      * Logs pertinent info about the coarse solution for human consumption.
      */
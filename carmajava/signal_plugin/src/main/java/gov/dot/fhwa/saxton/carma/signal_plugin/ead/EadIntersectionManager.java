@@ -84,6 +84,16 @@ public class EadIntersectionManager {
 		return sortedIntersections_.get();
 	}
 
+	/**
+	 * Returns the number of times the lane geometry of an intersection has been built from a MAP message
+	 * Repeated MAP messages with unchanged content reuse the geometry and do not add to this count
+	 * 
+	 * @return The number of geometry builds since construction
+	 */
+	public long getNumGeometryBuilds() {
+		return numGeometryBuilds_;
+	}
+
 	private boolean validIntersection(IntersectionData input) {
 
 		if (input.map == null || input.spat == null) {
@@ -205,7 +215,9 @@ public class EadIntersectionManager {
 							+ laneId + ", prevApproachLaneId = " + prevApproachLaneId_ + ", approach="
 							+ (nearGeometry.isApproach(laneId) ? "true" : "false") + ", dtsb = "
 							+ dtsb + ", stopBoxWidth = " + stopBoxWidth);
-				completedIntersections_.add(sortedIntersections.poll().intersectionId);
+				int completedId = sortedIntersections.poll().intersectionId;
+				completedIntersections_.add(completedId);
+				geometryCache_.remove(completedId);
 				nearGeometry = null;
 				dtsb = Double.MAX_VALUE;
 
@@ -230,6 +242,7 @@ public class EadIntersectionManager {
 
 	/**
 	 * Function generates a new IntersectionGeometry object using the provided vehicle location and map message
+	 * The lane geometry is only built when the content of the map message differs from the last one seen for that intersection
 	 * 
 	 * @param vehicleLoc The vehicle location as a gps fix
 	 * @param mapMessage The map message to generate geometry for
@@ -242,8 +255,7 @@ public class EadIntersectionManager {
 		double dtsb = Double.MAX_VALUE; // TODO change this to Integer.MAX_VALUE all over
 		log_.debug("TRAJ", "computeIntersectionGeometry entered with intersectionId: " + mapMessage.getIntersectionId());
 		
-		IntersectionGeometry geometry = new IntersectionGeometry(cteThreshold_, periodicDelay_);
-		geometry.initialize(mapMessage);
+		IntersectionGeometry geometry = new IntersectionGeometry(getGeometryLayout(mapMessage));
 
 		//compute the current vehicle geometry relative to the intersections
 		boolean associatedWithLane = geometry.computeGeometry(vehicleLoc.lat(), vehicleLoc.lon());
@@ -263,6 +275,43 @@ public class EadIntersectionManager {
 		return geometry;
 	}
 	
+	/**
+	 * Returns an initialized IntersectionGeometry for the map message to be used as the layout of new geometry objects
+	 * The geometry is cached by intersection ID and rebuilt only when the content hash of the map message changes
+	 * 
+	 * @param mapMessage The map message to get the geometry of
+	 * 
+	 * @return An IntersectionGeometry which has been initialized with the map message content
+	 */
+	private IntersectionGeometry getGeometryLayout(MapMessage mapMessage) {
+		int intersectionId = mapMessage.getIntersectionId();
+		long contentHash = mapMessage.contentHash();
+		CachedGeometry cached = geometryCache_.get(intersectionId);
+		if (cached != null && cached.contentHash == contentHash) {
+			return cached.layout;
+		}
+
+		log_.debug("TRAJ", "Building geometry for intersection " + intersectionId + " with content version " + mapMessage.getContentVersion());
+		IntersectionGeometry layout = new IntersectionGeometry(cteThreshold_, periodicDelay_);
+		layout.initialize(mapMessage);
+		geometryCache_.put(intersectionId, new CachedGeometry(contentHash, layout));
+		numGeometryBuilds_++;
+		return layout;
+	}
+
+	/**
+	 * The geometry built from the most recent map message of an intersection
+	 */
+	private static class CachedGeometry {
+		final long contentHash;
+		final IntersectionGeometry layout;
+
+		CachedGeometry(long contentHash, IntersectionGeometry layout) {
+			this.contentHash = contentHash;
+			this.layout = layout;
+		}
+	}
+
 	private boolean wantThisIntersection(int thisId) {
 		boolean wanted = false;
 		log_.debug("TRAJ", "Checking if intersection is needed id: " + thisId);
@@ -281,6 +330,8 @@ public class EadIntersectionManager {
 	private HashSet<Integer>	completedIntersections_; //IDs of intersections we have already passed through
 	private AtomicReference<Integer> prevApproachLaneId_ = new AtomicReference<>();;//value of approachLaneId from the previous time step
 	private int[]				intersectionIds_;	//array of IDs of intersections that we will pay attention to
+	private Map<Integer, CachedGeometry> geometryCache_ = new HashMap<>(); //geometry of each intersection keyed by ID
+	private long				numGeometryBuilds_ = 0; //number of times a MAP message has been processed into lane geometry
 	private static ILogger		log_ = LoggerManager.getLogger(EadIntersectionManager.class);
 	private final int cteThreshold_;
 	private final int periodicDelay_;
@@ -25,6 +25,8 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.IGlidepathAppConfig;
 import gov.dot.fhwa.saxton.carma.signal_plugin.logger.ILogger;
 import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 // This class represents the geometry of a single road intersections and the position of the vehicle relative to it.  It is
@@ -56,6 +58,29 @@ public class IntersectionGeometry {
 		map_ = null;
 		laneGeo_ = null;
 		stopBoxWidth_ = 0.0;
+		laneGrid_ = null;
+	}
+	
+	/**
+	 * Constructs an IntersectionGeometry that shares the lane geometry of an already initialized intersection, but
+	 * has no history of vehicle positions.  This avoids repeating the lane analysis of initialize() when the same
+	 * MAP message is seen again.
+	 * 
+	 * @param layout An IntersectionGeometry that has already been initialized from the MAP message
+	 */
+	public IntersectionGeometry(IntersectionGeometry layout) {
+		this(layout.cteThreshold_, 0);
+		timeStep_ = layout.timeStep_;
+		largeMovement_ = layout.largeMovement_;
+		map_ = layout.map_;
+		laneGeo_ = layout.laneGeo_;
+		stopBoxWidth_ = layout.stopBoxWidth_;
+		laneGrid_ = layout.laneGrid_;
+		laneGridMinX_ = layout.laneGridMinX_;
+		laneGridMinY_ = layout.laneGridMinY_;
+		laneGridCellSize_ = layout.laneGridCellSize_;
+		laneGridCols_ = layout.laneGridCols_;
+		laneGridRows_ = layout.laneGridRows_;
 	}
 	
 	/**
@@ -109,6 +134,8 @@ public class IntersectionGeometry {
 			}
 		}
 		
+		buildLaneGrid();
+		
 		log_.debugf("INTR", "End of initialize for intersections ID %d, took = %d ms, stopBoxWidth = %.2f",
 				map_.getIntersectionId(), System.currentTimeMillis()-startTime, stopBoxWidth_);
 	}
@@ -144,10 +171,11 @@ public class IntersectionGeometry {
 		//       may be a no-man's land near the center of the stop box that is not in any of the lanes' bounding boxes!
 		//       This would fail the first screen and no DTSB would be calculated.
 		
-		//loop on all lanes
-		for (int i = 0;  i < map_.numLanes();  ++i) {
+		//loop on the lanes whose bounding boxes overlap the grid cell that the vehicle is in
+		CartesianPoint2D vehiclePoint = new CartesianPoint2D(vehicle.eastOffsetFrom(map_.getRefPoint()), vehicle.northOffsetFrom(map_.getRefPoint()));
+		for (int i : lanesNear(vehiclePoint)) {
 			//if the vehicle is in this lane's bounding box then
-			if (laneGeo_[i].inBoundingBox(vehicle)) {
+			if (laneGeo_[i].inBoundingBox(vehiclePoint)) {
 				
 				//get DTSB & CTE relative to this lane
 				Candidate cand = new Candidate();
@@ -439,6 +467,88 @@ public class IntersectionGeometry {
 	// member elements
 	//////////////////
 	
+	/**
+	 * always : divides the area covered by the lanes' bounding boxes into a grid of square cells and records which
+	 * lanes overlap each cell, so that only a few lanes need to be checked for each vehicle position
+	 */
+	private void buildLaneGrid() {
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = -Integer.MAX_VALUE;
+		int maxY = -Integer.MAX_VALUE;
+		for (LaneGeometry lane : laneGeo_) {
+			if (lane != null) {
+				minX = Math.min(minX, lane.boxMinX());
+				minY = Math.min(minY, lane.boxMinY());
+				maxX = Math.max(maxX, lane.boxMaxX());
+				maxY = Math.max(maxY, lane.boxMaxY());
+			}
+		}
+		if (minX > maxX) {
+			laneGrid_ = new int[0][];
+			laneGridCols_ = 0;
+			laneGridRows_ = 0;
+			return;
+		}
+		
+		//grow the cells if needed to keep the size of the grid bounded for very large intersections
+		int cellSize = LANE_GRID_CELL_SIZE;
+		while (((long)(maxX - minX)/cellSize + 1) * ((long)(maxY - minY)/cellSize + 1) > MAX_LANE_GRID_CELLS) {
+			cellSize *= 2;
+		}
+		laneGridMinX_ = minX;
+		laneGridMinY_ = minY;
+		laneGridCellSize_ = cellSize;
+		laneGridCols_ = (maxX - minX)/cellSize + 1;
+		laneGridRows_ = (maxY - minY)/cellSize + 1;
+		
+		//lanes are added in index order so each cell lists its lanes in the same order as the MAP message
+		List<List<Integer>> cells = new ArrayList<>(laneGridCols_*laneGridRows_);
+		for (int c = 0;  c < laneGridCols_*laneGridRows_;  ++c) {
+			cells.add(new ArrayList<>());
+		}
+		for (int i = 0;  i < laneGeo_.length;  ++i) {
+			LaneGeometry lane = laneGeo_[i];
+			if (lane == null) {
+				continue;
+			}
+			int col0 = (lane.boxMinX() - minX)/cellSize;
+			int col1 = (lane.boxMaxX() - minX)/cellSize;
+			int row0 = (lane.boxMinY() - minY)/cellSize;
+			int row1 = (lane.boxMaxY() - minY)/cellSize;
+			for (int row = row0;  row <= row1;  ++row) {
+				for (int col = col0;  col <= col1;  ++col) {
+					cells.get(row*laneGridCols_ + col).add(i);
+				}
+			}
+		}
+		
+		laneGrid_ = new int[cells.size()][];
+		for (int c = 0;  c < cells.size();  ++c) {
+			List<Integer> cell = cells.get(c);
+			laneGrid_[c] = new int[cell.size()];
+			for (int j = 0;  j < cell.size();  ++j) {
+				laneGrid_[c][j] = cell.get(j);
+			}
+		}
+	}
+	
+	/**
+	 * p is within the area covered by the lanes : indices of the lanes whose bounding boxes may contain p, in ascending order
+	 * otherwise : empty array
+	 */
+	private int[] lanesNear(CartesianPoint2D p) {
+		if (p.x() < laneGridMinX_  ||  p.y() < laneGridMinY_) {
+			return NO_LANES;
+		}
+		int col = (int)(p.x() - laneGridMinX_)/laneGridCellSize_;
+		int row = (int)(p.y() - laneGridMinY_)/laneGridCellSize_;
+		if (col >= laneGridCols_  ||  row >= laneGridRows_) {
+			return NO_LANES;
+		}
+		return laneGrid_[row*laneGridCols_ + col];
+	}
+	
 	//A note about distance to stop bar (DTSB) as used in this class:
 	//Every lane has a stop bar, defined by its node 0.  If the vehicle is associated with that lane, then it has a laneDtsb_, which is the
 	//distance from the vehicle along the segments of that lane to its stop bar.  On approach to the intersections this is simply the DTSB
@@ -497,7 +607,16 @@ public class IntersectionGeometry {
 	private MapMessage						map_;				//the latest MAP message that we've seen
 	private LaneGeometry[]					laneGeo_;			//array of geometries for each lane specified in the MAP message
 	private double							stopBoxWidth_;		//farthest distance between any two lanes' stop bars, m
+	private int[][]							laneGrid_;			//indices of the lanes overlapping each grid cell, stored row by row
+	private int								laneGridMinX_;		//western edge of the lane grid, cm east of the reference point
+	private int								laneGridMinY_;		//southern edge of the lane grid, cm north of the reference point
+	private int								laneGridCellSize_;	//width & height of a grid cell, cm
+	private int								laneGridCols_;		//number of grid cells from west to east
+	private int								laneGridRows_;		//number of grid cells from south to north
 	private double							timeStep_;			//duration of a time step, sec
 	private int								largeMovement_;		//unrealistically large distance to travel in one time step, cm
+	private static final int				LANE_GRID_CELL_SIZE = 2*Constants.THRESHOLD_DIST; //nominal width of a lane grid cell, cm
+	private static final int				MAX_LANE_GRID_CELLS = 4096;
+	private static final int[]				NO_LANES = new int[0];
 	private static ILogger log_ = LoggerManager.getLogger(IntersectionGeometry.class);
 }
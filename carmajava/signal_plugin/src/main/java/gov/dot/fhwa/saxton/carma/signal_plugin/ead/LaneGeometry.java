@@ -99,6 +99,14 @@ public class LaneGeometry {
 			p0 = p1;
 		}
 		
+		//store the distance along the lane from the stop bar to each node so DTSB doesn't need to walk the segments every time step
+		distToStopBar_ = new double[points_.size()];
+		double sum = 0.0;
+		for (int i = 1;  i < points_.size();  ++i) {
+			sum += points_.get(i - 1).distanceFrom(points_.get(i));
+			distToStopBar_[i] = sum;
+		}
+		
 		//finalize the bounding rectangle for all points in this lane (add a tolerance all around)
 		boxMinX_ -= 4*Constants.THRESHOLD_DIST;
 		boxMinY_ -= 4*Constants.THRESHOLD_DIST;
@@ -121,6 +129,16 @@ public class LaneGeometry {
 		//convert the location to a Cartesian point
 		CartesianPoint2D p = new CartesianPoint2D(latLon.eastOffsetFrom(reference_), latLon.northOffsetFrom(reference_));
 		
+		return inBoundingBox(p);
+	}
+
+	/**
+	 * p (Cartesian coordinates relative to the intersection's reference point) is within the rectangle that bounds
+	 * all points in this lane : true
+	 * otherwise : false
+	 */
+	public boolean inBoundingBox(CartesianPoint2D p) {
+		
 		//determine if it is within the bounds
 		boolean res = false;
 		if (p.x() > boxMinX_  &&  p.x() < boxMaxX_) {
@@ -186,6 +204,34 @@ public class LaneGeometry {
 		return points_.get(0);
 	}
 	
+	/**
+	 * always : western edge of the lane's bounding box, cm east of the reference point
+	 */
+	public int boxMinX() {
+		return boxMinX_;
+	}
+	
+	/**
+	 * always : eastern edge of the lane's bounding box, cm east of the reference point
+	 */
+	public int boxMaxX() {
+		return boxMaxX_;
+	}
+	
+	/**
+	 * always : southern edge of the lane's bounding box, cm north of the reference point
+	 */
+	public int boxMinY() {
+		return boxMinY_;
+	}
+	
+	/**
+	 * always : northern edge of the lane's bounding box, cm north of the reference point
+	 */
+	public int boxMaxY() {
+		return boxMaxY_;
+	}
+	
 	//////////////////
 	// member elements
 	//////////////////
@@ -228,11 +274,11 @@ public class LaneGeometry {
 			double distToDowntrackNode = 0.0;
 			CartesianPoint2D vehicleTranslated = null;
 			if (closestNode > 0) {
-				segA = new LineSegment2D(points_.get(closestNode - 1), points_.get(closestNode));
+				segA = segments_.get(closestNode - 1);
 				distToA = segA.shortestDistanceToPoint(vehicle);
 			}
 			if (closestNode < points_.size() - 1) {
-				segB = new LineSegment2D(points_.get(closestNode), points_.get(closestNode + 1));
+				segB = segments_.get(closestNode);
 				distToB = segB.shortestDistanceToPoint(vehicle);
 			}
 			
@@ -286,18 +332,10 @@ public class LaneGeometry {
 			}
 			
 			//compute the downtrack distance to the stop bar
-			double sum = 0.0;
-			CartesianPoint2D prevPoint = points_.get(0);
-			for (int i = 1;  i <= nodeOfInterest;  ++i) {
-				CartesianPoint2D curPoint = points_.get(i);
-				sum += prevPoint.distanceFrom(curPoint);
-				prevPoint = curPoint;
-			}
-			dtsb_ = (int)(sum + distToDowntrackNode + 0.5);
+			dtsb_ = (int)(distToStopBar_[nodeOfInterest] + distToDowntrackNode + 0.5);
 				
 		} catch (Exception e) {
-			//this should only be generated by LineSegment2D constructors, which are safe here because
-			// we already vetted the points in the lane during our constructor, so don't need to do anything here.
+			//this should only be generated by lanes with too few nodes to define a segment
 			log_.warn("INTR", "Line segment exception in computeDistances(). No handler; continuing.");
 		}
 	}
@@ -310,6 +348,7 @@ public class LaneGeometry {
 	private int							cte_;			//computed cross-track error, in cm
 	private Vector<CartesianPoint2D>	points_;		//the points in Cartesian coordinates that represent our lane nodes
 	private Vector<LineSegment2D>		segments_;		//ordered such that item 0 is adjacent to the stop bar; subsequent ones are farther away
+	private double[]					distToStopBar_;	//distance along the lane from the stop bar to each point, cm
 	private Location					reference_;		//the intersections's reference point (maps to Cartesian coordinate system's origin)
 	private Location					inputLocation_;	//the location that distance computations have already been done for
 	private static ILogger log_ = LoggerManager.getLogger(LaneGeometry.class);
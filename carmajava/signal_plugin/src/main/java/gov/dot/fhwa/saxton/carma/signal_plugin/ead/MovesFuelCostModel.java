@@ -19,6 +19,7 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,11 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
  * It assumes a flat roadway (no grade) and uniform acceleration between the given nodes.
  * It also assumes acceleration <= -2.0 corresponds to deceleration
  * It also assumes that unknown operating modes have a cost equal to the highest cost present in the provided tables
+ *
+ * The energy rate of each operating mode is stored in an array indexed by operating mode id.
+ * Since edge cost only depends on the start speed, end speed and time step of an edge, the costs of all edges
+ * between speeds up to the max velocity with time steps up to MAX_LATTICE_TIME_STEP are computed on construction.
+ * Edges in this lattice are costed with a single array read. Other edges are computed directly.
  */
 public class MovesFuelCostModel implements ICostModel {
 
@@ -51,7 +57,7 @@ public class MovesFuelCostModel implements ICostModel {
     private final double dragTermC;
     private final double vehicleMassInTons;
     private final double fixedMassFactor;
-    private final Map<Integer,List<Double>> baseRateTable;
+    private final double[] energyRatesJPerSec; // Energy use rate of each operating mode in J/s indexed by op mode id
     private final int BASE_RATE_ENERGY_COL = 4;
     private final double ROAD_GRADE = 0.0; // By default we assume the road is flat. 0.0 in rad
     private final int EXPECTED_BASE_RATE_TABLE_LENGTH = 7; // Number of columns in the energy consumption table
@@ -59,6 +65,13 @@ public class MovesFuelCostModel implements ICostModel {
     private final double J_PER_KJ = 1000.0;
     private final double DEFAULT_PEAK_ENERGY_KJ; // The highest cost found in the energy consumption table
 
+    // Precomputed edge costs indexed by start speed, end speed, and time step in node units
+    private static final double MAX_LATTICE_TIME_STEP = 10.0; // sec
+    private static final int MAX_LATTICE_SIZE = 1 << 18; // Upper bound on lattice entries in case of fine node units
+    private final double[] edgeCostLattice; // Null if the lattice would be too large
+    private final int latticeSpeeds;
+    private final int latticeTimeSteps;
+
     private int numCosts = 0;
     protected static final ILogger log = LoggerManager.getLogger(MovesFuelCostModel.class);
     protected final double fuelNormalizationDenominator;
@@ -102,7 +115,7 @@ public class MovesFuelCostModel implements ICostModel {
         this.dragTermC = dragTermC;
         this.vehicleMassInTons = vehicleMassInTons;
         this.fixedMassFactor = fixedMassFactor;
-        this.baseRateTable = loadTable(baseRateTablePath); // Load the base rates table
+        final Map<Integer,List<Double>> baseRateTable = loadTable(baseRateTablePath); // Load the base rates table
 
         this.percentCostForTime = percentCostForTime;
         this.percentCostForFuel = 1.0 - percentCostForTime;
@@ -110,10 +123,15 @@ public class MovesFuelCostModel implements ICostModel {
         this.maxAccel = maxAccel;
         // Find the highest energy cost in the table and store it for use when values fall outside table scope
         double maxValue = 0; 
-        for(Entry<Integer, List<Double>> entry: this.baseRateTable.entrySet()) {
+        int maxOpMode = 0;
+        for(Entry<Integer, List<Double>> entry: baseRateTable.entrySet()) {
             if (entry.getValue().get(BASE_RATE_ENERGY_COL) > maxValue) {
                 maxValue = entry.getValue().get(BASE_RATE_ENERGY_COL);
             }
+            if (entry.getKey() < 0) {
+                throw new IOException("MOVES fuel cost model data file contained negative operating mode " + entry.getKey());
+            }
+            maxOpMode = Math.max(maxOpMode, entry.getKey());
         }
 
         this.timeNormalizationDenominator = timeNormalizationDenominator;
@@ -121,6 +139,43 @@ public class MovesFuelCostModel implements ICostModel {
         this.heuristicWeight = heuristicWeight;
         
         this.DEFAULT_PEAK_ENERGY_KJ = maxValue;
+
+        // Operating modes missing from the table are given the highest cost in the table
+        this.energyRatesJPerSec = new double[maxOpMode + 1];
+        Arrays.fill(this.energyRatesJPerSec, toJPerSec(DEFAULT_PEAK_ENERGY_KJ));
+        for(Entry<Integer, List<Double>> entry: baseRateTable.entrySet()) {
+            this.energyRatesJPerSec[entry.getKey()] = toJPerSec(entry.getValue().get(BASE_RATE_ENERGY_COL));
+        }
+
+        // Build the edge cost lattice
+        final long speeds = new Node(0.0, 0.0, maxVelocity).getSpeed() + 2; // Speeds from zero up to one unit above max velocity
+        final long timeSteps = new Node(0.0, MAX_LATTICE_TIME_STEP, 0.0).getTime();
+        if (speeds > 0 && timeSteps > 0 && speeds * speeds * timeSteps <= MAX_LATTICE_SIZE) {
+            this.latticeSpeeds = (int) speeds;
+            this.latticeTimeSteps = (int) timeSteps;
+            this.edgeCostLattice = new double[latticeSpeeds * latticeSpeeds * latticeTimeSteps];
+            for (int startSpeed = 0; startSpeed < latticeSpeeds; startSpeed++) {
+                for (int endSpeed = 0; endSpeed < latticeSpeeds; endSpeed++) {
+                    for (int timeStep = 1; timeStep <= latticeTimeSteps; timeStep++) {
+                        Node n1 = new Node(0L, 0L, startSpeed);
+                        Node n2 = new Node(0L, timeStep, endSpeed);
+                        edgeCostLattice[latticeIndex(startSpeed, endSpeed, timeStep)] =
+                            edgeCost(n1.getSpeedAsDouble(), n2.getSpeedAsDouble(), n2.getTimeAsDouble() - n1.getTimeAsDouble());
+                    }
+                }
+            }
+        } else {
+            this.latticeSpeeds = 0;
+            this.latticeTimeSteps = 0;
+            this.edgeCostLattice = null;
+        }
+    }
+
+    /**
+     * Helper function to get the index of an edge in the edge cost lattice
+     */
+    private int latticeIndex(long startSpeed, long endSpeed, long timeStep) {
+        return (int) ((startSpeed * latticeSpeeds + endSpeed) * latticeTimeSteps + (timeStep - 1));
     }
 
     /**
@@ -186,20 +241,40 @@ public class MovesFuelCostModel implements ICostModel {
         //input sanity checks
         if (n2.getTime() <= n1.getTime()  ||  n2.getDistance() < n1.getDistance()  ||
                 n1.getSpeed() < 0  ||  n2.getSpeed() < 0) {
-            log.debug("EAD", "Cost computation invoked with invalid nodes:");
-            log.debug("EAD", "    n1: " + n1.toString());
-            log.debug("EAD", "    n2: " + n2.toString());
-            log.debug("EAD", "    " + numCosts + " costs have been evaluated since goal defined or previous error.");
+            if (LoggerManager.isDebug()) {
+                log.debug("EAD", "Cost computation invoked with invalid nodes:");
+                log.debug("EAD", "    n1: " + n1.toString());
+                log.debug("EAD", "    n2: " + n2.toString());
+                log.debug("EAD", "    " + numCosts + " costs have been evaluated since goal defined or previous error.");
+            }
             numCosts = 0;
             return Double.MAX_VALUE;
         }else {
             ++numCosts;
         }
 
+        // Look up the cost if the edge is in the lattice
+        final long timeStep = n2.getTime() - n1.getTime();
+        if (n1.getSpeed() < latticeSpeeds && n2.getSpeed() < latticeSpeeds && timeStep <= latticeTimeSteps) {
+            return edgeCostLattice[latticeIndex(n1.getSpeed(), n2.getSpeed(), timeStep)];
+        }
+
+        return edgeCost(n1.getSpeedAsDouble(), n2.getSpeedAsDouble(), n2.getTimeAsDouble() -  n1.getTimeAsDouble());
+    }
+
+    /**
+     * Helper function to compute the cost of moving between two speeds with uniform acceleration
+     * 
+     * @param startSpeed The starting speed in m/s
+     * @param endSpeed The ending speed in m/s
+     * @param dt The change in time in seconds
+     * 
+     * @return The normalized cost
+     */
+    private double edgeCost(double startSpeed, double endSpeed, double dt) {
         // Get VSP
-        final double dv = n2.getSpeedAsDouble() - n1.getSpeedAsDouble();
-        final double avg_v = (n2.getSpeedAsDouble() + n1.getSpeedAsDouble()) / 2.0;
-        final double dt = n2.getTimeAsDouble() -  n1.getTimeAsDouble(); // Change in time in seconds
+        final double dv = endSpeed - startSpeed;
+        final double avg_v = (endSpeed + startSpeed) / 2.0;
         final double a = dv / dt; // We are using the acceleration to get from current speed to target speed
         final double VSP = getVSP(a,avg_v);
 
@@ -209,9 +284,10 @@ public class MovesFuelCostModel implements ICostModel {
         // Return the highest cost which would still be in the table when our result is in the undefined region
         // Additionally log the occurrence
         if (opMode == -1) {
-            log.debug("EAD", "Invalid operating mode found for MOVES cost calculation. Using highest known cost in table: " + DEFAULT_PEAK_ENERGY_KJ + " KJ");
-            log.debug("EAD", "    Node 1: " + n1.toString());
-            log.debug("EAD", "    Node 2: " + n2.toString());
+            if (LoggerManager.isDebug()) {
+                log.debug("EAD", "Invalid operating mode found for MOVES cost calculation. Using highest known cost in table: " + DEFAULT_PEAK_ENERGY_KJ + " KJ");
+                log.debug("EAD", "    Start speed: " + startSpeed + " End speed: " + endSpeed + " dt: " + dt);
+            }
             return J_PER_KJ * ((DEFAULT_PEAK_ENERGY_KJ / SEC_PER_HR) * dt);
         }
 
@@ -245,9 +321,10 @@ public class MovesFuelCostModel implements ICostModel {
      * @return The usage of energy in joules
      */
     protected double getJFromOpMode(int opMode, double dt) {
-      final List<Double> baseRateList = baseRateTable.get(opMode);
-
-      return toJPerSec(baseRateList.get(BASE_RATE_ENERGY_COL)) * dt;
+      if (opMode < 0 || opMode >= energyRatesJPerSec.length) {
+        return toJPerSec(DEFAULT_PEAK_ENERGY_KJ) * dt;
+      }
+      return energyRatesJPerSec[opMode] * dt;
     }
 
     /**
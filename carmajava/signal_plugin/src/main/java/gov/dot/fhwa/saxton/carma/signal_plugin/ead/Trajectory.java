@@ -23,7 +23,7 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.asd.Location;
 import gov.dot.fhwa.saxton.carma.signal_plugin.asd.map.MapMessage;
 import gov.dot.fhwa.saxton.carma.signal_plugin.asd.spat.ISpatMessage;
 import gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.IGlidepathAppConfig;
-import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.ANAStarSolver;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.PackedANAStarSolver;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.AStarSolver;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
 import gov.dot.fhwa.saxton.carma.signal_plugin.logger.ILogger;
@@ -31,6 +31,7 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 import static gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.SignalPhase.NONE;
 
@@ -135,9 +136,9 @@ public class Trajectory implements ITrajectory {
 
 		//pass config parameters to the EAD library
 		try {
-			ANAStarSolver solver = new ANAStarSolver();
-			solver.setMaxPlanningTimeMS(200);
-			ead_.initialize(timeStepSize_, solver);
+			solver_ = new PackedANAStarSolver();
+			solver_.setMaxPlanningTimeMS(200);
+			ead_.initialize(timeStepSize_, solver_);
 			//ead_.initialize(timeStepSize_, new AStarSolver());
 		} catch (Exception e) {
 			log_.errorf("TRAJ", "Exception thrown by EAD library initialize(). maxJerk = %f, speedLimit = %f",
@@ -178,6 +179,14 @@ public class Trajectory implements ITrajectory {
 		return stopConfirmed_;
 	}
 
+	/**
+	 * Sets a check which the tree solver polls while planning. Once it returns true the current plan is abandoned
+	 * @param cancellationCheck - returns true when the current plan is no longer needed
+	 */
+	public void setPlanCancellationCheck(BooleanSupplier cancellationCheck) {
+		solver_.setCancellationCheck(cancellationCheck);
+	}
+
 	/**
 	 * Returns a list of known intersections sorted from nearest to farthest
 	 * 
@@ -342,6 +351,7 @@ public class Trajectory implements ITrajectory {
 	private double				curAccel_;			//current acceleration (smoothed), m/s^2
 	private double				timeRemaining_;		//time remaining in the current signal phase, sec
 	private IEad				ead_;				//the EAD model that computes the speed commands
+	private PackedANAStarSolver	solver_;			//the tree solver used by the EAD model
 	private boolean				accelLimiter_;		//is acceleration limiter used?
 	private boolean				jerkLimiter_;		//is jerk limiter used?
 	private double				maxCmdAdj_;			//difference (m/s) needed between current speed and command given to the XGV to get it to respond quickly
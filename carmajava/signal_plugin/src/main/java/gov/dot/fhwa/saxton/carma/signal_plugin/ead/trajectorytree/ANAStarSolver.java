@@ -20,6 +20,7 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.logger.ILogger;
 import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 import org.apache.commons.lang.mutable.MutableDouble;
 
@@ -34,6 +35,8 @@ public class ANAStarSolver implements ITreeSolver {
 
   protected static final ILogger log_ = LoggerManager.getLogger(AStarSolver.class);
   protected long maxPlanningTimeMS = 500;
+  protected BooleanSupplier cancellationCheck = () -> false;
+  protected List<Node> initialSolution = null;
   public static long iterationCount = 0;
 
   @Override
@@ -66,8 +69,11 @@ public class ANAStarSolver implements ITreeSolver {
 
 
     // Initialize values
+    // Start from the initial solution if one was provided
+    List<Node> seed = takeInitialSolution();
+    double seedCost = solutionCost(start, seed, costModel);
     // Best total cost to goal so far
-    MutableDouble G = new MutableDouble(Double.POSITIVE_INFINITY);
+    MutableDouble G = new MutableDouble(seedCost);
     // Best sub-optimal bound so far (min E-score)
     // E is not used for calculations, but can be evaluated as a representation of path optimality
     MutableDouble E = new MutableDouble(Double.POSITIVE_INFINITY);
@@ -77,7 +83,7 @@ public class ANAStarSolver implements ITreeSolver {
     hScore.put(start, costModel.heuristic(start));
     openSetQueue.add(start);
 
-    List<Node> bestPath = new LinkedList<>();
+    List<Node> bestPath = seedCost < Double.POSITIVE_INFINITY ? new LinkedList<>(seed) : new LinkedList<>();
 
     iterationCount = 0;
 
@@ -97,8 +103,8 @@ public class ANAStarSolver implements ITreeSolver {
         bestPath = result;
       }
 
-      // If more than the allowable time has elapsed break
-      if (System.currentTimeMillis() > endTime) {
+      // If more than the allowable time has elapsed or the search was cancelled break
+      if (System.currentTimeMillis() > endTime || cancellationCheck.getAsBoolean()) {
         break;
       }
 
@@ -170,7 +176,7 @@ public class ANAStarSolver implements ITreeSolver {
 
 
     // Begin search
-    while (!openSetQueue.isEmpty() && (firstRun || (System.currentTimeMillis() < endTime) ) ) {
+    while (!openSetQueue.isEmpty() && (firstRun || (System.currentTimeMillis() < endTime) ) && !cancellationCheck.getAsBoolean()) {
       Node current = openSetQueue.poll(); // Retrieve and remove the next node on the queue
       visitedNodes++;
 
@@ -264,6 +270,67 @@ public class ANAStarSolver implements ITreeSolver {
     this.maxPlanningTimeMS = maxPlanningTimeMS;
   }
 
+  /**
+   * Sets a check which is polled as nodes are expanded. Once it returns true the search stops
+   * and the best path found so far is returned, which may be empty.
+   * 
+   * Unlike the max planning time this is also honored before the first solution is found
+   * 
+   * @param cancellationCheck Returns true when the current search should be abandoned
+   */
+  public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+    this.cancellationCheck = cancellationCheck;
+  }
+
+  /**
+   * Sets a path to the goal which the next call to solve will start from
+   * 
+   * The cost of the path is used as the best cost found so far, so only nodes which can lead to a cheaper path are
+   * searched and the max planning time is honored from the start of the search. If no cheaper path is found the
+   * initial solution is returned. The path is only used if it starts at the start node and ends at a goal node.
+   * 
+   * @param initialSolution A path from the start node to a goal node or null to search without one
+   */
+  public void setInitialSolution(List<Node> initialSolution) {
+    this.initialSolution = initialSolution;
+  }
+
+  /**
+   * Returns the initial solution provided for this search and clears it so it is not used by later searches
+   */
+  protected List<Node> takeInitialSolution() {
+    List<Node> seed = initialSolution;
+    initialSolution = null;
+    return seed;
+  }
+
+  /**
+   * Computes the cost of a path which can be used as an initial solution
+   * 
+   * @param start The starting node of the search
+   * @param path The path to evaluate
+   * @param costModel Cost model
+   * 
+   * @return The total cost of the path or positive infinity if the path is not a usable solution
+   */
+  protected double solutionCost(Node start, List<Node> path, ICostModel costModel) {
+    if (path == null || path.isEmpty() || !path.get(0).equals(start) || !costModel.isGoal(path.get(path.size() - 1))) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double cost = 0.0;
+    Node prev = null;
+    for (Node n : path) {
+      if (prev != null) {
+        if (costModel.isUnusable(prev)) {
+          return Double.POSITIVE_INFINITY;
+        }
+        cost += costModel.cost(prev, n);
+      }
+      prev = n;
+    }
+    return cost;
+  }
+
   /**
    * Helper function walks the list of parents from the goal to start to determine the optimal path
    * The resulting goal->start path is flipped before being returned so that it is in order of start->goal
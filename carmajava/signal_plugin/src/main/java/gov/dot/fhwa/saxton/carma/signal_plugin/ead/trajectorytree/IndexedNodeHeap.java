@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Indexed binary min heap of node slots from a {@link PackedNodeTable} ordered by a double priority
+ * <p>
+ * The heap position of each slot is tracked so the priority of a queued slot can be changed in place
+ * instead of queuing a duplicate entry. No assumption is made about the ordering of slots with equal priority.
+ * <p>
+ * This class is not thread safe
+ */
+public final class IndexedNodeHeap {
+  private int[] heap;
+  // Position in the heap of each slot. -1 if the slot is not queued
+  private int[] positions;
+  private double[] priorities;
+  private int size = 0;
+
+  /**
+   * Constructor
+   *
+   * @param expectedSlots The number of slots expected to be queued. The heap grows beyond this as needed
+   */
+  public IndexedNodeHeap(int expectedSlots) {
+    int capacity = Math.max(16, expectedSlots);
+    heap = new int[capacity];
+    positions = new int[capacity];
+    priorities = new double[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  /**
+   * Removes all slots from the heap while keeping its allocated capacity
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Checks if a slot is queued
+   *
+   * @param slot The slot to check
+   *
+   * @return True if the slot is in the heap
+   */
+  public boolean contains(int slot) {
+    return slot < positions.length && positions[slot] >= 0;
+  }
+
+  /**
+   * Gets the priority of a queued slot
+   *
+   * @param slot The queued slot
+   *
+   * @return The priority of the slot
+   */
+  public double getPriority(int slot) {
+    return priorities[slot];
+  }
+
+  /**
+   * Queues a slot or changes its priority if it is already queued
+   *
+   * @param slot The slot to queue
+   * @param priority The priority of the slot. Lower values are removed first
+   */
+  public void addOrUpdate(int slot, double priority) {
+    if (slot >= positions.length) {
+      grow(slot + 1);
+    }
+    int pos = positions[slot];
+    if (pos < 0) {
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, heap.length * 2);
+      }
+      priorities[slot] = priority;
+      heap[size] = slot;
+      positions[slot] = size;
+      siftUp(size++);
+    } else {
+      double previous = priorities[slot];
+      priorities[slot] = priority;
+      if (priority < previous) {
+        siftUp(pos);
+      } else {
+        siftDown(pos);
+      }
+    }
+  }
+
+  /**
+   * Gets the slot with the lowest priority without removing it
+   *
+   * @return The slot or -1 if the heap is empty
+   */
+  public int peek() {
+    return size == 0 ? -1 : heap[0];
+  }
+
+  /**
+   * Removes and returns the slot with the lowest priority
+   *
+   * @return The slot or -1 if the heap is empty
+   */
+  public int poll() {
+    if (size == 0) {
+      return -1;
+    }
+    int top = heap[0];
+    removeAt(0);
+    return top;
+  }
+
+  /**
+   * Removes a slot from the heap if it is queued
+   *
+   * @param slot The slot to remove
+   */
+  public void remove(int slot) {
+    if (contains(slot)) {
+      removeAt(positions[slot]);
+    }
+  }
+
+  /**
+   * Recomputes the priority of every queued slot and restores the heap order in linear time
+   * This is cheaper than updating each slot individually when all priorities change at once
+   *
+   * @param retain Test applied to each queued slot. Slots which fail the test are removed from the heap
+   * @param priority Function providing the new priority of each retained slot
+   */
+  public void rebuild(IntPredicate retain, IntToDoubleFunction priority) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      int slot = heap[i];
+      if (retain.test(slot)) {
+        priorities[slot] = priority.applyAsDouble(slot);
+        heap[kept] = slot;
+        positions[slot] = kept;
+        kept++;
+      } else {
+        positions[slot] = -1;
+      }
+    }
+    size = kept;
+    for (int pos = (size >>> 1) - 1; pos >= 0; pos--) {
+      siftDown(pos);
+    }
+  }
+
+  private void removeAt(int pos) {
+    int removed = heap[pos];
+    positions[removed] = -1;
+    size--;
+    if (pos < size) {
+      int last = heap[size];
+      heap[pos] = last;
+      positions[last] = pos;
+      siftDown(pos);
+      if (heap[pos] == last) {
+        siftUp(pos);
+      }
+    }
+  }
+
+  private void siftUp(int pos) {
+    final int slot = heap[pos];
+    final double priority = priorities[slot];
+    while (pos > 0) {
+      int parentPos = (pos - 1) >>> 1;
+      int parent = heap[parentPos];
+      if (priorities[parent] <= priority) {
+        break;
+      }
+      heap[pos] = parent;
+      positions[parent] = pos;
+      pos = parentPos;
+    }
+    heap[pos] = slot;
+    positions[slot] = pos;
+  }
+
+  private void siftDown(int pos) {
+    final int slot = heap[pos];
+    final double priority = priorities[slot];
+    final int half = size >>> 1;
+    while (pos < half) {
+      int childPos = 2 * pos + 1;
+      int child = heap[childPos];
+      int rightPos = childPos + 1;
+      if (rightPos < size && priorities[heap[rightPos]] < priorities[child]) {
+        childPos = rightPos;
+        child = heap[childPos];
+      }
+      if (priority <= priorities[child]) {
+        break;
+      }
+      heap[pos] = child;
+      positions[child] = pos;
+      pos = childPos;
+    }
+    heap[pos] = slot;
+    positions[slot] = pos;
+  }
+
+  private void grow(int minCapacity) {
+    int oldLength = positions.length;
+    int newLength = Math.max(oldLength * 2, minCapacity);
+    positions = Arrays.copyOf(positions, newLength);
+    Arrays.fill(positions, oldLength, newLength, -1);
+    priorities = Arrays.copyOf(priorities, newLength);
+  }
+}
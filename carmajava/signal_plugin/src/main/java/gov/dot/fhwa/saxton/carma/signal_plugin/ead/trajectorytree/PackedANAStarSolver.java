@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Implements the Anytime Non-parametric A* (ANA*) algorithm with the open set held in an {@link IndexedNodeHeap}
+ * <p>
+ * Nodes are keyed by their packed state in a {@link PackedNodeTable}. When a better path to a queued node is found its e-score
+ * is updated in place rather than queuing a duplicate. When a better solution is found the e-scores of all queued nodes
+ * are recomputed in a single linear time pass which also drops nodes that can no longer improve on the solution.
+ * Between solutions, nodes are pruned lazily when they are removed from the queue instead of being searched for.
+ * This avoids copying the open set into a new priority queue after every solution, so more improvement iterations
+ * can be completed within the max planning time.
+ * <p>
+ * Before the first solution is found every e-score is infinite. In this case nodes are expanded in order of increasing
+ * heuristic, which is the ordering the e-score converges to as the best solution cost grows.
+ * If an initial solution is provided the search starts with its cost as the best solution cost.
+ * <p>
+ * The table and heap are reused between calls to solve, so a single instance should not be shared between threads.
+ * If a node is found whose state cannot be packed the search is repeated with the {@link ANAStarSolver} implementation.
+ */
+public class PackedANAStarSolver extends ANAStarSolver {
+
+  private static final int EXPECTED_NODES = 1500;
+
+  private final PackedNodeTable nodes = new PackedNodeTable(EXPECTED_NODES);
+  private final IndexedNodeHeap openSet = new IndexedNodeHeap(EXPECTED_NODES);
+
+  // Best total cost to goal so far
+  private double bestCost = Double.POSITIVE_INFINITY;
+  // Best sub-optimal bound so far (min e-score)
+  private double bestBound = Double.POSITIVE_INFINITY;
+
+  // Set when a node which cannot be packed is found
+  private Node unpackableNode = null;
+
+  @Override
+  public List<Node> solve(Node start, ICostModel costModel, INeighborCalculator neighborCalculator) {
+    nodes.clear();
+    openSet.clear();
+    List<Node> seed = takeInitialSolution();
+    bestCost = solutionCost(start, seed, costModel);
+    bestBound = Double.POSITIVE_INFINITY;
+    unpackableNode = PackedNodeTable.fits(start) ? null : start;
+    try {
+      if (unpackableNode == null) {
+        List<Node> bestPath = search(start, costModel, neighborCalculator,
+          bestCost < Double.POSITIVE_INFINITY ? new LinkedList<>(seed) : new LinkedList<>());
+        if (unpackableNode == null) {
+          return bestPath;
+        }
+      }
+      log_.warn("EAD", "Node " + unpackableNode.toString() + " cannot be packed. Solving with ANAStarSolver");
+      nodes.clear();
+      openSet.clear();
+      setInitialSolution(seed);
+      return super.solve(start, costModel, neighborCalculator);
+    } finally {
+      // Release node references held from this search
+      nodes.clear();
+      openSet.clear();
+    }
+  }
+
+  private List<Node> search(Node start, ICostModel costModel, INeighborCalculator neighborCalculator, List<Node> bestPath) {
+    // Cost of going from start to start is zero.
+    int startSlot = nodes.add(PackedNodeTable.pack(start), start);
+    nodes.setGScore(startSlot, 0.0);
+    nodes.setHScore(startSlot, costModel.heuristic(start));
+    openSet.addOrUpdate(startSlot, priority(startSlot));
+
+    iterationCount = 0;
+
+    long endTime = System.currentTimeMillis() + maxPlanningTimeMS;
+    if (endTime < 0) {
+      // Overflow has occurred which means we should use Long.MAX_VALUE
+      endTime = Long.MAX_VALUE;
+    }
+    // While the openSet is not empty there might still be a more optimal path
+    while (!openSet.isEmpty()) {
+      iterationCount++;
+      // Improve the current path solution by evaluating remaining nodes in openSet
+      List<Node> result = improveSolution(costModel, neighborCalculator, endTime);
+      if (unpackableNode != null) {
+        return bestPath;
+      }
+
+      // If the result is not empty then it contains a better path
+      if (!result.isEmpty()) {
+        bestPath = result;
+      }
+
+      // If more than the allowable time has elapsed or the search was cancelled break
+      if (System.currentTimeMillis() > endTime || cancellationCheck.getAsBoolean()) {
+        break;
+      }
+
+      // Update eScores in openSet with new G and prune the open set
+      openSet.rebuild(this::canImprove, this::priority);
+    }
+
+    log_.debug("EAD", "ANA* completed " + iterationCount + " iterations with suboptimality bound " + bestBound);
+    return bestPath; // Return best path found or empty list if no path exists
+  }
+
+  /**
+   * Improve the current best path solution by continuing to evaluate nodes in the openSet
+   *
+   * @param costModel Cost model
+   * @param neighborCalculator Neighbor calculator for generating a nodes neighbors
+   * @param endTime The max ending time
+   *
+   * @return An improved path or an empty list if no improved path could be found
+   */
+  private List<Node> improveSolution(ICostModel costModel, INeighborCalculator neighborCalculator, long endTime) {
+    long visitedNodes = 0;
+    boolean firstRun = bestCost == Double.POSITIVE_INFINITY;
+
+    // Begin search
+    while (!openSet.isEmpty() && (firstRun || (System.currentTimeMillis() < endTime)) && !cancellationCheck.getAsBoolean()) {
+      int currentSlot = openSet.poll(); // Retrieve and remove the next node on the queue
+      visitedNodes++;
+      Node current = nodes.getNode(currentSlot);
+
+      double gScoreOfNode = nodes.getGScore(currentSlot);
+      double hScoreOfNode = nodes.getHScore(currentSlot);
+      double eScoreOfNode = (bestCost - gScoreOfNode) / hScoreOfNode;
+      if (eScoreOfNode < bestBound) {
+        bestBound = eScoreOfNode;
+      }
+
+      // Check if this node is the goal
+      if (costModel.isGoal(current)) {
+        log_.info("EAD", "Found our goal with node " + current.toString());
+        log_.info("EAD", "Ending sizes: nodes=" + nodes.size() + ", openSet=" + openSet.size());
+        log_.debug("EAD", "We have visited " + visitedNodes + " nodes to find the solution");
+        bestCost = gScoreOfNode;
+        return rebuildPath(currentSlot);
+      }
+
+      //if this node is unusable or cannot improve on the current solution then toss it out and move on
+      if (costModel.isUnusable(current) || !canImprove(currentSlot)) {
+        continue;
+      }
+
+      int prevSlot = nodes.getParent(currentSlot);
+      if (prevSlot >= 0) {
+        long speedChange = current.getSpeed() - nodes.getNode(prevSlot).getSpeed();
+        FinePathNeighbors.prevAccelDir = speedChange > 0 ? 1 : (speedChange < 0 ? -1 : 0);
+      } else {
+        FinePathNeighbors.prevAccelDir = -2;
+      }
+
+      // Iterate over the list of neighbors
+      for (Node neighbor : neighborCalculator.neighbors(current)) {
+        if (!PackedNodeTable.fits(neighbor)) {
+          unpackableNode = neighbor;
+          return new LinkedList<>();
+        }
+
+        double tentativeGScore = gScoreOfNode + costModel.cost(current, neighbor);
+        long key = PackedNodeTable.pack(neighbor);
+        int neighborSlot = nodes.find(key);
+        if (neighborSlot >= 0 && tentativeGScore >= nodes.getGScore(neighborSlot)) {
+          continue;
+        }
+
+        // Going to this neighbor from current node is more optimal than previous parent so update its scores
+        if (neighborSlot < 0) {
+          neighborSlot = nodes.add(key, neighbor);
+          nodes.setHScore(neighborSlot, costModel.heuristic(neighbor));
+        }
+        nodes.setGScore(neighborSlot, tentativeGScore);
+        nodes.setParent(neighborSlot, currentSlot);
+
+        // If this neighbor is not going to result in a better G value than current G value don't add it to the open set
+        if (canImprove(neighborSlot)) {
+          openSet.addOrUpdate(neighborSlot, priority(neighborSlot));
+        }
+      }
+    }
+    log_.info("EAD", "///// solve:  No solution found.");
+
+    return new LinkedList<>(); // Return empty list if no path exists
+  }
+
+  /**
+   * Checks if a path through the node could be cheaper than the best solution so far
+   */
+  private boolean canImprove(int slot) {
+    return nodes.getGScore(slot) + nodes.getHScore(slot) < bestCost;
+  }
+
+  /**
+   * Heap priority of a node. Higher e-scores are expanded first so the e-score is negated
+   * Before a solution is found the e-score is infinite for all nodes and the heuristic is used instead
+   */
+  private double priority(int slot) {
+    if (bestCost == Double.POSITIVE_INFINITY) {
+      return nodes.getHScore(slot);
+    }
+    return -(bestCost - nodes.getGScore(slot)) / nodes.getHScore(slot);
+  }
+
+  /**
+   * Helper function walks the parents from the goal to start to determine the optimal path
+   * @param goalSlot The slot of the goal node
+   * @return The list of nodes which forms the optimal path from start->goal
+   */
+  protected List<Node> rebuildPath(int goalSlot) {
+    LinkedList<Node> path = new LinkedList<>();
+    for (int slot = goalSlot; slot >= 0; slot = nodes.getParent(slot)) {
+      path.addFirst(nodes.getNode(slot));
+    }
+    return path;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import gov.dot.fhwa.saxton.carma.signal_plugin.logger.ILogger;
+import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Implements the AStar algorithm with the same behavior as {@link AStarSolver}
+ * but with the search state held in primitive structures
+ * <p>
+ * Nodes are keyed by their state packed into a long in a {@link PackedNodeTable} which stores the g-score, parent and
+ * closed flag of each node in arrays. The open set is an {@link IndexedNodeHeap} ordered by f-score, so an improved path to
+ * a queued node moves it within the heap rather than requiring hash lookups on every comparison.
+ * The table and heap are reused between calls to solve, so a single instance should not be shared between threads.
+ * <p>
+ * If a node is found whose state cannot be packed the search is repeated with an {@link AStarSolver}
+ */
+public class PackedAStarSolver implements ITreeSolver {
+
+  protected static final ILogger log_ = LoggerManager.getLogger(PackedAStarSolver.class);
+  private static final int EXPECTED_NODES = 1024;
+
+  private final PackedNodeTable nodes = new PackedNodeTable(EXPECTED_NODES);
+  private final IndexedNodeHeap openSet = new IndexedNodeHeap(EXPECTED_NODES);
+  private final AStarSolver fallbackSolver = new AStarSolver();
+
+  @Override
+  public List<Node> solve(Node start, ICostModel costModel, INeighborCalculator neighborCalculator) {
+    nodes.clear();
+    openSet.clear();
+    try {
+      return search(start, costModel, neighborCalculator);
+    } finally {
+      // Release node references held from this search
+      nodes.clear();
+      openSet.clear();
+    }
+  }
+
+  private List<Node> search(Node start, ICostModel costModel, INeighborCalculator neighborCalculator) {
+    if (!PackedNodeTable.fits(start)) {
+      return fallbackSolve(start, start, costModel, neighborCalculator);
+    }
+
+    // Cost of going from start to start is zero. For start node fScore = hScore (the heuristic)
+    int startSlot = nodes.add(PackedNodeTable.pack(start), start);
+    nodes.setGScore(startSlot, 0.0);
+    openSet.addOrUpdate(startSlot, costModel.heuristic(start));
+    long visitedNodes = 0;
+
+    // Begin search
+    while (!openSet.isEmpty()) {
+      int currentSlot = openSet.poll(); // Retrieve and remove the next node on the queue
+      visitedNodes++;
+      nodes.setClosed(currentSlot, true); // Mark the node visited
+      Node current = nodes.getNode(currentSlot);
+
+      // Check if this node is the goal
+      if (costModel.isGoal(current)) {
+        log_.info("EAD", "Found our goal with node " + current.toString());
+        log_.info("EAD","Ending sizes: nodes=" + nodes.size() + ", openSet=" + openSet.size());
+        log_.debug("EAD", "We have visited " + visitedNodes + " nodes to find the solution");
+        return rebuildPath(currentSlot);
+      }
+
+      //if this node is unusable then toss it out and move on
+      if (costModel.isUnusable(current)) {
+        continue;
+      }
+
+      final double currentGScore = nodes.getGScore(currentSlot);
+      for (Node neighbor : neighborCalculator.neighbors(current)) {
+        if (!PackedNodeTable.fits(neighbor)) {
+          return fallbackSolve(start, neighbor, costModel, neighborCalculator);
+        }
+        long key = PackedNodeTable.pack(neighbor);
+        int neighborSlot = nodes.find(key); // -1 if neighbor is previously undiscovered node
+        if (neighborSlot >= 0 && nodes.isClosed(neighborSlot)) { // Ignore the neighbor which is already visited.
+          continue;
+        }
+
+        double tentativeGScore = currentGScore + costModel.cost(current, neighbor);
+        if (neighborSlot >= 0 && tentativeGScore >= nodes.getGScore(neighborSlot)) {
+          continue; // This is not a better path.
+        }
+
+        // Best path so far. Record path
+        if (neighborSlot < 0) {
+          neighborSlot = nodes.add(key, neighbor);
+        }
+        nodes.setParent(neighborSlot, currentSlot);
+        nodes.setGScore(neighborSlot, tentativeGScore);
+        openSet.addOrUpdate(neighborSlot, tentativeGScore + costModel.heuristic(neighbor));
+      }
+    }
+    log_.info("EAD", "///// solve:  No solution found.");
+    return new LinkedList<>(); // Return empty list if no path exists
+  }
+
+  private List<Node> fallbackSolve(Node start, Node unpackable, ICostModel costModel, INeighborCalculator neighborCalculator) {
+    log_.warn("EAD", "Node " + unpackable.toString() + " cannot be packed. Solving with AStarSolver");
+    nodes.clear();
+    openSet.clear();
+    return fallbackSolver.solve(start, costModel, neighborCalculator);
+  }
+
+  /**
+   * Helper function walks the parents from the goal to start to determine the optimal path
+   * @param goalSlot The slot of the goal node
+   * @return The list of nodes which forms the optimal path from start->goal
+   */
+  protected List<Node> rebuildPath(int goalSlot) {
+    LinkedList<Node> path = new LinkedList<>();
+    for (int slot = goalSlot; slot >= 0; slot = nodes.getParent(slot)) {
+      path.addFirst(nodes.getNode(slot));
+    }
+    return path;
+  }
+}
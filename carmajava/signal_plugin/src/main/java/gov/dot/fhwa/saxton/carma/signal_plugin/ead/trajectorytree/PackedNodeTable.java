@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import java.util.Arrays;
+
+/**
+ * Table of the nodes discovered during a tree search keyed by the node state packed into a single long
+ * <p>
+ * Each discovered node is assigned an integer slot. The per node search state (g-score, cached heuristic, parent slot
+ * and closed flag) is stored in primitive arrays indexed by slot, and the packed keys are located through an open
+ * addressed hash table with linear probing. The table can be cleared and reused between searches without releasing its arrays.
+ * <p>
+ * A node can be packed if its distance fits in 28 signed bits, its time in 20 signed bits and its speed in 16 signed bits.
+ * Callers should check {@link #fits(Node)} before packing a node.
+ * <p>
+ * This class is not thread safe
+ */
+public final class PackedNodeTable {
+  private static final int DISTANCE_BITS = 28;
+  private static final int TIME_BITS = 20;
+  private static final int SPEED_BITS = 16;
+  private static final long DISTANCE_MASK = (1L << DISTANCE_BITS) - 1;
+  private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+  private static final long SPEED_MASK = (1L << SPEED_BITS) - 1;
+
+  // Index in the hash table of each slot + 1. 0 marks an empty entry
+  private int[] index;
+  private long[] hashKeys;
+  private int hashMask;
+
+  // Per slot state
+  private long[] keys;
+  private Node[] nodes;
+  private double[] gScores;
+  private double[] hScores;
+  private int[] parents;
+  private boolean[] closed;
+  private int size = 0;
+
+  /**
+   * Constructor
+   *
+   * @param expectedNodes The number of nodes expected in a single search. The table grows beyond this as needed
+   */
+  public PackedNodeTable(int expectedNodes) {
+    int slots = Math.max(16, expectedNodes);
+    keys = new long[slots];
+    nodes = new Node[slots];
+    gScores = new double[slots];
+    hScores = new double[slots];
+    parents = new int[slots];
+    closed = new boolean[slots];
+    allocateHash(tableSizeFor(slots));
+  }
+
+  /**
+   * Checks if the state of the provided node can be packed into a key
+   *
+   * @param node The node to check
+   *
+   * @return True if {@link #pack(Node)} can represent the node
+   */
+  public static boolean fits(Node node) {
+    return fits(node.getDistance(), DISTANCE_BITS) && fits(node.getTime(), TIME_BITS) && fits(node.getSpeed(), SPEED_BITS);
+  }
+
+  /**
+   * Packs the state of a node into a single key
+   * Two nodes which fit have the same key if and only if they are equal
+   *
+   * @param node The node to pack. The node must satisfy {@link #fits(Node)}
+   *
+   * @return The packed key
+   */
+  public static long pack(Node node) {
+    return ((node.getDistance() & DISTANCE_MASK) << (TIME_BITS + SPEED_BITS))
+      | ((node.getTime() & TIME_MASK) << SPEED_BITS)
+      | (node.getSpeed() & SPEED_MASK);
+  }
+
+  /**
+   * Removes all nodes from the table while keeping its allocated capacity
+   */
+  public void clear() {
+    Arrays.fill(index, 0);
+    Arrays.fill(nodes, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Gets the number of nodes in the table
+   *
+   * @return The number of nodes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the slot of a node
+   *
+   * @param key The packed key of the node
+   *
+   * @return The slot of the node or -1 if the node has not been added
+   */
+  public int find(long key) {
+    int i = hash(key) & hashMask;
+    while (index[i] != 0) {
+      if (hashKeys[i] == key) {
+        return index[i] - 1;
+      }
+      i = (i + 1) & hashMask;
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a node which is not already in the table
+   * The new node has a g-score of positive infinity, no heuristic, no parent and is not closed
+   *
+   * @param key The packed key of the node
+   * @param node The node
+   *
+   * @return The slot assigned to the node
+   */
+  public int add(long key, Node node) {
+    if (size == keys.length) {
+      growSlots();
+    }
+    if ((size + 1) * 2 > index.length) {
+      allocateHash(index.length * 2);
+      for (int slot = 0; slot < size; slot++) {
+        insertHash(keys[slot], slot);
+      }
+    }
+    int slot = size++;
+    keys[slot] = key;
+    nodes[slot] = node;
+    gScores[slot] = Double.POSITIVE_INFINITY;
+    hScores[slot] = Double.NaN;
+    parents[slot] = -1;
+    closed[slot] = false;
+    insertHash(key, slot);
+    return slot;
+  }
+
+  /**
+   * Gets the node stored in a slot
+   *
+   * @param slot The slot of the node
+   *
+   * @return The node
+   */
+  public Node getNode(int slot) {
+    return nodes[slot];
+  }
+
+  public double getGScore(int slot) {
+    return gScores[slot];
+  }
+
+  public void setGScore(int slot, double gScore) {
+    gScores[slot] = gScore;
+  }
+
+  /**
+   * Gets the heuristic cached for a node
+   *
+   * @param slot The slot of the node
+   *
+   * @return The heuristic or NaN if none has been set
+   */
+  public double getHScore(int slot) {
+    return hScores[slot];
+  }
+
+  public void setHScore(int slot, double hScore) {
+    hScores[slot] = hScore;
+  }
+
+  /**
+   * Gets the slot of the optimal parent of a node
+   *
+   * @param slot The slot of the node
+   *
+   * @return The slot of the parent or -1 if the node has no parent
+   */
+  public int getParent(int slot) {
+    return parents[slot];
+  }
+
+  public void setParent(int slot, int parentSlot) {
+    parents[slot] = parentSlot;
+  }
+
+  public boolean isClosed(int slot) {
+    return closed[slot];
+  }
+
+  public void setClosed(int slot, boolean isClosed) {
+    closed[slot] = isClosed;
+  }
+
+  private void insertHash(long key, int slot) {
+    int i = hash(key) & hashMask;
+    while (index[i] != 0) {
+      i = (i + 1) & hashMask;
+    }
+    hashKeys[i] = key;
+    index[i] = slot + 1;
+  }
+
+  private void allocateHash(int tableSize) {
+    index = new int[tableSize];
+    hashKeys = new long[tableSize];
+    hashMask = tableSize - 1;
+  }
+
+  private void growSlots() {
+    int newLength = keys.length * 2;
+    keys = Arrays.copyOf(keys, newLength);
+    nodes = Arrays.copyOf(nodes, newLength);
+    gScores = Arrays.copyOf(gScores, newLength);
+    hScores = Arrays.copyOf(hScores, newLength);
+    parents = Arrays.copyOf(parents, newLength);
+    closed = Arrays.copyOf(closed, newLength);
+  }
+
+  private static boolean fits(long value, int bits) {
+    long limit = 1L << (bits - 1);
+    return -limit <= value && value < limit;
+  }
+
+  // Hash table size with a load factor of at most 0.5
+  private static int tableSizeFor(int slots) {
+    int tableSize = Integer.highestOneBit(slots) * 2;
+    return tableSize < slots * 2 ? tableSize * 2 : tableSize;
+  }
+
+  // 64 bit finalizer from MurmurHash3 so that neighboring states spread across the table
+  private static int hash(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds a path through the current planning tree which follows a previously planned trajectory
+ * <p>
+ * Starting from the new start node, the neighbor which is closest to the reference trajectory is chosen at each step
+ * until the goal is reached. Since only neighbors produced by the current neighbor calculator are used, the resulting
+ * path respects the latest signal timing and collision predictions even if the reference trajectory no longer does.
+ * Where the reference is still valid the path stays close to it. Where it is not, the path deviates only as much as
+ * needed to find a usable neighbor.
+ * <p>
+ * The path is intended as the initial solution of an anytime solver such as {@link ANAStarSolver}, which lets the
+ * solver prune with a finite cost bound from the start of the search instead of first searching for any solution.
+ */
+public class ReferencePathTracker {
+
+  // Weights used to compare the deviation of a node from the reference
+  private static final double DISTANCE_WEIGHT = 1.0; // per m
+  private static final double SPEED_WEIGHT = 2.0; // per m/s
+
+  private ReferencePathTracker() {}
+
+  /**
+   * Builds a path from start to the goal of the cost model which follows the reference trajectory
+   *
+   * @param start The start node of the new plan
+   * @param reference The previously planned trajectory
+   * @param timeOffset The time of the new start node in s as measured in the frame of the reference trajectory
+   * @param distanceOffset The distance of the new start node in m as measured in the frame of the reference trajectory
+   * @param costModel The cost model defining the goal of the new plan
+   * @param neighborCalculator The neighbor calculator of the new plan
+   * @param maxNodes The maximum number of nodes in the path
+   *
+   * @return The path from start to a goal node or an empty list if the goal could not be reached
+   */
+  public static List<Node> track(Node start, List<Node> reference, double timeOffset, double distanceOffset,
+    ICostModel costModel, INeighborCalculator neighborCalculator, int maxNodes) {
+
+    if (reference == null || reference.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Node> path = new ArrayList<>();
+    path.add(start);
+    Node current = start;
+    Node prev = null;
+    while (!costModel.isGoal(current)) {
+      if (path.size() >= maxNodes || costModel.isUnusable(current)) {
+        return Collections.emptyList();
+      }
+
+      // Neighbors depend on the acceleration direction of the edge leading to the node
+      if (prev != null) {
+        long speedChange = current.getSpeed() - prev.getSpeed();
+        FinePathNeighbors.prevAccelDir = speedChange > 0 ? 1 : (speedChange < 0 ? -1 : 0);
+      } else {
+        FinePathNeighbors.prevAccelDir = -2;
+      }
+
+      Node best = null;
+      double bestDeviation = Double.POSITIVE_INFINITY;
+      for (Node neighbor : neighborCalculator.neighbors(current)) {
+        double deviation = deviation(neighbor, reference, timeOffset, distanceOffset);
+        if (deviation < bestDeviation) {
+          bestDeviation = deviation;
+          best = neighbor;
+        }
+      }
+      if (best == null) {
+        return Collections.emptyList();
+      }
+      prev = current;
+      current = best;
+      path.add(current);
+    }
+    return path;
+  }
+
+  /**
+   * Computes the weighted distance between a node and the reference trajectory at the same time
+   * Beyond the end of the reference the last node is extended at constant speed
+   */
+  private static double deviation(Node node, List<Node> reference, double timeOffset, double distanceOffset) {
+    final double time = node.getTimeAsDouble() + timeOffset;
+    double refDistance;
+    double refSpeed;
+
+    Node first = reference.get(0);
+    Node last = reference.get(reference.size() - 1);
+    if (time <= first.getTimeAsDouble()) {
+      refDistance = first.getDistanceAsDouble();
+      refSpeed = first.getSpeedAsDouble();
+    } else if (time >= last.getTimeAsDouble()) {
+      refSpeed = last.getSpeedAsDouble();
+      refDistance = last.getDistanceAsDouble() + refSpeed * (time - last.getTimeAsDouble());
+    } else {
+      int i = 1;
+      while (reference.get(i).getTimeAsDouble() < time) {
+        i++;
+      }
+      Node n1 = reference.get(i - 1);
+      Node n2 = reference.get(i);
+      double dt = n2.getTimeAsDouble() - n1.getTimeAsDouble();
+      double fraction = dt > 0.0 ? (time - n1.getTimeAsDouble()) / dt : 1.0;
+      refDistance = n1.getDistanceAsDouble() + fraction * (n2.getDistanceAsDouble() - n1.getDistanceAsDouble());
+      refSpeed = n1.getSpeedAsDouble() + fraction * (n2.getSpeedAsDouble() - n1.getSpeedAsDouble());
+    }
+
+    return DISTANCE_WEIGHT * Math.abs(node.getDistanceAsDouble() + distanceOffset - refDistance)
+      + SPEED_WEIGHT * Math.abs(node.getSpeedAsDouble() - refSpeed);
+  }
+}
@@ -26,7 +26,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -513,8 +512,6 @@ public class EADAStarPlanTest {
             try {
                // System.out.println("Plan Start Time: " + (double)(currentTime + 10L) / 1000.0);
                 List<Node> res = ead.plan(0.0, 11.176, intersections, (double)(currentTime + 10L) / 1000.0, currentDowntrack);
-                //System.out.println("TimeSpentBuildingMaps: " + TimeUnit.NANOSECONDS.toMillis(ConflictManager.nanoSecBuilding));
-                //System.out.println("TimeSpentCheckingMaps: " + TimeUnit.NANOSECONDS.toMillis(ConflictManager.nanoSecChecking));
                 // If there is no prediction, the plan is:
     //            Node{distance=       0, time=     0, speed=   2}
     //            Node{distance=       6, time=     2, speed=   4}
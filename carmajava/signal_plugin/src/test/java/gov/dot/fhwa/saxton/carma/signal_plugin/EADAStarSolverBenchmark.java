@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.IGlidepathAppConfig;
+import gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.SignalPhase;
+import gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.utils.GlidepathApplicationContext;
+import gov.dot.fhwa.saxton.carma.signal_plugin.asd.IntersectionData;
+import gov.dot.fhwa.saxton.carma.signal_plugin.asd.map.MapMessage;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.EadAStar;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.IntersectionGeometry;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.AStarSolver;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.ITreeSolver;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.PackedAStarSolver;
+
+/**
+ * Compares the planning time of the EAD tree solvers on the scenarios from EADAStarPlanTest
+ * Each scenario is planned repeatedly with each solver after a warm up period and the mean time per plan is printed
+ * <p>
+ * Note: This benchmark takes several seconds to run and is ignored in the CI system. Remove the Ignore annotation to run it
+ */
+public class EADAStarSolverBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    IGlidepathAppConfig mockConfig = mock(IGlidepathAppConfig.class, Mockito.withSettings().stubOnly());
+    MockCollisionChecker mockCC = new MockCollisionChecker();
+
+    @Before
+    public void setup() {
+        ILoggerFactory mockFact = mock(ILoggerFactory.class, Mockito.withSettings().stubOnly());
+        ILogger mockLogger = mock(ILogger.class, Mockito.withSettings().stubOnly());
+        when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+        LoggerManager.setLoggerFactory(mockFact);
+        GlidepathApplicationContext.getInstance().setAppConfigOverride(mockConfig);
+        when(mockConfig.getDoubleDefaultValue("defaultAccel", 2.0)).thenReturn(2.0);
+        when(mockConfig.getDoubleValue("defaultAccel")).thenReturn(2.0);
+        when(mockConfig.getMaximumSpeed(0.0)).thenReturn(25);
+        when(mockConfig.getDoubleDefaultValue("crawlingSpeed", 5.0)).thenReturn(5.0);
+        when(mockConfig.getDoubleDefaultValue("ead.timebuffer", 4.0)).thenReturn(4.0);
+        when(mockConfig.getDoubleDefaultValue("ead.response.lag", 1.9)).thenReturn(0.0);
+        when(mockConfig.getProperty("ead.desiredCostModel")).thenReturn("MOVES_2010");
+        when(mockConfig.getDoubleValue("ead.MOVES.rollingTermA")).thenReturn(0.22112);
+        when(mockConfig.getDoubleValue("ead.MOVES.rotatingTermB")).thenReturn(0.002838);
+        when(mockConfig.getDoubleValue("ead.MOVES.dragTermC")).thenReturn(0.000698);
+        when(mockConfig.getDoubleValue("ead.MOVES.vehicleMassInTons")).thenReturn(1.86686);
+        when(mockConfig.getDoubleValue("ead.MOVES.fixedMassFactor")).thenReturn(1.86686);
+        when(mockConfig.getProperty("ead.MOVES.baseRateTablePath")).thenReturn("../launch/params/BaseRateForPassengerTruck.csv");
+        when(mockConfig.getDoubleValue("ead.MOVES.fuelNormalizationDenominator")).thenReturn(211859.0);
+        when(mockConfig.getDoubleValue("ead.MOVES.timeNormalizationDenominator")).thenReturn(1.0);
+        when(mockConfig.getDoubleValue("ead.MOVES.heuristicWeight")).thenReturn(1.0);
+        when(mockConfig.getDoubleValue("ead.MOVES.percentTimeCost")).thenReturn(0.5);
+        when(mockConfig.getDoubleDefaultValue("ead.coarse_time_inc", 5.0)).thenReturn(2.0);
+        when(mockConfig.getDoubleDefaultValue("ead.coarse_speed_inc", 3.0)).thenReturn(2.0);
+        when(mockConfig.getDoubleDefaultValue("ead.fine_time_inc", 2.0)).thenReturn(2.0);
+        when(mockConfig.getDoubleDefaultValue("ead.fine_speed_inc", 1.0)).thenReturn(1.0);
+        when(mockConfig.getDoubleDefaultValue("ead.acceptableStopDistance", 6.0)).thenReturn(6.0);
+    }
+
+    @Test
+    @Ignore("Ignore benchmark in CI system")
+    public void benchmarkSingleIntersection() {
+        mockCC.setPredictedTrajectory(null, null);
+        List<IntersectionData> intersections = Arrays.asList(
+            newIntersection(9709, 1581, 50, SignalPhase.GREEN, 8.631097656249949, 32.90));
+        compareSolvers("Single intersection", 0, intersections);
+    }
+
+    @Test
+    @Ignore("Ignore benchmark in CI system")
+    public void benchmarkTwoIntersections() {
+        mockCC.setPredictedTrajectory(null, null);
+        List<IntersectionData> intersections = Arrays.asList(
+            newIntersection(9709, 5700, 40.49, SignalPhase.RED, 29.82590234374993, 32.90),
+            newIntersection(9945, 22394, 211.48, SignalPhase.RED, 4.3409023437498035, 35.18));
+        compareSolvers("Two intersections", 1.9352529452127594, intersections);
+    }
+
+    @Test
+    @Ignore("Ignore benchmark in CI system")
+    public void benchmarkSingleIntersectionWithNCV() {
+        mockCC.setPredictedTrajectory(new Node(20, 2, 1), new Node(26, 8, 1));
+        List<IntersectionData> intersections = Arrays.asList(
+            newIntersection(9945, 8423, 84.23, SignalPhase.GREEN, 26.99095117187494, 35.18));
+        compareSolvers("Single intersection with NCV", 1.935252945217594, intersections);
+    }
+
+    @Test
+    @Ignore("Ignore benchmark in CI system")
+    public void benchmarkTwoIntersectionsWithNCV() {
+        mockCC.setPredictedTrajectory(new Node(20, 2, 1), new Node(26, 8, 1));
+        List<IntersectionData> intersections = Arrays.asList(
+            newIntersection(9709, 2000, 20.00, SignalPhase.GREEN, 15, 32.90),
+            newIntersection(9945, 10000, 100.00, SignalPhase.GREEN, 15.0, 35.18));
+        compareSolvers("Two intersections with NCV", 1.9352529452127594, intersections);
+    }
+
+    /**
+     * Plans the scenario with each solver and prints the mean planning time
+     * The final node of each plan must match between solvers
+     */
+    private void compareSolvers(String scenario, double startSpeed, List<IntersectionData> intersections) {
+        List<Node> reference = plan(AStarSolver::new, startSpeed, intersections);
+        List<Node> packed = plan(PackedAStarSolver::new, startSpeed, intersections);
+        assertEquals(reference.get(reference.size() - 1), packed.get(packed.size() - 1));
+
+        double referenceMs = meanPlanningTimeMs(AStarSolver::new, startSpeed, intersections);
+        double packedMs = meanPlanningTimeMs(PackedAStarSolver::new, startSpeed, intersections);
+        System.out.println(scenario + ": AStarSolver " + referenceMs + " ms, PackedAStarSolver " + packedMs
+            + " ms, speedup " + (referenceMs / packedMs));
+    }
+
+    private double meanPlanningTimeMs(Supplier<ITreeSolver> solverFactory, double startSpeed, List<IntersectionData> intersections) {
+        ITreeSolver solver = solverFactory.get();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            plan(solver, startSpeed, intersections);
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            plan(solver, startSpeed, intersections);
+        }
+        return (System.nanoTime() - startTime) / 1e6 / MEASURED_ITERATIONS;
+    }
+
+    private List<Node> plan(Supplier<ITreeSolver> solverFactory, double startSpeed, List<IntersectionData> intersections) {
+        return plan(solverFactory.get(), startSpeed, intersections);
+    }
+
+    private List<Node> plan(ITreeSolver solver, double startSpeed, List<IntersectionData> intersections) {
+        EadAStar ead = new EadAStar(mockCC);
+        ead.initialize(1, solver);
+        try {
+            return ead.plan(startSpeed, 11.176, intersections, 0, 0);
+        } catch (Exception e) {
+            throw new IllegalStateException("Benchmark plan failed", e);
+        }
+    }
+
+    private IntersectionData newIntersection(int id, int roughDist, double dtsb, SignalPhase phase,
+        double timeToNextPhase, double stopBoxWidth) {
+        IntersectionData intersection = new IntersectionData();
+        intersection.map = mock(MapMessage.class, Mockito.withSettings().stubOnly());
+        intersection.roughDist = roughDist;
+        intersection.dtsb = dtsb;
+        intersection.currentPhase = phase;
+        intersection.timeToNextPhase = timeToNextPhase;
+        intersection.stopBoxWidth = stopBoxWidth;
+        intersection.intersectionId = id;
+        intersection.geometry = new IntersectionGeometry(40, 100);
+        return intersection;
+    }
+}
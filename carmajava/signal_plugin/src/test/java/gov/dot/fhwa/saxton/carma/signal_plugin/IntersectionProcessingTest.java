@@ -128,6 +128,38 @@ public class IntersectionProcessingTest {
     assertEquals(15.7, dtsb, 0.0001);
   }
 
+  /**
+   * Tests that repeated MAP messages reuse the intersection geometry unless their content changes
+   * @throws Exception
+   */
+  @Test
+  public void testGeometryCache() throws Exception {
+    MapData map = buildNewMap();
+    SPAT spat = buildNewSpat();
+    EadIntersectionManager intManager = new EadIntersectionManager();
+
+    IntersectionData intData = new IntersectionData(map.getIntersections().get(0), spat.getIntersectionStateList().get(0));
+    gov.dot.fhwa.saxton.carma.signal_plugin.asd.Location vehicleLoc = new gov.dot.fhwa.saxton.carma.signal_plugin.asd.Location(38.954974, -77.147745);
+
+    Map<Integer, IntersectionData> intersections = new HashMap<>();
+    intersections.put(intData.getIntersectionId(), intData);
+
+    // Each update converts a new MAP message with the same content
+    for (int i = 0; i < 3; i++) {
+      gov.dot.fhwa.saxton.carma.signal_plugin.asd.IntersectionData eadIntData = TrafficSignalPlugin.convertIntersections(intersections).get(0);
+      double dtsb = intManager.updateIntersections(Arrays.asList(eadIntData), vehicleLoc);
+      assertEquals(15.7, dtsb, 0.0001);
+      assertEquals(1, intManager.getNumGeometryBuilds());
+    }
+
+    // A new revision of the MAP is processed again
+    intData.getIntersectionGeometry().setRevision((byte) (intData.getIntersectionGeometry().getRevision() + 1));
+    gov.dot.fhwa.saxton.carma.signal_plugin.asd.IntersectionData eadIntData = TrafficSignalPlugin.convertIntersections(intersections).get(0);
+    double dtsb = intManager.updateIntersections(Arrays.asList(eadIntData), vehicleLoc);
+    assertEquals(15.7, dtsb, 0.0001);
+    assertEquals(2, intManager.getNumGeometryBuilds());
+  }
+
   private SPAT buildNewSpat() {
     SPAT spat = messageFactory.newFromType(SPAT._TYPE);
     IntersectionState intersectionState = messageFactory.newFromType(IntersectionState._TYPE);
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.PlanInterpolator;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
+
+/**
+ * Runs unit tests for the ObstaclePredictionIndex class
+ */
+public class ObstaclePredictionIndexTest {
+
+  private static final double DOWNTRACK_MARGIN = 5.0;
+  private static final double CROSSTRACK_MARGIN = 3.0;
+  private static final double TIME_MARGIN = 0.2;
+  private static final double DISTANCE_STEP = 2.5;
+
+  /**
+   * Builds a constant speed prediction of an object
+   */
+  private List<RoutePointStamped> predict(double downtrack, double crosstrack, double time, double speed, double timeStep, int numPoints) {
+    List<RoutePointStamped> prediction = new ArrayList<>();
+    for (int i = 0; i < numPoints; i++) {
+      prediction.add(new RoutePointStamped(downtrack + speed * timeStep * i, crosstrack, time + timeStep * i));
+    }
+    return prediction;
+  }
+
+  /**
+   * Checks for collisions in the same way as ObjectCollisionChecker did before the index was added
+   * The host motion is interpolated into points and the bounding box of each point is checked against each predicted point
+   */
+  private boolean sampledCollision(List<List<RoutePointStamped>> predictions, Node n1, Node n2, double[] biases) {
+    List<RoutePointStamped> hostPoints = new PlanInterpolator().interpolateMotion(Arrays.asList(n1, n2), DISTANCE_STEP, 0.0, 0.0);
+    for (List<RoutePointStamped> prediction : predictions) {
+      double timeMargin = prediction.size() > 1 ?
+        ((prediction.get(1).getStamp() - prediction.get(0).getStamp()) / 2.0) + 0.0001 : TIME_MARGIN;
+      for (RoutePointStamped host : hostPoints) {
+        double x = host.getDowntrack() + DOWNTRACK_MARGIN * biases[0];
+        double y = host.getCrosstrack() + CROSSTRACK_MARGIN * biases[1];
+        double t = host.getStamp() + timeMargin * biases[2];
+        for (RoutePointStamped obj : prediction) {
+          if (Math.abs(x - obj.getDowntrack()) <= 2.0 * DOWNTRACK_MARGIN
+            && Math.abs(y - obj.getCrosstrack()) <= 2.0 * CROSSTRACK_MARGIN
+            && Math.abs(t - obj.getStamp()) <= 2.0 * timeMargin) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testEmptyIndex() {
+    ObstaclePredictionIndex index = ObstaclePredictionIndex.build(Collections.emptyList(),
+      DOWNTRACK_MARGIN, CROSSTRACK_MARGIN, TIME_MARGIN, 0.0, 0.0, 0.0);
+    assertTrue(index.isEmpty());
+    assertFalse(index.hasCollision(0.0, 0.0, 5.0, 10.0, 2.0, 5.0));
+
+    // Objects far to the side of the host are dropped
+    index = ObstaclePredictionIndex.build(Arrays.asList(predict(0.0, 10.0, 0.0, 5.0, 0.5, 7)),
+      DOWNTRACK_MARGIN, CROSSTRACK_MARGIN, TIME_MARGIN, 0.0, 0.0, 0.0);
+    assertTrue(index.isEmpty());
+  }
+
+  @Test
+  public void testStoppedObject() {
+    // Object stopped at 50 m for 3 seconds starting at 2 s
+    List<RoutePointStamped> prediction = predict(50.0, 0.0, 2.0, 0.0, 0.5, 7);
+    ObstaclePredictionIndex index = ObstaclePredictionIndex.build(Arrays.asList(prediction),
+      DOWNTRACK_MARGIN, CROSSTRACK_MARGIN, TIME_MARGIN, 0.0, 0.0, 0.0);
+    assertEquals(7, index.size());
+
+    // Host drives through the object
+    assertTrue(index.hasCollision(20.0, 2.0, 10.0, 60.0, 6.0, 10.0));
+    // Host stops before the object. The margins extend 10 m in front of the object center
+    assertFalse(index.hasCollision(20.0, 2.0, 6.0, 29.0, 5.0, 0.0));
+    assertTrue(index.hasCollision(27.0, 2.0, 10.0, 42.0, 5.0, 0.0));
+    // Host passes the object location after the prediction ends
+    assertFalse(index.hasCollision(20.0, 6.0, 10.0, 60.0, 10.0, 10.0));
+    // Single positions
+    assertTrue(index.hasCollision(45.0, 3.0));
+    assertFalse(index.hasCollision(45.0, 8.0));
+  }
+
+  @Test
+  public void testMatchesSampledCollisions() {
+    Random rand = new Random(42);
+    double[][] biasCases = { {0.0, 0.0, 0.0}, {0.5, -0.25, 0.0}, {-0.2, 0.0, 0.5} };
+    int disagreements = 0;
+    int collisions = 0;
+    int total = 0;
+    for (double[] biases : biasCases) {
+      for (int trial = 0; trial < 200; trial++) {
+        List<List<RoutePointStamped>> predictions = new ArrayList<>();
+        int numObjects = 1 + rand.nextInt(3);
+        for (int obj = 0; obj < numObjects; obj++) {
+          predictions.add(predict(rand.nextDouble() * 100.0, rand.nextDouble() * 4.0 - 2.0, rand.nextDouble() * 5.0,
+            rand.nextDouble() * 10.0, 0.5, 7));
+        }
+        ObstaclePredictionIndex index = ObstaclePredictionIndex.build(predictions,
+          DOWNTRACK_MARGIN, CROSSTRACK_MARGIN, TIME_MARGIN, biases[0], biases[1], biases[2]);
+
+        for (int edge = 0; edge < 50; edge++) {
+          // Host edges with constant acceleration kinematics which are exact in node units
+          long x0 = rand.nextInt(80);
+          long t0 = rand.nextInt(6);
+          long v0 = rand.nextInt(16);
+          long v1 = Math.max(0, v0 + rand.nextInt(9) - 4);
+          long dt = 2 * (1 + rand.nextInt(2));
+          Node n1 = new Node(x0, t0, v0);
+          Node n2 = new Node(x0 + (v0 + v1) * dt / 2, t0 + dt, v1);
+
+          boolean sampled = sampledCollision(predictions, n1, n2, biases);
+          boolean analytic = index.hasCollision(n1.getDistanceAsDouble(), n1.getTimeAsDouble(), n1.getSpeedAsDouble(),
+            n2.getDistanceAsDouble(), n2.getTimeAsDouble(), n2.getSpeedAsDouble());
+          total++;
+          if (sampled) {
+            collisions++;
+            // Every interpolated point lies on the analytic motion so sampled collisions must always be found
+            assertTrue(analytic);
+          } else if (analytic) {
+            // The analytic motion may clip a box between interpolated points
+            disagreements++;
+          }
+        }
+      }
+    }
+    assertTrue(collisions > total / 10);
+    assertTrue(disagreements < total / 20);
+  }
+}
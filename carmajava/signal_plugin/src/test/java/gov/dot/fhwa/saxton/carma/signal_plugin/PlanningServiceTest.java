@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+/**
+ * Runs unit tests for the PlanningService class
+ */
+public class PlanningServiceTest {
+
+  private PlanningService service;
+
+  @Before
+  public void setUp() throws Exception {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class, Mockito.withSettings().stubOnly());
+    ILogger mockLogger = mock(ILogger.class, Mockito.withSettings().stubOnly());
+    when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+    service = new PlanningService();
+  }
+
+  @After
+  public void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  public void testNewRequestPreemptsRunningRequest() throws Exception {
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch secondDone = new CountDownLatch(1);
+    AtomicBoolean firstAbandoned = new AtomicBoolean(false);
+    AtomicInteger skippedRuns = new AtomicInteger(0);
+
+    // The first request plans until it is superseded
+    long first = service.submit((long gen) -> {
+      firstStarted.countDown();
+      long deadline = System.currentTimeMillis() + 5000;
+      while (service.isCurrent(gen) && System.currentTimeMillis() < deadline) {
+        Thread.yield();
+      }
+      firstAbandoned.set(!service.isCurrent(gen));
+      return true;
+    });
+    assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+    assertTrue(service.isCurrent(first));
+
+    // Queue several requests. Only the latest should run
+    for (int i = 0; i < 3; i++) {
+      service.submit((long gen) -> {
+        skippedRuns.incrementAndGet();
+        return true;
+      });
+    }
+    long last = service.submit((long gen) -> {
+      secondDone.countDown();
+      return true;
+    });
+    assertFalse(service.isCurrent(first));
+    assertTrue(service.isCurrent(last));
+
+    assertTrue(secondDone.await(5, TimeUnit.SECONDS));
+    assertTrue(waitForCount(() -> service.getNumCompleted(), 1));
+    assertTrue(firstAbandoned.get());
+    assertEquals(0, skippedRuns.get());
+    assertEquals(5, service.getNumSubmitted());
+    assertEquals(4, service.getNumSuperseded());
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    assertEquals(0.0, service.getAverageLatencyMs(), 0.0);
+
+    CountDownLatch done = new CountDownLatch(2);
+    service.submit((long gen) -> {
+      done.countDown();
+      return false;
+    });
+    assertTrue(waitForCount(() -> service.getNumFailed(), 1));
+    service.submit((long gen) -> {
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        return false;
+      }
+      done.countDown();
+      return true;
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertTrue(waitForCount(() -> service.getNumCompleted(), 1));
+
+    assertEquals(1, service.getNumFailed());
+    assertEquals(0, service.getNumSuperseded());
+    assertTrue(service.getLastLatencyMs() >= 20.0);
+    assertEquals(service.getLastLatencyMs(), service.getMaxLatencyMs(), 0.0);
+    assertEquals(service.getLastLatencyMs(), service.getAverageLatencyMs(), 0.0001);
+
+    // Cancelled requests do not count as completed
+    CountDownLatch started = new CountDownLatch(1);
+    long gen = service.submit((long g) -> {
+      started.countDown();
+      while (service.isCurrent(g)) {
+        Thread.yield();
+      }
+      return true;
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    service.cancelAll();
+    assertFalse(service.isCurrent(gen));
+    assertTrue(waitForCount(() -> service.getNumSuperseded(), 1));
+    assertEquals(1, service.getNumCompleted());
+  }
+
+  private interface ICounter {
+    long get();
+  }
+
+  /**
+   * Waits up to 5 seconds for a counter to reach the expected value
+   */
+  private boolean waitForCount(ICounter counter, long expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (counter.get() != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    return counter.get() == expected;
+  }
+}
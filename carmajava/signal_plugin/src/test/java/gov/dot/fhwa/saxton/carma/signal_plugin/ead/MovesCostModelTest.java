@@ -346,6 +346,45 @@ public class MovesCostModelTest {
     assertEquals((0.5 * costModel.getJFromOpMode(28, 10) / 425000.0) + 0.5, costModel.cost(new Node(0, 0, 10), new Node(150, 10, 20)), 0.0000001);
   }
 
+  /**
+   * Tests that edges inside and outside the precomputed cost lattice match the MOVES calculation
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testCostLattice() throws Exception {
+    MovesFuelCostModel costModel = new MovesFuelCostModel(
+      0.22112,  // rollingTermA
+      0.002838, // rotatingTermB
+      0.000698, // dragTermC
+      1.86686,  // vehicleMassInTons
+      1.86686,  // fixedMassFactor
+      csvFile, // baseRateTablePath
+      425000.0, // fuelNormalizationDenominator
+      10.0,     // timeNormalizationDenominator
+      60.0,     // heuristicWeight
+      0.5,      // percentCostForTime
+      11.176,   // maxVelocity
+      1.5       // maxAccel
+    );
+
+    for (double vi = 0; vi < 25; vi++) {
+      for (double vf = 0; vf < 25; vf++) {
+        for (double t = 1.0; t < 14.0; t++) {
+          double a = (vf - vi) / t;
+          double avgV = (vf + vi) / 2.0;
+          int opMode = costModel.getModeConditional(costModel.getVSP(a, avgV), avgV, a);
+          double expected = (0.5 * costModel.getJFromOpMode(opMode, t) / 425000.0) + (0.5 * t / 10.0);
+          assertEquals(expected, costModel.cost(new Node(10, 5, vi), new Node(10 + avgV * t, 5 + t, vf)), 0.0000001);
+        }
+      }
+    }
+
+    // Operating modes which are not in the table use the highest cost in the table
+    assertEquals(costModel.toJPerSec(762692) * 2.0, costModel.getJFromOpMode(2, 2.0), 0.000001);
+    assertEquals(costModel.toJPerSec(762692) * 2.0, costModel.getJFromOpMode(41, 2.0), 0.000001);
+  }
+
   /**
    * Tests heuristic calculation
    * 
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+public class PackedAStarSolverTest {
+
+  // Treat a Node as a bounded 2-D grid map where each step costs the grid distance plus a fixed penalty per cell
+  private class GridCost implements ICostModel {
+    Node goal_ = null;
+    final long size_;
+    final boolean useHeuristic_;
+
+    GridCost(long size, boolean useHeuristic) {
+      size_ = size;
+      useHeuristic_ = useHeuristic;
+    }
+
+    @Override
+    public double cost(Node n1, Node n2) {
+      double penalty = ((n2.getDistance() * 7 + n2.getTime() * 13) % 5) * 0.25;
+      return Math.abs(n1.getDistance() - n2.getDistance()) + Math.abs(n1.getTime() - n2.getTime()) + penalty;
+    }
+    @Override
+    public double heuristic(Node n1) {
+      if (!useHeuristic_) {
+        return 0;
+      }
+      return Math.abs(goal_.getDistance() - n1.getDistance()) + Math.abs(goal_.getTime() - n1.getTime());
+    }
+    @Override
+    public void setTolerances(Node tolerances) { }
+    @Override
+    public void setGoal(Node goal) { goal_ = goal; }
+    @Override
+    public boolean isGoal(Node n) {
+      return n.getDistance() == goal_.getDistance() && n.getTime() == goal_.getTime();
+    }
+    @Override
+    public boolean isUnusable(Node n) {
+      // A wall with a single gap
+      return n.getDistance() > 0 && n.getDistance() < size_ && n.getTime() == size_ / 2;
+    }
+
+    double pathCost(List<Node> path) {
+      double total = 0;
+      for (int i = 1; i < path.size(); i++) {
+        total += cost(path.get(i - 1), path.get(i));
+      }
+      return total;
+    }
+  }
+
+  private class GridNeighbors extends NeighborBase {
+    final long size_;
+
+    GridNeighbors(long size) {
+      size_ = size;
+    }
+
+    @Override
+    public List<Node> neighbors(Node node) {
+      long x = node.getDistance(), y = node.getTime();
+      List<Node> neighbors = new ArrayList<>(4);
+      for (Node n : Arrays.asList(new Node(x, y + 1, 0), new Node(x, y - 1, 0), new Node(x - 1, y, 0), new Node(x + 1, y, 0))) {
+        if (n.getDistance() >= 0 && n.getDistance() <= size_ && n.getTime() >= 0 && n.getTime() <= size_) {
+          neighbors.add(n);
+        }
+      }
+      return neighbors;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class, Mockito.withSettings().stubOnly());
+    ILogger mockLogger = mock(ILogger.class, Mockito.withSettings().stubOnly());
+    when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+  }
+
+  @Test
+  public void testMatchesAStarSolver() {
+    PackedAStarSolver packedSolver = new PackedAStarSolver();
+    for (boolean useHeuristic : new boolean[] {false, true}) {
+      GridCost costModel = new GridCost(20, useHeuristic);
+      costModel.setGoal(new Node(20, 20, 0));
+      GridNeighbors neighbors = new GridNeighbors(20);
+
+      List<Node> expected = new AStarSolver().solve(new Node(0, 0, 0), costModel, neighbors);
+      // Solve twice to confirm the solver state is reset between searches
+      packedSolver.solve(new Node(5, 0, 0), costModel, neighbors);
+      List<Node> path = packedSolver.solve(new Node(0, 0, 0), costModel, neighbors);
+
+      assertFalse(path.isEmpty());
+      assertEquals(new Node(0, 0, 0), path.get(0));
+      assertEquals(new Node(20, 20, 0), path.get(path.size() - 1));
+      assertEquals(costModel.pathCost(expected), costModel.pathCost(path), 1e-9);
+      for (Node n : path) {
+        assertTrue(n.getTime() != 10 || n.getDistance() == 0 || n.getDistance() == 20);
+      }
+    }
+  }
+
+  @Test
+  public void testPackedANAStarFindsOptimalPath() {
+    GridCost costModel = new GridCost(20, true);
+    costModel.setGoal(new Node(20, 20, 0));
+    GridNeighbors neighbors = new GridNeighbors(20);
+    List<Node> expected = new PackedAStarSolver().solve(new Node(0, 0, 0), costModel, neighbors);
+
+    PackedANAStarSolver anaSolver = new PackedANAStarSolver();
+    anaSolver.setMaxPlanningTimeMS(Long.MAX_VALUE);
+    ANAStarSolver referenceSolver = new ANAStarSolver();
+    referenceSolver.setMaxPlanningTimeMS(Long.MAX_VALUE);
+    // Without a time limit the search continues until the open set is empty so the optimal path is found
+    List<Node> path = anaSolver.solve(new Node(0, 0, 0), costModel, neighbors);
+    List<Node> referencePath = referenceSolver.solve(new Node(0, 0, 0), costModel, neighbors);
+
+    assertEquals(new Node(0, 0, 0), path.get(0));
+    assertEquals(new Node(20, 20, 0), path.get(path.size() - 1));
+    assertEquals(costModel.pathCost(expected), costModel.pathCost(path), 1e-9);
+    assertEquals(costModel.pathCost(referencePath), costModel.pathCost(path), 1e-9);
+  }
+
+  @Test
+  public void testInitialSolution() {
+    GridCost costModel = new GridCost(20, true);
+    costModel.setGoal(new Node(20, 20, 0));
+    GridNeighbors neighbors = new GridNeighbors(20);
+    double optimalCost = costModel.pathCost(new PackedAStarSolver().solve(new Node(0, 0, 0), costModel, neighbors));
+
+    // A valid but poor path which goes through the gap in the wall at distance 0 then along the top of the grid
+    List<Node> seed = new ArrayList<>();
+    for (long t = 0; t <= 20; t++) {
+      seed.add(new Node(0, t, 0));
+    }
+    for (long d = 1; d <= 20; d++) {
+      seed.add(new Node(d, 20, 0));
+    }
+    assertTrue(costModel.pathCost(seed) > optimalCost);
+
+    for (ANAStarSolver solver : new ANAStarSolver[] {new PackedANAStarSolver(), new ANAStarSolver()}) {
+      // Without any planning time the initial solution is returned
+      solver.setMaxPlanningTimeMS(0);
+      solver.setInitialSolution(seed);
+      assertEquals(seed, solver.solve(new Node(0, 0, 0), costModel, neighbors));
+
+      // With enough time the search improves on the initial solution
+      solver.setMaxPlanningTimeMS(Long.MAX_VALUE);
+      solver.setInitialSolution(seed);
+      List<Node> path = solver.solve(new Node(0, 0, 0), costModel, neighbors);
+      assertEquals(optimalCost, costModel.pathCost(path), 1e-9);
+
+      // An initial solution which does not begin at the start node is ignored
+      solver.setMaxPlanningTimeMS(0);
+      solver.setInitialSolution(seed.subList(1, seed.size()));
+      path = solver.solve(new Node(0, 0, 0), costModel, neighbors);
+      assertEquals(new Node(0, 0, 0), path.get(0));
+      assertEquals(new Node(20, 20, 0), path.get(path.size() - 1));
+    }
+  }
+
+  @Test
+  public void testNoSolution() {
+    GridCost costModel = new GridCost(10, true);
+    costModel.setGoal(new Node(11, 11, 0)); // Outside the grid
+    List<Node> path = new PackedAStarSolver().solve(new Node(0, 0, 0), costModel, new GridNeighbors(10));
+    assertTrue(path.isEmpty());
+    path = new PackedANAStarSolver().solve(new Node(0, 0, 0), costModel, new GridNeighbors(10));
+    assertTrue(path.isEmpty());
+  }
+
+  @Test
+  public void testUnpackableNodes() {
+    long start = 1L << 40; // Too large to pack
+    GridCost costModel = new GridCost(Long.MAX_VALUE, true);
+    costModel.setGoal(new Node(start + 3, 2, 0));
+    List<Node> path = new PackedAStarSolver().solve(new Node(start, 0, 0), costModel, new GridNeighbors(Long.MAX_VALUE));
+    assertEquals(6, path.size());
+    assertEquals(new Node(start + 3, 2, 0), path.get(path.size() - 1));
+  }
+
+  @Test
+  public void testPackedNodeTable() {
+    assertTrue(PackedNodeTable.fits(new Node(-5, -3, -1)));
+    assertFalse(PackedNodeTable.fits(new Node(1L << 27, 0, 0)));
+    assertFalse(PackedNodeTable.fits(new Node(0, 1L << 19, 0)));
+    assertFalse(PackedNodeTable.fits(new Node(0, 0, 1L << 15)));
+    assertTrue(PackedNodeTable.pack(new Node(1, 2, 3)) != PackedNodeTable.pack(new Node(-1, 2, 3)));
+
+    PackedNodeTable table = new PackedNodeTable(4);
+    for (long d = -50; d < 50; d++) {
+      Node n = new Node(d, d * 2, 3);
+      int slot = table.add(PackedNodeTable.pack(n), n);
+      table.setGScore(slot, d);
+    }
+    assertEquals(100, table.size());
+    for (long d = -50; d < 50; d++) {
+      int slot = table.find(PackedNodeTable.pack(new Node(d, d * 2, 3)));
+      assertEquals(new Node(d, d * 2, 3), table.getNode(slot));
+      assertEquals(d, table.getGScore(slot), 0.0);
+      assertEquals(-1, table.getParent(slot));
+      assertFalse(table.isClosed(slot));
+    }
+    assertEquals(-1, table.find(PackedNodeTable.pack(new Node(0, 0, 0))));
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertEquals(-1, table.find(PackedNodeTable.pack(new Node(1, 2, 3))));
+  }
+
+  @Test
+  public void testIndexedNodeHeap() {
+    IndexedNodeHeap heap = new IndexedNodeHeap(2);
+    double[] priorities = {5.0, 3.0, 8.0, 1.0, 9.0, 4.0, 7.0, 2.0, 6.0, 0.5};
+    for (int slot = 0; slot < priorities.length; slot++) {
+      heap.addOrUpdate(slot, priorities[slot]);
+    }
+    heap.addOrUpdate(4, 0.1); // Decrease
+    heap.addOrUpdate(3, 10.0); // Increase
+    heap.remove(0);
+    assertFalse(heap.contains(0));
+    assertEquals(9, heap.size());
+
+    int[] expectedOrder = {4, 9, 7, 1, 5, 8, 6, 2, 3};
+    for (int slot : expectedOrder) {
+      assertEquals(slot, heap.peek());
+      assertEquals(slot, heap.poll());
+    }
+    assertTrue(heap.isEmpty());
+    assertEquals(-1, heap.poll());
+
+    for (int slot = 0; slot < priorities.length; slot++) {
+      heap.addOrUpdate(slot, priorities[slot]);
+    }
+    // Negate priorities and drop odd slots
+    heap.rebuild(slot -> slot % 2 == 0, slot -> -priorities[slot]);
+    assertEquals(5, heap.size());
+    assertFalse(heap.contains(1));
+    int[] rebuiltOrder = {4, 2, 6, 8, 0};
+    for (int slot : rebuiltOrder) {
+      assertEquals(slot, heap.poll());
+    }
+
+    heap.addOrUpdate(2, 1.0);
+    heap.clear();
+    assertFalse(heap.contains(2));
+    assertTrue(heap.isEmpty());
+  }
+}
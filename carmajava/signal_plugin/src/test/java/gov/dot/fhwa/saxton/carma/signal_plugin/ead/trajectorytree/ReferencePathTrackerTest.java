@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Runs unit tests for the ReferencePathTracker class
+ */
+public class ReferencePathTrackerTest {
+
+  // Nodes one second apart whose speed may change by one unit per step
+  private class KinematicNeighbors extends NeighborBase {
+    Node blocked_ = null;
+
+    @Override
+    public List<Node> neighbors(Node node) {
+      List<Node> neighbors = new ArrayList<>(3);
+      for (long v = Math.max(0, node.getSpeed() - 1); v <= node.getSpeed() + 1; v++) {
+        // Distance advances by twice the average speed so every edge ends on a whole distance unit
+        Node n = new Node(node.getDistance() + node.getSpeed() + v, node.getTime() + 1, v);
+        if (!n.equals(blocked_)) {
+          neighbors.add(n);
+        }
+      }
+      return neighbors;
+    }
+  }
+
+  // Reaches the goal once the distance passes a threshold
+  private class DistanceGoal implements ICostModel {
+    final long goalDistance_;
+
+    DistanceGoal(long goalDistance) {
+      goalDistance_ = goalDistance;
+    }
+
+    @Override
+    public double cost(Node n1, Node n2) {
+      return n2.getTime() - n1.getTime();
+    }
+    @Override
+    public double heuristic(Node n1) {
+      return 0;
+    }
+    @Override
+    public void setTolerances(Node tolerances) { }
+    @Override
+    public void setGoal(Node goal) { }
+    @Override
+    public boolean isGoal(Node n) {
+      return n.getDistance() >= goalDistance_;
+    }
+    @Override
+    public boolean isUnusable(Node n) {
+      return false;
+    }
+  }
+
+  // Accelerate to a speed of 3, then slow to 2
+  private final List<Node> reference = Arrays.asList(new Node(0, 0, 0), new Node(1, 1, 1), new Node(4, 2, 2), new Node(9, 3, 3),
+    new Node(15, 4, 3), new Node(20, 5, 2), new Node(24, 6, 2), new Node(28, 7, 2));
+
+  @Test
+  public void testFollowsReference() {
+    KinematicNeighbors neighbors = new KinematicNeighbors();
+    List<Node> path = ReferencePathTracker.track(new Node(0, 0, 0), reference, 0.0, 0.0, new DistanceGoal(28), neighbors, 100);
+    assertEquals(reference, path);
+
+    // Re-rooted partway along the reference, the remainder of the reference is followed
+    Node start = new Node(0, 0, 2);
+    double timeOffset = reference.get(2).getTimeAsDouble();
+    double distanceOffset = reference.get(2).getDistanceAsDouble();
+    path = ReferencePathTracker.track(start, reference, timeOffset, distanceOffset, new DistanceGoal(24), neighbors, 100);
+    assertEquals(reference.size() - 2, path.size());
+    for (int i = 0; i < path.size(); i++) {
+      Node expected = reference.get(i + 2);
+      assertEquals(expected.getDistance() - reference.get(2).getDistance(), path.get(i).getDistance());
+      assertEquals(expected.getTime() - reference.get(2).getTime(), path.get(i).getTime());
+      assertEquals(expected.getSpeed(), path.get(i).getSpeed());
+    }
+  }
+
+  @Test
+  public void testDeviatesAroundBlockedNodes() {
+    KinematicNeighbors neighbors = new KinematicNeighbors();
+    neighbors.blocked_ = new Node(15, 4, 3);
+    List<Node> path = ReferencePathTracker.track(new Node(0, 0, 0), reference, 0.0, 0.0, new DistanceGoal(28), neighbors, 100);
+    assertTrue(!path.isEmpty());
+    assertTrue(!path.contains(neighbors.blocked_));
+    assertEquals(reference.subList(0, 4), path.subList(0, 4));
+    assertTrue(path.get(path.size() - 1).getDistance() >= 28);
+
+    // The goal cannot be reached within the node limit
+    assertTrue(ReferencePathTracker.track(new Node(0, 0, 0), reference, 0.0, 0.0, new DistanceGoal(28), neighbors, 4).isEmpty());
+    // No reference to follow
+    assertTrue(ReferencePathTracker.track(new Node(0, 0, 0), new ArrayList<>(), 0.0, 0.0, new DistanceGoal(28), neighbors, 100).isEmpty());
+  }
+}
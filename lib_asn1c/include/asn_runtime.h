@@ -0,0 +1,128 @@
+/*
+ * Declarations of the asn1c runtime exported by the prebuilt libraries in third_party_lib
+ *
+ * Only the part of the runtime used by wrapper.c is declared. The layouts match the asn1c skeletons the
+ * library was built from, see third_party_lib/libasn1c_update.txt
+ */
+
+#ifndef _ASN_RUNTIME_H_
+#define _ASN_RUNTIME_H_
+
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <stdint.h>
+#include <sys/types.h>
+
+/* Parser context kept by the runtime inside every constructed type */
+typedef struct asn_struct_ctx_s {
+	short phase;
+	short step;
+	int context;
+	void *ptr;
+	ssize_t left;
+} asn_struct_ctx_t;
+
+typedef struct OCTET_STRING {
+	uint8_t *buf;
+	size_t size;
+	asn_struct_ctx_t _asn_ctx;
+} OCTET_STRING_t;
+
+typedef OCTET_STRING_t IA5String_t;
+
+typedef struct BIT_STRING_s {
+	uint8_t *buf;
+	size_t size;
+	int bits_unused;
+	asn_struct_ctx_t _asn_ctx;
+} BIT_STRING_t;
+
+typedef struct ANY {
+	uint8_t *buf;
+	size_t size;
+	asn_struct_ctx_t _asn_ctx;
+} ANY_t;
+
+typedef struct INTEGER {
+	uint8_t *buf;
+	size_t size;
+} INTEGER_t;
+
+typedef int BOOLEAN_t;
+
+#define A_SET_OF(type) \
+	struct { \
+		type **array; \
+		int count; \
+		int size; \
+		void (*free)(type *); \
+	}
+#define A_SEQUENCE_OF(type) A_SET_OF(type)
+
+struct asn_TYPE_descriptor_s;
+
+typedef struct asn_TYPE_operation_s {
+	void (*free_struct)(const struct asn_TYPE_descriptor_s *td, void *ptr, int method);
+	void *print_struct;
+	void *compare_struct;
+	void *ber_decoder;
+	void *der_encoder;
+	void *xer_decoder;
+	void *xer_encoder;
+	void *oer_decoder;
+	void *oer_encoder;
+	void *uper_decoder;
+	void *uper_encoder;
+	void *random_fill;
+	void *outmost_tag;
+} asn_TYPE_operation_t;
+
+/* Descriptors are only passed back to the runtime, so their members past the operations are left opaque */
+typedef struct asn_TYPE_descriptor_s {
+	const char *name;
+	const char *xml_tag;
+	asn_TYPE_operation_t *op;
+	const void *opaque[10];
+} asn_TYPE_descriptor_t;
+
+typedef struct asn_codec_ctx_s {
+	size_t max_stack_size;
+} asn_codec_ctx_t;
+
+enum asn_dec_rval_code_e {
+	RC_OK,
+	RC_WMORE,
+	RC_FAIL
+};
+
+typedef struct asn_dec_rval_s {
+	enum asn_dec_rval_code_e code;
+	size_t consumed;
+} asn_dec_rval_t;
+
+typedef struct asn_enc_rval_s {
+	ssize_t encoded;
+	const struct asn_TYPE_descriptor_s *failed_type;
+	const void *structure_ptr;
+} asn_enc_rval_t;
+
+asn_dec_rval_t uper_decode(const asn_codec_ctx_t *opt_codec_ctx, const asn_TYPE_descriptor_t *td, void **sptr,
+		const void *buffer, size_t size, int skip_bits, int unused_bits);
+
+asn_enc_rval_t uper_encode_to_buffer(const asn_TYPE_descriptor_t *td, const void *constraints, const void *sptr,
+		void *buffer, size_t buffer_size);
+
+int asn_set_add(void *asn_set_of_x, void *ptr);
+#define asn_sequence_add asn_set_add
+
+/* Frees a structure and everything it points to */
+#define ASN_STRUCT_FREE(asn_DEF, ptr) (asn_DEF).op->free_struct(&(asn_DEF), ptr, 0)
+
+#if defined(__x86_64__)
+_Static_assert(sizeof(asn_TYPE_descriptor_t) == 104, "asn_TYPE_descriptor_t layout");
+_Static_assert(sizeof(OCTET_STRING_t) == 40, "OCTET_STRING_t layout");
+#endif
+
+#endif /* _ASN_RUNTIME_H_ */
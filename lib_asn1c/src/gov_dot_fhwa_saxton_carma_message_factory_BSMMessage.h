@@ -7,6 +7,10 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BSM_FIELD_COUNT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BSM_FIELD_COUNT 28L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MAX_ENCODED_BSM_SIZE
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MAX_ENCODED_BSM_SIZE 128L
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
  * Method:    encode_BSM
@@ -23,6 +27,46 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jobject, jobject, jobject, jbyteArray, jobject);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    encode_BSM_direct
+ * Signature: (I[IIIII[IIIII[I[I[ILjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1direct
+  (JNIEnv *, jobject, jint, jintArray, jint, jint, jint, jint, jintArray, jint, jint, jint, jint, jintArray, jintArray, jintArray, jobject);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    decode_BSM_direct
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[BLjava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;[BLjava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM_1direct
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jobject, jobject, jobject, jbyteArray, jobject);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    encode_BSM_batch
+ * Signature: (I[I[B[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1batch
+  (JNIEnv *, jobject, jint, jintArray, jbyteArray, jintArray);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    encode_BSM_batch_direct
+ * Signature: (I[ILjava/nio/ByteBuffer;[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1batch_1direct
+  (JNIEnv *, jobject, jint, jintArray, jobject, jintArray);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    decode_BSM_batch
+ * Signature: (I[B[I[I[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM_1batch
+  (JNIEnv *, jobject, jint, jbyteArray, jintArray, jintArray, jintArray);
+
 #ifdef __cplusplus
 }
 #endif
@@ -23,6 +23,22 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPath
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    encodeMobilityPathDirect
+ * Signature: ([B[B[B[B[BIII[B[[ILjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_encodeMobilityPathDirect
+  (JNIEnv *, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jint, jint, jint, jbyteArray, jobjectArray, jobject);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathDirect
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray);
+
 #ifdef __cplusplus
 }
 #endif
@@ -23,6 +23,22 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jobject, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray, jbyteArray);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage
+ * Method:    encodeMobilityRequestDirect
+ * Signature: ([B[B[B[B[B[BIIIII[B[BIII[B[[I[BLjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_encodeMobilityRequestDirect
+  (JNIEnv *, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jint, jint, jint, jint, jint, jbyteArray, jbyteArray, jint, jint, jint, jbyteArray, jobjectArray, jbyteArray, jobject);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage
+ * Method:    decodeMobilityRequestDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[B[BLjava/lang/Object;Ljava/lang/Object;[B[BLjava/lang/Object;[B[[I[B)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequestDirect
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jobject, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray, jbyteArray);
+
 #ifdef __cplusplus
 }
 #endif
@@ -15,6 +15,7 @@
  */
 
 #include <stdio.h>
+#include <string.h>
 #include <sys/types.h>
 #include "gov_dot_fhwa_saxton_carma_message_factory_BSMMessage.h"
 #include "gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage.h"
@@ -26,26 +27,21 @@
 #include "MessageFrame.h"
 
 /**
- * BSM Encoder:
- * This function can encode an BSM object from Java to a byte array in J2735 standards.
- * When an error happened, this function will return NULL.
- * Note: In this function, we pass parameters instead of passing a single object,
- * because making the natives to reach for many individual fields
- * from objects passed to them leads to poor performance.
+ * Builds a BSM MessageFrame from the Java fields and encodes it into the buffer.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
  */
-JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM
-		(JNIEnv *env, jobject cls, jint msgCount, jintArray bsm_id, jint secMark,
+static jint encode_BSM_to_buffer
+		(JNIEnv *env, jint msgCount, jintArray bsm_id, jint secMark,
 		  jint lat, jint lon, jint elev, jintArray accuracy_set, jint transmission,
-		  jint speed, jint heading, jint angle, jintArray accel_set, jintArray brakes_set, jintArray size_set) {
+		  jint speed, jint heading, jint angle, jintArray accel_set, jintArray brakes_set, jintArray size_set,
+		  uint8_t *buffer, size_t buffer_size) {
 
-	uint8_t buffer[128];
-	size_t buffer_size = sizeof(buffer);
 	asn_enc_rval_t ec;
 	MessageFrame_t *message;
 
 	message = calloc(1, sizeof(MessageFrame_t));
 	if(!message) {
-		return NULL;
+		return -1;
 	}
 
 	//set default fields of BSM
@@ -57,7 +53,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	jint *bsm_msg_id = (*env) -> GetIntArrayElements(env, bsm_id, 0);
 	if(bsm_msg_id == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t content[4] = {0, 0, 0, 0};
 	for(int i = 0; i < 4; i++) {
@@ -76,7 +72,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	jint *accuracy = (*env) -> GetIntArrayElements(env, accuracy_set, 0);
 	if(accuracy == NULL) {
-		return NULL;
+		return -1;
 	}
 	message -> value.choice.BasicSafetyMessage.coreData.accuracy.semiMajor = accuracy[0];
 	message -> value.choice.BasicSafetyMessage.coreData.accuracy.semiMinor = accuracy[1];
@@ -90,7 +86,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	jint *accel = (*env) -> GetIntArrayElements(env, accel_set, 0);
 	if(accel == NULL) {
-		return NULL;
+		return -1;
 	}
 	message -> value.choice.BasicSafetyMessage.coreData.accelSet.lat = accel[0];
 	message -> value.choice.BasicSafetyMessage.coreData.accelSet.Long = accel[1];
@@ -100,7 +96,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	jint *brakes = (*env) -> GetIntArrayElements(env, brakes_set, 0);
 	if(brakes == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t break_content[1] = {16};
 	break_content[0] = brakes[0];
@@ -116,7 +112,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	jint *size = (*env) -> GetIntArrayElements(env, size_set, 0);
 	if(size == NULL) {
-		return NULL;
+		return -1;
 	}
 	message -> value.choice.BasicSafetyMessage.coreData.size.width = size[0];
 	message -> value.choice.BasicSafetyMessage.coreData.size.length = size[1];
@@ -124,10 +120,32 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 
 	ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, message, buffer, buffer_size);
 	if(ec.encoded == -1) {
+		return -1;
+	}
+
+	return ec.encoded / 8;
+}
+
+/**
+ * BSM Encoder:
+ * This function can encode an BSM object from Java to a byte array in J2735 standards.
+ * When an error happened, this function will return NULL.
+ * Note: In this function, we pass parameters instead of passing a single object,
+ * because making the natives to reach for many individual fields
+ * from objects passed to them leads to poor performance.
+ */
+JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM
+		(JNIEnv *env, jobject cls, jint msgCount, jintArray bsm_id, jint secMark,
+		  jint lat, jint lon, jint elev, jintArray accuracy_set, jint transmission,
+		  jint speed, jint heading, jint angle, jintArray accel_set, jintArray brakes_set, jintArray size_set) {
+
+	uint8_t buffer[128];
+	jint length = encode_BSM_to_buffer(env, msgCount, bsm_id, secMark, lat, lon, elev, accuracy_set, transmission,
+			speed, heading, angle, accel_set, brakes_set, size_set, buffer, sizeof(buffer));
+	if(length == -1) {
 		return NULL;
 	}
 
-	jsize length = ec.encoded / 8;
 	jbyteArray outJNIArray = (*env) -> NewByteArray(env, length);
 	if(outJNIArray == NULL) {
 		return NULL;
@@ -137,29 +155,54 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 }
 
 /**
- * BSM Decoder:
- * This function can decode a byte array in J2735 standards to a messageFrame structure and map to a Java BSMCore object.
- * When an error happened, this function will return without any mapping.
+ * BSM Direct Buffer Encoder:
+ * Same as the BSM Encoder, but the encoded message is written straight into a direct ByteBuffer
+ * instead of being copied into a new Java byte array.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1direct
+		(JNIEnv *env, jobject cls, jint msgCount, jintArray bsm_id, jint secMark,
+		  jint lat, jint lon, jint elev, jintArray accuracy_set, jint transmission,
+		  jint speed, jint heading, jint angle, jintArray accel_set, jintArray brakes_set, jintArray size_set,
+		  jobject encoded_buffer) {
+
+	uint8_t *buffer = (*env) -> GetDirectBufferAddress(env, encoded_buffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encoded_buffer);
+	if(buffer == NULL || capacity < 0) {
+		return -1;
+	}
+	return encode_BSM_to_buffer(env, msgCount, bsm_id, secMark, lat, lon, elev, accuracy_set, transmission,
+			speed, heading, angle, accel_set, brakes_set, size_set, buffer, (size_t) capacity);
+}
+
+/**
+ * Checks that a decoded frame holds a BSM whose id and wheel brakes can be read.
+ * A well formed frame of another message type is decoded without error, so it has to be rejected here.
+ */
+static int is_complete_BSM(const MessageFrame_t *message) {
+	if(message -> value.present != MessageFrame__value_PR_BasicSafetyMessage) {
+		return 0;
+	}
+	const BSMcoreData_t *core = &message -> value.choice.BasicSafetyMessage.coreData;
+	return core -> id.buf != NULL && core -> id.size >= 4
+			&& core -> brakes.wheelBrakes.buf != NULL && core -> brakes.wheelBrakes.size >= 1;
+}
+
+/**
+ * Decodes a BSM from the buffer and maps it to a Java BSMCore object.
  * Return -1 means an error has happened; return 0 means decoding succeed.
  */
-JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM
-  (JNIEnv *env, jobject cls, jbyteArray encoded_bsm,
+static jint decode_BSM_from_buffer
+  (JNIEnv *env, const void *buf, size_t len,
    jobject plain_bsm, jbyteArray bsm_id, jobject accuracy,
    jobject transmission, jobject accelset, jbyteArray brakeStatus, jobject size) {
 
 	asn_dec_rval_t rval; /* Decoder return value */
 	MessageFrame_t *message = 0; /* Type to decode */
 
-	int len = (*env) -> GetArrayLength(env, encoded_bsm); /* Number of bytes in encoded_bsm */
-	jbyte *inCArray = (*env) -> GetByteArrayElements(env, encoded_bsm, 0); /* Get Java byte array content */
-	char buf[len]; /* Buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-		buf[i] = inCArray[i];
-	} /* Copy into buffer */
-
 	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
 
-	if(rval.code == RC_OK) {
+	if(rval.code == RC_OK && is_complete_BSM(message)) {
 		jclass bsm_core_class = (*env) -> GetObjectClass(env, plain_bsm);
 		jclass accuracy_class = (*env) -> GetObjectClass(env, accuracy);
 		jclass transmission_class = (*env) -> GetObjectClass(env, transmission);
@@ -246,35 +289,292 @@ JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
 		(*env) -> CallVoidMethod(env, size, mid_setVehicleLength, v_length);
 	}
 	else {
+		ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
 		return -1;
 	}
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
 	return 0;
 }
 
 /**
- * MobilityRequest Encoder:
- * This function can encode an MobilityRequest message object from Java to
- * a byte array in J2735 standards. When an error happened, this function will return NULL.
+ * BSM Decoder:
+ * This function can decode a byte array in J2735 standards to a messageFrame structure and map to a Java BSMCore object.
+ * When an error happened, this function will return without any mapping.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
  */
-JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_encodeMobilityRequest
-  (JNIEnv *env, jobject cls, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBSMId,
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM
+  (JNIEnv *env, jobject cls, jbyteArray encoded_bsm,
+   jobject plain_bsm, jbyteArray bsm_id, jobject accuracy,
+   jobject transmission, jobject accelset, jbyteArray brakeStatus, jobject size) {
+
+	int len = (*env) -> GetArrayLength(env, encoded_bsm); /* Number of bytes in encoded_bsm */
+	jbyte *inCArray = (*env) -> GetByteArrayElements(env, encoded_bsm, 0); /* Get Java byte array content */
+	if(inCArray == NULL) {
+		return -1;
+	}
+	jint result = decode_BSM_from_buffer(env, inCArray, len, plain_bsm, bsm_id, accuracy, transmission, accelset, brakeStatus, size);
+	(*env) -> ReleaseByteArrayElements(env, encoded_bsm, inCArray, JNI_ABORT);
+	return result;
+}
+
+/**
+ * BSM Direct Buffer Decoder:
+ * Same as the BSM Decoder, but the encoded message is read straight from the first length bytes of a direct ByteBuffer.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM_1direct
+  (JNIEnv *env, jobject cls, jobject encoded_buffer, jint length,
+   jobject plain_bsm, jbyteArray bsm_id, jobject accuracy,
+   jobject transmission, jobject accelset, jbyteArray brakeStatus, jobject size) {
+
+	uint8_t *buf = (*env) -> GetDirectBufferAddress(env, encoded_buffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encoded_buffer);
+	if(buf == NULL || length < 0 || length > capacity) {
+		return -1;
+	}
+	return decode_BSM_from_buffer(env, buf, length, plain_bsm, bsm_id, accuracy, transmission, accelset, brakeStatus, size);
+}
+
+#define BSM_FIELD_COUNT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BSM_FIELD_COUNT
+#define BSM_MAX_ENCODED_SIZE gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MAX_ENCODED_BSM_SIZE
+
+/**
+ * Sets a BSM MessageFrame from fields packed in the order documented on BSMMessage.BSM_FIELD_COUNT.
+ * The id and wheel brakes are pointed at the given buffers, so the frame is only valid while they are.
+ */
+static void fill_BSM_from_fields(MessageFrame_t *message, const jint *f, uint8_t *id_content, uint8_t *brake_content) {
+	memset(message, 0, sizeof(MessageFrame_t));
+	message -> messageId = 20;
+	message -> value.present = MessageFrame__value_PR_BasicSafetyMessage;
+
+	BSMcoreData_t *core = &message -> value.choice.BasicSafetyMessage.coreData;
+	core -> msgCnt = f[0];
+	for(int i = 0; i < 4; i++) {
+		id_content[i] = (char) f[1 + i];
+	}
+	core -> id.buf = id_content;
+	core -> id.size = 4;
+	core -> secMark = f[5];
+	core -> lat = f[6];
+	core -> Long = f[7];
+	core -> elev = f[8];
+	core -> accuracy.semiMajor = f[9];
+	core -> accuracy.semiMinor = f[10];
+	core -> accuracy.orientation = f[11];
+	core -> transmission = f[12];
+	core -> speed = f[13];
+	core -> heading = f[14];
+	core -> angle = f[15];
+	core -> accelSet.lat = f[16];
+	core -> accelSet.Long = f[17];
+	core -> accelSet.vert = f[18];
+	core -> accelSet.yaw = f[19];
+	brake_content[0] = f[20];
+	core -> brakes.wheelBrakes.bits_unused = 3;
+	core -> brakes.wheelBrakes.buf = brake_content;
+	core -> brakes.wheelBrakes.size = 1;
+	core -> brakes.traction = f[21];
+	core -> brakes.abs = f[22];
+	core -> brakes.scs = f[23];
+	core -> brakes.brakeBoost = f[24];
+	core -> brakes.auxBrakes = f[25];
+	core -> size.width = f[26];
+	core -> size.length = f[27];
+}
+
+/**
+ * BSM Batch Encoder:
+ * This function encodes count BSMs in a single JNI call. The fields of each BSM are packed
+ * into an int array in the order documented on BSMMessage.BSM_FIELD_COUNT.
+ * Each encoded BSM is written to the output array at its index times BSM_MAX_ENCODED_SIZE
+ * and its length is written to the lengths array, or -1 if that BSM could not be encoded.
+ * Return -1 means the Java arrays could not be accessed; return 0 means the batch was processed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1batch
+  (JNIEnv *env, jobject cls, jint count, jintArray fields_array, jbyteArray encoded_array, jintArray lengths_array) {
+
+	jint *fields = (*env) -> GetIntArrayElements(env, fields_array, 0);
+	if(fields == NULL) {
+		return -1;
+	}
+	jbyte *encoded = (*env) -> GetByteArrayElements(env, encoded_array, 0);
+	if(encoded == NULL) {
+		(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+		return -1;
+	}
+	jint *lengths = (*env) -> GetIntArrayElements(env, lengths_array, 0);
+	if(lengths == NULL) {
+		(*env) -> ReleaseByteArrayElements(env, encoded_array, encoded, JNI_ABORT);
+		(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+		return -1;
+	}
+
+	// The message structure is reused for every BSM since all of its buffers are on the stack
+	MessageFrame_t message;
+	uint8_t id_content[4];
+	uint8_t brake_content[1];
+	for(int n = 0; n < count; n++) {
+		fill_BSM_from_fields(&message, fields + n * BSM_FIELD_COUNT, id_content, brake_content);
+		asn_enc_rval_t ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, &message,
+				encoded + n * BSM_MAX_ENCODED_SIZE, BSM_MAX_ENCODED_SIZE);
+		lengths[n] = ec.encoded == -1 ? -1 : ec.encoded / 8;
+	}
+
+	(*env) -> ReleaseIntArrayElements(env, lengths_array, lengths, 0);
+	(*env) -> ReleaseByteArrayElements(env, encoded_array, encoded, 0);
+	(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+	return 0;
+}
+
+/**
+ * BSM Direct Buffer Batch Encoder:
+ * Same as the BSM Batch Encoder, but the encoded BSMs are written back to back into a direct ByteBuffer
+ * of at least count times BSM_MAX_ENCODED_SIZE bytes. A BSM which could not be encoded takes no space.
+ * Return -1 means the Java arrays or the buffer could not be accessed; return 0 means the batch was processed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encode_1BSM_1batch_1direct
+  (JNIEnv *env, jobject cls, jint count, jintArray fields_array, jobject encoded_buffer, jintArray lengths_array) {
+
+	uint8_t *encoded = (*env) -> GetDirectBufferAddress(env, encoded_buffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encoded_buffer);
+	if(encoded == NULL || capacity < (jlong) count * BSM_MAX_ENCODED_SIZE) {
+		return -1;
+	}
+	jint *fields = (*env) -> GetIntArrayElements(env, fields_array, 0);
+	if(fields == NULL) {
+		return -1;
+	}
+	jint *lengths = (*env) -> GetIntArrayElements(env, lengths_array, 0);
+	if(lengths == NULL) {
+		(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+		return -1;
+	}
+
+	MessageFrame_t message;
+	uint8_t id_content[4];
+	uint8_t brake_content[1];
+	size_t offset = 0;
+	for(int n = 0; n < count; n++) {
+		fill_BSM_from_fields(&message, fields + n * BSM_FIELD_COUNT, id_content, brake_content);
+		asn_enc_rval_t ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, &message,
+				encoded + offset, BSM_MAX_ENCODED_SIZE);
+		lengths[n] = ec.encoded == -1 ? -1 : ec.encoded / 8;
+		if(lengths[n] != -1) {
+			offset += lengths[n];
+		}
+	}
+
+	(*env) -> ReleaseIntArrayElements(env, lengths_array, lengths, 0);
+	(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+	return 0;
+}
+
+/**
+ * BSM Batch Decoder:
+ * This function decodes count BSMs in a single JNI call. BSM n is read from the encoded array
+ * between offsets[n] and offsets[n + 1]. The decoded fields are packed into the fields array in the
+ * order documented on BSMMessage.BSM_FIELD_COUNT, which avoids calling back into Java for every field.
+ * The result of each BSM is written to the results array: -1 means decoding failed or the frame did not hold
+ * a complete BSM; 0 means it succeeded.
+ * Return -1 means the Java arrays could not be accessed; return 0 means the batch was processed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM_1batch
+  (JNIEnv *env, jobject cls, jint count, jbyteArray encoded_array, jintArray offsets_array,
+   jintArray fields_array, jintArray results_array) {
+
+	jbyte *encoded = (*env) -> GetByteArrayElements(env, encoded_array, 0);
+	if(encoded == NULL) {
+		return -1;
+	}
+	jint *offsets = (*env) -> GetIntArrayElements(env, offsets_array, 0);
+	if(offsets == NULL) {
+		(*env) -> ReleaseByteArrayElements(env, encoded_array, encoded, JNI_ABORT);
+		return -1;
+	}
+	jint *fields = (*env) -> GetIntArrayElements(env, fields_array, 0);
+	jint *results = (*env) -> GetIntArrayElements(env, results_array, 0);
+	if(fields == NULL || results == NULL) {
+		if(fields != NULL) {
+			(*env) -> ReleaseIntArrayElements(env, fields_array, fields, JNI_ABORT);
+		}
+		(*env) -> ReleaseIntArrayElements(env, offsets_array, offsets, JNI_ABORT);
+		(*env) -> ReleaseByteArrayElements(env, encoded_array, encoded, JNI_ABORT);
+		return -1;
+	}
+
+	for(int n = 0; n < count; n++) {
+		MessageFrame_t *message = 0;
+		jint *f = fields + n * BSM_FIELD_COUNT;
+		asn_dec_rval_t rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message,
+				encoded + offsets[n], offsets[n + 1] - offsets[n], 0, 0);
+		if(rval.code != RC_OK) {
+			results[n] = -1;
+			ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+			continue;
+		}
+
+		if(!is_complete_BSM(message)) {
+			results[n] = -1;
+			ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+			continue;
+		}
+
+		BSMcoreData_t *core = &message -> value.choice.BasicSafetyMessage.coreData;
+		f[0] = core -> msgCnt;
+		for(int i = 0; i < 4; i++) {
+			f[1 + i] = core -> id.buf[i];
+		}
+		f[5] = core -> secMark;
+		f[6] = core -> lat;
+		f[7] = core -> Long;
+		f[8] = core -> elev;
+		f[9] = core -> accuracy.semiMajor;
+		f[10] = core -> accuracy.semiMinor;
+		f[11] = core -> accuracy.orientation;
+		f[12] = core -> transmission;
+		f[13] = core -> speed;
+		f[14] = core -> heading;
+		f[15] = core -> angle;
+		f[16] = core -> accelSet.lat;
+		f[17] = core -> accelSet.Long;
+		f[18] = core -> accelSet.vert;
+		f[19] = core -> accelSet.yaw;
+		f[20] = core -> brakes.wheelBrakes.buf[0];
+		f[21] = core -> brakes.traction;
+		f[22] = core -> brakes.abs;
+		f[23] = core -> brakes.scs;
+		f[24] = core -> brakes.brakeBoost;
+		f[25] = core -> brakes.auxBrakes;
+		f[26] = core -> size.width;
+		f[27] = core -> size.length;
+		results[n] = 0;
+		ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	}
+
+	(*env) -> ReleaseIntArrayElements(env, results_array, results, 0);
+	(*env) -> ReleaseIntArrayElements(env, fields_array, fields, 0);
+	(*env) -> ReleaseIntArrayElements(env, offsets_array, offsets, JNI_ABORT);
+	(*env) -> ReleaseByteArrayElements(env, encoded_array, encoded, JNI_ABORT);
+	return 0;
+}
+
+/**
+ * Builds a MobilityRequest MessageFrame from the Java fields and encodes it into the buffer.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
+ */
+static jint encode_MobilityRequest_to_buffer
+  (JNIEnv *env, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBSMId,
    jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jint planType, jint urgency,
    jint currentX, jint currentY, jint currentZ, jbyteArray currentT, jbyteArray strategyParams,
-   jint startX, jint startY, jint startZ, jbyteArray startT, jobjectArray offsets, jbyteArray expiration) {
-
-	//Build a log in test file to debug if necessary
-	//FILE *fp;
-	//fp = fopen("/home/qsw/carma/log_C.txt", "w");
-	//fprintf(fp, "encodeMobilityRequest function is called\n");
+   jint startX, jint startY, jint startZ, jbyteArray startT, jobjectArray offsets, jbyteArray expiration,
+   uint8_t *buffer, size_t buffer_size) {
 
-	uint8_t buffer[512];
-	size_t buffer_size = sizeof(buffer);
 	asn_enc_rval_t ec;
 	MessageFrame_t *message;
 
 	message = calloc(1, sizeof(MessageFrame_t));
 	if (!message) {
-		return NULL;
+		return -1;
 	}
 
 	//set default value of testmessage00
@@ -285,7 +585,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize sender_string_size = (*env) -> GetArrayLength(env, senderId);
 	jbyte *sender_string = (*env) -> GetByteArrayElements(env, senderId, 0);
 	if (sender_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t sender_string_content[sender_string_size];
 	for (int i = 0; i < sender_string_size; i++) {
@@ -299,7 +599,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize target_string_size = (*env) -> GetArrayLength(env, targetId);
 	jbyte *target_string = (*env) -> GetByteArrayElements(env, targetId, 0);
 	if (target_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t target_string_content[target_string_size];
 	for (int i = 0; i < target_string_size; i++) {
@@ -312,7 +612,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set hostBSMId in header
 	jbyte *bsm_string = (*env) -> GetByteArrayElements(env, senderBSMId, 0);
 	if(bsm_string == NULL) {
-	    return NULL;
+	    return -1;
 	}
 	uint8_t host_bsm_id_content[8] = {0};
 	for(int i = 0; i < 8; i++) {
@@ -325,7 +625,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set planId in header
 	jbyte *plan_id = (*env) -> GetByteArrayElements(env, planId, 0);
 	if (plan_id == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t plan_id_content[36] = {0};
 	for (int i = 0; i < 36; i++) {
@@ -338,7 +638,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set timestamp
 	jbyte *time = (*env) -> GetByteArrayElements(env, timestamp, 0);
 	if (time == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t time_content[19] = {0};
 	for (int i = 0; i < 19; i++) {
@@ -352,7 +652,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize strategy_string_size = (*env) -> GetArrayLength(env, strategy);
 	jbyte *strategy_string = (*env) -> GetByteArrayElements(env, strategy, 0);
 	if (strategy_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t strategy_string_content[strategy_string_size];
 	for (int i = 0; i < strategy_string_size; i++) {
@@ -374,7 +674,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	message -> value.choice.TestMessage00.body.location.ecefZ = currentZ;
 	jbyte *current_time = (*env) -> GetByteArrayElements(env, currentT, 0);
 	if(current_time == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t current_time_content[19] = {0};
 	for (int i = 0; i < 19; i++) {
@@ -388,7 +688,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize params_string_size = (*env) -> GetArrayLength(env, strategyParams);
 	jbyte *params_string = (*env) -> GetByteArrayElements(env, strategyParams, 0);
 	if (params_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t params_string_content[params_string_size];
 	for (int i = 0; i < params_string_size; i++) {
@@ -463,7 +763,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	int hasExpiration = 0;
 	jbyte *expiration_time = (*env) -> GetByteArrayElements(env, expiration, 0);
 	if(expiration_time == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t expiration_time_content[19] = {0};
 	for (int i = 0; i < 19; i++) {
@@ -486,11 +786,31 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, message, buffer, buffer_size);
 	if(ec.encoded == -1) {
 		//fprintf(fp, "!!!%s", ec.failed_type->name);
+		return -1;
+	}
+
+	return ec.encoded / 8;
+}
+
+/**
+ * MobilityRequest Encoder:
+ * This function can encode an MobilityRequest message object from Java to
+ * a byte array in J2735 standards. When an error happened, this function will return NULL.
+ */
+JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_encodeMobilityRequest
+  (JNIEnv *env, jobject cls, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBSMId,
+   jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jint planType, jint urgency,
+   jint currentX, jint currentY, jint currentZ, jbyteArray currentT, jbyteArray strategyParams,
+   jint startX, jint startY, jint startZ, jbyteArray startT, jobjectArray offsets, jbyteArray expiration) {
+
+	uint8_t buffer[512];
+	jint length = encode_MobilityRequest_to_buffer(env, senderId, targetId, senderBSMId, planId, timestamp, strategy, planType, urgency,
+			currentX, currentY, currentZ, currentT, strategyParams, startX, startY, startZ, startT, offsets, expiration, buffer, sizeof(buffer));
+	if(length == -1) {
 		return NULL;
 	}
 
 	//copy back to java output
-	jsize length = ec.encoded / 8;
 	jbyteArray outputJNIArray = (*env) -> NewByteArray(env, length);
 	if(outputJNIArray == NULL) {
 		return NULL;
@@ -500,148 +820,199 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 }
 
 /**
- * Mobility Reuqest Decoder:
- * This function can decode a byte array in J2735 standards to
- * a messageFrame structure and map to a ROS MobilityRequest object.
- * Return -1 means an error has happened; return 0 means decoding succeed.
+ * MobilityRequest Direct Buffer Encoder:
+ * Same as the MobilityRequest Encoder, but the encoded message is written straight into a direct ByteBuffer.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
  */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_encodeMobilityRequestDirect
+  (JNIEnv *env, jobject cls, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBSMId,
+   jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jint planType, jint urgency,
+   jint currentX, jint currentY, jint currentZ, jbyteArray currentT, jbyteArray strategyParams,
+   jint startX, jint startY, jint startZ, jbyteArray startT, jobjectArray offsets, jbyteArray expiration,
+   jobject encodedBuffer) {
 
-JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
-  (JNIEnv *env, jobject cls, jbyteArray encodedReq, jobject request, jbyteArray senderId, jbyteArray targetId,
+	uint8_t *buffer = (*env) -> GetDirectBufferAddress(env, encodedBuffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encodedBuffer);
+	if(buffer == NULL || capacity < 0) {
+		return -1;
+	}
+	return encode_MobilityRequest_to_buffer(env, senderId, targetId, senderBSMId, planId, timestamp, strategy, planType, urgency,
+			currentX, currentY, currentZ, currentT, strategyParams, startX, startY, startZ, startT, offsets, expiration, buffer, (size_t) capacity);
+}
+
+/**
+ * Decodes a MobilityRequest from the buffer and maps it to the Java output arguments.
+ * A well formed frame of another message type is rejected.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+static jint decode_MobilityRequest_from_buffer
+  (JNIEnv *env, const void *buf, size_t len, jobject request, jbyteArray senderId, jbyteArray targetId,
    jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType,
    jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation,
    jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
 
-	//Build a log in test file to debug if necessary
-	//FILE *fp;
-	//fp = fopen("/home/qsw/carma/log_C.txt", "w");
-	//fprintf(fp, "decodeMobilityRequest function is called\n");
-
 	asn_dec_rval_t rval; /* Decoder return value */
 	MessageFrame_t *message = 0; /* Construct MessageFrame */
 
-	int len = (*env) -> GetArrayLength(env, encodedReq); /* Number of bytes in encoded mobility request */
-	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedReq, 0); /* Get Java byte array content */
-	char buf[len]; /* Input buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-	    buf[i] = encodedMsg[i];
-	} /* Copy into buffer */
 	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
+	if(rval.code != RC_OK || message -> value.present != MessageFrame__value_PR_TestMessage00) {
+		ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+		return -1;
+	}
 
-	if(rval.code == RC_OK) {
-		//get jclass of each jobject
-		jclass mobility_class = (*env) -> GetObjectClass(env, request);
-		jclass plan_type_class = (*env) -> GetObjectClass(env, planType);
-		jclass current_location_class = (*env) -> GetObjectClass(env, location);
-		jclass start_location_class = (*env) -> GetObjectClass(env, startLocation);
+	//get jclass of each jobject
+	jclass mobility_class = (*env) -> GetObjectClass(env, request);
+	jclass plan_type_class = (*env) -> GetObjectClass(env, planType);
+	jclass current_location_class = (*env) -> GetObjectClass(env, location);
+	jclass start_location_class = (*env) -> GetObjectClass(env, startLocation);
+
+	//set senderId, targetId, bsmId, planId and creation timestamp
+	uint8_t *sender_id_content = message -> value.choice.TestMessage00.header.hostStaticId.buf;
+	size_t sender_id_size = message -> value.choice.TestMessage00.header.hostStaticId.size;
+	(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
+	uint8_t *target_id_content = message -> value.choice.TestMessage00.header.targetStaticId.buf;
+	size_t target_id_size = message -> value.choice.TestMessage00.header.targetStaticId.size;
+	(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
+	uint8_t *bsm_id_content = message -> value.choice.TestMessage00.header.hostBSMId.buf;
+	(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
+	uint8_t *plan_id_content = message -> value.choice.TestMessage00.header.planId.buf;
+	(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
+	uint8_t *creation_time_content = message -> value.choice.TestMessage00.header.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
 
-		//set senderId, targetId, bsmId, planId and creation timestamp
-		uint8_t *sender_id_content = message -> value.choice.TestMessage00.header.hostStaticId.buf;
-		size_t sender_id_size = message -> value.choice.TestMessage00.header.hostStaticId.size;
-		(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
-		uint8_t *target_id_content = message -> value.choice.TestMessage00.header.targetStaticId.buf;
-		size_t target_id_size = message -> value.choice.TestMessage00.header.targetStaticId.size;
-		(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
-		uint8_t *bsm_id_content = message -> value.choice.TestMessage00.header.hostBSMId.buf;
-		(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
-		uint8_t *plan_id_content = message -> value.choice.TestMessage00.header.planId.buf;
-		(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
-		uint8_t *creation_time_content = message -> value.choice.TestMessage00.header.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+	//set strategy string
+	uint8_t *strategy_content = message -> value.choice.TestMessage00.body.strategy.buf;
+	size_t strategy_size = message -> value.choice.TestMessage00.body.strategy.size;
+	(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
 
-		//set strategy string
-		uint8_t *strategy_content = message -> value.choice.TestMessage00.body.strategy.buf;
-		size_t strategy_size = message -> value.choice.TestMessage00.body.strategy.size;
-		(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
+	//set plan type
+	jmethodID mid_setPlanType = (*env) -> GetMethodID(env, plan_type_class, "setType", "(B)V");
+	jbyte plan_type = message -> value.choice.TestMessage00.body.planType;
+	(*env) -> CallVoidMethod(env, planType, mid_setPlanType, plan_type);
+
+	//set urgency
+	jmethodID mid_setUrgency = (*env) -> GetMethodID(env, mobility_class, "setUrgency", "(S)V");
+	jshort urgency_value = message -> value.choice.TestMessage00.body.urgency;
+	(*env) -> CallVoidMethod(env, request, mid_setUrgency, urgency_value);
+
+	//set current location in ECEF frame
+	jmethodID mid_setEcefX = (*env) -> GetMethodID(env, current_location_class, "setEcefX", "(I)V");
+	jmethodID mid_setEcefY = (*env) -> GetMethodID(env, current_location_class, "setEcefY", "(I)V");
+	jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, current_location_class, "setEcefZ", "(I)V");
+	jint ecef_x = message -> value.choice.TestMessage00.body.location.ecefX;
+	jint ecef_y = message -> value.choice.TestMessage00.body.location.ecefY;
+	jint ecef_z = message -> value.choice.TestMessage00.body.location.ecefZ;
+	(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
+	uint8_t *location_time_content = message -> value.choice.TestMessage00.body.location.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
 
-		//set plan type
-		jmethodID mid_setPlanType = (*env) -> GetMethodID(env, plan_type_class, "setType", "(B)V");
-		jbyte plan_type = message -> value.choice.TestMessage00.body.planType;
-		(*env) -> CallVoidMethod(env, planType, mid_setPlanType, plan_type);
+	//set strategy parameters
+	uint8_t *strategy_params_content = message -> value.choice.TestMessage00.body.strategyParams.buf;
+	size_t strategy_params_size = message -> value.choice.TestMessage00.body.strategyParams.size;
+	(*env) -> SetByteArrayRegion(env, strategyParams, 0, strategy_params_size, strategy_params_content);
+
+	//set trajectory start location if necessary
+	if(message -> value.choice.TestMessage00.body.trajectoryStart) {
+		jint start_ecef_x = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefX;
+		jint start_ecef_y = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefY;
+		jint start_ecef_z = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefZ;
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefX, start_ecef_x);
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefY, start_ecef_y);
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefZ, start_ecef_z);
+		uint8_t *start_location_time_content = message -> value.choice.TestMessage00.body.trajectoryStart -> timestamp.buf;
+		(*env) -> SetByteArrayRegion(env, startTimestamp, 0, 19, start_location_time_content);
+	}
+
+	// set trajectory offset data if necessary
+	if(message -> value.choice.TestMessage00.body.trajectory) {
+		jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
+		jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
+		jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
+		int count = message -> value.choice.TestMessage00.body.trajectory -> list.count;
+		int temp_offsets_X[60] = {0};
+		int temp_offsets_Y[60] = {0};
+		int temp_offsets_Z[60] = {0};
+		for(int i = 0; i < count; i++) {
+			temp_offsets_X[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetX;
+			temp_offsets_Y[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetY;
+			temp_offsets_Z[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetZ;
+		}
+		(*env) -> SetIntArrayRegion(env, offsets_X, 0, 60, temp_offsets_X);
+		(*env) -> SetIntArrayRegion(env, offsets_Y, 0, 60, temp_offsets_Y);
+		(*env) -> SetIntArrayRegion(env, offsets_Z, 0, 60, temp_offsets_Z);
+		(*env) -> DeleteLocalRef(env, offsets_X);
+		(*env) -> DeleteLocalRef(env, offsets_Y);
+		(*env) -> DeleteLocalRef(env, offsets_Z);
+	}
 
-		//set urgency
-		jmethodID mid_setUrgency = (*env) -> GetMethodID(env, mobility_class, "setUrgency", "(S)V");
-		jshort urgency_value = message -> value.choice.TestMessage00.body.urgency;
-		(*env) -> CallVoidMethod(env, request, mid_setUrgency, urgency_value);
+	if(message -> value.choice.TestMessage00.body.expiration) {
+		uint8_t *expiration_time_content = message -> value.choice.TestMessage00.body.expiration -> buf;
+		(*env) -> SetByteArrayRegion(env, expiration, 0, 19, expiration_time_content);
+	}
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
+}
 
-		//set current location in ECEF frame
-		jmethodID mid_setEcefX = (*env) -> GetMethodID(env, current_location_class, "setEcefX", "(I)V");
-		jmethodID mid_setEcefY = (*env) -> GetMethodID(env, current_location_class, "setEcefY", "(I)V");
-		jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, current_location_class, "setEcefZ", "(I)V");
-		jint ecef_x = message -> value.choice.TestMessage00.body.location.ecefX;
-		jint ecef_y = message -> value.choice.TestMessage00.body.location.ecefY;
-		jint ecef_z = message -> value.choice.TestMessage00.body.location.ecefZ;
-		(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
-		uint8_t *location_time_content = message -> value.choice.TestMessage00.body.location.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
+/**
+ * Mobility Reuqest Decoder:
+ * This function can decode a byte array in J2735 standards to
+ * a messageFrame structure and map to a ROS MobilityRequest object.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
+  (JNIEnv *env, jobject cls, jbyteArray encodedReq, jobject request, jbyteArray senderId, jbyteArray targetId,
+   jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType,
+   jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation,
+   jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
 
-		//set strategy parameters
-		uint8_t *strategy_params_content = message -> value.choice.TestMessage00.body.strategyParams.buf;
-		size_t strategy_params_size = message -> value.choice.TestMessage00.body.strategyParams.size;
-		(*env) -> SetByteArrayRegion(env, strategyParams, 0, strategy_params_size, strategy_params_content);
-
-		//set trajectory start location if necessary
-		if(message -> value.choice.TestMessage00.body.trajectoryStart) {
-			jint start_ecef_x = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefX;
-			jint start_ecef_y = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefY;
-			jint start_ecef_z = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefZ;
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefX, start_ecef_x);
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefY, start_ecef_y);
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefZ, start_ecef_z);
-			uint8_t *start_location_time_content = message -> value.choice.TestMessage00.body.trajectoryStart -> timestamp.buf;
-			(*env) -> SetByteArrayRegion(env, startTimestamp, 0, 19, start_location_time_content);
-		}
+	int len = (*env) -> GetArrayLength(env, encodedReq); /* Number of bytes in encoded mobility request */
+	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedReq, 0); /* Get Java byte array content */
+	if(encodedMsg == NULL) {
+		return -1;
+	}
+	jint result = decode_MobilityRequest_from_buffer(env, encodedMsg, len, request, senderId, targetId, bsmId, planId, timestamp, strategy,
+			planType, location, locationTimestamp, strategyParams, startLocation, startTimestamp, trajectoryOffsets, expiration);
+	(*env) -> ReleaseByteArrayElements(env, encodedReq, encodedMsg, JNI_ABORT);
+	return result;
+}
 
-		// set trajectory offset data if necessary
-		if(message -> value.choice.TestMessage00.body.trajectory) {
-			jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
-			jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
-			jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
-			int count = message -> value.choice.TestMessage00.body.trajectory -> list.count;
-			int temp_offsets_X[60] = {0};
-			int temp_offsets_Y[60] = {0};
-			int temp_offsets_Z[60] = {0};
-			for(int i = 0; i < count; i++) {
-				temp_offsets_X[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetX;
-				temp_offsets_Y[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetY;
-				temp_offsets_Z[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetZ;
-			}
-			(*env) -> SetIntArrayRegion(env, offsets_X, 0, 60, temp_offsets_X);
-			(*env) -> SetIntArrayRegion(env, offsets_Y, 0, 60, temp_offsets_Y);
-			(*env) -> SetIntArrayRegion(env, offsets_Z, 0, 60, temp_offsets_Z);
-			(*env) -> DeleteLocalRef(env, offsets_X);
-			(*env) -> DeleteLocalRef(env, offsets_Y);
-			(*env) -> DeleteLocalRef(env, offsets_Z);
-		}
+/**
+ * Mobility Request Direct Buffer Decoder:
+ * Same as the MobilityRequest Decoder, but the encoded message is read straight from the first length bytes
+ * of a direct ByteBuffer.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequestDirect
+  (JNIEnv *env, jobject cls, jobject encodedBuffer, jint length, jobject request, jbyteArray senderId, jbyteArray targetId,
+   jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType,
+   jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation,
+   jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
 
-		if(message -> value.choice.TestMessage00.body.expiration) {
-			uint8_t *expiration_time_content = message -> value.choice.TestMessage00.body.expiration -> buf;
-			(*env) -> SetByteArrayRegion(env, expiration, 0, 19, expiration_time_content);
-		}
-	} else {
+	uint8_t *buf = (*env) -> GetDirectBufferAddress(env, encodedBuffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encodedBuffer);
+	if(buf == NULL || length < 0 || length > capacity) {
 		return -1;
 	}
-	return 0;
+	return decode_MobilityRequest_from_buffer(env, buf, length, request, senderId, targetId, bsmId, planId, timestamp, strategy,
+			planType, location, locationTimestamp, strategyParams, startLocation, startTimestamp, trajectoryOffsets, expiration);
 }
 
 
-/*
- * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
- * Method:    encodeMobilityPath
- * Signature: ([B[B[B[B[B[BIII[[I)[B
+/**
+ * Builds a MobilityPath MessageFrame from the Java fields and encodes it into the buffer.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
  */
-JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_encodeMobilityPath
-  (JNIEnv *env, jobject obj, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBsmId, jbyteArray planId, jbyteArray timestamp, jint startX, jint startY, jint startZ, jbyteArray locationTimestamp, jobjectArray offsets) {
-	uint8_t buffer[512];
-	size_t buffer_size = sizeof(buffer);
+static jint encode_MobilityPath_to_buffer
+  (JNIEnv *env, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBsmId, jbyteArray planId, jbyteArray timestamp, jint startX, jint startY, jint startZ, jbyteArray locationTimestamp, jobjectArray offsets,
+   uint8_t *buffer, size_t buffer_size) {
 	asn_enc_rval_t ec;
 	MessageFrame_t *message;
 
 	message = calloc(1, sizeof(MessageFrame_t));
 	if (!message) {
-		return NULL;
+		return -1;
 	}
 
 	//set default value of testmessage02
@@ -652,7 +1023,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize sender_string_size = (*env) -> GetArrayLength(env, senderId);
 	jbyte *sender_string = (*env) -> GetByteArrayElements(env, senderId, 0);
 	if (sender_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t sender_string_content[sender_string_size];
 	for (int i = 0; i < sender_string_size; i++) {
@@ -666,7 +1037,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	jsize target_string_size = (*env) -> GetArrayLength(env, targetId);
 	jbyte *target_string = (*env) -> GetByteArrayElements(env, targetId, 0);
 	if (target_string == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t target_string_content[target_string_size];
 	for (int i = 0; i < target_string_size; i++) {
@@ -679,7 +1050,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set hostBSMId in header
 	jbyte *bsm_string = (*env) -> GetByteArrayElements(env, senderBsmId, 0);
 	if(bsm_string == NULL) {
-	    return NULL;
+	    return -1;
 	}
 	uint8_t host_bsm_id_content[8] = {0};
 	for(int i = 0; i < 8; i++) {
@@ -692,7 +1063,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set planId in header
 	jbyte *plan_id = (*env) -> GetByteArrayElements(env, planId, 0);
 	if (plan_id == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t plan_id_content[36] = {0};
 	for (int i = 0; i < 36; i++) {
@@ -705,7 +1076,7 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	//set timestamp
 	jbyte *time = (*env) -> GetByteArrayElements(env, timestamp, 0);
 	if (time == NULL) {
-		return NULL;
+		return -1;
 	}
 	uint8_t time_content[19] = {0};
 	for (int i = 0; i < 19; i++) {
@@ -777,11 +1148,27 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, message, buffer, buffer_size);
 	if(ec.encoded == -1) {
 		//fprintf(fp, "!!!%s", ec.failed_type->name);
+		return -1;
+	}
+
+	return ec.encoded / 8;
+}
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    encodeMobilityPath
+ * Signature: ([B[B[B[B[B[BIII[[I)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_encodeMobilityPath
+  (JNIEnv *env, jobject obj, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBsmId, jbyteArray planId, jbyteArray timestamp, jint startX, jint startY, jint startZ, jbyteArray locationTimestamp, jobjectArray offsets) {
+	uint8_t buffer[512];
+	jint length = encode_MobilityPath_to_buffer(env, senderId, targetId, senderBsmId, planId, timestamp,
+			startX, startY, startZ, locationTimestamp, offsets, buffer, sizeof(buffer));
+	if(length == -1) {
 		return NULL;
 	}
 
 	//copy back to java output
-	jsize length = ec.encoded / 8;
 	jbyteArray outputJNIArray = (*env) -> NewByteArray(env, length);
 	if(outputJNIArray == NULL) {
 		return NULL;
@@ -792,20 +1179,31 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
- * Method:    decodeMobilityPath
- * Signature: ([BLjava/lang/Object;[B[B[B[B[B[BLjava/lang/Object;[[I)I
+ * Method:    encodeMobilityPathDirect
+ * Signature: ([B[B[B[B[BIII[B[[ILjava/nio/ByteBuffer;)I
+ * Same as encodeMobilityPath, but the encoded message is written straight into a direct ByteBuffer.
+ * Return -1 means an error has happened; otherwise the number of bytes written is returned.
  */
-JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPath
-  (JNIEnv *env, jobject this, jbyteArray encodedArray, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_encodeMobilityPathDirect
+  (JNIEnv *env, jobject obj, jbyteArray senderId, jbyteArray targetId, jbyteArray senderBsmId, jbyteArray planId, jbyteArray timestamp, jint startX, jint startY, jint startZ, jbyteArray locationTimestamp, jobjectArray offsets, jobject encodedBuffer) {
+	uint8_t *buffer = (*env) -> GetDirectBufferAddress(env, encodedBuffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encodedBuffer);
+	if(buffer == NULL || capacity < 0) {
+		return -1;
+	}
+	return encode_MobilityPath_to_buffer(env, senderId, targetId, senderBsmId, planId, timestamp,
+			startX, startY, startZ, locationTimestamp, offsets, buffer, (size_t) capacity);
+  }
+
+/**
+ * Decodes a MobilityPath from the buffer and maps it to the Java output arguments.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+static jint decode_MobilityPath_from_buffer
+  (JNIEnv *env, const void *buf, size_t len, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
 	asn_dec_rval_t rval; /* Decoder return value */
 	MessageFrame_t *message = 0; /* Construct MessageFrame */
 
-	int len = (*env) -> GetArrayLength(env, encodedArray); /* Number of bytes in encoded mobility path */
-	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedArray, 0); /* Get Java byte array content */
-	char buf[len]; /* Input buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-	    buf[i] = encodedMsg[i];
-	} /* Copy into buffer */
 	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
 	if(rval.code == RC_OK) {
 		jclass start_location_class = (*env) -> GetObjectClass(env, location);
@@ -864,6 +1262,41 @@ JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPa
 	}
   }
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPath
+ * Signature: ([BLjava/lang/Object;[B[B[B[B[B[BLjava/lang/Object;[[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPath
+  (JNIEnv *env, jobject this, jbyteArray encodedArray, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
+	int len = (*env) -> GetArrayLength(env, encodedArray); /* Number of bytes in encoded mobility path */
+	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedArray, 0); /* Get Java byte array content */
+	if(encodedMsg == NULL) {
+		return -1;
+	}
+	jint result = decode_MobilityPath_from_buffer(env, encodedMsg, len, pathObj, senderId, targetId, bsmId, planId,
+			timestamp, location, locationTimestamp, trajectoryOffsets);
+	(*env) -> ReleaseByteArrayElements(env, encodedArray, encodedMsg, JNI_ABORT);
+	return result;
+  }
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[[I)I
+ * Same as decodeMobilityPath, but the encoded message is read straight from the first length bytes of a direct ByteBuffer.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathDirect
+  (JNIEnv *env, jobject this, jobject encodedBuffer, jint length, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
+	uint8_t *buf = (*env) -> GetDirectBufferAddress(env, encodedBuffer);
+	jlong capacity = (*env) -> GetDirectBufferCapacity(env, encodedBuffer);
+	if(buf == NULL || length < 0 || length > capacity) {
+		return -1;
+	}
+	return decode_MobilityPath_from_buffer(env, buf, length, pathObj, senderId, targetId, bsmId, planId,
+			timestamp, location, locationTimestamp, trajectoryOffsets);
+  }
+
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityResponseMessage
  * Method:    encodeMobilityResponse
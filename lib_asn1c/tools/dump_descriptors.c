@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+/*
+ * Lists the asn1c type descriptors reachable from asn_DEF_MessageFrame in a prebuilt libasn1c library.
+ * The listing is the input of gen_headers.py, which generates MessageFrame.h.
+ * CMakeLists.txt builds this for the target and runs it on the prebuilt library at build time:
+ *   dump_descriptors ../third_party_lib/libasn1c_x64.so descriptors.txt
+ * The listing is written to stdout if no output file is given.
+ *
+ * Each type is listed as
+ *   T <id> <exported symbol or -> <ASN.1 name> <runtime type> <struct size and offsets or integer values>
+ * followed by one line per member
+ *   M <parent id> <member name> <flags> <member offset> <member type id>
+ */
+
+#define _GNU_SOURCE
+#include <dlfcn.h>
+#include <stdio.h>
+#include <string.h>
+
+/* Mirrors of the asn1c runtime structures, as built with the ticket listed in libasn1c_update.txt */
+typedef struct descriptor {
+	const char *name;
+	const char *xml_tag;
+	const void *op;
+	const void *tags;
+	unsigned tags_count;
+	const void *all_tags;
+	unsigned all_tags_count;
+	const void *oer_constraints;
+	const void *per_constraints;
+	const void *general_constraints;
+	const struct member *elements;
+	unsigned elements_count;
+	const void *specifics;
+} descriptor_t;
+
+typedef struct member {
+	unsigned flags;
+	unsigned optional;
+	unsigned memb_offset;
+	unsigned tag;
+	int tag_mode;
+	const descriptor_t *type;
+	const void *type_selector;
+	const void *oer_constraints;
+	const void *per_constraints;
+	const void *general_constraints;
+	const void *default_value_cmp;
+	const void *default_value_set;
+	const char *name;
+} member_t;
+
+typedef struct {
+	long nat_value;
+	size_t enum_len;
+	const char *enum_name;
+} enum_map_t;
+
+typedef struct {
+	const enum_map_t *value2enum;
+	const unsigned *enum2value;
+	int map_count;
+	int extension;
+	int strict_enumeration;
+	int field_width;
+	int field_unsigned;
+} integer_specifics_t;
+
+#define MAX_TYPES 4096
+
+static const descriptor_t *types[MAX_TYPES];
+static int num_types;
+
+static int type_id(const descriptor_t *type) {
+	for(int i = 0; i < num_types; i++) {
+		if(types[i] == type) {
+			return i;
+		}
+	}
+	return -1;
+}
+
+static int visit(const descriptor_t *type) {
+	int id = type_id(type);
+	if(id >= 0) {
+		return id;
+	}
+	if(num_types == MAX_TYPES) {
+		fprintf(stderr, "Too many types\n");
+		return -1;
+	}
+	id = num_types++;
+	types[id] = type;
+	for(unsigned i = 0; i < type -> elements_count; i++) {
+		visit(type -> elements[i].type);
+	}
+	return id;
+}
+
+/* The exported symbol at exactly this address, or NULL */
+static const char *symbol_name(const void *address) {
+	Dl_info info;
+	if(dladdr(address, &info) && info.dli_sname && info.dli_saddr == address) {
+		return info.dli_sname;
+	}
+	return NULL;
+}
+
+int main(int argc, char **argv) {
+	if(argc != 2 && argc != 3) {
+		fprintf(stderr, "Usage: %s <libasn1c.so> [output]\n", argv[0]);
+		return 1;
+	}
+	if(argc == 3 && !freopen(argv[2], "w", stdout)) {
+		perror(argv[2]);
+		return 1;
+	}
+	void *library = dlopen(argv[1], RTLD_NOW | RTLD_LOCAL);
+	if(!library) {
+		fprintf(stderr, "%s\n", dlerror());
+		return 1;
+	}
+	const descriptor_t *root = dlsym(library, "asn_DEF_MessageFrame");
+	if(!root) {
+		fprintf(stderr, "asn_DEF_MessageFrame not found\n");
+		return 1;
+	}
+	visit(root);
+
+	for(int id = 0; id < num_types; id++) {
+		const descriptor_t *type = types[id];
+		const char *symbol = symbol_name(type);
+		/* Operation tables are exported as asn_OP_<runtime type> */
+		const char *op = symbol_name(type -> op);
+		if(!op || strncmp(op, "asn_OP_", 7) != 0) {
+			fprintf(stderr, "Unknown operations for %s\n", type -> name);
+			return 1;
+		}
+		op += 7;
+		printf("T\t%d\t%s\t%s\t%s", id, symbol ? symbol : "-", type -> name, op);
+
+		const unsigned *specifics = type -> specifics;
+		if(!strcmp(op, "SEQUENCE") || !strcmp(op, "SET") || !strcmp(op, "SEQUENCE_OF") || !strcmp(op, "SET_OF")) {
+			/* struct_size, ctx_offset */
+			printf("\t%u\t%u", specifics[0], specifics[1]);
+		} else if(!strcmp(op, "CHOICE") || !strcmp(op, "OPEN_TYPE")) {
+			/* struct_size, ctx_offset, pres_offset, pres_size */
+			printf("\t%u\t%u\t%u\t%u", specifics[0], specifics[1], specifics[2], specifics[3]);
+		} else if(specifics && (!strcmp(op, "NativeInteger") || !strcmp(op, "NativeEnumerated") || !strcmp(op, "INTEGER"))) {
+			const integer_specifics_t *integer = type -> specifics;
+			for(int i = 0; i < integer -> map_count; i++) {
+				printf("\t%ld=%s", integer -> value2enum[i].nat_value, integer -> value2enum[i].enum_name);
+			}
+		}
+		printf("\n");
+
+		for(unsigned i = 0; i < type -> elements_count; i++) {
+			const member_t *member = &type -> elements[i];
+			printf("M\t%d\t%s\t%u\t%u\t%d\n", id, member -> name, member -> flags, member -> memb_offset,
+					type_id(member -> type));
+		}
+	}
+	return 0;
+}
@@ -0,0 +1,207 @@
+#!/usr/bin/env python3
+"""
+Generates the J2735 type declarations needed to compile wrapper.c against the prebuilt asn1c runtime
+
+The descriptor listing is produced by dump_descriptors.c from the asn_DEF_* tables exported by the
+prebuilt library for the target. Every struct is checked against the sizes and offsets recorded in
+those tables, so the build fails if the declarations ever drift from the library.
+CMakeLists.txt runs this at build time and writes the header into the build tree.
+
+Usage: gen_headers.py <descriptor listing> <output header>
+"""
+
+import sys
+
+C_KEYWORDS = {
+    "auto", "break", "case", "char", "const", "continue", "default", "do", "double", "else", "enum",
+    "extern", "float", "for", "goto", "if", "int", "long", "register", "return", "short", "signed",
+    "sizeof", "static", "struct", "switch", "typedef", "union", "unsigned", "void", "volatile", "while",
+}
+
+PRIMITIVES = {
+    "NativeInteger": "long",
+    "NativeEnumerated": "long",
+    "INTEGER": "INTEGER_t",
+    "OCTET_STRING": "OCTET_STRING_t",
+    "IA5String": "IA5String_t",
+    "BIT_STRING": "BIT_STRING_t",
+    "BOOLEAN": "BOOLEAN_t",
+    "ANY": "ANY_t",
+}
+
+ATF_POINTER = 1
+
+
+def ident(name):
+    name = name.replace("-", "_")
+    if name in C_KEYWORDS:
+        name = name[0].upper() + name[1:]
+    return name
+
+
+class Type(object):
+    def __init__(self, fields):
+        self.id = int(fields[1])
+        self.symbol = fields[2]
+        self.name = fields[3]
+        self.op = fields[4]
+        self.spec = fields[5:]
+        self.members = []
+        self.cname = self.symbol[len("asn_DEF_"):] if self.symbol != "-" else None
+
+    def primitive(self):
+        return self.op in PRIMITIVES
+
+
+class Member(object):
+    def __init__(self, fields):
+        self.name = fields[2]
+        self.flags = int(fields[3])
+        self.offset = int(fields[4])
+        self.type = int(fields[5])
+
+
+def load(path):
+    types = {}
+    with open(path) as f:
+        for line in f:
+            fields = line.rstrip("\n").split("\t")
+            if fields[0] == "T":
+                t = Type(fields)
+                types[t.id] = t
+            elif fields[0] == "M":
+                types[int(fields[1])].members.append(Member(fields))
+    return types
+
+
+class Generator(object):
+    def __init__(self, types):
+        self.types = types
+        self.out = []
+        self.asserts = []
+        self.emitted = set()
+
+    def member_type(self, member, parent_cname, nested_name):
+        t = self.types[member.type]
+        pointer = member.flags & ATF_POINTER
+        if t.cname is None:
+            if t.primitive():
+                raise ValueError("Unnamed primitive member " + parent_cname + "." + member.name)
+            if t.id not in self.emitted:
+                t.cname = nested_name
+                self.emit(t)
+            return "struct " + t.cname + (" *" if pointer else " ")
+        if t.primitive():
+            return t.cname + "_t" + (" *" if pointer else " ")
+        if pointer:
+            return "struct " + t.cname + " *"
+        self.emit(t)
+        return t.cname + "_t "
+
+    def emit_primitive(self, t):
+        self.out.append("typedef %s %s_t;" % (PRIMITIVES[t.op], t.cname))
+        values = [v.split("=", 1) for v in t.spec if "=" in v]
+        if values:
+            self.out.append("typedef enum %s {" % t.cname)
+            self.out.append(",\n".join("\t%s_%s = %s" % (t.cname, ident(n), v) for v, n in values))
+            self.out.append("} e_%s;" % t.cname)
+
+    def check(self, struct, member_path, offset):
+        self.asserts.append("ASN_CHECK_LAYOUT(offsetof(struct %s, %s) == %d);" % (struct, member_path, offset))
+
+    def emit(self, t):
+        if t.id in self.emitted:
+            return
+        self.emitted.add(t.id)
+        name = t.cname
+        size, ctx = int(t.spec[0]), int(t.spec[1])
+        body = []
+        if t.op in ("SEQUENCE", "SET"):
+            for m in t.members:
+                field = ident(m.name)
+                body.append("\t%s%s;" % (self.member_type(m, name, name + "__" + field), field))
+                self.check(name, field, m.offset)
+        elif t.op in ("SEQUENCE_OF", "SET_OF"):
+            m = t.members[0]
+            ctype = self.member_type(m, name, name + "__" + ident(m.name or "Member")).rstrip(" *")
+            body.append("\tA_%s_OF(%s) list;" % ("SET" if t.op == "SET_OF" else "SEQUENCE", ctype))
+        elif t.op in ("CHOICE", "OPEN_TYPE"):
+            pres_offset, pres_size = int(t.spec[2]), int(t.spec[3])
+            alternatives = []
+            for m in t.members:
+                field = ident(m.name)
+                alternatives.append("\t\t%s%s;" % (self.member_type(m, name, name + "__" + field), field))
+                self.check(name, "choice." + field, m.offset)
+            self.out.append("typedef enum %s_PR {" % name)
+            self.out.append(",\n".join(["\t%s_PR_NOTHING" % name] +
+                                       ["\t%s_PR_%s" % (name, ident(m.name)) for m in t.members]))
+            self.out.append("} %s_PR;" % name)
+            body.append("\t%s_PR present;" % name)
+            body.append("\tunion %s_u {" % name)
+            body.extend(alternatives)
+            body.append("\t} choice;")
+            self.check(name, "present", pres_offset)
+            self.asserts.append("ASN_CHECK_LAYOUT(sizeof(((struct %s *)0)->present) == %d);" % (name, pres_size))
+        else:
+            raise ValueError("Unsupported constructed type " + t.op)
+        body.append("\tasn_struct_ctx_t _asn_ctx;")
+        self.out.append("typedef struct %s {" % name)
+        self.out.extend(body)
+        self.out.append("} %s_t;" % name)
+        self.out.append("")
+        self.check(name, "_asn_ctx", ctx)
+        self.asserts.append("ASN_CHECK_LAYOUT(sizeof(struct %s) == %d);" % (name, size))
+
+    def generate(self):
+        named = sorted((t for t in self.types.values() if t.cname), key=lambda t: t.cname)
+        for t in named:
+            if t.primitive():
+                self.emit_primitive(t)
+        self.out.append("")
+        for t in named:
+            if not t.primitive():
+                self.out.append("struct %s;" % t.cname)
+        self.out.append("")
+        for t in sorted(self.types.values(), key=lambda t: t.id):
+            if t.cname and not t.primitive():
+                self.emit(t)
+        externs = ["extern asn_TYPE_descriptor_t %s;" % t.symbol for t in named]
+        return self.out, externs, self.asserts
+
+
+HEADER = """/*
+ * Generated at build time by tools/gen_headers.py from the type descriptors exported by the prebuilt asn1c library
+ * Do not edit by hand. See third_party_lib/libasn1c_update.txt
+ */
+
+#ifndef _MessageFrame_H_
+#define _MessageFrame_H_
+
+#include "asn_runtime.h"
+
+"""
+
+FOOTER = """
+/* Fails the build if these declarations do not match the layout of the prebuilt library */
+#define ASN_CHECK_LAYOUT(expr) _Static_assert(expr, #expr)
+%s
+#undef ASN_CHECK_LAYOUT
+
+#endif /* _MessageFrame_H_ */
+"""
+
+
+def main():
+    types = load(sys.argv[1])
+    body, externs, asserts = Generator(types).generate()
+    with open(sys.argv[2], "w") as f:
+        f.write(HEADER)
+        f.write("\n".join(body))
+        f.write("\n")
+        f.write("\n".join(externs))
+        f.write("\n")
+        f.write(FOOTER % "\n".join(asserts))
+
+
+if __name__ == "__main__":
+    main()